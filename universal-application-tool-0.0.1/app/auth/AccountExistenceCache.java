@@ -0,0 +1,74 @@
+package auth;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.typesafe.config.Config;
+import java.time.Duration;
+import java.util.Optional;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Remembers, for a short while, the IDs of accounts this server has recently loaded, so that the
+ * {@link filters.ValidAccountFilter} does not have to look up the account of every request.
+ *
+ * <p>Only accounts that exist are remembered, never missing ones, so a new account is never
+ * reported as missing. An account deleted on this server must be {@link #invalidate}d. One deleted
+ * by another server is still reported as existing for up to the TTL, after which the filter looks
+ * it up again.
+ *
+ * <p>Each account's {@link models.Account#getApplicantsVersion applicants version} is remembered
+ * with it, so that a profile's list of the account's applicants is only trusted while it is
+ * current. The same TTL applies to a version advanced by another server.
+ */
+@Singleton
+public final class AccountExistenceCache {
+  private static final String TTL_CONF_PATH = "account_existence_cache.ttl";
+  private static final int MAX_ACCOUNTS = 100_000;
+
+  /** The applicants version of each account, by account ID. */
+  private final Cache<Long, Long> accountIds;
+
+  @Inject
+  public AccountExistenceCache(Config config) {
+    this(config.getDuration(TTL_CONF_PATH), Ticker.systemTicker());
+  }
+
+  AccountExistenceCache(Duration ttl, Ticker ticker) {
+    this.accountIds =
+        CacheBuilder.newBuilder()
+            .maximumSize(MAX_ACCOUNTS)
+            .expireAfterWrite(ttl)
+            .ticker(ticker)
+            .build();
+  }
+
+  /** True if the account was loaded within the TTL and has not been invalidated since. */
+  public boolean isKnownToExist(long accountId) {
+    return accountIds.getIfPresent(accountId) != null;
+  }
+
+  /**
+   * The account's applicants version when it was last loaded, if that was within the TTL and it has
+   * not been invalidated since.
+   */
+  public Optional<Long> knownApplicantsVersion(long accountId) {
+    return Optional.ofNullable(accountIds.getIfPresent(accountId));
+  }
+
+  /** Records that the account was just loaded, which starts its TTL again. */
+  public void markExists(long accountId, long applicantsVersion) {
+    accountIds.put(accountId, applicantsVersion);
+  }
+
+  /** Forgets the account, so that the next check looks it up. */
+  public void invalidate(long accountId) {
+    accountIds.invalidate(accountId);
+  }
+
+  /** Forgets every account, such as after the tables are cleared. */
+  public void invalidateAll() {
+    accountIds.invalidateAll();
+  }
+}
@@ -0,0 +1,127 @@
+package auth;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import org.pac4j.core.context.WebContext;
+import org.pac4j.core.util.Pac4jConstants;
+import org.pac4j.play.PlayWebContext;
+import org.pac4j.play.store.DataEncrypter;
+import org.pac4j.play.store.PlayCookieSessionStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link PlayCookieSessionStore} that writes the session with the {@link SessionCodec} instead of
+ * gzipped Java serialization, so the cookie is smaller and cheaper to read on every request. It is
+ * still encrypted with the {@link DataEncrypter}.
+ *
+ * <p>Sessions written by the {@link PlayCookieSessionStore} are still read, so that people stay
+ * signed in, and are written with the codec the next time they change.
+ *
+ * <p>pac4j reads the session several times for each request, each time with a new {@link
+ * WebContext}. The values read are remembered for the rest of the request, by the request's ID, so
+ * that the cookie is only decrypted and decoded once.
+ */
+public final class CompactCookieSessionStore extends PlayCookieSessionStore {
+  private static final Logger LOG = LoggerFactory.getLogger(CompactCookieSessionStore.class);
+  private static final int MAX_REMEMBERED_SESSIONS = 10_000;
+  private static final Duration REMEMBER_SESSION_FOR = Duration.ofMinutes(1);
+
+  private final DataEncrypter dataEncrypter;
+  private final Cache<DecodedKey, Map<String, Object>> decodedSessions =
+      CacheBuilder.newBuilder()
+          .maximumSize(MAX_REMEMBERED_SESSIONS)
+          .expireAfterWrite(REMEMBER_SESSION_FOR)
+          .build();
+
+  public CompactCookieSessionStore(DataEncrypter dataEncrypter) {
+    super(dataEncrypter);
+    this.dataEncrypter = checkNotNull(dataEncrypter);
+  }
+
+  @Override
+  protected Map<String, Object> getSessionValues(WebContext context) {
+    PlayWebContext playWebContext = (PlayWebContext) context;
+    Optional<String> cookie = playWebContext.getNativeSession().get(getSessionName());
+    if (cookie.isEmpty()) {
+      return new HashMap<>();
+    }
+    DecodedKey key = DecodedKey.create(playWebContext.getNativeJavaRequest().id(), cookie.get());
+    Map<String, Object> values = decodedSessions.getIfPresent(key);
+    if (values == null) {
+      values = decode(cookie.get());
+      decodedSessions.put(key, values);
+    }
+    return copy(values);
+  }
+
+  @Override
+  protected void putSessionValues(WebContext context, Map<String, Object> values) {
+    PlayWebContext playWebContext = (PlayWebContext) context;
+    if (values == null) {
+      playWebContext.setNativeSession(playWebContext.getNativeSession().removing(getSessionName()));
+      return;
+    }
+    String cookie =
+        Base64.getEncoder()
+            .encodeToString(dataEncrypter.encrypt(SessionCodec.encode(values, JAVA_SERIALIZER)));
+    playWebContext.setNativeSession(
+        playWebContext.getNativeSession().adding(getSessionName(), cookie));
+  }
+
+  /** The values in the cookie, or none if it cannot be read, as the superclass does. */
+  private Map<String, Object> decode(String cookie) {
+    byte[] decrypted = dataEncrypter.decrypt(Base64.getDecoder().decode(cookie));
+    if (decrypted == null || decrypted.length == 0) {
+      return new HashMap<>();
+    }
+    if (decrypted[0] != SessionCodec.FORMAT) {
+      // Written with gzipped Java serialization, before the codec.
+      @SuppressWarnings("unchecked")
+      Map<String, Object> values =
+          (Map<String, Object>) JAVA_SERIALIZER.deserializeFromBytes(uncompressBytes(decrypted));
+      return values == null ? new HashMap<>() : values;
+    }
+    try {
+      return SessionCodec.decode(decrypted, JAVA_SERIALIZER);
+    } catch (IOException e) {
+      LOG.warn("Could not read the session cookie", e);
+      return new HashMap<>();
+    }
+  }
+
+  /**
+   * A copy of remembered values, since pac4j changes the map it reads, and the map of profiles in
+   * it, before writing them back.
+   */
+  private static Map<String, Object> copy(Map<String, Object> values) {
+    Map<String, Object> copy = new HashMap<>(values);
+    Object profiles = copy.get(Pac4jConstants.USER_PROFILES);
+    if (profiles instanceof LinkedHashMap) {
+      copy.put(Pac4jConstants.USER_PROFILES, new LinkedHashMap<>((LinkedHashMap<?, ?>) profiles));
+    }
+    return copy;
+  }
+
+  /** A cookie read while handling a request. */
+  @AutoValue
+  abstract static class DecodedKey {
+    static DecodedKey create(long requestId, String cookie) {
+      return new AutoValue_CompactCookieSessionStore_DecodedKey(requestId, cookie);
+    }
+
+    abstract long requestId();
+
+    abstract String cookie();
+  }
+}
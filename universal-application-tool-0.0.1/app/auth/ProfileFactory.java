@@ -8,6 +8,7 @@ import models.Applicant;
 import play.libs.concurrent.HttpExecutionContext;
 import repository.DatabaseExecutionContext;
 import repository.ProgramRepository;
+import repository.UserRepository;
 import repository.VersionRepository;
 
 public class ProfileFactory {
@@ -16,17 +17,23 @@ public class ProfileFactory {
   private HttpExecutionContext httpContext;
   private Provider<ProgramRepository> programRepositoryProvider;
   private Provider<VersionRepository> versionRepositoryProvider;
+  private Provider<UserRepository> userRepositoryProvider;
+  private AccountExistenceCache accountExistenceCache;
 
   @Inject
   public ProfileFactory(
       DatabaseExecutionContext dbContext,
       HttpExecutionContext httpContext,
       Provider<ProgramRepository> programRepositoryProvider,
-      Provider<VersionRepository> versionRepositoryProvider) {
+      Provider<VersionRepository> versionRepositoryProvider,
+      Provider<UserRepository> userRepositoryProvider,
+      AccountExistenceCache accountExistenceCache) {
     this.dbContext = Preconditions.checkNotNull(dbContext);
     this.httpContext = Preconditions.checkNotNull(httpContext);
     this.programRepositoryProvider = Preconditions.checkNotNull(programRepositoryProvider);
     this.versionRepositoryProvider = Preconditions.checkNotNull(versionRepositoryProvider);
+    this.userRepositoryProvider = Preconditions.checkNotNull(userRepositoryProvider);
+    this.accountExistenceCache = Preconditions.checkNotNull(accountExistenceCache);
   }
 
   public UatProfileData createNewApplicant() {
@@ -47,7 +54,13 @@ public class ProfileFactory {
   }
 
   public UatProfile wrapProfileData(UatProfileData p) {
-    return new UatProfile(dbContext, httpContext, p, programRepositoryProvider.get());
+    return new UatProfile(
+        dbContext,
+        httpContext,
+        p,
+        programRepositoryProvider.get(),
+        userRepositoryProvider.get(),
+        accountExistenceCache);
   }
 
   private UatProfileData create(Roles role) {
@@ -1,16 +1,23 @@
 package auth;
 
 import com.google.common.base.Preconditions;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletionException;
 import javax.inject.Inject;
 import org.pac4j.core.context.WebContext;
 import org.pac4j.core.context.session.SessionStore;
 import org.pac4j.core.profile.ProfileManager;
+import org.pac4j.core.util.Pac4jConstants;
 import org.pac4j.play.PlayWebContext;
+import play.libs.typedmap.TypedKey;
 import play.mvc.Http;
 
 public class ProfileUtils {
+  /** The request's profile, attached by {@link #withCurrentUserProfile}. */
+  private static final TypedKey<AttachedProfile> CURRENT_USER_PROFILE =
+      TypedKey.create("currentUserProfile");
+
   private SessionStore sessionStore;
   private ProfileFactory profileFactory;
 
@@ -26,9 +33,34 @@ public class ProfileUtils {
    */
   public Optional<UatProfile> currentUserProfile(Http.RequestHeader request) {
     PlayWebContext webContext = new PlayWebContext(request);
+    Optional<AttachedProfile> attached = request.attrs().getOptional(CURRENT_USER_PROFILE);
+    if (attached.isPresent() && attached.get().isCurrent(request, webContext)) {
+      return attached.get().profile;
+    }
     return currentUserProfile(webContext);
   }
 
+  /**
+   * The request, with its current profile attached. Later {@link
+   * #currentUserProfile(Http.RequestHeader)} calls for it return the same profile, so that the
+   * cookie is decrypted once and the profile's account is looked up at most once.
+   *
+   * <p>Signing in, or merging a guest into an existing account, writes a new profile to the session
+   * or to pac4j's request attributes, and pac4j hands the action a request carrying them. The
+   * attached profile is only returned while both are the ones it was read from, so the profile
+   * written in the same request is read instead of a stale one.
+   */
+  public Http.RequestHeader withCurrentUserProfile(Http.RequestHeader request) {
+    PlayWebContext webContext = new PlayWebContext(request);
+    Optional<AttachedProfile> attached = request.attrs().getOptional(CURRENT_USER_PROFILE);
+    if (attached.isPresent() && attached.get().isCurrent(request, webContext)) {
+      return request;
+    }
+    return request.addAttr(
+        CURRENT_USER_PROFILE,
+        new AttachedProfile(request, webContext, currentUserProfile(webContext)));
+  }
+
   /**
    * Fetch the current profile from the session cookie, which the ProfileManager will fetch from the
    * context's cookies, using the injected session store to decrypt it.
@@ -42,8 +74,14 @@ public class ProfileUtils {
     return Optional.of(profileFactory.wrapProfileData(p.get()));
   }
 
-  /** Return true if the account referenced by the profile exists. */
+  /**
+   * Return true if the account referenced by the profile exists. It is only looked up if this
+   * server has not loaded it within the {@link AccountExistenceCache}'s TTL.
+   */
   public boolean validUatProfile(UatProfile profile) {
+    if (profile.isAccountKnownToExist()) {
+      return true;
+    }
     try {
       profile.getAccount().join();
       return true;
@@ -54,4 +92,24 @@ public class ProfileUtils {
       throw new RuntimeException(e);
     }
   }
+
+  /** A profile read from a request, with the session and pac4j profiles it was read from. */
+  private static final class AttachedProfile {
+    private final Map<String, String> session;
+    private final Optional<Object> requestProfiles;
+    private final Optional<UatProfile> profile;
+
+    AttachedProfile(
+        Http.RequestHeader request, WebContext webContext, Optional<UatProfile> profile) {
+      this.session = request.session().data();
+      this.requestProfiles = webContext.getRequestAttribute(Pac4jConstants.USER_PROFILES);
+      this.profile = profile;
+    }
+
+    /** Return true if nothing has written a new profile to the request since this was read. */
+    boolean isCurrent(Http.RequestHeader request, WebContext webContext) {
+      return session.equals(request.session().data())
+          && requestProfiles.equals(webContext.getRequestAttribute(Pac4jConstants.USER_PROFILES));
+    }
+  }
 }
@@ -0,0 +1,330 @@
+package auth;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.pac4j.core.profile.definition.CommonProfileDefinition;
+import org.pac4j.core.util.Pac4jConstants;
+import org.pac4j.core.util.serializer.Serializer;
+
+/**
+ * Writes the values of a pac4j session, which the {@link CompactCookieSessionStore} keeps in the
+ * session cookie, as a few bytes instead of with Java serialization.
+ *
+ * <p>The first byte is {@link #FORMAT}. Then each value is written with a tag for how it is
+ * written:
+ *
+ * <ul>
+ *   <li>The signed in profiles, which are sent with every request, are written field by field, see
+ *       {@link #writeProfile}.
+ *   <li>Strings are written as UTF-8.
+ *   <li>Anything else, such as the state of an OIDC sign in, is written with Java serialization.
+ *       These are only in the session while signing in.
+ * </ul>
+ *
+ * <p>Each profile starts with the version of its format, so that later versions can add fields and
+ * still read profiles written by earlier ones.
+ */
+final class SessionCodec {
+  /**
+   * The first byte of a session this writes. It cannot start a session the {@link
+   * org.pac4j.play.store.PlayCookieSessionStore} wrote, which is gzipped.
+   */
+  static final byte FORMAT = 1;
+
+  /**
+   * The version of the profile format this writes. Version 1, which had no owned applicants or TI
+   * group, is still read. So is version 2, whose owned applicants had no applicants version: they
+   * are dropped, and checked against the database until the profile is refreshed.
+   */
+  static final byte PROFILE_VERSION = 3;
+
+  private static final byte TAG_PROFILES = 1;
+  private static final byte TAG_STRING = 2;
+  private static final byte TAG_SERIALIZED = 3;
+
+  /** The roles, by bit in the roles byte of a profile. Roles may only be added to the end. */
+  private static final ImmutableList<String> ROLE_BITS =
+      ImmutableList.of(
+          Roles.ROLE_APPLICANT.toString(),
+          Roles.ROLE_TI.toString(),
+          Roles.ROLE_UAT_ADMIN.toString(),
+          Roles.ROLE_PROGRAM_ADMIN.toString());
+
+  private static final byte HAS_EMAIL = 1;
+  private static final byte HAS_OWNED_APPLICANT_IDS = 2;
+  private static final byte HAS_TI_GROUP_ID = 4;
+
+  private SessionCodec() {}
+
+  /**
+   * The session values as bytes. Values that are not profiles or strings are written with the
+   * serializer.
+   */
+  static byte[] encode(Map<String, Object> values, Serializer serializer) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeByte(FORMAT);
+      writeVarLong(out, values.size());
+      for (Map.Entry<String, Object> entry : values.entrySet()) {
+        writeString(out, entry.getKey());
+        Object value = entry.getValue();
+        if (entry.getKey().equals(Pac4jConstants.USER_PROFILES) && canWriteProfiles(value)) {
+          out.writeByte(TAG_PROFILES);
+          Map<?, ?> profiles = (Map<?, ?>) value;
+          writeVarLong(out, profiles.size());
+          for (Map.Entry<?, ?> profile : profiles.entrySet()) {
+            writeString(out, (String) profile.getKey());
+            writeProfile(out, (UatProfileData) profile.getValue());
+          }
+        } else if (value instanceof String) {
+          out.writeByte(TAG_STRING);
+          writeString(out, (String) value);
+        } else {
+          out.writeByte(TAG_SERIALIZED);
+          byte[] serialized = serializer.serializeToBytes(value);
+          writeVarLong(out, serialized.length);
+          out.write(serialized);
+        }
+      }
+    } catch (IOException e) {
+      // Since it's an in-memory stream, this shouldn't happen.
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /** The session values written by {@link #encode}. */
+  static Map<String, Object> decode(byte[] encoded, Serializer serializer) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded));
+    byte format = in.readByte();
+    if (format != FORMAT) {
+      throw new IOException(String.format("Unknown session format %d", format));
+    }
+    int size = readSize(in);
+    Map<String, Object> values = new HashMap<>();
+    for (int i = 0; i < size; i++) {
+      String key = readString(in);
+      byte tag = in.readByte();
+      switch (tag) {
+        case TAG_PROFILES:
+          int profileCount = readSize(in);
+          LinkedHashMap<String, UatProfileData> profiles = new LinkedHashMap<>();
+          for (int j = 0; j < profileCount; j++) {
+            profiles.put(readString(in), readProfile(in));
+          }
+          values.put(key, profiles);
+          break;
+        case TAG_STRING:
+          values.put(key, readString(in));
+          break;
+        case TAG_SERIALIZED:
+          byte[] serialized = new byte[readSize(in)];
+          in.readFully(serialized);
+          Object value = serializer.deserializeFromBytes(serialized);
+          if (value != null) {
+            values.put(key, value);
+          }
+          break;
+        default:
+          throw new IOException(String.format("Unknown session value tag %d", tag));
+      }
+    }
+    return values;
+  }
+
+  /**
+   * True if the value is a map of profiles that {@link #writeProfile} writes in full, which are the
+   * only profiles CiviForm makes.
+   */
+  private static boolean canWriteProfiles(Object value) {
+    if (!(value instanceof LinkedHashMap)) {
+      return false;
+    }
+    for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+      if (!(entry.getKey() instanceof String) || !canWriteProfile(entry.getValue())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean canWriteProfile(Object value) {
+    if (value == null || value.getClass() != UatProfileData.class) {
+      return false;
+    }
+    UatProfileData profile = (UatProfileData) value;
+    Map<String, Object> attributes = profile.getAttributes();
+    return isAccountId(profile.getId())
+        && attributes.containsKey(UatProfileData.OWNED_APPLICANT_IDS)
+            == attributes.containsKey(UatProfileData.OWNED_APPLICANTS_VERSION)
+        && profile.getClientName() != null
+        && ROLE_BITS.containsAll(profile.getRoles())
+        && profile.getPermissions().isEmpty()
+        && profile.getAuthenticationAttributes().isEmpty()
+        && profile.getLinkedId() == null
+        && !profile.isRemembered()
+        && attributes.entrySet().stream().allMatch(SessionCodec::canWriteAttribute);
+  }
+
+  private static boolean canWriteAttribute(Map.Entry<String, Object> attribute) {
+    Object value = attribute.getValue();
+    switch (attribute.getKey()) {
+      case CommonProfileDefinition.EMAIL:
+        return value instanceof String;
+      case UatProfileData.OWNED_APPLICANT_IDS:
+        return value instanceof List
+            && ((List<?>) value).stream().allMatch(id -> id instanceof Long && (Long) id >= 0);
+      case UatProfileData.OWNED_APPLICANTS_VERSION:
+        return value instanceof Long && (Long) value >= 0;
+      case UatProfileData.TI_GROUP_ID:
+        return value instanceof Long && (Long) value >= 0;
+      default:
+        return false;
+    }
+  }
+
+  private static boolean isAccountId(String id) {
+    if (id == null) {
+      return false;
+    }
+    try {
+      return Long.parseLong(id) >= 0 && Long.toString(Long.parseLong(id)).equals(id);
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Writes version {@link #PROFILE_VERSION} of a profile: the account ID, the client name, a byte
+   * with a bit for each role, and a byte of flags followed by the email address, the owned
+   * applicants version and IDs, and the TI group ID, each only if the profile has it.
+   */
+  private static void writeProfile(DataOutputStream out, UatProfileData profile)
+      throws IOException {
+    out.writeByte(PROFILE_VERSION);
+    writeVarLong(out, Long.parseLong(profile.getId()));
+    writeString(out, profile.getClientName());
+    int roles = 0;
+    for (String role : profile.getRoles()) {
+      roles |= 1 << ROLE_BITS.indexOf(role);
+    }
+    out.writeByte(roles);
+    Object email = profile.getAttribute(CommonProfileDefinition.EMAIL);
+    Optional<ImmutableSet<Long>> ownedApplicantIds = profile.getOwnedApplicantIds();
+    Optional<Long> tiGroupId = profile.getTrustedIntermediaryGroupId();
+    int flags = 0;
+    if (email != null) {
+      flags |= HAS_EMAIL;
+    }
+    if (ownedApplicantIds.isPresent()) {
+      flags |= HAS_OWNED_APPLICANT_IDS;
+    }
+    if (tiGroupId.isPresent()) {
+      flags |= HAS_TI_GROUP_ID;
+    }
+    out.writeByte(flags);
+    if (email != null) {
+      writeString(out, (String) email);
+    }
+    if (ownedApplicantIds.isPresent()) {
+      writeVarLong(out, profile.getOwnedApplicantsVersion().get());
+      writeVarLong(out, ownedApplicantIds.get().size());
+      for (long applicantId : ownedApplicantIds.get()) {
+        writeVarLong(out, applicantId);
+      }
+    }
+    if (tiGroupId.isPresent()) {
+      writeVarLong(out, tiGroupId.get());
+    }
+  }
+
+  private static UatProfileData readProfile(DataInputStream in) throws IOException {
+    byte version = in.readByte();
+    if (version < 1 || version > PROFILE_VERSION) {
+      throw new IOException(String.format("Unknown profile version %d", version));
+    }
+    UatProfileData profile = new UatProfileData(readVarLong(in));
+    profile.setClientName(readString(in));
+    int roles = in.readUnsignedByte();
+    for (int bit = 0; bit < ROLE_BITS.size(); bit++) {
+      if ((roles & (1 << bit)) != 0) {
+        profile.addRole(ROLE_BITS.get(bit));
+      }
+    }
+    byte flags = in.readByte();
+    if ((flags & HAS_EMAIL) != 0) {
+      profile.addAttribute(CommonProfileDefinition.EMAIL, readString(in));
+    }
+    if (version >= 2 && (flags & HAS_OWNED_APPLICANT_IDS) != 0) {
+      Optional<Long> applicantsVersion =
+          version >= 3 ? Optional.of(readVarLong(in)) : Optional.empty();
+      int count = readSize(in);
+      List<Long> ownedApplicantIds = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        ownedApplicantIds.add(readVarLong(in));
+      }
+      if (applicantsVersion.isPresent()) {
+        profile.setOwnedApplicantIds(ownedApplicantIds, applicantsVersion.get());
+      }
+    }
+    if (version >= 2 && (flags & HAS_TI_GROUP_ID) != 0) {
+      profile.setTrustedIntermediaryGroupId(Optional.of(readVarLong(in)));
+    }
+    return profile;
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    writeVarLong(out, bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[readSize(in)];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /** Writes a non-negative number in 7-bit groups, low group first, so small numbers are short. */
+  private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+    while ((value & ~0x7FL) != 0) {
+      out.writeByte((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.writeByte((int) value);
+  }
+
+  private static long readVarLong(DataInputStream in) throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = in.readUnsignedByte();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Number is too long");
+  }
+
+  /** A count or length, which must fit in what is left of the session. */
+  private static int readSize(DataInputStream in) throws IOException {
+    long size = readVarLong(in);
+    if (size > in.available()) {
+      throw new IOException(String.format("Size %d is larger than the session", size));
+    }
+    return (int) size;
+  }
+}
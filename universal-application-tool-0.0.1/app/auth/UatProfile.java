@@ -3,12 +3,10 @@ package auth;
 import static java.util.concurrent.CompletableFuture.supplyAsync;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ImmutableList;
 import java.util.Comparator;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Stream;
 import javax.inject.Inject;
 import javax.persistence.EntityNotFoundException;
 import models.Account;
@@ -16,6 +14,7 @@ import models.Applicant;
 import play.libs.concurrent.HttpExecutionContext;
 import repository.DatabaseExecutionContext;
 import repository.ProgramRepository;
+import repository.UserRepository;
 
 /**
  * This is a "pure" wrapper of UatProfileData. Since UatProfileData is the serialized data about a
@@ -27,17 +26,28 @@ public class UatProfile {
   private HttpExecutionContext httpContext;
   private UatProfileData profileData;
   private ProgramRepository programRepository;
+  private UserRepository userRepository;
+  private AccountExistenceCache accountExistenceCache;
+  /**
+   * The account, loaded by the first call to {@link #getAccount()}. A profile is made for one
+   * request, so everything that handles the request shares one lookup.
+   */
+  private CompletableFuture<Account> account;
 
   @Inject
   public UatProfile(
       DatabaseExecutionContext dbContext,
       HttpExecutionContext httpContext,
       UatProfileData profileData,
-      ProgramRepository programRepository) {
+      ProgramRepository programRepository,
+      UserRepository userRepository,
+      AccountExistenceCache accountExistenceCache) {
     this.dbContext = Preconditions.checkNotNull(dbContext);
     this.httpContext = Preconditions.checkNotNull(httpContext);
     this.profileData = Preconditions.checkNotNull(profileData);
     this.programRepository = Preconditions.checkNotNull(programRepository);
+    this.userRepository = Preconditions.checkNotNull(userRepository);
+    this.accountExistenceCache = Preconditions.checkNotNull(accountExistenceCache);
   }
 
   public CompletableFuture<Applicant> getApplicant() {
@@ -51,21 +61,40 @@ public class UatProfile {
             httpContext.current());
   }
 
-  public CompletableFuture<Account> getAccount() {
+  /** The profile's account. It is loaded once, and later calls return the same account. */
+  public synchronized CompletableFuture<Account> getAccount() {
+    if (account == null) {
+      account = loadAccount();
+    }
+    return account;
+  }
+
+  private CompletableFuture<Account> loadAccount() {
+    long accountId = Long.valueOf(this.profileData.getId());
     return supplyAsync(
         () -> {
           Account account = new Account();
-          account.id = Long.valueOf(this.profileData.getId());
+          account.id = accountId;
           try {
             account.refresh();
           } catch (EntityNotFoundException e) {
+            accountExistenceCache.invalidate(accountId);
             throw new AccountNonexistentException(e.getMessage());
           }
+          accountExistenceCache.markExists(accountId, account.getApplicantsVersion());
           return account;
         },
         dbContext);
   }
 
+  /**
+   * True if this server loaded the account recently, in which case it can be assumed to exist
+   * without looking it up.
+   */
+  boolean isAccountKnownToExist() {
+    return accountExistenceCache.isKnownToExist(Long.valueOf(this.profileData.getId()));
+  }
+
   public String getClientName() {
     return profileData.getClientName();
   }
@@ -114,31 +143,41 @@ public class UatProfile {
     return this.profileData;
   }
 
+  /**
+   * Succeeds if the account may act for the applicant. The profile lists the account's own
+   * applicants, so those are checked without the database, as long as the list's applicants version
+   * is the one this server last loaded for the account. Any other applicant, such as one a TI
+   * manages, one added since the profile was refreshed, or any applicant once one has been moved
+   * out of the account, is checked with one query.
+   */
   public CompletableFuture<Void> checkAuthorization(long applicantId) {
-    return getAccount()
-        .thenApplyAsync(
-            account ->
-                Stream.concat(
-                        account
-                            .getMemberOfGroup()
-                            .flatMap(tiGroup -> Optional.of(tiGroup.getManagedAccounts().stream()))
-                            .orElse(Stream.of()),
-                        Stream.of(account))
-                    .map(Account::ownedApplicantIds)
-                    .reduce(
-                        ImmutableList.of(),
-                        (one, two) ->
-                            new ImmutableList.Builder<Long>().addAll(one).addAll(two).build()))
-        .thenApplyAsync(
-            idList -> {
-              if (!idList.contains(applicantId)) {
+    if (isListedAsOwned(applicantId)) {
+      return CompletableFuture.completedFuture(null);
+    }
+    return userRepository
+        .canAccessApplicant(
+            Long.valueOf(getId()), profileData.getTrustedIntermediaryGroupId(), applicantId)
+        .thenApply(
+            authorized -> {
+              if (!authorized) {
                 throw new SecurityException(
                     String.format(
                         "Account %s is not authorized to access applicant %d",
                         getId(), applicantId));
               }
-              return null;
-            });
+              return (Void) null;
+            })
+        .toCompletableFuture();
+  }
+
+  private boolean isListedAsOwned(long applicantId) {
+    Optional<Long> listedVersion = profileData.getOwnedApplicantsVersion();
+    return listedVersion.isPresent()
+        && listedVersion.equals(accountExistenceCache.knownApplicantsVersion(Long.valueOf(getId())))
+        && profileData
+            .getOwnedApplicantIds()
+            .map(applicantIds -> applicantIds.contains(applicantId))
+            .orElse(false);
   }
 
   public CompletableFuture<Void> checkProgramAuthorization(String programName) {
@@ -59,6 +59,7 @@ public abstract class UatProfileAdapter extends OidcProfileCreator {
       uatProfile.getProfileData().addRole(role.toString());
     }
     adaptForRole(uatProfile, roles);
+    uatProfile.getAccount().thenAccept(uatProfile.getProfileData()::refreshFrom).join();
     return uatProfile.getProfileData();
   }
 
@@ -3,6 +3,11 @@ package auth;
 import static java.util.concurrent.CompletableFuture.supplyAsync;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import models.Account;
 import models.Applicant;
 import org.pac4j.core.profile.CommonProfile;
@@ -16,6 +21,12 @@ import repository.DatabaseExecutionContext;
  * <p>It is wrapped by UatProfile, which is what we should use server-side.
  */
 public class UatProfileData extends CommonProfile {
+  /** The attribute with the IDs of the account's applicants, as an {@link ArrayList} of longs. */
+  static final String OWNED_APPLICANT_IDS = "owned_applicant_ids";
+  /** The attribute with the account's applicants version when its applicants were listed. */
+  static final String OWNED_APPLICANTS_VERSION = "owned_applicants_version";
+  /** The attribute with the ID of the TI group the account is a member of, if any. */
+  static final String TI_GROUP_ID = "ti_group_id";
 
   public UatProfileData() {
     super();
@@ -47,9 +58,67 @@ public class UatProfileData extends CommonProfile {
               newA.save();
 
               setId(Preconditions.checkNotNull(acc.id).toString());
+              setOwnedApplicantIds(ImmutableSet.of(newA.id), acc.getApplicantsVersion());
               return null;
             },
             dbContext)
         .join();
   }
+
+  /**
+   * The IDs of the account's applicants when the profile was made or last refreshed, or empty if
+   * the profile was written before they were kept. An applicant may since have been added to the
+   * account, so a missing ID must be checked against the database. One may also have been moved out
+   * of it, in which case the account's applicants version is no longer {@link
+   * #getOwnedApplicantsVersion}.
+   */
+  public Optional<ImmutableSet<Long>> getOwnedApplicantIds() {
+    Object ids = getAttribute(OWNED_APPLICANT_IDS);
+    if (!(ids instanceof List)) {
+      return Optional.empty();
+    }
+    ImmutableSet.Builder<Long> owned = ImmutableSet.builder();
+    for (Object id : (List<?>) ids) {
+      if (id instanceof Long) {
+        owned.add((Long) id);
+      }
+    }
+    return Optional.of(owned.build());
+  }
+
+  /** The account's applicants version when {@link #getOwnedApplicantIds} were listed. */
+  public Optional<Long> getOwnedApplicantsVersion() {
+    Object version = getAttribute(OWNED_APPLICANTS_VERSION);
+    return version instanceof Long ? Optional.of((Long) version) : Optional.empty();
+  }
+
+  /**
+   * Sets the IDs of the account's applicants, and the account's applicants version, which must have
+   * been read before the applicants were.
+   */
+  public void setOwnedApplicantIds(Collection<Long> applicantIds, long applicantsVersion) {
+    // An ArrayList, rather than an immutable collection, since it is serialized with the profile.
+    addAttribute(OWNED_APPLICANT_IDS, new ArrayList<>(applicantIds));
+    addAttribute(OWNED_APPLICANTS_VERSION, applicantsVersion);
+  }
+
+  /** The TI group the account was a member of when the profile was made or last refreshed. */
+  public Optional<Long> getTrustedIntermediaryGroupId() {
+    Object groupId = getAttribute(TI_GROUP_ID);
+    return groupId instanceof Long ? Optional.of((Long) groupId) : Optional.empty();
+  }
+
+  public void setTrustedIntermediaryGroupId(Optional<Long> groupId) {
+    if (groupId.isPresent()) {
+      addAttribute(TI_GROUP_ID, groupId.get());
+    } else {
+      removeAttribute(TI_GROUP_ID);
+    }
+  }
+
+  /** Sets the owned applicants and TI group from the account, which must be this profile's. */
+  public void refreshFrom(Account account) {
+    setOwnedApplicantIds(account.ownedApplicantIds(), account.getApplicantsVersion());
+    setTrustedIntermediaryGroupId(account.getMemberOfGroup().map(group -> group.id));
+  }
 }
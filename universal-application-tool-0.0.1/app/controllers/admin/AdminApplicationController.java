@@ -2,32 +2,54 @@ package controllers.admin;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import akka.NotUsed;
+import akka.stream.javadsl.Source;
+import akka.util.ByteString;
 import auth.Authorizers;
 import auth.ProfileUtils;
-import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import controllers.CiviFormController;
+import java.io.IOException;
+import java.net.URL;
 import java.time.Clock;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.Optional;
 import java.util.concurrent.CompletionException;
 import javax.inject.Inject;
 import models.Application;
+import models.ExportJob;
+import models.ExportJobStatus;
 import org.pac4j.play.java.Secure;
 import play.mvc.Http;
 import play.mvc.Result;
+import repository.ApplicationListCursor;
+import repository.ApplicationListOrder;
+import repository.ApplicationListPage;
 import repository.ApplicationRepository;
-import services.applicant.AnswerData;
+import repository.ExportJobRepository;
+import repository.ExportWatermarkRepository;
 import services.applicant.ApplicantService;
-import services.applicant.Block;
-import services.applicant.ReadOnlyApplicantProgramService;
+import services.applicant.ApplicationSummary;
+import services.aws.SimpleStorage;
+import services.export.CsvExportFormat;
+import services.export.ExporterFactory;
 import services.export.ExporterService;
+import services.export.IncrementalExport;
+import services.export.NotConfiguredException;
 import services.program.ProgramDefinition;
 import services.program.ProgramNotFoundException;
 import services.program.ProgramService;
 import views.admin.programs.ProgramApplicationListView;
 import views.admin.programs.ProgramApplicationView;
+import views.admin.programs.ProgramExportView;
 
 /** Controller for admins viewing responses to programs. */
 public class AdminApplicationController extends CiviFormController {
+  /** The response header with the watermark of an incremental download. */
+  public static final String WATERMARK_HEADER = "X-Export-Watermark";
+  /** How many applications a page of the application list shows when no page size is given. */
+  private static final int DEFAULT_LIST_PAGE_SIZE = 50;
 
   private final ProgramService programService;
   private final ApplicantService applicantService;
@@ -35,6 +57,11 @@ public class AdminApplicationController extends CiviFormController {
   private final ProgramApplicationListView applicationListView;
   private final ProgramApplicationView applicationView;
   private final ExporterService exporterService;
+  private final ExporterFactory exporterFactory;
+  private final ExportJobRepository exportJobRepository;
+  private final ExportWatermarkRepository exportWatermarkRepository;
+  private final ProgramExportView exportView;
+  private final SimpleStorage simpleStorage;
   private final ProfileUtils profileUtils;
   private final Clock clock;
 
@@ -43,9 +70,14 @@ public class AdminApplicationController extends CiviFormController {
       ProgramService programService,
       ApplicantService applicantService,
       ExporterService exporterService,
+      ExporterFactory exporterFactory,
       ProgramApplicationListView applicationListView,
       ProgramApplicationView applicationView,
       ApplicationRepository applicationRepository,
+      ExportJobRepository exportJobRepository,
+      ExportWatermarkRepository exportWatermarkRepository,
+      ProgramExportView exportView,
+      SimpleStorage simpleStorage,
       ProfileUtils profileUtils,
       Clock clock) {
     this.programService = checkNotNull(programService);
@@ -56,6 +88,11 @@ public class AdminApplicationController extends CiviFormController {
     this.applicationRepository = checkNotNull(applicationRepository);
     this.clock = clock;
     this.exporterService = checkNotNull(exporterService);
+    this.exporterFactory = checkNotNull(exporterFactory);
+    this.exportJobRepository = checkNotNull(exportJobRepository);
+    this.exportWatermarkRepository = checkNotNull(exportWatermarkRepository);
+    this.exportView = checkNotNull(exportView);
+    this.simpleStorage = checkNotNull(simpleStorage);
   }
 
   @Secure(authorizers = Authorizers.Labels.ANY_ADMIN)
@@ -64,8 +101,7 @@ public class AdminApplicationController extends CiviFormController {
       ProgramDefinition program = programService.getProgramDefinition(programId);
       checkProgramAdminAuthorization(profileUtils, request, program.adminName()).join();
       String filename = String.format("%s-%s.csv", program.adminName(), clock.instant().toString());
-      String csv = exporterService.getProgramCsv(programId);
-      return ok(csv)
+      return ok().chunked(exporterService.getProgramCsvSource(programId))
           .as(Http.MimeTypes.BINARY)
           .withHeader(
               "Content-Disposition", String.format("attachment; filename=\"%s\"", filename));
@@ -76,14 +112,244 @@ public class AdminApplicationController extends CiviFormController {
     }
   }
 
+  /** Downloads the applications to every version of the program, in one CSV. */
+  @Secure(authorizers = Authorizers.Labels.ANY_ADMIN)
+  public Result downloadAllVersions(Http.Request request, long programId) {
+    try {
+      ProgramDefinition program = programService.getProgramDefinition(programId);
+      checkProgramAdminAuthorization(profileUtils, request, program.adminName()).join();
+      String filename =
+          String.format("%s-all-versions-%s.csv", program.adminName(), clock.instant().toString());
+      return ok().chunked(exporterService.getAllVersionsCsvSource(program.adminName()))
+          .as(Http.MimeTypes.BINARY)
+          .withHeader(
+              "Content-Disposition", String.format("attachment; filename=\"%s\"", filename));
+    } catch (ProgramNotFoundException e) {
+      return notFound(e.toString());
+    } catch (CompletionException e) {
+      return unauthorized();
+    }
+  }
+
+  /**
+   * Downloads the applications submitted after {@code since}, or if it is not given, after the ones
+   * this admin last downloaded from here. The {@value #WATERMARK_HEADER} response header holds the
+   * {@code since} to ask for next time, which is also remembered once the download completes.
+   * {@code format=append} leaves out the header row.
+   */
+  @Secure(authorizers = Authorizers.Labels.ANY_ADMIN)
+  public Result downloadNew(
+      Http.Request request, long programId, Optional<String> since, Optional<String> format) {
+    ProgramDefinition program;
+    try {
+      program = programService.getProgramDefinition(programId);
+      checkProgramAdminAuthorization(profileUtils, request, program.adminName()).join();
+    } catch (ProgramNotFoundException e) {
+      return notFound(e.toString());
+    } catch (CompletionException e) {
+      return unauthorized();
+    }
+
+    Optional<CsvExportFormat> csvFormat =
+        format.isPresent()
+            ? CsvExportFormat.forValue(format.get())
+            : Optional.of(CsvExportFormat.STANDARD);
+    if (csvFormat.isEmpty()) {
+      return badRequest(String.format("Unknown format %s.", format.get()));
+    }
+    long accountId = Long.parseLong(profileUtils.currentUserProfile(request).orElseThrow().getId());
+    Optional<Instant> after;
+    try {
+      after =
+          since.isPresent()
+              ? Optional.of(Instant.parse(since.get()))
+              : exportWatermarkRepository
+                  .getWatermark(accountId, programId)
+                  .toCompletableFuture()
+                  .join();
+    } catch (DateTimeParseException e) {
+      return badRequest(String.format("Invalid since %s.", since.get()));
+    }
+
+    IncrementalExport export;
+    try {
+      export = exporterService.getProgramCsvSince(programId, after, csvFormat.get());
+    } catch (ProgramNotFoundException e) {
+      return notFound(e.toString());
+    }
+    Source<ByteString, NotUsed> csv =
+        export
+            .csv()
+            .watchTermination(
+                (notUsed, done) -> {
+                  // Only a complete download moves the admin's watermark forward.
+                  export
+                      .watermark()
+                      .ifPresent(
+                          watermark ->
+                              done.thenRun(
+                                  () ->
+                                      exportWatermarkRepository.advanceWatermark(
+                                          accountId, programId, watermark)));
+                  return notUsed;
+                });
+    String filename =
+        String.format("%s-%s-new.csv", program.adminName(), clock.instant().toString());
+    Result result =
+        ok().chunked(csv)
+            .as(Http.MimeTypes.BINARY)
+            .withHeader(
+                "Content-Disposition", String.format("attachment; filename=\"%s\"", filename));
+    return export.watermark().isPresent()
+        ? result.withHeader(WATERMARK_HEADER, export.watermark().get().toString())
+        : result;
+  }
+
+  /** Queues a background export of all the program's applications, and shows its progress. */
+  @Secure(authorizers = Authorizers.Labels.ANY_ADMIN)
+  public Result startExport(Http.Request request, long programId) {
+    try {
+      ProgramDefinition program = programService.getProgramDefinition(programId);
+      checkProgramAdminAuthorization(profileUtils, request, program.adminName()).join();
+    } catch (ProgramNotFoundException e) {
+      return notFound(e.toString());
+    } catch (CompletionException e) {
+      return unauthorized();
+    }
+    ExportJob job = exportJobRepository.insertJob(programId).toCompletableFuture().join();
+    return redirect(routes.AdminApplicationController.showExport(programId, job.id));
+  }
+
+  @Secure(authorizers = Authorizers.Labels.ANY_ADMIN)
+  public Result showExport(Http.Request request, long programId, long exportId) {
+    String programName;
+    try {
+      ProgramDefinition program = programService.getProgramDefinition(programId);
+      programName = program.adminName();
+      checkProgramAdminAuthorization(profileUtils, request, program.adminName()).join();
+    } catch (ProgramNotFoundException e) {
+      return notFound(e.toString());
+    } catch (CompletionException e) {
+      return unauthorized();
+    }
+    Optional<ExportJob> job = lookupExport(programId, exportId);
+    if (job.isEmpty()) {
+      return notFound(String.format("Export %d does not exist.", exportId));
+    }
+    return ok(exportView.render(programName, job.get()));
+  }
+
+  /** Redirects to a short-lived link to the CSV of a finished background export. */
+  @Secure(authorizers = Authorizers.Labels.ANY_ADMIN)
+  public Result downloadExport(Http.Request request, long programId, long exportId) {
+    try {
+      ProgramDefinition program = programService.getProgramDefinition(programId);
+      checkProgramAdminAuthorization(profileUtils, request, program.adminName()).join();
+    } catch (ProgramNotFoundException e) {
+      return notFound(e.toString());
+    } catch (CompletionException e) {
+      return unauthorized();
+    }
+    Optional<String> objectKey =
+        lookupExport(programId, exportId)
+            .filter(job -> job.getStatus() == ExportJobStatus.SUCCEEDED)
+            .flatMap(ExportJob::getObjectKey);
+    if (objectKey.isEmpty()) {
+      return notFound(String.format("Export %d is not finished.", exportId));
+    }
+    return redirect(simpleStorage.getPresignedUrl(objectKey.get()).toString());
+  }
+
+  private Optional<ExportJob> lookupExport(long programId, long exportId) {
+    return exportJobRepository
+        .lookupJob(exportId)
+        .toCompletableFuture()
+        .join()
+        .filter(job -> job.getProgramId() == programId);
+  }
+
+  /** Downloads the application as the program's PDF form, filled in with its answers. */
   @Secure(authorizers = Authorizers.Labels.ANY_ADMIN)
   public Result download(Http.Request request, long programId, long applicationId) {
+    ProgramDefinition program;
+    try {
+      program = programService.getProgramDefinition(programId);
+      checkProgramAdminAuthorization(profileUtils, request, program.adminName()).join();
+    } catch (ProgramNotFoundException e) {
+      return notFound(e.toString());
+    } catch (CompletionException e) {
+      return unauthorized();
+    }
+    Optional<Application> application =
+        applicationRepository
+            .getApplication(applicationId)
+            .toCompletableFuture()
+            .join()
+            .filter(app -> app.getProgram().id == programId);
+    if (application.isEmpty()) {
+      return notFound(String.format("Application %d does not exist.", applicationId));
+    }
+
+    byte[] pdf;
+    try {
+      pdf = exporterFactory.pdfExporter(program).export(application.get().getApplicantData());
+    } catch (NotConfiguredException e) {
+      return notFound(String.format("Program %d has no PDF export.", programId));
+    } catch (IOException e) {
+      return internalServerError(e.toString());
+    }
+    String filename = String.format("%s-%d.pdf", program.adminName(), applicationId);
+    return ok(pdf)
+        .as("application/pdf")
+        .withHeader("Content-Disposition", String.format("attachment; filename=\"%s\"", filename));
+  }
+
+  /** Downloads a ZIP file with a filled-in PDF for each of the program's applications. */
+  @Secure(authorizers = Authorizers.Labels.ANY_ADMIN)
+  public Result downloadAllPdfs(Http.Request request, long programId) {
+    try {
+      ProgramDefinition program = programService.getProgramDefinition(programId);
+      checkProgramAdminAuthorization(profileUtils, request, program.adminName()).join();
+      String filename = String.format("%s-%s.zip", program.adminName(), clock.instant().toString());
+      return ok().chunked(exporterService.getProgramPdfZipSource(programId))
+          .as("application/zip")
+          .withHeader(
+              "Content-Disposition", String.format("attachment; filename=\"%s\"", filename));
+    } catch (ProgramNotFoundException e) {
+      return notFound(e.toString());
+    } catch (NotConfiguredException e) {
+      return notFound(String.format("Program %d has no PDF export.", programId));
+    } catch (IOException e) {
+      return internalServerError(e.toString());
+    } catch (CompletionException e) {
+      return unauthorized();
+    }
+  }
+
+  /**
+   * Downloads the program's applications for analytics tools, if the program has a {@link
+   * services.program.ExportEngine#COLUMNAR} export. The file is gzipped JSON lines, not Parquet or
+   * another standard columnar format: a schema line naming each column and its type, then one line
+   * per row group with an array of values for each column. See {@link
+   * services.export.ColumnarExporter} for the details.
+   */
+  @Secure(authorizers = Authorizers.Labels.ANY_ADMIN)
+  public Result downloadColumnar(Http.Request request, long programId) {
     try {
       ProgramDefinition program = programService.getProgramDefinition(programId);
       checkProgramAdminAuthorization(profileUtils, request, program.adminName()).join();
-      throw new UnsupportedOperationException("Not yet implemented.");
+      String filename =
+          String.format("%s-%s.json.gz", program.adminName(), clock.instant().toString());
+      return ok().chunked(exporterService.getProgramColumnarSource(programId))
+          .as("application/gzip")
+          .withHeader(
+              "Content-Disposition", String.format("attachment; filename=\"%s\"", filename));
     } catch (ProgramNotFoundException e) {
       return notFound(e.toString());
+    } catch (NotConfiguredException e) {
+      return notFound(String.format("Program %d has no columnar export.", programId));
+    } catch (CompletionException e) {
+      return unauthorized();
     }
   }
 
@@ -106,24 +372,48 @@ public class AdminApplicationController extends CiviFormController {
     }
     Application application = applicationMaybe.get();
     String applicantNameWithId =
-        String.format(
-            "%s (%d)",
-            application.getApplicantData().getApplicantName(), application.getApplicant().id);
+        String.format("%s (%d)", application.getApplicantName(), application.getApplicant().id);
 
-    ReadOnlyApplicantProgramService roApplicantService =
-        applicantService
-            .getReadOnlyApplicantProgramService(application)
-            .toCompletableFuture()
-            .join();
-    ImmutableList<Block> blocks = roApplicantService.getAllBlocks();
-    ImmutableList<AnswerData> answers = roApplicantService.getSummaryData();
+    ApplicationSummary summary =
+        applicantService.getApplicationSummary(application).toCompletableFuture().join();
+    // Links to uploaded files expire, so they are made for each view rather than stored.
+    ImmutableMap<String, URL> fileLinks =
+        summary.blocks().stream()
+            .flatMap(block -> block.answers().stream())
+            .flatMap(answer -> answer.fileKey().stream())
+            .distinct()
+            .collect(ImmutableMap.toImmutableMap(key -> key, simpleStorage::getPresignedUrl));
     return ok(
         applicationView.render(
-            programId, programName, applicationId, applicantNameWithId, blocks, answers));
+            programId, programName, applicationId, applicantNameWithId, summary, fileLinks));
   }
 
+  /**
+   * Lists a page of the program's applications. {@code order} is one of the {@link
+   * ApplicationListOrder} values:
+   *
+   * <ul>
+   *   <li>{@code newest} (the default): most recently submitted first. The page seeks to before the
+   *       cursor's submit time and application ID.
+   *   <li>{@code oldest}: earliest submitted first. The page seeks to after the cursor's submit
+   *       time and application ID.
+   *   <li>{@code name}: by last name and then first name, ignoring case, with anonymous applicants
+   *       first. Only the cursor's application ID is used: the page seeks to after that
+   *       application's name and ID.
+   * </ul>
+   *
+   * <p>{@code search} limits the list to applicants whose name or email contains it, {@code after}
+   * is the cursor of the previous page's last application, and {@code pageSize} is capped at {@link
+   * ApplicationRepository#MAX_LIST_PAGE_SIZE}.
+   */
   @Secure(authorizers = Authorizers.Labels.ANY_ADMIN)
-  public Result index(Http.Request request, long programId) {
+  public Result index(
+      Http.Request request,
+      long programId,
+      Optional<String> order,
+      Optional<String> search,
+      Optional<String> after,
+      Optional<Integer> pageSize) {
     try {
       ProgramDefinition program = programService.getProgramDefinition(programId);
       checkProgramAdminAuthorization(profileUtils, request, program.adminName()).join();
@@ -132,11 +422,26 @@ public class AdminApplicationController extends CiviFormController {
     } catch (CompletionException e) {
       return unauthorized();
     }
+    Optional<ApplicationListOrder> listOrder =
+        order.isPresent()
+            ? ApplicationListOrder.forValue(order.get())
+            : Optional.of(ApplicationListOrder.NEWEST_FIRST);
+    if (listOrder.isEmpty()) {
+      return badRequest(String.format("Unknown order %s.", order.get()));
+    }
+    Optional<ApplicationListCursor> cursor;
     try {
-      ImmutableList<Application> applications = programService.getProgramApplications(programId);
-      return ok(applicationListView.render(programId, applications));
-    } catch (ProgramNotFoundException e) {
-      return notFound(e.toString());
+      cursor = after.map(ApplicationListCursor::fromToken);
+    } catch (IllegalArgumentException e) {
+      return badRequest(e.getMessage());
     }
+    ApplicationListPage page =
+        applicationRepository
+            .listProgramApplications(
+                programId, listOrder.get(), search, cursor, pageSize.orElse(DEFAULT_LIST_PAGE_SIZE))
+            .toCompletableFuture()
+            .join();
+    return ok(
+        applicationListView.render(request, programId, listOrder.get(), search, pageSize, page));
   }
 }
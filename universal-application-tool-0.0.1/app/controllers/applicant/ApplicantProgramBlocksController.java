@@ -25,6 +25,7 @@ import play.i18n.MessagesApi;
 import play.libs.concurrent.HttpExecutionContext;
 import play.mvc.Http.Request;
 import play.mvc.Result;
+import repository.IdentityMap;
 import repository.StoredFileRepository;
 import services.applicant.ApplicantService;
 import services.applicant.Block;
@@ -94,12 +95,16 @@ public final class ApplicantProgramBlocksController extends CiviFormController {
   @Secure
   private CompletionStage<Result> editOrReview(
       Request request, long applicantId, long programId, String blockId, boolean inReview) {
-    CompletionStage<String> applicantStage = this.applicantService.getName(applicantId);
+    IdentityMap identityMap = IdentityMap.forRequest(request);
+    CompletionStage<String> applicantStage =
+        this.applicantService.getName(applicantId, identityMap);
 
     return applicantStage
         .thenComposeAsync(v -> checkApplicantAuthorization(profileUtils, request, applicantId))
         .thenComposeAsync(
-            v -> applicantService.getReadOnlyApplicantProgramService(applicantId, programId),
+            v ->
+                applicantService.getReadOnlyApplicantProgramService(
+                    applicantId, programId, identityMap),
             httpExecutionContext.current())
         .thenApplyAsync(
             (roApplicantProgramService) -> {
@@ -154,12 +159,16 @@ public final class ApplicantProgramBlocksController extends CiviFormController {
   @Secure
   public CompletionStage<Result> updateFile(
       Request request, long applicantId, long programId, String blockId, boolean inReview) {
-    CompletionStage<String> applicantStage = this.applicantService.getName(applicantId);
+    IdentityMap identityMap = IdentityMap.forRequest(request);
+    CompletionStage<String> applicantStage =
+        this.applicantService.getName(applicantId, identityMap);
 
     return applicantStage
         .thenComposeAsync(v -> checkApplicantAuthorization(profileUtils, request, applicantId))
         .thenComposeAsync(
-            v -> applicantService.getReadOnlyApplicantProgramService(applicantId, programId),
+            v ->
+                applicantService.getReadOnlyApplicantProgramService(
+                    applicantId, programId, identityMap),
             httpExecutionContext.current())
         .thenComposeAsync(
             (roApplicantProgramService) -> {
@@ -189,7 +198,7 @@ public final class ApplicantProgramBlocksController extends CiviFormController {
 
               updateFileRecord(key.get());
               return applicantService.stageAndUpdateIfValid(
-                  applicantId, programId, blockId, formData);
+                  applicantId, programId, blockId, formData, identityMap);
             },
             httpExecutionContext.current())
         .thenComposeAsync(
@@ -210,7 +219,9 @@ public final class ApplicantProgramBlocksController extends CiviFormController {
   @Secure
   public CompletionStage<Result> update(
       Request request, long applicantId, long programId, String blockId, boolean inReview) {
-    CompletionStage<String> applicantStage = this.applicantService.getName(applicantId);
+    IdentityMap identityMap = IdentityMap.forRequest(request);
+    CompletionStage<String> applicantStage =
+        this.applicantService.getName(applicantId, identityMap);
 
     return applicantStage
         .thenComposeAsync(v -> checkApplicantAuthorization(profileUtils, request, applicantId))
@@ -220,7 +231,7 @@ public final class ApplicantProgramBlocksController extends CiviFormController {
               ImmutableMap<String, String> formData = cleanForm(form.rawData());
 
               return applicantService.stageAndUpdateIfValid(
-                  applicantId, programId, blockId, formData);
+                  applicantId, programId, blockId, formData, identityMap);
             },
             httpExecutionContext.current())
         .thenComposeAsync(
@@ -16,6 +16,7 @@ import play.libs.concurrent.HttpExecutionContext;
 import play.mvc.Call;
 import play.mvc.Http.Request;
 import play.mvc.Result;
+import repository.IdentityMap;
 import services.applicant.AnswerData;
 import services.applicant.ApplicantService;
 import services.applicant.Block;
@@ -58,12 +59,16 @@ public class ApplicantProgramReviewController extends CiviFormController {
   @Secure
   public CompletionStage<Result> review(Request request, long applicantId, long programId) {
     Optional<String> banner = request.flash().get("banner");
-    CompletionStage<String> applicantStage = this.applicantService.getName(applicantId);
+    IdentityMap identityMap = IdentityMap.forRequest(request);
+    CompletionStage<String> applicantStage =
+        this.applicantService.getName(applicantId, identityMap);
 
     return applicantStage
         .thenComposeAsync(v -> checkApplicantAuthorization(profileUtils, request, applicantId))
         .thenComposeAsync(
-            v -> applicantService.getReadOnlyApplicantProgramService(applicantId, programId),
+            v ->
+                applicantService.getReadOnlyApplicantProgramService(
+                    applicantId, programId, identityMap),
             httpExecutionContext.current())
         .thenApplyAsync(
             (roApplicantProgramService) -> {
@@ -132,12 +137,16 @@ public class ApplicantProgramReviewController extends CiviFormController {
   @Secure
   public CompletionStage<Result> confirmation(
       Request request, long applicantId, long programId, long applicationId) {
-    CompletionStage<String> applicantStage = this.applicantService.getName(applicantId);
+    IdentityMap identityMap = IdentityMap.forRequest(request);
+    CompletionStage<String> applicantStage =
+        this.applicantService.getName(applicantId, identityMap);
 
     return applicantStage
         .thenComposeAsync(v -> checkApplicantAuthorization(profileUtils, request, applicantId))
         .thenComposeAsync(
-            v -> applicantService.getReadOnlyApplicantProgramService(applicantId, programId),
+            v ->
+                applicantService.getReadOnlyApplicantProgramService(
+                    applicantId, programId, identityMap),
             httpExecutionContext.current())
         .thenApplyAsync(
             (roApplicantProgramService) -> {
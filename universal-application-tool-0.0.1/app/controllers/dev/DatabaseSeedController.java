@@ -2,6 +2,7 @@ package controllers.dev;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import auth.AccountExistenceCache;
 import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
 import com.typesafe.config.Config;
@@ -17,6 +18,7 @@ import play.Environment;
 import play.db.ebean.EbeanConfig;
 import play.mvc.Http.Request;
 import play.mvc.Result;
+import repository.VersionCache;
 import services.LocalizedStrings;
 import services.program.ActiveAndDraftPrograms;
 import services.program.ProgramDefinition;
@@ -40,6 +42,8 @@ public class DatabaseSeedController extends DevController {
   private final EbeanServer ebeanServer;
   private final QuestionService questionService;
   private final ProgramService programService;
+  private final VersionCache versionCache;
+  private final AccountExistenceCache accountExistenceCache;
 
   @Inject
   public DatabaseSeedController(
@@ -47,6 +51,8 @@ public class DatabaseSeedController extends DevController {
       EbeanConfig ebeanConfig,
       QuestionService questionService,
       ProgramService programService,
+      VersionCache versionCache,
+      AccountExistenceCache accountExistenceCache,
       Environment environment,
       Config configuration) {
     super(environment, configuration);
@@ -54,6 +60,8 @@ public class DatabaseSeedController extends DevController {
     this.ebeanServer = Ebean.getServer(checkNotNull(ebeanConfig).defaultServer());
     this.questionService = checkNotNull(questionService);
     this.programService = checkNotNull(programService);
+    this.versionCache = checkNotNull(versionCache);
+    this.accountExistenceCache = checkNotNull(accountExistenceCache);
   }
 
   /**
@@ -247,5 +255,7 @@ public class DatabaseSeedController extends DevController {
     Models.truncate(ebeanServer);
     Version newActiveVersion = new Version(LifecycleStage.ACTIVE);
     newActiveVersion.save();
+    versionCache.invalidate();
+    accountExistenceCache.invalidateAll();
   }
 }
@@ -0,0 +1,16 @@
+package filters;
+
+import javax.inject.Singleton;
+import play.mvc.EssentialAction;
+import play.mvc.EssentialFilter;
+import repository.IdentityMap;
+
+/** Attaches a new {@link IdentityMap} to every request, for the rows loaded while handling it. */
+@Singleton
+public class IdentityMapFilter extends EssentialFilter {
+
+  @Override
+  public EssentialAction apply(EssentialAction next) {
+    return EssentialAction.of(request -> next.apply(IdentityMap.attachTo(request)));
+  }
+}
@@ -9,11 +9,15 @@ import javax.inject.Inject;
 import play.libs.streams.Accumulator;
 import play.mvc.EssentialAction;
 import play.mvc.EssentialFilter;
+import play.mvc.Http;
 import play.mvc.Results;
 
 /**
  * A filter to ensure the account referenced in the browser cookie is valid. This should only matter
  * when the account is deleted from the database which almost will never happen in prod database.
+ *
+ * <p>The profile it reads is attached to the request, so controllers share it and the account it
+ * may have looked up. Accounts this server loaded recently are not looked up at all.
  */
 public class ValidAccountFilter extends EssentialFilter {
   private final ProfileUtils profileUtils;
@@ -26,7 +30,8 @@ public class ValidAccountFilter extends EssentialFilter {
   @Override
   public EssentialAction apply(EssentialAction next) {
     return EssentialAction.of(
-        request -> {
+        originalRequest -> {
+          Http.RequestHeader request = profileUtils.withCurrentUserProfile(originalRequest);
           Optional<UatProfile> profile = profileUtils.currentUserProfile(request);
           if (profile.isPresent() && !profileUtils.validUatProfile(profile.get())) {
             // The cookie is present but the profile is not valid, redirect to logout and clear the
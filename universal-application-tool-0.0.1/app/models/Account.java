@@ -8,6 +8,7 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
@@ -31,10 +32,22 @@ public class Account extends BaseModel {
 
   private String emailAddress;
 
+  /**
+   * Advanced whenever an applicant is moved out of the account, by {@link
+   * repository.UserRepository#mergeApplicants}, so a list of its applicants made earlier is known
+   * to be out of date.
+   */
+  @Column(insertable = false, updatable = false)
+  private long applicantsVersion;
+
   public ImmutableList<Long> ownedApplicantIds() {
     return getApplicants().stream().map(applicant -> applicant.id).collect(toImmutableList());
   }
 
+  public long getApplicantsVersion() {
+    return applicantsVersion;
+  }
+
   public List<Applicant> getApplicants() {
     return applicants;
   }
@@ -123,7 +136,7 @@ public class Account extends BaseModel {
   public String getApplicantName() {
     return this.getApplicants().stream()
         .max(Comparator.comparing(Applicant::getWhenCreated))
-        .map(u -> u.getApplicantData().getApplicantName())
+        .map(Applicant::getApplicantName)
         .orElse("<Unnamed User>");
   }
 }
@@ -7,6 +7,7 @@ import java.time.Instant;
 import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
@@ -30,6 +31,16 @@ public class Applicant extends BaseModel {
   @Constraints.Required @DbJson private String object;
   @ManyToOne private Account account;
 
+  /**
+   * The applicant's name as of the last time it was loaded, from columns that the database
+   * generates from {@link #object}, so lists can show and sort by it without parsing the JSON.
+   */
+  @Column(insertable = false, updatable = false)
+  private String firstName;
+
+  @Column(insertable = false, updatable = false)
+  private String lastName;
+
   @OneToMany(mappedBy = "applicant")
   private List<Application> applications;
 
@@ -65,6 +76,7 @@ public class Applicant extends BaseModel {
             ? getApplicantData().preferredLocale().toLanguageTag()
             : null;
     this.object = objectAsJsonString();
+    getApplicantData().markPersisted();
   }
 
   private String objectAsJsonString() {
@@ -83,6 +95,18 @@ public class Applicant extends BaseModel {
     return ImmutableList.copyOf(this.applications);
   }
 
+  /**
+   * The applicant's name as "Last, First", like {@link ApplicantData#getApplicantName()}, but read
+   * from the name columns when the applicant was loaded with them. Changes made since it was loaded
+   * are not reflected.
+   */
+  public String getApplicantName() {
+    if (firstName == null || lastName == null) {
+      return getApplicantData().getApplicantName();
+    }
+    return String.format("%s, %s", lastName, firstName);
+  }
+
   public Instant getWhenCreated() {
     return this.whenCreated;
   }
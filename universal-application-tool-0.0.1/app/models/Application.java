@@ -1,13 +1,17 @@
 package models;
 
 import io.ebean.annotation.DbJson;
+import io.ebean.annotation.DbJsonB;
 import io.ebean.annotation.UpdatedTimestamp;
 import java.time.Instant;
+import java.util.Optional;
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
 import play.data.validation.Constraints;
 import services.applicant.ApplicantData;
+import services.applicant.ApplicationSummary;
 
 @Entity
 @Table(name = "applications")
@@ -20,12 +24,32 @@ public class Application extends BaseModel {
 
   @UpdatedTimestamp private Instant submitTime;
 
+  /**
+   * When the row was inserted, which the database sets. Active applications are inserted when they
+   * are submitted, so unlike {@link #submitTime} this does not change once they are.
+   */
+  @Column(insertable = false, updatable = false)
+  private Instant createTime;
+
   // used by generated code
   @SuppressWarnings("UnusedVariable")
   @Constraints.Required
   @DbJson
   private String object;
 
+  /**
+   * The applicant's name as of the last time it was loaded, from columns that the database
+   * generates from {@link #object}, so lists and searches need not parse the JSON.
+   */
+  @Column(insertable = false, updatable = false)
+  private String firstName;
+
+  @Column(insertable = false, updatable = false)
+  private String lastName;
+
+  /** The {@link ApplicationSummary}, stored when submitted or when first shown to an admin. */
+  @DbJsonB private String summary;
+
   public Application(Applicant applicant, Program program, LifecycleStage lifecycleStage) {
     this.applicant = applicant;
     ApplicantData data = applicant.getApplicantData();
@@ -42,6 +66,17 @@ public class Application extends BaseModel {
     return this.program;
   }
 
+  /**
+   * The applicant's name as "Last, First", like {@link ApplicantData#getApplicantName()}, but read
+   * from the name columns when the application was loaded with them.
+   */
+  public String getApplicantName() {
+    if (firstName == null || lastName == null) {
+      return getApplicantData().getApplicantName();
+    }
+    return String.format("%s, %s", lastName, firstName);
+  }
+
   public ApplicantData getApplicantData() {
     return new ApplicantData(this.object);
   }
@@ -54,6 +89,20 @@ public class Application extends BaseModel {
     return this.submitTime;
   }
 
+  /** When the application was created, which is only set once it has been loaded back. */
+  public Instant getCreateTime() {
+    return this.createTime;
+  }
+
+  /** The stored summary, which is empty for applications submitted before summaries were kept. */
+  public Optional<ApplicationSummary> getSummary() {
+    return Optional.ofNullable(summary).map(ApplicationSummary::fromJsonString);
+  }
+
+  public void setSummary(ApplicationSummary summary) {
+    this.summary = summary.asJsonString();
+  }
+
   public void setLifecycleStage(LifecycleStage stage) {
     this.lifecycleStage = stage;
   }
@@ -0,0 +1,84 @@
+package models;
+
+import io.ebean.annotation.WhenCreated;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+import play.data.validation.Constraints;
+
+/**
+ * The ebean mapped class for an export of a program's applications to a CSV file in AWS S3, which
+ * runs in the background on whichever server claims it.
+ */
+@Entity
+@Table(name = "export_jobs")
+public class ExportJob extends BaseModel {
+  private static final long serialVersionUID = 1L;
+
+  @Constraints.Required private long programId;
+
+  @Constraints.Required private ExportJobStatus status;
+
+  private long rowsExported;
+
+  private Long totalRows;
+
+  private String objectKey;
+
+  private String errorMessage;
+
+  @WhenCreated private Instant createTime;
+
+  private Instant leaseExpirationTime;
+
+  private UUID leaseToken;
+
+  public ExportJob(long programId) {
+    this.programId = programId;
+    this.status = ExportJobStatus.QUEUED;
+  }
+
+  public long getProgramId() {
+    return programId;
+  }
+
+  public ExportJobStatus getStatus() {
+    return status;
+  }
+
+  public long getRowsExported() {
+    return rowsExported;
+  }
+
+  /** The number of applications to export, once a server has started the job. */
+  public Optional<Long> getTotalRows() {
+    return Optional.ofNullable(totalRows);
+  }
+
+  /** The key of the finished CSV in the S3 bucket. */
+  public Optional<String> getObjectKey() {
+    return Optional.ofNullable(objectKey);
+  }
+
+  public Optional<String> getErrorMessage() {
+    return Optional.ofNullable(errorMessage);
+  }
+
+  public Instant getCreateTime() {
+    return createTime;
+  }
+
+  public Optional<Instant> getLeaseExpirationTime() {
+    return Optional.ofNullable(leaseExpirationTime);
+  }
+
+  /**
+   * Identifies the latest claim of the job. Only the server holding it may record the job's
+   * progress or result.
+   */
+  public Optional<UUID> getLeaseToken() {
+    return Optional.ofNullable(leaseToken);
+  }
+}
@@ -0,0 +1,27 @@
+package models;
+
+import io.ebean.annotation.DbEnumType;
+import io.ebean.annotation.DbEnumValue;
+
+public enum ExportJobStatus {
+  QUEUED("queued"),
+  RUNNING("running"),
+  SUCCEEDED("succeeded"),
+  FAILED("failed");
+
+  private final String status;
+
+  ExportJobStatus(String status) {
+    this.status = status;
+  }
+
+  @DbEnumValue(storage = DbEnumType.VARCHAR)
+  public String getValue() {
+    return this.status;
+  }
+
+  /** True once the job will not change any more. */
+  public boolean isFinished() {
+    return this == SUCCEEDED || this == FAILED;
+  }
+}
@@ -12,6 +12,7 @@ public class Models {
           Account.class,
           Applicant.class,
           Application.class,
+          ExportJob.class,
           Program.class,
           Question.class,
           StoredFile.class,
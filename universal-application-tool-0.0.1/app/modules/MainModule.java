@@ -3,8 +3,11 @@ package modules;
 import com.google.inject.AbstractModule;
 import java.time.Clock;
 import java.time.ZoneId;
+import repository.DatabaseExecutorReporter;
+import repository.VersionCacheListener;
 import services.applicant.ApplicantService;
 import services.applicant.ApplicantServiceImpl;
+import services.export.ExportJobWorker;
 import services.program.ProgramService;
 import services.program.ProgramServiceImpl;
 import services.question.QuestionService;
@@ -27,5 +30,8 @@ public class MainModule extends AbstractModule {
     bind(ProgramService.class).to(ProgramServiceImpl.class);
     bind(QuestionService.class).to(QuestionServiceImpl.class);
     bind(ApplicantService.class).to(ApplicantServiceImpl.class);
+    bind(VersionCacheListener.class).asEagerSingleton();
+    bind(ExportJobWorker.class).asEagerSingleton();
+    bind(DatabaseExecutorReporter.class).asEagerSingleton();
   }
 }
@@ -7,6 +7,7 @@ import static play.mvc.Results.redirect;
 import auth.AdOidcClient;
 import auth.AdfsProfileAdapter;
 import auth.Authorizers;
+import auth.CompactCookieSessionStore;
 import auth.FakeAdminClient;
 import auth.GuestClient;
 import auth.IdcsOidcClient;
@@ -92,8 +93,10 @@ public class SecurityModule extends AbstractModule {
     r.setSeed(this.configuration.getString("play.http.secret.key").hashCode());
     byte[] aesKey = new byte[32];
     r.nextBytes(aesKey);
+    // Profiles are written with a compact codec rather than Java serialization, which is still
+    // used for anything else in the session and for reading older cookies.
     PlayCookieSessionStore sessionStore =
-        new PlayCookieSessionStore(new ShiroAesDataEncrypter(aesKey));
+        new CompactCookieSessionStore(new ShiroAesDataEncrypter(aesKey));
     bind(SessionStore.class).toInstance(sessionStore);
   }
 
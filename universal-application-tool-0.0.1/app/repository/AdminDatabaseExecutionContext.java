@@ -0,0 +1,17 @@
+package repository;
+
+import akka.actor.ActorSystem;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Custom execution context wired to "database.admin-dispatcher" thread pool, for the pages admins
+ * use, so that a slow admin query waits for an admin thread rather than an applicant's.
+ */
+@Singleton
+public class AdminDatabaseExecutionContext extends MeteredExecutionContext {
+  @Inject
+  public AdminDatabaseExecutionContext(ActorSystem actorSystem) {
+    super(actorSystem, "database.admin-dispatcher");
+  }
+}
@@ -0,0 +1,49 @@
+package repository;
+
+import com.google.auto.value.AutoValue;
+import java.time.Instant;
+
+/**
+ * A position in a program's list of applications, sorted by submit time and then ID. A page that
+ * starts after a cursor is found with an index seek rather than by skipping the rows before it, so
+ * every page costs the same.
+ *
+ * <p>For {@link ApplicationListOrder#NAME}, only the ID is used, and the page starts after that
+ * application's place by name.
+ */
+@AutoValue
+public abstract class ApplicationListCursor {
+
+  public static ApplicationListCursor create(Instant submitTime, long applicationId) {
+    return new AutoValue_ApplicationListCursor(submitTime, applicationId);
+  }
+
+  public abstract Instant submitTime();
+
+  public abstract long applicationId();
+
+  /** The cursor as an opaque, URL-safe string, which {@link #fromToken} reads back. */
+  public String toToken() {
+    return String.format(
+        "%d.%09d.%d", submitTime().getEpochSecond(), submitTime().getNano(), applicationId());
+  }
+
+  /**
+   * Reads a cursor written by {@link #toToken}.
+   *
+   * @throws IllegalArgumentException if the token is not a cursor
+   */
+  public static ApplicationListCursor fromToken(String token) {
+    String[] parts = token.split("\\.");
+    if (parts.length != 3) {
+      throw new IllegalArgumentException("Not an application list cursor: " + token);
+    }
+    try {
+      return create(
+          Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1])),
+          Long.parseLong(parts[2]));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Not an application list cursor: " + token, e);
+    }
+  }
+}
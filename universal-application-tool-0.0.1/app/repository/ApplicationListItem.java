@@ -0,0 +1,50 @@
+package repository;
+
+import com.google.auto.value.AutoValue;
+import java.time.Instant;
+import java.util.Optional;
+
+/** The columns of an application that the program admin's list of applications shows. */
+@AutoValue
+public abstract class ApplicationListItem {
+
+  static ApplicationListItem create(
+      long applicationId,
+      long applicantId,
+      Instant submitTime,
+      Optional<String> firstName,
+      Optional<String> lastName,
+      Optional<String> emailAddress) {
+    return new AutoValue_ApplicationListItem(
+        applicationId, applicantId, submitTime, firstName, lastName, emailAddress);
+  }
+
+  public abstract long applicationId();
+
+  public abstract long applicantId();
+
+  public abstract Instant submitTime();
+
+  public abstract Optional<String> firstName();
+
+  public abstract Optional<String> lastName();
+
+  /** The email address of the applicant's account. */
+  public abstract Optional<String> emailAddress();
+
+  /**
+   * The applicant's name as "Last, First", like {@link
+   * services.applicant.ApplicantData#getApplicantName()}.
+   */
+  public String applicantName() {
+    if (firstName().isEmpty() || lastName().isEmpty()) {
+      return "<Anonymous Applicant>";
+    }
+    return String.format("%s, %s", lastName().get(), firstName().get());
+  }
+
+  /** The position of this item, for listing the items that follow it. */
+  public ApplicationListCursor cursor() {
+    return ApplicationListCursor.create(submitTime(), applicationId());
+  }
+}
@@ -0,0 +1,34 @@
+package repository;
+
+import java.util.Optional;
+
+/** How a page of a program's application list is sorted. */
+public enum ApplicationListOrder {
+  /** The most recently submitted application first. */
+  NEWEST_FIRST("newest"),
+  OLDEST_FIRST("oldest"),
+  /**
+   * By the applicant's last name and then first name, ignoring case. Anonymous applicants first.
+   */
+  NAME("name");
+
+  private final String value;
+
+  ApplicationListOrder(String value) {
+    this.value = value;
+  }
+
+  public String getValue() {
+    return value;
+  }
+
+  /** The order with the given value, if there is one. */
+  public static Optional<ApplicationListOrder> forValue(String value) {
+    for (ApplicationListOrder order : values()) {
+      if (order.value.equalsIgnoreCase(value)) {
+        return Optional.of(order);
+      }
+    }
+    return Optional.empty();
+  }
+}
@@ -0,0 +1,20 @@
+package repository;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
+import java.util.Optional;
+
+/** One page of a program's list of applications. */
+@AutoValue
+public abstract class ApplicationListPage {
+
+  static ApplicationListPage create(
+      ImmutableList<ApplicationListItem> items, Optional<ApplicationListCursor> next) {
+    return new AutoValue_ApplicationListPage(items, next);
+  }
+
+  public abstract ImmutableList<ApplicationListItem> items();
+
+  /** Where the next page starts, or empty if this is the last page. */
+  public abstract Optional<ApplicationListCursor> next();
+}
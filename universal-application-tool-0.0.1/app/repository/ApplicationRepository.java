@@ -1,14 +1,27 @@
 package repository;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.CompletableFuture.runAsync;
 import static java.util.concurrent.CompletableFuture.supplyAsync;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import io.ebean.Ebean;
 import io.ebean.EbeanServer;
+import io.ebean.ExpressionList;
+import io.ebean.QueryIterator;
+import io.ebean.SqlQuery;
+import io.ebean.SqlRow;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletionStage;
+import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import javax.inject.Inject;
 import models.Applicant;
 import models.Application;
@@ -17,6 +30,8 @@ import models.Program;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import play.db.ebean.EbeanConfig;
+import services.Path;
+import services.applicant.ApplicationSummary;
 import services.applicant.exception.ApplicantNotFoundException;
 import services.program.ProgramNotFoundException;
 
@@ -25,18 +40,30 @@ public class ApplicationRepository {
   private final UserRepository userRepository;
   private final EbeanServer ebeanServer;
   private final DatabaseExecutionContext executionContext;
+  private final AdminDatabaseExecutionContext adminExecutionContext;
+  private final BackgroundDatabaseExecutionContext backgroundExecutionContext;
+  private final CursorLimiter cursorLimiter;
   private static final Logger LOG = LoggerFactory.getLogger(ApplicationRepository.class);
+  private static final int CURSOR_FETCH_SIZE = 100;
+  /** The most applications {@link #listProgramApplications} returns in one page. */
+  public static final int MAX_LIST_PAGE_SIZE = 200;
 
   @Inject
   public ApplicationRepository(
       ProgramRepository programRepository,
       UserRepository userRepository,
       EbeanConfig ebeanConfig,
-      DatabaseExecutionContext executionContext) {
+      DatabaseExecutionContext executionContext,
+      AdminDatabaseExecutionContext adminExecutionContext,
+      BackgroundDatabaseExecutionContext backgroundExecutionContext,
+      CursorLimiter cursorLimiter) {
     this.programRepository = checkNotNull(programRepository);
     this.userRepository = checkNotNull(userRepository);
     this.ebeanServer = Ebean.getServer(checkNotNull(ebeanConfig).defaultServer());
     this.executionContext = checkNotNull(executionContext);
+    this.adminExecutionContext = checkNotNull(adminExecutionContext);
+    this.backgroundExecutionContext = checkNotNull(backgroundExecutionContext);
+    this.cursorLimiter = checkNotNull(cursorLimiter);
   }
 
   /**
@@ -47,21 +74,37 @@ public class ApplicationRepository {
   public CompletionStage<Application> submitApplication(Applicant applicant, Program program) {
     return supplyAsync(
         () -> {
-          return submitApplicationInternal(applicant, program);
+          return submitApplicationInternal(applicant, program, Optional.empty());
         },
         executionContext.current());
   }
 
   public CompletionStage<Optional<Application>> submitApplication(
       long applicantId, long programId) {
+    return submitApplication(applicantId, programId, (applicant, program) -> Optional.empty());
+  }
+
+  /**
+   * Like {@link #submitApplication(long, long)}, but also stores the new application's summary,
+   * computed by {@code summarize} from the applicant's answers before the transaction starts, so
+   * that any reads it makes do not need a second connection while the transaction holds one.
+   */
+  public CompletionStage<Optional<Application>> submitApplication(
+      long applicantId,
+      long programId,
+      BiFunction<Applicant, Program, Optional<ApplicationSummary>> summarize) {
     return this.perform(
         applicantId,
         programId,
         (ApplicationArguments appArgs) ->
-            submitApplicationInternal(appArgs.applicant, appArgs.program));
+            submitApplicationInternal(
+                appArgs.applicant,
+                appArgs.program,
+                summarize.apply(appArgs.applicant, appArgs.program)));
   }
 
-  private Application submitApplicationInternal(Applicant applicant, Program program) {
+  private Application submitApplicationInternal(
+      Applicant applicant, Program program, Optional<ApplicationSummary> summary) {
     ebeanServer.beginTransaction();
     try {
       List<Application> oldApplications =
@@ -81,6 +124,7 @@ public class ApplicationRepository {
         application.save();
       }
       Application application = new Application(applicant, program, LifecycleStage.ACTIVE);
+      summary.ifPresent(application::setSummary);
       application.save();
       ebeanServer.commitTransaction();
       return application;
@@ -89,6 +133,23 @@ public class ApplicationRepository {
     }
   }
 
+  /**
+   * Stores the summary of an application submitted before summaries were kept, unless another
+   * request stored one first. This does not change the application's submit time.
+   */
+  public CompletionStage<Void> backfillSummary(long applicationId, ApplicationSummary summary) {
+    return runAsync(
+        () ->
+            ebeanServer
+                .createSqlUpdate(
+                    "UPDATE applications SET summary = CAST(? AS jsonb) WHERE id = ? AND summary"
+                        + " IS NULL")
+                .setParameter(1, summary.asJsonString())
+                .setParameter(2, applicationId)
+                .execute(),
+        backgroundExecutionContext);
+  }
+
   private CompletionStage<Optional<Application>> perform(
       long applicantId, long programId, Function<ApplicationArguments, Application> fn) {
     CompletionStage<Optional<Applicant>> applicantDb = userRepository.lookupApplicant(applicantId);
@@ -169,9 +230,251 @@ public class ApplicationRepository {
             createOrUpdateDraftApplicationInternal(appArgs.applicant, appArgs.program));
   }
 
+  /**
+   * Iterates over every application to the program, in id order, through a database cursor so that
+   * only a batch of them is in memory at once. The caller must close the iterator.
+   *
+   * <p>The cursor holds a connection until it is closed, so only {@code database.cursor_streams}
+   * are open at once. This waits for one to close if need be, as do the other iterate methods.
+   */
+  public QueryIterator<Application> iterateProgramApplications(long programId) {
+    return cursorLimiter.open(
+        () ->
+            ebeanServer
+                .find(Application.class)
+                .where()
+                .eq("program.id", programId)
+                .orderBy("id")
+                .setBufferFetchSizeHint(CURSOR_FETCH_SIZE)
+                .findIterate());
+  }
+
+  /**
+   * Iterates over every application to any of the programs, in id order, through a single database
+   * cursor. The caller must close the iterator.
+   */
+  public QueryIterator<Application> iterateApplicationsToPrograms(ImmutableList<Long> programIds) {
+    return cursorLimiter.open(
+        () ->
+            ebeanServer
+                .find(Application.class)
+                .where()
+                .in("program.id", programIds)
+                .orderBy("id")
+                .setBufferFetchSizeHint(CURSOR_FETCH_SIZE)
+                .findIterate());
+  }
+
+  /**
+   * Iterates over the active applications to the program created after {@code after}, if given, and
+   * no later than {@code until}, in creation order. Like {@link #iterateProgramApplications}, the
+   * caller must close the iterator.
+   */
+  public QueryIterator<Application> iterateProgramApplicationsSubmittedBetween(
+      long programId, Optional<Instant> after, Instant until) {
+    ExpressionList<Application> query =
+        ebeanServer
+            .find(Application.class)
+            .where()
+            .eq("program.id", programId)
+            .eq("lifecycleStage", LifecycleStage.ACTIVE)
+            .le("createTime", until);
+    if (after.isPresent()) {
+      query = query.gt("createTime", after.get());
+    }
+    ExpressionList<Application> range = query;
+    return cursorLimiter.open(
+        () ->
+            range
+                .orderBy("createTime, id")
+                .setBufferFetchSizeHint(CURSOR_FETCH_SIZE)
+                .findIterate());
+  }
+
+  /**
+   * The latest creation time of the program's active applications created after {@code after}, if
+   * any, leaving out those created within {@code settleTime} of now.
+   *
+   * <p>An application's creation time is set when its submission starts, but it is only visible
+   * once the submission commits, so one created just before another may become visible just after
+   * it. Leaving out recent applications means that every application created no later than the time
+   * returned has committed, as long as no submission takes longer than {@code settleTime}.
+   */
+  public Optional<Instant> getLatestSettledCreateTime(
+      long programId, Optional<Instant> after, Duration settleTime) {
+    SqlQuery query =
+        ebeanServer
+            .createSqlQuery(
+                "SELECT max(create_time) AS latest FROM applications"
+                    + " WHERE program_id = ? AND lifecycle_stage = ?"
+                    + " AND create_time <= now() - CAST(? AS interval)"
+                    + (after.isPresent() ? " AND create_time > ?" : ""))
+            .setParameter(1, programId)
+            .setParameter(2, LifecycleStage.ACTIVE.getValue())
+            .setParameter(3, settleTime.toMillis() + " milliseconds");
+    if (after.isPresent()) {
+      query.setParameter(4, Timestamp.from(after.get()));
+    }
+    return Optional.ofNullable(query.findOne().getTimestamp("latest")).map(Timestamp::toInstant);
+  }
+
+  /** The number of applications {@link #iterateProgramApplications} iterates over. */
+  public int countProgramApplications(long programId) {
+    return ebeanServer.find(Application.class).where().eq("program.id", programId).findCount();
+  }
+
+  /**
+   * For each path, the length of the longest JSON array at that path in any of the program's
+   * applications, or zero if none of them has an array there. All the paths are measured in a
+   * single pass over the applications.
+   */
+  public ImmutableMap<Path, Integer> getMaxArrayLengths(
+      long programId, ImmutableList<Path> arrayPaths) {
+    if (arrayPaths.isEmpty()) {
+      return ImmutableMap.of();
+    }
+    String lengths =
+        IntStream.range(0, arrayPaths.size())
+            .mapToObj(
+                i ->
+                    String.format(
+                        "max(CASE WHEN jsonb_typeof(object #> CAST(? AS text[])) = 'array'"
+                            + " THEN jsonb_array_length(object #> CAST(? AS text[])) END)"
+                            + " AS length_%d",
+                        i))
+            .collect(Collectors.joining(", "));
+    SqlQuery query =
+        ebeanServer.createSqlQuery("SELECT " + lengths + " FROM applications WHERE program_id = ?");
+    int position = 1;
+    for (Path arrayPath : arrayPaths) {
+      String keys = JsonbPaths.toTextArray(JsonbPaths.keys(arrayPath));
+      query.setParameter(position++, keys);
+      query.setParameter(position++, keys);
+    }
+    query.setParameter(position, programId);
+    SqlRow row = query.findOne();
+
+    ImmutableMap.Builder<Path, Integer> maxLengths = ImmutableMap.builder();
+    for (int i = 0; i < arrayPaths.size(); i++) {
+      Integer length = row == null ? null : row.getInteger("length_" + i);
+      maxLengths.put(arrayPaths.get(i), length == null ? 0 : length);
+    }
+    return maxLengths.build();
+  }
+
+  /**
+   * Lists a page of the program's applications, in the order given and then by ID, reading only the
+   * columns the list shows. The page starts after {@code after}, found with an index seek, so a
+   * late page costs the same as the first.
+   *
+   * @param search if present, only applications whose applicant's first name, last name, or email
+   *     address contains it, ignoring case, are listed
+   * @param pageSize how many applications to list, up to {@link #MAX_LIST_PAGE_SIZE}
+   */
+  public CompletionStage<ApplicationListPage> listProgramApplications(
+      long programId,
+      ApplicationListOrder order,
+      Optional<String> search,
+      Optional<ApplicationListCursor> after,
+      int pageSize) {
+    int limit = Math.max(1, Math.min(pageSize, MAX_LIST_PAGE_SIZE));
+    String sortKey;
+    String seek;
+    String orderBy;
+    if (order == ApplicationListOrder.NAME) {
+      // The same expressions as ix_applications_program_name_id, so the index is used.
+      sortKey = nameSortKey("applications") + ", applications.id";
+      seek =
+          String.format(
+              " AND (%s) > (SELECT %s, anchor.id FROM applications anchor WHERE anchor.id = ?)",
+              sortKey, nameSortKey("anchor"));
+      orderBy = sortKey;
+    } else {
+      String direction = order == ApplicationListOrder.NEWEST_FIRST ? "DESC" : "ASC";
+      String comparison = order == ApplicationListOrder.NEWEST_FIRST ? "<" : ">";
+      seek =
+          String.format(" AND (applications.submit_time, applications.id) %s (?, ?)", comparison);
+      orderBy =
+          String.format("applications.submit_time %s, applications.id %s", direction, direction);
+    }
+    Optional<String> pattern =
+        search
+            .map(String::trim)
+            .filter(term -> !term.isEmpty())
+            .map(
+                term ->
+                    "%" + term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%");
+    return supplyAsync(
+        () -> {
+          // Emails are read from the account, which is the only copy kept up to date.
+          SqlQuery query =
+              ebeanServer.createSqlQuery(
+                  "SELECT applications.id, applications.applicant_id, applications.submit_time,"
+                      + " applications.first_name, applications.last_name, accounts.email_address"
+                      + " FROM applications"
+                      + " LEFT JOIN applicants ON applicants.id = applications.applicant_id"
+                      + " LEFT JOIN accounts ON accounts.id = applicants.account_id"
+                      + " WHERE applications.program_id = ?"
+                      + " AND applications.submit_time IS NOT NULL"
+                      + (pattern.isPresent()
+                          ? " AND (applications.first_name ILIKE ? OR applications.last_name ILIKE"
+                              + " ? OR applications.applicant_id IN (SELECT matched.id FROM"
+                              + " applicants matched JOIN accounts matched_account ON"
+                              + " matched_account.id = matched.account_id WHERE"
+                              + " matched_account.email_address ILIKE ?))"
+                          : "")
+                      + (after.isPresent() ? seek : "")
+                      + " ORDER BY "
+                      + orderBy
+                      + " LIMIT ?");
+          int position = 1;
+          query.setParameter(position++, programId);
+          if (pattern.isPresent()) {
+            query.setParameter(position++, pattern.get());
+            query.setParameter(position++, pattern.get());
+            query.setParameter(position++, pattern.get());
+          }
+          if (after.isPresent()) {
+            if (order != ApplicationListOrder.NAME) {
+              query.setParameter(position++, Timestamp.from(after.get().submitTime()));
+            }
+            query.setParameter(position++, after.get().applicationId());
+          }
+          // One more than the page, to tell whether there is a next page.
+          query.setParameter(position, limit + 1);
+
+          List<SqlRow> rows = query.findList();
+          ImmutableList<ApplicationListItem> items =
+              rows.stream()
+                  .limit(limit)
+                  .map(
+                      row ->
+                          ApplicationListItem.create(
+                              row.getLong("id"),
+                              row.getLong("applicant_id"),
+                              row.getTimestamp("submit_time").toInstant(),
+                              Optional.ofNullable(row.getString("first_name")),
+                              Optional.ofNullable(row.getString("last_name")),
+                              Optional.ofNullable(row.getString("email_address"))))
+                  .collect(ImmutableList.toImmutableList());
+          Optional<ApplicationListCursor> next =
+              rows.size() > limit
+                  ? Optional.of(items.get(items.size() - 1).cursor())
+                  : Optional.empty();
+          return ApplicationListPage.create(items, next);
+        },
+        adminExecutionContext.current());
+  }
+
+  /** The applicant's name in the table, as a key that sorts missing names first. */
+  private static String nameSortKey(String table) {
+    return String.format(
+        "coalesce(lower(%1$s.last_name), ''), coalesce(lower(%1$s.first_name), '')", table);
+  }
+
   public CompletionStage<Optional<Application>> getApplication(long applicationId) {
     return supplyAsync(
         () -> ebeanServer.find(Application.class).setId(applicationId).findOneOrEmpty(),
-        executionContext.current());
+        adminExecutionContext.current());
   }
 }
@@ -0,0 +1,17 @@
+package repository;
+
+import akka.actor.ActorSystem;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Custom execution context wired to "database.background-dispatcher" thread pool, for writes nobody
+ * waits on, such as backfilling stored data.
+ */
+@Singleton
+public class BackgroundDatabaseExecutionContext extends MeteredExecutionContext {
+  @Inject
+  public BackgroundDatabaseExecutionContext(ActorSystem actorSystem) {
+    super(actorSystem, "database.background-dispatcher");
+  }
+}
@@ -0,0 +1,98 @@
+package repository;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.typesafe.config.Config;
+import io.ebean.QueryIterator;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Limits how many database cursors are open at once. A cursor holds its connection from when it is
+ * opened until it is closed, which for a streamed export is the whole download. Streams run on
+ * Akka's threads rather than the database pools, so without a limit they could take every
+ * connection in the pool. The limit, {@code database.cursor_streams}, is counted into {@code
+ * fixedConnectionPool}.
+ */
+@Singleton
+public final class CursorLimiter {
+  private static final String CURSOR_STREAMS_CONF_PATH = "database.cursor_streams";
+  private static final String CURSOR_WAIT_CONF_PATH = "database.cursor_wait";
+
+  private final Semaphore permits;
+  private final Duration wait;
+
+  @Inject
+  public CursorLimiter(Config config) {
+    checkNotNull(config);
+    this.permits = new Semaphore(config.getInt(CURSOR_STREAMS_CONF_PATH), /* fair= */ true);
+    this.wait = config.getDuration(CURSOR_WAIT_CONF_PATH);
+  }
+
+  /**
+   * Opens the cursor once fewer than the limit are open. Its place is given up when it is closed,
+   * or if opening it fails.
+   *
+   * @throws IllegalStateException if no place comes free within {@code database.cursor_wait}
+   */
+  <T> QueryIterator<T> open(Supplier<QueryIterator<T>> openCursor) {
+    try {
+      if (!permits.tryAcquire(wait.toMillis(), TimeUnit.MILLISECONDS)) {
+        throw new IllegalStateException(
+            String.format("No database cursor came free within %s.", wait));
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for a database cursor.", e);
+    }
+    QueryIterator<T> cursor;
+    try {
+      cursor = openCursor.get();
+    } catch (RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+    return new LimitedCursor<>(cursor);
+  }
+
+  /** Gives up its place when closed, once however many times it is closed. */
+  private final class LimitedCursor<T> implements QueryIterator<T> {
+    private final QueryIterator<T> cursor;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    LimitedCursor(QueryIterator<T> cursor) {
+      this.cursor = cursor;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return cursor.hasNext();
+    }
+
+    @Override
+    public T next() {
+      return cursor.next();
+    }
+
+    @Override
+    public void remove() {
+      cursor.remove();
+    }
+
+    @Override
+    public void close() {
+      if (closed.compareAndSet(false, true)) {
+        try {
+          cursor.close();
+        } finally {
+          permits.release();
+        }
+      }
+    }
+  }
+}
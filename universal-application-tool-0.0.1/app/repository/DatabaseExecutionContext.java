@@ -1,17 +1,18 @@
 package repository;
 
-import static com.google.common.base.Preconditions.checkNotNull;
-
 import akka.actor.ActorSystem;
 import javax.inject.Inject;
 import javax.inject.Singleton;
-import play.libs.concurrent.CustomExecutionContext;
 
-/** Custom execution context wired to "database.dispatcher" thread pool */
+/**
+ * Custom execution context wired to "database.dispatcher" thread pool, which serves applicants and
+ * anything else not on the {@link AdminDatabaseExecutionContext} or {@link
+ * BackgroundDatabaseExecutionContext}.
+ */
 @Singleton
-public class DatabaseExecutionContext extends CustomExecutionContext {
+public class DatabaseExecutionContext extends MeteredExecutionContext {
   @Inject
   public DatabaseExecutionContext(ActorSystem actorSystem) {
-    super(checkNotNull(actorSystem), "database.dispatcher");
+    super(actorSystem, "database.dispatcher");
   }
 }
@@ -0,0 +1,103 @@
+package repository;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableList;
+import com.typesafe.config.Config;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import play.inject.ApplicationLifecycle;
+import services.Path;
+
+/**
+ * Logs, every {@code database.metrics.report_interval}, how many tasks are waiting for each
+ * database thread pool and how long the tasks that started waited. Pools with nothing to report are
+ * skipped.
+ *
+ * <p>Waits on the {@link DatabaseExecutionContext} mean applicants are waiting; waits on the other
+ * pools only hold up the work that pool is for.
+ *
+ * <p>The hit rates of the {@link Path} parse and join caches over the same interval are logged
+ * alongside, since a falling hit rate there shows up as extra CPU on the applicant pool.
+ */
+@Singleton
+public final class DatabaseExecutorReporter {
+  private static final Logger LOG = LoggerFactory.getLogger(DatabaseExecutorReporter.class);
+  private static final String REPORT_INTERVAL_CONF_PATH = "database.metrics.report_interval";
+
+  private final ImmutableList<MeteredExecutionContext> contexts;
+  private CacheStats lastParseCacheStats = Path.parseCacheStats();
+  private CacheStats lastJoinCacheStats = Path.joinCacheStats();
+
+  @Inject
+  public DatabaseExecutorReporter(
+      DatabaseExecutionContext applicantContext,
+      AdminDatabaseExecutionContext adminContext,
+      BackgroundDatabaseExecutionContext backgroundContext,
+      Config config,
+      ApplicationLifecycle appLifecycle) {
+    this.contexts =
+        ImmutableList.of(
+            checkNotNull(applicantContext),
+            checkNotNull(adminContext),
+            checkNotNull(backgroundContext));
+    ScheduledExecutorService executor =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "database-executor-reporter");
+              thread.setDaemon(true);
+              return thread;
+            });
+    long intervalMillis = config.getDuration(REPORT_INTERVAL_CONF_PATH).toMillis();
+    executor.scheduleAtFixedRate(
+        this::report, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+
+    appLifecycle.addStopHook(
+        () -> {
+          executor.shutdownNow();
+          return CompletableFuture.completedFuture(null);
+        });
+  }
+
+  private void report() {
+    for (MeteredExecutionContext context : contexts) {
+      ExecutorMetrics.Snapshot snapshot = context.getMetrics().snapshotAndReset();
+      if (snapshot.isIdle()) {
+        continue;
+      }
+      LOG.info(
+          "{}\tqueued {}\tstarted {}\tmean wait {}ms\tmax wait {}ms",
+          context.getName(),
+          snapshot.queueDepth(),
+          snapshot.started(),
+          snapshot.meanWait().toMillis(),
+          snapshot.maxWait().toMillis());
+    }
+
+    CacheStats parseCacheStats = Path.parseCacheStats();
+    reportCache("path parse cache", parseCacheStats.minus(lastParseCacheStats));
+    lastParseCacheStats = parseCacheStats;
+    CacheStats joinCacheStats = Path.joinCacheStats();
+    reportCache("path join cache", joinCacheStats.minus(lastJoinCacheStats));
+    lastJoinCacheStats = joinCacheStats;
+  }
+
+  private static void reportCache(String name, CacheStats interval) {
+    if (interval.requestCount() == 0) {
+      return;
+    }
+    LOG.info(
+        "{}\trequests {}\thit rate {}%\tevictions {}",
+        name,
+        interval.requestCount(),
+        Math.round(interval.hitRate() * 100),
+        interval.evictionCount());
+  }
+}
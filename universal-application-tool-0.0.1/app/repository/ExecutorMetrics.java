@@ -0,0 +1,87 @@
+package repository;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.auto.value.AutoValue;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Counts the tasks waiting for a thread of one pool, and how long tasks waited before they started.
+ * A pool whose tasks wait is too small for its workload.
+ */
+final class ExecutorMetrics {
+  private final LongSupplier nanoTime;
+  private final AtomicInteger queued = new AtomicInteger();
+  private final LongAdder started = new LongAdder();
+  private final LongAdder totalWaitNanos = new LongAdder();
+  private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+
+  ExecutorMetrics() {
+    this(System::nanoTime);
+  }
+
+  ExecutorMetrics(LongSupplier nanoTime) {
+    this.nanoTime = checkNotNull(nanoTime);
+  }
+
+  /**
+   * The task, counted as waiting until it starts. {@link #rejected} must be called if the pool does
+   * not accept it.
+   */
+  Runnable submitted(Runnable task) {
+    long submittedAt = nanoTime.getAsLong();
+    queued.incrementAndGet();
+    return () -> {
+      long waited = nanoTime.getAsLong() - submittedAt;
+      queued.decrementAndGet();
+      started.increment();
+      totalWaitNanos.add(waited);
+      maxWaitNanos.accumulate(waited);
+      task.run();
+    };
+  }
+
+  /** Stops counting a task the pool did not accept as waiting. */
+  void rejected() {
+    queued.decrementAndGet();
+  }
+
+  /**
+   * The tasks waiting now, and the tasks that started since the last snapshot and how long they
+   * waited. The counts start again from zero.
+   */
+  Snapshot snapshotAndReset() {
+    long startedCount = started.sumThenReset();
+    long totalWait = totalWaitNanos.sumThenReset();
+    long maxWait = maxWaitNanos.getThenReset();
+    return Snapshot.create(
+        queued.get(),
+        startedCount,
+        Duration.ofNanos(startedCount == 0 ? 0 : totalWait / startedCount),
+        Duration.ofNanos(maxWait));
+  }
+
+  @AutoValue
+  abstract static class Snapshot {
+    static Snapshot create(int queueDepth, long started, Duration meanWait, Duration maxWait) {
+      return new AutoValue_ExecutorMetrics_Snapshot(queueDepth, started, meanWait, maxWait);
+    }
+
+    /** The tasks waiting for a thread when the snapshot was taken. */
+    abstract int queueDepth();
+
+    abstract long started();
+
+    abstract Duration meanWait();
+
+    abstract Duration maxWait();
+
+    boolean isIdle() {
+      return queueDepth() == 0 && started() == 0;
+    }
+  }
+}
@@ -0,0 +1,159 @@
+package repository;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+
+import io.ebean.Ebean;
+import io.ebean.EbeanServer;
+import io.ebean.SqlRow;
+import io.ebean.Transaction;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletionStage;
+import javax.inject.Inject;
+import models.ExportJob;
+import models.ExportJobStatus;
+import play.db.ebean.EbeanConfig;
+
+/**
+ * Stores {@link ExportJob}s, and hands them out to the servers that run them.
+ *
+ * <p>A running job holds a lease, which its server renews as it makes progress. A job whose lease
+ * has expired, because its server stopped, is claimed again like a queued one, so jobs survive a
+ * server restart.
+ *
+ * <p>Each claim writes a new lease token, and every later write for the job must present it. A
+ * server that stalled past its lease finds its writes rejected once another server has claimed the
+ * job, and must give the job up.
+ */
+public class ExportJobRepository {
+
+  /**
+   * Claims the oldest queued job, or running job with an expired lease. Locked rows are skipped, so
+   * servers claiming at the same time each get a different job.
+   */
+  private static final String CLAIM_QUERY =
+      "UPDATE export_jobs SET status = ?, rows_exported = 0, total_rows = NULL,"
+          + " lease_expiration_time = now() + CAST(? AS interval), lease_token = ?"
+          + " WHERE id = ("
+          + "   SELECT id FROM export_jobs"
+          + "   WHERE status = ? OR (status = ? AND lease_expiration_time < now())"
+          + "   ORDER BY id LIMIT 1 FOR UPDATE SKIP LOCKED)"
+          + " RETURNING id";
+
+  private final EbeanServer ebeanServer;
+  private final AdminDatabaseExecutionContext executionContext;
+
+  @Inject
+  public ExportJobRepository(
+      EbeanConfig ebeanConfig, AdminDatabaseExecutionContext executionContext) {
+    this.ebeanServer = Ebean.getServer(checkNotNull(ebeanConfig).defaultServer());
+    this.executionContext = checkNotNull(executionContext);
+  }
+
+  /** Queues a new export of the program's applications. */
+  public CompletionStage<ExportJob> insertJob(long programId) {
+    return supplyAsync(
+        () -> {
+          ExportJob job = new ExportJob(programId);
+          ebeanServer.insert(job);
+          return job;
+        },
+        executionContext);
+  }
+
+  public CompletionStage<Optional<ExportJob>> lookupJob(long id) {
+    return supplyAsync(
+        () -> ebeanServer.find(ExportJob.class).setId(id).findOneOrEmpty(), executionContext);
+  }
+
+  /**
+   * Marks the next job to run as running, with a lease that lasts for {@code lease}, and returns
+   * it. Runs on the caller's thread, which is expected to be a background worker.
+   */
+  public Optional<ExportJob> claimNextJobSync(Duration lease) {
+    // The claim is an update, so it needs a transaction that commits rather than a read-only one.
+    try (Transaction transaction = ebeanServer.beginTransaction()) {
+      SqlRow row =
+          ebeanServer
+              .createSqlQuery(CLAIM_QUERY)
+              .setParameter(1, ExportJobStatus.RUNNING.getValue())
+              .setParameter(2, toInterval(lease))
+              .setParameter(3, UUID.randomUUID())
+              .setParameter(4, ExportJobStatus.QUEUED.getValue())
+              .setParameter(5, ExportJobStatus.RUNNING.getValue())
+              .findOne();
+      Optional<ExportJob> job =
+          row == null
+              ? Optional.empty()
+              : ebeanServer.find(ExportJob.class).setId(row.getLong("id")).findOneOrEmpty();
+      transaction.commit();
+      return job;
+    }
+  }
+
+  /**
+   * Records the job's progress and renews its lease. Returns false, and changes nothing, if the
+   * lease has since been claimed by another server.
+   */
+  public boolean updateProgressSync(
+      long id, UUID leaseToken, long rowsExported, long totalRows, Duration lease) {
+    return ebeanServer
+            .createSqlUpdate(
+                "UPDATE export_jobs SET rows_exported = ?, total_rows = ?,"
+                    + " lease_expiration_time = now() + CAST(? AS interval)"
+                    + " WHERE id = ? AND status = ? AND lease_token = ?")
+            .setParameter(1, rowsExported)
+            .setParameter(2, totalRows)
+            .setParameter(3, toInterval(lease))
+            .setParameter(4, id)
+            .setParameter(5, ExportJobStatus.RUNNING.getValue())
+            .setParameter(6, leaseToken)
+            .execute()
+        > 0;
+  }
+
+  /**
+   * Marks the job as finished, with its CSV stored in S3 under the key. Returns false, and changes
+   * nothing, if the lease has since been claimed by another server.
+   */
+  public boolean markSucceededSync(long id, UUID leaseToken, long rowsExported, String objectKey) {
+    return ebeanServer
+            .createSqlUpdate(
+                "UPDATE export_jobs SET status = ?, rows_exported = ?, total_rows = ?,"
+                    + " object_key = ?, lease_expiration_time = NULL"
+                    + " WHERE id = ? AND status = ? AND lease_token = ?")
+            .setParameter(1, ExportJobStatus.SUCCEEDED.getValue())
+            .setParameter(2, rowsExported)
+            .setParameter(3, rowsExported)
+            .setParameter(4, objectKey)
+            .setParameter(5, id)
+            .setParameter(6, ExportJobStatus.RUNNING.getValue())
+            .setParameter(7, leaseToken)
+            .execute()
+        > 0;
+  }
+
+  /**
+   * Marks the job as failed. Returns false, and changes nothing, if the lease has since been
+   * claimed by another server.
+   */
+  public boolean markFailedSync(long id, UUID leaseToken, String errorMessage) {
+    return ebeanServer
+            .createSqlUpdate(
+                "UPDATE export_jobs SET status = ?, error_message = ?, lease_expiration_time = NULL"
+                    + " WHERE id = ? AND status = ? AND lease_token = ?")
+            .setParameter(1, ExportJobStatus.FAILED.getValue())
+            .setParameter(2, errorMessage)
+            .setParameter(3, id)
+            .setParameter(4, ExportJobStatus.RUNNING.getValue())
+            .setParameter(5, leaseToken)
+            .execute()
+        > 0;
+  }
+
+  private static String toInterval(Duration duration) {
+    return duration.toMillis() + " milliseconds";
+  }
+}
@@ -0,0 +1,64 @@
+package repository;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+
+import io.ebean.Ebean;
+import io.ebean.EbeanServer;
+import io.ebean.SqlRow;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+import javax.inject.Inject;
+import play.db.ebean.EbeanConfig;
+
+/**
+ * Remembers, for each admin and program, the submission time of the latest application the admin
+ * has exported, so the next export can start after it.
+ */
+public class ExportWatermarkRepository {
+
+  private final EbeanServer ebeanServer;
+  private final AdminDatabaseExecutionContext executionContext;
+
+  @Inject
+  public ExportWatermarkRepository(
+      EbeanConfig ebeanConfig, AdminDatabaseExecutionContext executionContext) {
+    this.ebeanServer = Ebean.getServer(checkNotNull(ebeanConfig).defaultServer());
+    this.executionContext = checkNotNull(executionContext);
+  }
+
+  public CompletionStage<Optional<Instant>> getWatermark(long accountId, long programId) {
+    return supplyAsync(
+        () -> {
+          SqlRow row =
+              ebeanServer
+                  .createSqlQuery(
+                      "SELECT watermark FROM export_watermarks"
+                          + " WHERE account_id = ? AND program_id = ?")
+                  .setParameter(1, accountId)
+                  .setParameter(2, programId)
+                  .findOne();
+          return Optional.ofNullable(row).map(r -> r.getTimestamp("watermark").toInstant());
+        },
+        executionContext);
+  }
+
+  /** Moves the watermark forward to {@code watermark}, unless it is already past it. */
+  public CompletionStage<Void> advanceWatermark(long accountId, long programId, Instant watermark) {
+    return runAsync(
+        () ->
+            ebeanServer
+                .createSqlUpdate(
+                    "INSERT INTO export_watermarks (account_id, program_id, watermark) VALUES (?,"
+                        + " ?, ?) ON CONFLICT (account_id, program_id) DO UPDATE SET watermark ="
+                        + " greatest(export_watermarks.watermark, excluded.watermark)")
+                .setParameter(1, accountId)
+                .setParameter(2, programId)
+                .setParameter(3, Timestamp.from(watermark))
+                .execute(),
+        executionContext);
+  }
+}
@@ -0,0 +1,61 @@
+package repository;
+
+import com.google.auto.value.AutoValue;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import models.BaseModel;
+import play.libs.typedmap.TypedKey;
+import play.mvc.Http;
+
+/**
+ * The rows loaded while handling one request, by type and ID, so that everything that handles the
+ * request shares one copy of each row: it is loaded from the database once, and its JSON is parsed
+ * once.
+ *
+ * <p>The {@link filters.IdentityMapFilter} attaches a new map to every request, which controllers
+ * get with {@link #forRequest} and pass to the services and repositories they call. Since the row
+ * is shared, a change one of them makes to it, saved or not, is seen by the others for the rest of
+ * the request.
+ */
+public final class IdentityMap {
+  private static final TypedKey<IdentityMap> REQUEST_KEY = TypedKey.create("identityMap");
+
+  private final Map<Key, CompletableFuture<? extends Optional<? extends BaseModel>>> rows =
+      new ConcurrentHashMap<>();
+
+  /** The map attached to the request, or a new map that is not shared if there is none. */
+  public static IdentityMap forRequest(Http.RequestHeader request) {
+    return request.attrs().getOptional(REQUEST_KEY).orElseGet(IdentityMap::new);
+  }
+
+  /** The request, with a new, empty map attached. */
+  public static Http.RequestHeader attachTo(Http.RequestHeader request) {
+    return request.addAttr(REQUEST_KEY, new IdentityMap());
+  }
+
+  /**
+   * The row of the given type and ID. If it has not been loaded for this map, {@code load} loads
+   * it, and every later call returns the same row, or the same failure.
+   */
+  @SuppressWarnings("unchecked")
+  public <T extends BaseModel> CompletionStage<Optional<T>> get(
+      Class<T> type, long id, Supplier<CompletionStage<Optional<T>>> load) {
+    return (CompletableFuture<Optional<T>>)
+        rows.computeIfAbsent(Key.create(type, id), key -> load.get().toCompletableFuture());
+  }
+
+  @AutoValue
+  abstract static class Key {
+    static Key create(Class<?> type, long id) {
+      return new AutoValue_IdentityMap_Key(type, id);
+    }
+
+    abstract Class<?> type();
+
+    abstract long id();
+  }
+}
@@ -0,0 +1,41 @@
+package repository;
+
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import java.util.stream.Collectors;
+import services.Path;
+
+/** Converts {@link Path}s into the key arrays Postgres uses to address parts of a jsonb value. */
+final class JsonbPaths {
+
+  private JsonbPaths() {}
+
+  /**
+   * The jsonb keys of the path, with array indices as their own keys. For example, {@code
+   * applicant.children[2].name} is {@code applicant, children, 2, name}. A trailing {@code []}
+   * refers to the whole array.
+   */
+  static ImmutableList<String> keys(Path path) {
+    ImmutableList.Builder<String> keys = ImmutableList.builder();
+    for (String segment : path.segments()) {
+      int bracket = segment.indexOf('[');
+      if (bracket < 0) {
+        keys.add(segment);
+        continue;
+      }
+      keys.add(segment.substring(0, bracket));
+      String index = segment.substring(bracket + 1, segment.length() - 1);
+      if (!index.isEmpty()) {
+        keys.add(index);
+      }
+    }
+    return keys.build();
+  }
+
+  /** Formats the keys as a Postgres text array literal, e.g. {@code {"applicant","name"}}. */
+  static String toTextArray(List<String> keys) {
+    return keys.stream()
+        .map(key -> '"' + key.replace("\\", "\\\\").replace("\"", "\\\"") + '"')
+        .collect(Collectors.joining(",", "{", "}"));
+  }
+}
@@ -0,0 +1,51 @@
+package repository;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import akka.actor.ActorSystem;
+import java.util.concurrent.Executor;
+import play.libs.concurrent.CustomExecutionContext;
+import play.libs.concurrent.HttpExecution;
+
+/**
+ * A {@link CustomExecutionContext} that keeps {@link ExecutorMetrics} for its thread pool, which
+ * the {@link DatabaseExecutorReporter} logs.
+ */
+public abstract class MeteredExecutionContext extends CustomExecutionContext {
+  private final String name;
+  private final ExecutorMetrics metrics = new ExecutorMetrics();
+
+  protected MeteredExecutionContext(ActorSystem actorSystem, String name) {
+    super(checkNotNull(actorSystem), name);
+    this.name = checkNotNull(name);
+  }
+
+  /** The name of the dispatcher the pool is configured by. */
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    Runnable counted = metrics.submitted(command);
+    try {
+      super.execute(counted);
+    } catch (RuntimeException e) {
+      metrics.rejected();
+      throw e;
+    }
+  }
+
+  /**
+   * As {@link CustomExecutionContext#current()}, but through {@link #execute}, so tasks run with
+   * the HTTP context are counted too.
+   */
+  @Override
+  public Executor current() {
+    return HttpExecution.fromThread(this);
+  }
+
+  ExecutorMetrics getMetrics() {
+    return metrics;
+  }
+}
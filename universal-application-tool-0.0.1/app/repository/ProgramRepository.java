@@ -27,15 +27,18 @@ public class ProgramRepository {
   private final EbeanServer ebeanServer;
   private final DatabaseExecutionContext executionContext;
   private final Provider<VersionRepository> versionRepository;
+  private final VersionCache versionCache;
 
   @Inject
   public ProgramRepository(
       EbeanConfig ebeanConfig,
       DatabaseExecutionContext executionContext,
-      Provider<VersionRepository> versionRepository) {
+      Provider<VersionRepository> versionRepository,
+      VersionCache versionCache) {
     this.ebeanServer = Ebean.getServer(checkNotNull(ebeanConfig).defaultServer());
     this.executionContext = checkNotNull(executionContext);
     this.versionRepository = checkNotNull(versionRepository);
+    this.versionCache = checkNotNull(versionCache);
   }
 
   public CompletionStage<Optional<Program>> lookupProgram(long id) {
@@ -44,15 +47,33 @@ public class ProgramRepository {
         executionContext);
   }
 
+  /**
+   * The IDs of every version of the program with the admin name, which links the versions of a
+   * program, from the oldest to the newest.
+   */
+  public ImmutableList<Long> getProgramIdsWithAdminName(String adminName) {
+    return ebeanServer
+        .find(Program.class)
+        .where()
+        .eq("name", adminName)
+        .orderBy("id")
+        .findIds()
+        .stream()
+        .map(id -> (Long) id)
+        .collect(ImmutableList.toImmutableList());
+  }
+
   public Program insertProgramSync(Program program) {
     program.id = null;
     ebeanServer.insert(program);
+    versionCache.invalidate();
     program.refresh();
     return program;
   }
 
   public Program updateProgramSync(Program program) {
     ebeanServer.update(program);
+    versionCache.invalidate();
     return program;
   }
 
@@ -23,18 +23,21 @@ import services.question.types.QuestionDefinitionBuilder;
 public class QuestionRepository {
 
   private final EbeanServer ebeanServer;
-  private final DatabaseExecutionContext executionContext;
+  private final AdminDatabaseExecutionContext executionContext;
   private final Provider<VersionRepository> versionRepositoryProvider;
+  private final VersionCache versionCache;
 
   @Inject
   public QuestionRepository(
       EbeanConfig ebeanConfig,
-      DatabaseExecutionContext executionContext,
+      AdminDatabaseExecutionContext executionContext,
       ProgramRepository programRepository,
-      Provider<VersionRepository> versionRepositoryProvider) {
+      Provider<VersionRepository> versionRepositoryProvider,
+      VersionCache versionCache) {
     this.ebeanServer = Ebean.getServer(checkNotNull(ebeanConfig).defaultServer());
     this.executionContext = checkNotNull(executionContext);
     this.versionRepositoryProvider = checkNotNull(versionRepositoryProvider);
+    this.versionCache = checkNotNull(versionCache);
   }
 
   public CompletionStage<Set<Question>> listQuestions() {
@@ -170,6 +173,7 @@ public class QuestionRepository {
     return supplyAsync(
         () -> {
           ebeanServer.insert(question);
+          versionCache.invalidate();
           return question;
         },
         executionContext);
@@ -177,6 +181,7 @@ public class QuestionRepository {
 
   public Question insertQuestionSync(Question question) {
     ebeanServer.insert(question);
+    versionCache.invalidate();
     return question;
   }
 
@@ -184,6 +189,7 @@ public class QuestionRepository {
     return supplyAsync(
         () -> {
           ebeanServer.update(question);
+          versionCache.invalidate();
           return question;
         },
         executionContext);
@@ -191,6 +197,7 @@ public class QuestionRepository {
 
   public Question updateQuestionSync(Question question) {
     ebeanServer.update(question);
+    versionCache.invalidate();
     return question;
   }
 }
@@ -3,6 +3,7 @@ package repository;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.util.concurrent.CompletableFuture.supplyAsync;
 
+import auth.AccountExistenceCache;
 import auth.UatProfile;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
@@ -10,6 +11,8 @@ import com.google.common.collect.ImmutableSet;
 import forms.AddApplicantToTrustedIntermediaryGroupForm;
 import io.ebean.Ebean;
 import io.ebean.EbeanServer;
+import io.ebean.SqlUpdate;
+import java.sql.Types;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
@@ -24,25 +27,32 @@ import models.LifecycleStage;
 import models.Program;
 import models.TrustedIntermediaryGroup;
 import play.db.ebean.EbeanConfig;
+import services.applicant.ApplicantData;
+import services.applicant.ApplicantData.ChangedSubtree;
 import services.program.ProgramDefinition;
 import services.ti.EmailAddressExistsException;
 import services.ti.NoSuchTrustedIntermediaryError;
 import services.ti.NoSuchTrustedIntermediaryGroupError;
 
 public class UserRepository {
+  /** Beyond this many changed JSON subtrees, an applicant update rewrites the whole object. */
+  private static final int MAX_PARTIAL_UPDATE_SUBTREES = 20;
 
   private final EbeanServer ebeanServer;
   private final DatabaseExecutionContext executionContext;
   private final Provider<VersionRepository> versionRepositoryProvider;
+  private final AccountExistenceCache accountExistenceCache;
 
   @Inject
   public UserRepository(
       EbeanConfig ebeanConfig,
       DatabaseExecutionContext executionContext,
-      Provider<VersionRepository> versionRepositoryProvider) {
+      Provider<VersionRepository> versionRepositoryProvider,
+      AccountExistenceCache accountExistenceCache) {
     this.ebeanServer = Ebean.getServer(checkNotNull(ebeanConfig).defaultServer());
     this.executionContext = checkNotNull(executionContext);
     this.versionRepositoryProvider = checkNotNull(versionRepositoryProvider);
+    this.accountExistenceCache = checkNotNull(accountExistenceCache);
   }
 
   public CompletionStage<Set<Applicant>> listApplicants() {
@@ -54,6 +64,14 @@ public class UserRepository {
         () -> ebeanServer.find(Applicant.class).setId(id).findOneOrEmpty(), executionContext);
   }
 
+  /**
+   * Like {@link #lookupApplicant(long)}, but the applicant is loaded once for the identity map, and
+   * every lookup with it returns the same {@link Applicant}.
+   */
+  public CompletionStage<Optional<Applicant>> lookupApplicant(long id, IdentityMap identityMap) {
+    return identityMap.get(Applicant.class, id, () -> lookupApplicant(id));
+  }
+
   /**
    * Returns all programs that are appropriate to serve to an applicant - which is any active
    * program, plus any program where they have an application in the draft stage.
@@ -137,35 +155,132 @@ public class UserRepository {
         executionContext);
   }
 
+  /**
+   * Persists the applicant. When only its {@link ApplicantData} changed, and in no more than {@link
+   * #MAX_PARTIAL_UPDATE_SUBTREES} places, only the changed JSON subtrees are written with {@code
+   * jsonb_set} instead of rewriting the whole object column.
+   */
   public CompletionStage<Void> updateApplicant(Applicant applicant) {
     return supplyAsync(
         () -> {
-          ebeanServer.update(applicant);
+          ApplicantData applicantData = applicant.getApplicantData();
+          Optional<ImmutableList<ChangedSubtree>> changedSubtrees = applicantData.changedSubtrees();
+          if (ebeanServer.getBeanState(applicant).isNewOrDirty()
+              || changedSubtrees.isEmpty()
+              || changedSubtrees.get().size() > MAX_PARTIAL_UPDATE_SUBTREES) {
+            ebeanServer.update(applicant);
+          } else {
+            updateChangedSubtrees(applicant.id, applicantData, changedSubtrees.get());
+          }
           return null;
         },
         executionContext);
   }
 
+  private void updateChangedSubtrees(
+      long applicantId, ApplicantData applicantData, ImmutableList<ChangedSubtree> subtrees) {
+    String object = "object";
+    for (int i = 0; i < subtrees.size(); i++) {
+      object = String.format("jsonb_set(%s, CAST(? AS text[]), CAST(? AS jsonb))", object);
+    }
+    SqlUpdate update =
+        ebeanServer.createSqlUpdate(
+            String.format(
+                "UPDATE applicants SET object = %s, preferred_locale = ? WHERE id = ?", object));
+
+    int position = 1;
+    for (ChangedSubtree subtree : subtrees) {
+      update.setParameter(position++, JsonbPaths.toTextArray(subtree.keys()));
+      update.setParameter(position++, subtree.json());
+    }
+    if (applicantData.hasPreferredLocale()) {
+      update.setParameter(position++, applicantData.preferredLocale().toLanguageTag());
+    } else {
+      update.setNull(position++, Types.VARCHAR);
+    }
+    update.setParameter(position, applicantId);
+    update.execute();
+    applicantData.markPersisted();
+  }
+
   public Optional<Applicant> lookupApplicantSync(long id) {
     return ebeanServer.find(Applicant.class).setId(id).findOneOrEmpty();
   }
 
-  /** Merge the older applicant data into the newer applicant, and set both to the given account. */
+  /**
+   * True if the account may act for the applicant: the account owns it, or the applicant's account
+   * is managed by the given TI group and the account is still a member of that group. This is one
+   * query, whatever the size of the group.
+   */
+  public CompletionStage<Boolean> canAccessApplicant(
+      long accountId, Optional<Long> tiGroupId, long applicantId) {
+    return supplyAsync(
+        () -> {
+          if (tiGroupId.isEmpty()) {
+            return ebeanServer
+                    .createSqlQuery("SELECT 1 FROM applicants WHERE id = ? AND account_id = ?")
+                    .setParameter(1, applicantId)
+                    .setParameter(2, accountId)
+                    .findOne()
+                != null;
+          }
+          return ebeanServer
+                  .createSqlQuery(
+                      "SELECT 1 FROM applicants JOIN accounts owner ON owner.id ="
+                          + " applicants.account_id WHERE applicants.id = ? AND (owner.id = ? OR"
+                          + " (owner.managed_by_group_id = ? AND EXISTS (SELECT 1 FROM accounts"
+                          + " WHERE id = ? AND member_of_group_id = ?)))")
+                  .setParameter(1, applicantId)
+                  .setParameter(2, accountId)
+                  .setParameter(3, tiGroupId.get())
+                  .setParameter(4, accountId)
+                  .setParameter(5, tiGroupId.get())
+                  .findOne()
+              != null;
+        },
+        executionContext);
+  }
+
+  /**
+   * Merge the older applicant data into the newer applicant, and set both to the given account. The
+   * applicants version of each account the applicants had before is advanced, so that profiles
+   * still listing the applicants as that account's no longer vouch for them.
+   */
   public CompletionStage<Applicant> mergeApplicants(
       Applicant left, Applicant right, Account account) {
     return supplyAsync(
         () -> {
+          Optional<Long> leftAccountId = accountIdOf(left);
+          Optional<Long> rightAccountId = accountIdOf(right);
           left.setAccount(account);
           left.save();
           right.setAccount(account);
           right.save();
           Applicant merged = mergeApplicants(left, right);
           merged.save();
+          for (Optional<Long> previous : ImmutableList.of(leftAccountId, rightAccountId)) {
+            if (previous.isPresent() && !previous.get().equals(account.id)) {
+              advanceApplicantsVersion(previous.get());
+              accountExistenceCache.invalidate(previous.get());
+            }
+          }
           return merged;
         },
         executionContext);
   }
 
+  private static Optional<Long> accountIdOf(Applicant applicant) {
+    return Optional.ofNullable(applicant.getAccount()).map(account -> account.id);
+  }
+
+  private void advanceApplicantsVersion(long accountId) {
+    ebeanServer
+        .createSqlUpdate(
+            "UPDATE accounts SET applicants_version = applicants_version + 1 WHERE id = ?")
+        .setParameter(1, accountId)
+        .execute();
+  }
+
   /** Merge the applicant data from older applicant into the newer applicant. */
   private Applicant mergeApplicants(Applicant left, Applicant right) {
     if (left.getWhenCreated().isAfter(right.getWhenCreated())) {
@@ -0,0 +1,179 @@
+package repository;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import io.ebean.Ebean;
+import io.ebean.EbeanServer;
+import io.ebean.Transaction;
+import io.ebean.TransactionCallbackAdapter;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.persistence.PersistenceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import play.db.ebean.EbeanConfig;
+import play.inject.ApplicationLifecycle;
+import services.program.ProgramDefinition;
+import services.question.ReadOnlyQuestionService;
+
+/**
+ * Holds the definitions built from the active and draft {@link models.Version}s, so that serving an
+ * applicant does not have to load every question and version on each request.
+ *
+ * <p>Everything cached belongs to one {@link Generation}. Any change to a version, or to a program
+ * or question in one, must call {@link #invalidate()}, which starts a new generation. Values loaded
+ * from an older generation are dropped rather than cached, so a load that races with a change never
+ * outlives it.
+ *
+ * <p>Invalidating also tells the other servers to drop their caches: once the change is committed,
+ * it advances the {@code version_cache_generation} sequence and sends a Postgres notification,
+ * which the {@link VersionCacheListener} on each server waits for. Both happen on a thread of their
+ * own, outside the caller's transaction and after its connection is released, so concurrent changes
+ * never wait on each other, no thread holds two connections, and a publish is never queued behind
+ * backfills or export jobs on the background database pool.
+ */
+@Singleton
+public final class VersionCache {
+
+  /** The Postgres channel invalidations are sent on. */
+  static final String CHANNEL = "version_cache";
+
+  private static final Logger LOG = LoggerFactory.getLogger(VersionCache.class);
+  private static final String PUBLISH_QUERY =
+      "SELECT nextval('version_cache_generation'), pg_notify(?, ?)";
+
+  private final EbeanServer ebeanServer;
+  /** Publishes invalidations one at a time, in the order they were made. */
+  private final ExecutorService publisher;
+
+  private final String serverId = UUID.randomUUID().toString();
+  private volatile Generation current = new Generation();
+
+  @Inject
+  public VersionCache(EbeanConfig ebeanConfig, ApplicationLifecycle appLifecycle) {
+    this.ebeanServer = Ebean.getServer(checkNotNull(ebeanConfig).defaultServer());
+    this.publisher =
+        Executors.newSingleThreadExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "version-cache-publisher");
+              thread.setDaemon(true);
+              return thread;
+            });
+
+    appLifecycle.addStopHook(
+        () -> {
+          publisher.shutdown();
+          return CompletableFuture.completedFuture(null);
+        });
+  }
+
+  /**
+   * The current generation. Values loaded from the database should be put into the generation
+   * returned before they were loaded.
+   */
+  public Generation current() {
+    return current;
+  }
+
+  /**
+   * Drops everything cached, and tells the other servers to. If there is a transaction on this
+   * thread, both happen again when it ends, since values loaded before it commits are out of date
+   * and other servers should not hear about a change that may still roll back.
+   */
+  public void invalidate() {
+    clear();
+    Transaction transaction = ebeanServer.currentTransaction();
+    if (transaction == null || !transaction.isActive()) {
+      publishLater();
+      return;
+    }
+    transaction.register(
+        new TransactionCallbackAdapter() {
+          @Override
+          public void postCommit() {
+            clear();
+            // Ebean still holds the transaction's connection here.
+            publishLater();
+          }
+
+          @Override
+          public void postRollback() {
+            clear();
+          }
+        });
+  }
+
+  private void publishLater() {
+    try {
+      publisher.execute(this::publish);
+    } catch (RejectedExecutionException e) {
+      // The server is stopping; other servers pick the change up when they next poll.
+      LOG.warn("Not telling other servers to drop their version caches while stopping");
+    }
+  }
+
+  /** Advances the generation and notifies the other servers, in a transaction of its own. */
+  private void publish() {
+    try (Transaction transaction = ebeanServer.createTransaction();
+        PreparedStatement statement = transaction.getConnection().prepareStatement(PUBLISH_QUERY)) {
+      statement.setString(1, CHANNEL);
+      statement.setString(2, serverId);
+      statement.executeQuery().close();
+      transaction.commit();
+    } catch (SQLException | PersistenceException e) {
+      // The change itself stands; other servers keep their caches until the next one is published.
+      LOG.error("Could not tell other servers to drop their version caches", e);
+    }
+  }
+
+  /** Drops everything cached on this server only, for a change another server made. */
+  void clear() {
+    current = new Generation();
+  }
+
+  /** Identifies the notifications this server sent, which need no action when they come back. */
+  String serverId() {
+    return serverId;
+  }
+
+  /** The values cached between two invalidations. */
+  public static final class Generation {
+    private volatile Optional<ReadOnlyQuestionService> readOnlyQuestionService = Optional.empty();
+    private final ConcurrentMap<Long, ProgramDefinition> programDefinitions =
+        new ConcurrentHashMap<>();
+
+    private Generation() {}
+
+    public Optional<ReadOnlyQuestionService> getReadOnlyQuestionService() {
+      return readOnlyQuestionService;
+    }
+
+    /** Caches the question service, and returns it. */
+    public ReadOnlyQuestionService putReadOnlyQuestionService(
+        ReadOnlyQuestionService readOnlyQuestionService) {
+      this.readOnlyQuestionService = Optional.of(readOnlyQuestionService);
+      return readOnlyQuestionService;
+    }
+
+    /** The program definition, with its questions synced to the cached question service. */
+    public Optional<ProgramDefinition> getProgramDefinition(long programId) {
+      return Optional.ofNullable(programDefinitions.get(programId));
+    }
+
+    /** Caches the synced program definition, and returns it. */
+    public ProgramDefinition putProgramDefinition(ProgramDefinition programDefinition) {
+      programDefinitions.put(programDefinition.id(), programDefinition);
+      return programDefinition;
+    }
+  }
+}
@@ -0,0 +1,173 @@
+package repository;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.typesafe.config.Config;
+import io.ebean.Ebean;
+import io.ebean.EbeanServer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.persistence.PersistenceException;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import play.db.ebean.EbeanConfig;
+import play.inject.ApplicationLifecycle;
+
+/**
+ * Drops this server's {@link VersionCache} when another server changes a version, program or
+ * question.
+ *
+ * <p>It keeps its own connection to the database, outside the connection pool, and waits on it for
+ * the notifications {@link VersionCache#invalidate()} sends. If that connection is lost, it polls
+ * the {@code version_cache_generation} sequence through the pool until it can listen again, so
+ * caches are at most one poll interval out of date.
+ */
+@Singleton
+public final class VersionCacheListener {
+  private static final Logger LOG = LoggerFactory.getLogger(VersionCacheListener.class);
+  private static final String POLL_INTERVAL_CONF_PATH = "version_cache.poll_interval";
+  private static final String GENERATION_QUERY =
+      "SELECT last_value AS generation FROM version_cache_generation";
+
+  private final VersionCache versionCache;
+  private final EbeanServer ebeanServer;
+  private final String url;
+  private final String username;
+  private final String password;
+  private final int pollIntervalMillis;
+  private final ExecutorService executor;
+
+  private volatile boolean running = true;
+  private volatile Connection connection;
+  /** The last generation seen, or -1 before the first. Only written by the listening thread. */
+  private volatile long lastGeneration = -1;
+
+  @Inject
+  public VersionCacheListener(
+      VersionCache versionCache,
+      EbeanConfig ebeanConfig,
+      Config config,
+      ApplicationLifecycle appLifecycle) {
+    this.versionCache = checkNotNull(versionCache);
+    this.ebeanServer = Ebean.getServer(checkNotNull(ebeanConfig).defaultServer());
+    this.url = config.getString("db.default.url");
+    this.username = config.getString("db.default.username");
+    this.password = config.getString("db.default.password");
+    this.pollIntervalMillis = (int) config.getDuration(POLL_INTERVAL_CONF_PATH).toMillis();
+    this.executor =
+        Executors.newSingleThreadExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "version-cache-listener");
+              thread.setDaemon(true);
+              return thread;
+            });
+    executor.execute(this::run);
+
+    appLifecycle.addStopHook(
+        () -> {
+          running = false;
+          closeConnection();
+          executor.shutdownNow();
+          return CompletableFuture.completedFuture(null);
+        });
+  }
+
+  private void run() {
+    while (running) {
+      try {
+        listen();
+      } catch (SQLException e) {
+        if (running) {
+          LOG.warn("Lost the version cache listener connection, polling until it is back", e);
+        }
+      } finally {
+        closeConnection();
+      }
+      if (!running) {
+        return;
+      }
+      poll();
+      try {
+        Thread.sleep(pollIntervalMillis);
+      } catch (InterruptedException e) {
+        return;
+      }
+    }
+  }
+
+  /** Waits for notifications until the connection fails or the application stops. */
+  private void listen() throws SQLException {
+    connection = DriverManager.getConnection(url, username, password);
+    PGConnection pgConnection = connection.unwrap(PGConnection.class);
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("LISTEN " + VersionCache.CHANNEL);
+    }
+    // Anything changed while this server was not listening.
+    onGeneration(readGeneration(connection));
+    while (running) {
+      PGNotification[] notifications = pgConnection.getNotifications(pollIntervalMillis);
+      if (notifications == null || notifications.length == 0) {
+        continue;
+      }
+      long generation = readGeneration(connection);
+      for (PGNotification notification : notifications) {
+        if (!versionCache.serverId().equals(notification.getParameter())) {
+          versionCache.clear();
+          break;
+        }
+      }
+      lastGeneration = generation;
+    }
+  }
+
+  /** The last generation this listener has acted on, or -1 before the first. */
+  long lastGeneration() {
+    return lastGeneration;
+  }
+
+  private void poll() {
+    try {
+      onGeneration(ebeanServer.createSqlQuery(GENERATION_QUERY).findOne().getLong("generation"));
+    } catch (PersistenceException e) {
+      LOG.warn("Could not poll for version cache changes", e);
+    }
+  }
+
+  private void onGeneration(long generation) {
+    if (generation != lastGeneration) {
+      versionCache.clear();
+      lastGeneration = generation;
+    }
+  }
+
+  private static long readGeneration(Connection connection) throws SQLException {
+    try (Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery(GENERATION_QUERY)) {
+      resultSet.next();
+      return resultSet.getLong(1);
+    }
+  }
+
+  private void closeConnection() {
+    Connection current = connection;
+    connection = null;
+    if (current == null) {
+      return;
+    }
+    try {
+      current.close();
+    } catch (SQLException e) {
+      LOG.debug("Could not close the version cache listener connection", e);
+    }
+  }
+}
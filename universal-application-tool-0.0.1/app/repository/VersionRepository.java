@@ -32,11 +32,14 @@ public class VersionRepository {
   private final EbeanServer ebeanServer;
   private final Logger LOG = LoggerFactory.getLogger(VersionRepository.class);
   private final ProgramRepository programRepository;
+  private final VersionCache versionCache;
 
   @Inject
-  public VersionRepository(EbeanConfig ebeanConfig, ProgramRepository programRepository) {
+  public VersionRepository(
+      EbeanConfig ebeanConfig, ProgramRepository programRepository, VersionCache versionCache) {
     this.ebeanServer = Ebean.getServer(checkNotNull(ebeanConfig).defaultServer());
     this.programRepository = checkNotNull(programRepository);
+    this.versionCache = checkNotNull(versionCache);
   }
 
   /**
@@ -85,6 +88,7 @@ public class VersionRepository {
       active.save();
       draft.save();
       draft.refresh();
+      versionCache.invalidate();
       ebeanServer.commitTransaction();
     } finally {
       ebeanServer.endTransaction();
@@ -119,6 +123,7 @@ public class VersionRepository {
       try {
         Version newDraftVersion = new Version(LifecycleStage.DRAFT);
         ebeanServer.insert(newDraftVersion);
+        versionCache.invalidate();
         ebeanServer
             .find(Version.class)
             .forUpdate()
@@ -186,6 +191,7 @@ public class VersionRepository {
     draftProgram = new Program(updatedDefinition.build());
     LOG.trace("Submitting update.");
     ebeanServer.update(draftProgram);
+    versionCache.invalidate();
     draftProgram.refresh();
   }
 
@@ -251,5 +257,6 @@ public class VersionRepository {
     activeVersion.save();
     draftVersion.setLifecycleStage(LifecycleStage.DELETED);
     draftVersion.save();
+    versionCache.invalidate();
   }
 }
@@ -4,7 +4,13 @@ import com.google.auto.value.AutoValue;
 import com.google.auto.value.extension.memoized.Memoized;
 import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import services.applicant.question.Scalar;
@@ -12,6 +18,12 @@ import services.applicant.question.Scalar;
 /**
  * Represents a path into the applicant JSON data. Stored as the path to data without the JsonPath
  * prefix: $.
+ *
+ * <p>Paths are interned: creating, joining, or re-indexing a path that is equal to one already in
+ * use returns the same canonical instance, so its memoized string, hash code, and parent are only
+ * computed once. Parsed path strings and join results are kept in bounded caches whose hit rates
+ * are available from {@link #parseCacheStats()} and {@link #joinCacheStats()} and logged by {@code
+ * DatabaseExecutorReporter}.
  */
 @AutoValue
 public abstract class Path {
@@ -24,12 +36,39 @@ public abstract class Path {
   private static final String JSON_PATH_START = JSON_PATH_START_TOKEN + JSON_PATH_DIVIDER;
   private static final Splitter JSON_SPLITTER = Splitter.on(JSON_PATH_DIVIDER);
   private static final Joiner JSON_JOINER = Joiner.on(JSON_PATH_DIVIDER);
+  private static final int MAX_CACHED_PATHS = 10_000;
+
+  private static final Interner<Path> CANONICAL_PATHS = Interners.newWeakInterner();
+  private static final LoadingCache<String, Path> PARSED_PATHS =
+      CacheBuilder.newBuilder()
+          .maximumSize(MAX_CACHED_PATHS)
+          .recordStats()
+          .build(CacheLoader.from(Path::parse));
+  private static final LoadingCache<JoinKey, Path> JOINED_PATHS =
+      CacheBuilder.newBuilder()
+          .maximumSize(MAX_CACHED_PATHS)
+          .recordStats()
+          .build(CacheLoader.from(JoinKey::join));
 
   public static Path empty() {
     return create(ImmutableList.of());
   }
 
   public static Path create(String path) {
+    return PARSED_PATHS.getUnchecked(path);
+  }
+
+  /** Hit and eviction statistics for the cache of paths created from strings. */
+  public static CacheStats parseCacheStats() {
+    return PARSED_PATHS.stats();
+  }
+
+  /** Hit and eviction statistics for the cache of {@link #join(String)} results. */
+  public static CacheStats joinCacheStats() {
+    return JOINED_PATHS.stats();
+  }
+
+  private static Path parse(String path) {
     path = path.trim();
     if (path.startsWith(JSON_PATH_START)) {
       path = path.substring(JSON_PATH_START.length());
@@ -41,8 +80,9 @@ public abstract class Path {
   }
 
   private static Path create(ImmutableList<String> segments) {
-    return new AutoValue_Path(
-        segments.stream().map(String::toLowerCase).collect(ImmutableList.toImmutableList()));
+    return CANONICAL_PATHS.intern(
+        new AutoValue_Path(
+            segments.stream().map(String::toLowerCase).collect(ImmutableList.toImmutableList())));
   }
 
   /**
@@ -51,6 +91,10 @@ public abstract class Path {
    */
   public abstract ImmutableList<String> segments();
 
+  @Memoized
+  @Override
+  public abstract int hashCode();
+
   @Memoized
   public boolean isEmpty() {
     return segments().isEmpty();
@@ -85,9 +129,7 @@ public abstract class Path {
    * <p>If joining a {@link Scalar}, please use {@link Path#join(Scalar)} instead.
    */
   public Path join(String path) {
-    Path other = Path.create(path);
-    return Path.create(
-        ImmutableList.<String>builder().addAll(segments()).addAll(other.segments()).build());
+    return JOINED_PATHS.getUnchecked(JoinKey.create(this, path));
   }
 
   /**
@@ -97,9 +139,7 @@ public abstract class Path {
    * to append to a path.
    */
   public Path join(Scalar scalar) {
-    Path other = Path.create(scalar.name());
-    return Path.create(
-        ImmutableList.<String>builder().addAll(segments()).addAll(other.segments()).build());
+    return join(scalar.name());
   }
 
   /**
@@ -244,4 +284,28 @@ public abstract class Path {
   private String stripArraySuffix(String segment) {
     return stripArraySuffix(segment, /* strict= */ false);
   }
+
+  /** Cache key for the result of joining a path string onto a base path. */
+  @AutoValue
+  abstract static class JoinKey {
+    static JoinKey create(Path base, String suffix) {
+      return new AutoValue_Path_JoinKey(base, suffix);
+    }
+
+    abstract Path base();
+
+    abstract String suffix();
+
+    private Path join() {
+      Path other = Path.create(suffix());
+      if (other.isEmpty()) {
+        return base();
+      }
+      return Path.create(
+          ImmutableList.<String>builder()
+              .addAll(base().segments())
+              .addAll(other.segments())
+              .build());
+    }
+  }
 }
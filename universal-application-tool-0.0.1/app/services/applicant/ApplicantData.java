@@ -2,11 +2,14 @@ package services.applicant;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import com.google.auto.value.AutoValue;
 import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
+import com.jayway.jsonpath.Configuration;
 import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.PathNotFoundException;
 import com.jayway.jsonpath.TypeRef;
+import com.jayway.jsonpath.spi.json.JsonProvider;
 import com.jayway.jsonpath.spi.mapper.MappingException;
 import java.time.Instant;
 import java.time.LocalDate;
@@ -15,13 +18,17 @@ import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,11 +47,21 @@ public class ApplicantData {
       String.format("{ \"%s\": {} }", APPLICANT);
   private static final TypeRef<List<Object>> LIST_OF_OBJECTS_TYPE = new TypeRef<>() {};
   private static final TypeRef<ImmutableList<Long>> IMMUTABLE_LIST_LONG_TYPE = new TypeRef<>() {};
-  private final DocumentContext jsonData;
+  private static final Configuration JSON_PATH_CONFIGURATION = JsonPathProvider.getConfiguration();
+  private DocumentContext jsonData;
   private final Logger logger = LoggerFactory.getLogger(this.getClass());
   private boolean locked = false;
   private Optional<Locale> preferredLocale;
 
+  /**
+   * The JSON objects and arrays this instance may write to in place while its tree is shared with a
+   * {@link #snapshot()}, or null if the tree is not shared.
+   */
+  @Nullable private Set<Object> ownedContainers;
+
+  /** Keys of the subtrees changed since the JSON data was read or last persisted. */
+  private final Set<ImmutableList<String>> changedSubtreeKeys = new HashSet<>();
+
   public ApplicantData() {
     this(EMPTY_APPLICANT_DATA_JSON);
   }
@@ -58,11 +75,32 @@ public class ApplicantData {
     this.jsonData = JsonPathProvider.getJsonPath().parse(checkNotNull(jsonData));
   }
 
+  private ApplicantData(Optional<Locale> preferredLocale, DocumentContext jsonData) {
+    this.preferredLocale = preferredLocale;
+    this.jsonData = jsonData;
+  }
+
   /** Makes this ApplicantData immutable. A locked ApplicantData cannot be unlocked. */
   public void lock() {
     locked = true;
   }
 
+  /**
+   * Returns a locked copy of this ApplicantData, without serializing it.
+   *
+   * <p>The copy shares the underlying JSON data with this instance. Later writes to this instance
+   * copy only the JSON objects and arrays on the path being written, so they are never visible
+   * through the snapshot.
+   */
+  public ApplicantData snapshot() {
+    ApplicantData snapshot = new ApplicantData(preferredLocale, jsonData);
+    snapshot.lock();
+    if (!locked) {
+      ownedContainers = Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+    return snapshot;
+  }
+
   /** Returns true if this applicant has set their preferred locale, and false otherwise. */
   public boolean hasPreferredLocale() {
     return this.preferredLocale.isPresent();
@@ -98,12 +136,7 @@ public class ApplicantData {
    * @return true if path is present for this applicant; false otherwise
    */
   public boolean hasPath(Path path) {
-    try {
-      jsonData.read(path.toString());
-    } catch (PathNotFoundException e) {
-      return false;
-    }
-    return true;
+    return JsonTreeNavigator.contains(root(), path);
   }
 
   /**
@@ -114,11 +147,7 @@ public class ApplicantData {
    * @return true if there is a non-null value at the given path; false otherwise
    */
   public boolean hasValueAtPath(Path path) {
-    try {
-      return read(path, Object.class).isPresent();
-    } catch (JsonPathTypeMismatchException e) {
-      return false;
-    }
+    return JsonTreeNavigator.get(root(), path) != null;
   }
 
   /**
@@ -127,12 +156,7 @@ public class ApplicantData {
    * <p>This method requires the input string to be in "yyyy-MM-dd" format.
    */
   public void putDate(Path path, String dateString) {
-    if (dateString.isEmpty()) {
-      putNull(path);
-    } else {
-      LocalDate localDate = LocalDate.parse(dateString, DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-      put(path, localDate.atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli());
-    }
+    put(path, dateValue(dateString));
   }
 
   /**
@@ -140,11 +164,7 @@ public class ApplicantData {
    * value instead.
    */
   public void putString(Path path, String value) {
-    if (value.isEmpty()) {
-      putNull(path);
-    } else {
-      put(path, value);
-    }
+    put(path, stringValue(value));
   }
 
   /** Parses and writes a long value */
@@ -157,11 +177,7 @@ public class ApplicantData {
    * written.
    */
   public void putLong(Path path, String value) {
-    if (value.isEmpty()) {
-      putNull(path);
-    } else {
-      put(path, Long.parseLong(value));
-    }
+    put(path, longValue(value));
   }
 
   /**
@@ -176,17 +192,42 @@ public class ApplicantData {
    */
   public void putRepeatedEntities(Path path, ImmutableList<String> entityNames) {
     if (entityNames.isEmpty()) {
-      put(path, ImmutableList.of());
+      put(path, new ArrayList<>());
     } else {
+      Batch batch = batch();
       for (int i = 0; i < entityNames.size(); i++) {
-        putString(path.atIndex(i).join(Scalar.ENTITY_NAME), entityNames.get(i));
+        batch.putString(path.atIndex(i).join(Scalar.ENTITY_NAME), entityNames.get(i));
       }
+      batch.apply();
     }
   }
 
-  private void putNull(Path path) {
-    if (!path.isArrayElement()) {
-      put(path, null);
+  /** Returns a new {@link Batch} of writes to this applicant data. */
+  public Batch batch() {
+    return new Batch();
+  }
+
+  /**
+   * Puts every value at its path in a single pass over the underlying JSON data, building missing
+   * parent objects and arrays along the way like the individual put methods do. Updates are applied
+   * in path order, so elements of the same array are added in index order.
+   *
+   * <p>A null value writes a JSON null, except at an array element path where it is skipped.
+   *
+   * @param updates values keyed by the fully specified {@link Path} to write them at
+   */
+  public void applyAll(Map<Path, ?> updates) {
+    checkLocked();
+    Map<Path, Object> writes = new HashMap<>();
+    updates.forEach(
+        (path, value) -> {
+          if (value != null || !path.isArrayElement()) {
+            writes.put(path, value);
+          }
+        });
+    Object root = JsonTreeNavigator.putAll(root(), writes, ownedContainers, changedSubtreeKeys);
+    if (root != root()) {
+      jsonData = JsonPathProvider.getJsonPath().parse(root);
     }
   }
 
@@ -196,32 +237,15 @@ public class ApplicantData {
    *
    * <p>If the path ends in an array (i.e. we are trying to add an element to a JSON array), this
    * will check to make sure the array is there, then add the given element to the end of the array.
+   * A null value for an array element is skipped.
    *
    * @param path the {@link Path} with the fully specified path, e.g.,
    *     "applicant.children[3].favorite_color.text" or the equivalent
    *     "$.applicant.children[3].favorite_color.text".
    * @param value the value to place; values of type Map will create the equivalent JSON structure
    */
-  private void put(Path path, Object value) {
-    checkLocked();
-    putParentIfMissing(path);
-    if (path.isArrayElement()) {
-      putArrayIfMissing(path.withoutArrayReference());
-      addAt(path, value);
-    } else {
-      putAt(path, value);
-    }
-  }
-
-  /**
-   * Adds a JSON array at the given path, if it is not there already.
-   *
-   * @param path the path to the new array - must not end with array suffix [] or [index]
-   */
-  private void putArrayIfMissing(Path path) {
-    if (!hasPath(path)) {
-      putAt(path, new ArrayList<>());
-    }
+  private void put(Path path, @Nullable Object value) {
+    applyAll(Collections.singletonMap(path, value));
   }
 
   /** Clears an array in preparation of updates. */
@@ -233,66 +257,26 @@ public class ApplicantData {
 
   private void putAt(Path path, Object value) {
     checkLocked();
-    jsonData.put(path.parentPath().toString(), path.keyName(), value);
+    JsonTreeNavigator.putProperty(prepareWrite(path), path, value);
   }
 
-  private void addAt(Path path, Object value) {
-    checkLocked();
-    jsonData.add(path.withoutArrayReference().toString(), value);
+  @Nullable
+  private static Object stringValue(String value) {
+    return value.isEmpty() ? null : value;
   }
 
-  /**
-   * Put parent of path if it doesn't already exist. There are two types of parents: JSON objects
-   * and JSON arrays.
-   *
-   * <p>For JSON object parents, if it doesn't already exist an empty map is put in the right place.
-   *
-   * <p>For JSON array parents, if the array (e.g. applicant.children[]) doesn't already exist an
-   * empty array is put in the right place, and then if the array element (e.g.
-   * applicant.children[3]) doesn't already exist then empty maps are added until an empty map is
-   * available at the right index.
-   */
-  private void putParentIfMissing(Path path) {
-    Path parentPath = path.parentPath();
-
-    if (hasPath(parentPath)) {
-      return;
-    }
-
-    // TODO(#624): get rid of this recursion.
-    putParentIfMissing(parentPath);
-
-    if (parentPath.isArrayElement()) {
-      putParentArray(path);
-    } else {
-      putAt(parentPath, new HashMap<>());
-    }
+  @Nullable
+  private static Object longValue(String value) {
+    return value.isEmpty() ? null : Long.parseLong(value);
   }
 
-  /**
-   * Put parent of path if it doesn't already exist, for parents that are arrays (e.g.
-   * something[n]), and add empty JSON objects until an element at the index specified by the path
-   * is available.
-   */
-  private void putParentArray(Path path) {
-    Path parentPath = path.parentPath();
-    int index = parentPath.arrayIndex();
-
-    // For n=0, put a new array in, and add the 0th element.
-    if (index == 0) {
-      putAt(parentPath.withoutArrayReference(), new ArrayList<>());
-      addAt(parentPath, new HashMap<>());
-
-      // For n>0, only add the nth element if the n-1 element exists.
-    } else if (hasPath(parentPath.atIndex(index - 1))) {
-      addAt(parentPath, new HashMap<>());
-
-      // TODO(#624): remove this recursion.
-    } else {
-      Path fakePathForRecursion = path.parentPath().atIndex(index - 1).join("fake");
-      putParentIfMissing(fakePathForRecursion);
-      addAt(parentPath, new HashMap<>());
+  @Nullable
+  private static Object dateValue(String dateString) {
+    if (dateString.isEmpty()) {
+      return null;
     }
+    LocalDate localDate = LocalDate.parse(dateString, DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+    return localDate.atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
   }
 
   public Optional<LocalDate> readDate(Path path) {
@@ -363,10 +347,13 @@ public class ApplicantData {
    * @throws JsonPathTypeMismatchException if the scalar at that path is not the expected type
    */
   private <T> Optional<T> read(Path path, Class<T> type) throws JsonPathTypeMismatchException {
-    try {
-      return Optional.ofNullable(jsonData.read(path.toString(), type));
-    } catch (PathNotFoundException e) {
+    Object value = JsonTreeNavigator.get(root(), path);
+    if (value == null) {
       return Optional.empty();
+    }
+    try {
+      return Optional.ofNullable(
+          JSON_PATH_CONFIGURATION.mappingProvider().map(value, type, JSON_PATH_CONFIGURATION));
     } catch (MappingException e) {
       throw new JsonPathTypeMismatchException(path, type, e);
     }
@@ -382,10 +369,13 @@ public class ApplicantData {
    * @throws JsonPathTypeMismatchException if the value at that path is not the expected type
    */
   private <T> Optional<T> read(Path path, TypeRef<T> type) throws JsonPathTypeMismatchException {
-    try {
-      return Optional.ofNullable(jsonData.read(path.toString(), type));
-    } catch (PathNotFoundException e) {
+    Object value = JsonTreeNavigator.get(root(), path);
+    if (value == null) {
       return Optional.empty();
+    }
+    try {
+      return Optional.ofNullable(
+          JSON_PATH_CONFIGURATION.mappingProvider().map(value, type, JSON_PATH_CONFIGURATION));
     } catch (MappingException e) {
       throw new JsonPathTypeMismatchException(path, type.getClass(), e);
     }
@@ -400,11 +390,35 @@ public class ApplicantData {
    * @return optionally returns the value at the path as a string if it exists, or empty if not
    */
   public Optional<String> readAsString(Path path) {
-    if (isJsonArray(path)) {
-      return readList(path).map(ImmutableList::toString);
-    }
+    return asString(JsonTreeNavigator.get(root(), path));
+  }
 
-    return readString(path);
+  /**
+   * Formats a value from the tree the way {@link #readAsString} does: JSON arrays of longs by
+   * {@link ImmutableList#toString}, scalars as strings, and anything else as empty.
+   */
+  static Optional<String> asString(@Nullable Object value) {
+    if (value == null) {
+      return Optional.empty();
+    }
+    if (value instanceof String) {
+      return Optional.of((String) value);
+    }
+    try {
+      if (value instanceof List) {
+        return Optional.ofNullable(
+                JSON_PATH_CONFIGURATION
+                    .mappingProvider()
+                    .map(value, IMMUTABLE_LIST_LONG_TYPE, JSON_PATH_CONFIGURATION))
+            .map(ImmutableList::toString);
+      }
+      return Optional.ofNullable(
+          JSON_PATH_CONFIGURATION
+              .mappingProvider()
+              .map(value, String.class, JSON_PATH_CONFIGURATION));
+    } catch (MappingException e) {
+      return Optional.empty();
+    }
   }
 
   /**
@@ -435,21 +449,11 @@ public class ApplicantData {
     // Delete in reverse sorted order because deletion is index based, and indices would need to be
     // decremented for each deletion if it wasn't reverse sorted.
     for (int index : reverseSortedIndices) {
-      jsonData.delete(path.atIndex(index).toString());
+      JsonTreeNavigator.remove(prepareWrite(path.atIndex(index)), path.atIndex(index));
     }
     return true;
   }
 
-  /** Returns true if the value at the path is a JSON array of longs, and false otherwise. */
-  private boolean isJsonArray(Path path) {
-    try {
-      this.read(path, IMMUTABLE_LIST_LONG_TYPE);
-      return true;
-    } catch (JsonPathTypeMismatchException e) {
-      return false;
-    }
-  }
-
   /**
    * Evaluates a {@code JsonPathPredicate} query string returning true if there is matching data.
    */
@@ -461,6 +465,61 @@ public class ApplicantData {
     }
   }
 
+  /** The root of the parsed JSON tree, which is navigated by {@link JsonTreeNavigator}. */
+  Object root() {
+    return jsonData.json();
+  }
+
+  /**
+   * Records the subtree that a write at the path changes, then returns the root of the JSON tree
+   * after making sure every JSON object and array along the path can be changed without affecting a
+   * {@link #snapshot()}.
+   */
+  private Object prepareWrite(Path path) {
+    changedSubtreeKeys.add(JsonTreeNavigator.changedSubtree(root(), path));
+    if (ownedContainers != null) {
+      Object root = JsonTreeNavigator.copyPath(root(), path, ownedContainers);
+      if (root != root()) {
+        jsonData = JsonPathProvider.getJsonPath().parse(root);
+      }
+    }
+    return root();
+  }
+
+  /**
+   * Returns the subtrees of the JSON data that changed since it was read or last persisted, with
+   * their current values. A subtree nested in another changed subtree is not listed separately.
+   *
+   * @return the changed subtrees, or empty if the whole document has to be written
+   */
+  public Optional<ImmutableList<ChangedSubtree>> changedSubtrees() {
+    List<ImmutableList<String>> keysByLength = new ArrayList<>(changedSubtreeKeys);
+    keysByLength.sort(Comparator.comparingInt(List::size));
+    List<ImmutableList<String>> outermost = new ArrayList<>();
+    for (ImmutableList<String> keys : keysByLength) {
+      if (keys.isEmpty()) {
+        return Optional.empty();
+      }
+      if (outermost.stream().noneMatch(outer -> keys.subList(0, outer.size()).equals(outer))) {
+        outermost.add(keys);
+      }
+    }
+
+    JsonProvider jsonProvider = JSON_PATH_CONFIGURATION.jsonProvider();
+    return Optional.of(
+        outermost.stream()
+            .map(
+                keys ->
+                    ChangedSubtree.create(
+                        keys, jsonProvider.toJson(JsonTreeNavigator.getAtKeys(root(), keys))))
+            .collect(ImmutableList.toImmutableList()));
+  }
+
+  /** Records that the JSON data has been persisted, so nothing has changed since. */
+  public void markPersisted() {
+    changedSubtreeKeys.clear();
+  }
+
   public String asJsonString() {
     return jsonData.jsonString();
   }
@@ -488,8 +547,7 @@ public class ApplicantData {
    * @return A list of {@code Path}s whose values could not be copied due to conflicts.
    */
   public ImmutableList<Path> mergeFrom(ApplicantData other) {
-    Map<?, ?> rootAsMap = other.jsonData.read("$", Map.class);
-    return mergeFrom(Path.empty(), rootAsMap);
+    return mergeFrom(Path.empty(), (Map<?, ?>) other.root());
   }
 
   private ImmutableList<Path> mergeFrom(Path rootKey, Map<?, ?> other) {
@@ -506,7 +564,7 @@ public class ApplicantData {
           // Add items from lists.
           // TODO(github.com/seattle-uat/civiform/issues/405): improve merge for repeated fields.
           for (Object item : (List) entry.getValue()) {
-            jsonData.add(path.toString(), item);
+            JsonTreeNavigator.append(prepareWrite(path), path, item);
           }
         } else {
           try {
@@ -563,6 +621,62 @@ public class ApplicantData {
     }
   }
 
+  /**
+   * Collects writes to this {@link ApplicantData} so they can be applied together with {@link
+   * ApplicantData#applyAll}. Values are converted the same way as the corresponding put methods.
+   */
+  public final class Batch {
+    private final Map<Path, Object> updates = new HashMap<>();
+
+    private Batch() {}
+
+    /** See {@link ApplicantData#putDate}. */
+    public Batch putDate(Path path, String dateString) {
+      updates.put(path, dateValue(dateString));
+      return this;
+    }
+
+    /** See {@link ApplicantData#putString}. */
+    public Batch putString(Path path, String value) {
+      updates.put(path, stringValue(value));
+      return this;
+    }
+
+    /** See {@link ApplicantData#putLong(Path, long)}. */
+    public Batch putLong(Path path, long value) {
+      updates.put(path, value);
+      return this;
+    }
+
+    /** See {@link ApplicantData#putLong(Path, String)}. */
+    public Batch putLong(Path path, String value) {
+      updates.put(path, longValue(value));
+      return this;
+    }
+
+    /** Writes everything in this batch in a single pass. */
+    public void apply() {
+      applyAll(updates);
+    }
+  }
+
+  /** A JSON subtree that was changed, as returned by {@link ApplicantData#changedSubtrees}. */
+  @AutoValue
+  public abstract static class ChangedSubtree {
+    static ChangedSubtree create(ImmutableList<String> keys, String json) {
+      return new AutoValue_ApplicantData_ChangedSubtree(keys, json);
+    }
+
+    /**
+     * The object properties and array indices leading to the subtree from the root, in the form of
+     * a Postgres jsonb path.
+     */
+    public abstract ImmutableList<String> keys();
+
+    /** The current value of the subtree as a JSON string. */
+    public abstract String json();
+  }
+
   /**
    * This method should be called on methods that mutate ApplicantData to protect immutable
    * ApplicantData.
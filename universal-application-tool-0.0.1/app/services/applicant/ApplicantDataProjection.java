@@ -0,0 +1,81 @@
+package services.applicant;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import services.Path;
+
+/**
+ * Reads a fixed list of paths from many {@link ApplicantData}s, such as the columns of an export.
+ *
+ * <p>The paths are sorted once, when the projection is compiled, so that each read is a single walk
+ * over the applicant's JSON tree that visits shared prefixes once. Each value is formatted exactly
+ * as {@link ApplicantData#readAsString} would format it.
+ */
+public final class ApplicantDataProjection {
+
+  private final ImmutableList<Path> sortedPaths;
+  /** positions[i] is the position in the compiled list of sortedPaths.get(i). */
+  private final int[] positions;
+
+  private ApplicantDataProjection(ImmutableList<Path> sortedPaths, int[] positions) {
+    this.sortedPaths = sortedPaths;
+    this.positions = positions;
+  }
+
+  /** Compiles a projection that reads the given paths, in the given order. */
+  public static ApplicantDataProjection compile(List<Path> paths) {
+    int[] positions =
+        IntStream.range(0, paths.size())
+            .boxed()
+            .sorted(Comparator.comparing(paths::get, JsonTreeNavigator.PATH_ORDER))
+            .mapToInt(Integer::intValue)
+            .toArray();
+    ImmutableList.Builder<Path> sortedPaths = ImmutableList.builder();
+    for (int position : positions) {
+      sortedPaths.add(paths.get(position));
+    }
+    return new ApplicantDataProjection(sortedPaths.build(), positions);
+  }
+
+  /** The number of paths read. */
+  public int size() {
+    return positions.length;
+  }
+
+  /**
+   * Reads every path as a string, in the order the paths were compiled in. A path is empty if
+   * {@link ApplicantData#readAsString} would return empty for it.
+   */
+  public ImmutableList<Optional<String>> readAsStrings(ApplicantData applicantData) {
+    Object[] values = JsonTreeNavigator.getAll(applicantData.root(), sortedPaths);
+    List<Optional<String>> strings = new ArrayList<>(positions.length);
+    for (int i = 0; i < positions.length; i++) {
+      strings.add(null);
+    }
+    for (int i = 0; i < positions.length; i++) {
+      strings.set(positions[i], ApplicantData.asString(values[i]));
+    }
+    return ImmutableList.copyOf(strings);
+  }
+
+  /**
+   * Reads every path as the JSON value stored there, in the order the paths were compiled in: a
+   * string, a number, or a list of them. The values belong to the applicant's JSON tree, so they
+   * must not be changed.
+   */
+  public ImmutableList<Optional<Object>> read(ApplicantData applicantData) {
+    Object[] values = JsonTreeNavigator.getAll(applicantData.root(), sortedPaths);
+    List<Optional<Object>> ordered = new ArrayList<>(positions.length);
+    for (int i = 0; i < positions.length; i++) {
+      ordered.add(null);
+    }
+    for (int i = 0; i < positions.length; i++) {
+      ordered.set(positions[i], Optional.ofNullable(values[i]));
+    }
+    return ImmutableList.copyOf(ordered);
+  }
+}
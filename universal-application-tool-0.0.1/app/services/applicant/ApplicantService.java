@@ -5,6 +5,7 @@ import com.google.common.collect.ImmutableMap;
 import java.util.concurrent.CompletionStage;
 import models.Applicant;
 import models.Application;
+import repository.IdentityMap;
 import services.program.ProgramDefinition;
 
 /**
@@ -42,8 +43,21 @@ public interface ApplicantService {
    *           scalar.
    *     </ul>
    */
+  default CompletionStage<ReadOnlyApplicantProgramService> stageAndUpdateIfValid(
+      long applicantId, long programId, String blockId, ImmutableMap<String, String> updateMap) {
+    return stageAndUpdateIfValid(applicantId, programId, blockId, updateMap, new IdentityMap());
+  }
+
+  /**
+   * Like {@link #stageAndUpdateIfValid(long, long, String, ImmutableMap)}, with the applicant from
+   * the identity map. The updates are staged on that applicant even if they are not valid.
+   */
   CompletionStage<ReadOnlyApplicantProgramService> stageAndUpdateIfValid(
-      long applicantId, long programId, String blockId, ImmutableMap<String, String> updateMap);
+      long applicantId,
+      long programId,
+      String blockId,
+      ImmutableMap<String, String> updateMap,
+      IdentityMap identityMap);
 
   /**
    * Create a new active {@link Application} for the applicant applying to the program.
@@ -66,13 +80,28 @@ public interface ApplicantService {
    * <p>A ProgramNotFoundException may be thrown when the future completes if the programId does not
    * correspond to a real Program.
    */
+  default CompletionStage<ReadOnlyApplicantProgramService> getReadOnlyApplicantProgramService(
+      long applicantId, long programId) {
+    return getReadOnlyApplicantProgramService(applicantId, programId, new IdentityMap());
+  }
+
+  /**
+   * Like {@link #getReadOnlyApplicantProgramService(long, long)}, with the applicant from the
+   * identity map.
+   */
   CompletionStage<ReadOnlyApplicantProgramService> getReadOnlyApplicantProgramService(
-      long applicantId, long programId);
+      long applicantId, long programId, IdentityMap identityMap);
 
   /** Get a {@link ReadOnlyApplicantProgramService} from an application. */
   CompletionStage<ReadOnlyApplicantProgramService> getReadOnlyApplicantProgramService(
       Application application);
 
+  /**
+   * Get the {@link ApplicationSummary} stored with a submitted application. For an application
+   * submitted before summaries were kept, it is computed and stored the first time it is asked for.
+   */
+  CompletionStage<ApplicationSummary> getApplicationSummary(Application application);
+
   /**
    * Return all programs that are appropriate to serve to an applicant - which is any active
    * program, plus any program where they have an application in the draft stage.
@@ -80,5 +109,10 @@ public interface ApplicantService {
   CompletionStage<ImmutableList<ProgramDefinition>> relevantPrograms(long applicantId);
 
   /** Returns the name of the given applicant id. */
-  CompletionStage<String> getName(long applicantId);
+  default CompletionStage<String> getName(long applicantId) {
+    return getName(applicantId, new IdentityMap());
+  }
+
+  /** Returns the name of the given applicant id, with the applicant from the identity map. */
+  CompletionStage<String> getName(long applicantId, IdentityMap identityMap);
 }
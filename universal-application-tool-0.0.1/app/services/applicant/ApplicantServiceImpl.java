@@ -10,8 +10,8 @@ import com.google.common.collect.Sets;
 import com.typesafe.config.Config;
 import java.net.URI;
 import java.time.Clock;
-import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
@@ -19,8 +19,10 @@ import java.util.concurrent.CompletionStage;
 import javax.inject.Inject;
 import models.Applicant;
 import models.Application;
+import models.Program;
 import play.libs.concurrent.HttpExecutionContext;
 import repository.ApplicationRepository;
+import repository.IdentityMap;
 import repository.UserRepository;
 import services.Path;
 import services.applicant.exception.ApplicantNotFoundException;
@@ -79,9 +81,9 @@ public class ApplicantServiceImpl implements ApplicantService {
 
   @Override
   public CompletionStage<ReadOnlyApplicantProgramService> getReadOnlyApplicantProgramService(
-      long applicantId, long programId) {
+      long applicantId, long programId, IdentityMap identityMap) {
     CompletableFuture<Optional<Applicant>> applicantCompletableFuture =
-        userRepository.lookupApplicant(applicantId).toCompletableFuture();
+        userRepository.lookupApplicant(applicantId, identityMap).toCompletableFuture();
     CompletableFuture<ProgramDefinition> programDefinitionCompletableFuture =
         programService.getProgramDefinitionAsync(programId).toCompletableFuture();
 
@@ -111,9 +113,30 @@ public class ApplicantServiceImpl implements ApplicantService {
     }
   }
 
+  @Override
+  public CompletionStage<ApplicationSummary> getApplicationSummary(Application application) {
+    Optional<ApplicationSummary> storedSummary = application.getSummary();
+    if (storedSummary.isPresent()) {
+      return CompletableFuture.completedFuture(storedSummary.get());
+    }
+    return getReadOnlyApplicantProgramService(application)
+        .thenComposeAsync(
+            roApplicantProgramService -> {
+              ApplicationSummary summary = roApplicantProgramService.getApplicationSummary();
+              return applicationRepository
+                  .backfillSummary(application.id, summary)
+                  .thenApply(unused -> summary);
+            },
+            httpExecutionContext.current());
+  }
+
   @Override
   public CompletionStage<ReadOnlyApplicantProgramService> stageAndUpdateIfValid(
-      long applicantId, long programId, String blockId, ImmutableMap<String, String> updateMap) {
+      long applicantId,
+      long programId,
+      String blockId,
+      ImmutableMap<String, String> updateMap,
+      IdentityMap identityMap) {
     ImmutableSet<Update> updates =
         updateMap.entrySet().stream()
             .map(entry -> Update.create(Path.create(entry.getKey()), entry.getValue()))
@@ -130,13 +153,17 @@ public class ApplicantServiceImpl implements ApplicantService {
           new IllegalArgumentException("Path contained reserved scalar key"));
     }
 
-    return stageAndUpdateIfValid(applicantId, programId, blockId, updates);
+    return stageAndUpdateIfValid(applicantId, programId, blockId, updates, identityMap);
   }
 
   private CompletionStage<ReadOnlyApplicantProgramService> stageAndUpdateIfValid(
-      long applicantId, long programId, String blockId, ImmutableSet<Update> updates) {
+      long applicantId,
+      long programId,
+      String blockId,
+      ImmutableSet<Update> updates,
+      IdentityMap identityMap) {
     CompletableFuture<Optional<Applicant>> applicantCompletableFuture =
-        userRepository.lookupApplicant(applicantId).toCompletableFuture();
+        userRepository.lookupApplicant(applicantId, identityMap).toCompletableFuture();
 
     CompletableFuture<ProgramDefinition> programDefinitionCompletableFuture =
         programService.getProgramDefinitionAsync(programId).toCompletableFuture();
@@ -192,7 +219,7 @@ public class ApplicantServiceImpl implements ApplicantService {
   @Override
   public CompletionStage<Application> submitApplication(long applicantId, long programId) {
     return applicationRepository
-        .submitApplication(applicantId, programId)
+        .submitApplication(applicantId, programId, this::summarizeSubmission)
         .thenComposeAsync(
             applicationMaybe -> {
               if (applicationMaybe.isEmpty()) {
@@ -212,6 +239,24 @@ public class ApplicantServiceImpl implements ApplicantService {
     return userRepository.programsForApplicant(applicantId);
   }
 
+  /**
+   * The summary to store with a new application, computed from the applicant's answers just before
+   * it is submitted. If it cannot be computed, the application is still submitted, and its summary
+   * is backfilled when first shown.
+   */
+  private Optional<ApplicationSummary> summarizeSubmission(Applicant applicant, Program program) {
+    try {
+      return Optional.of(
+          new ReadOnlyApplicantProgramServiceImpl(
+                  amazonS3Client,
+                  applicant.getApplicantData(),
+                  programService.getProgramDefinition(program.id))
+              .getApplicationSummary());
+    } catch (ProgramNotFoundException e) {
+      return Optional.empty();
+    }
+  }
+
   private void notifyProgramAdmins(
       long applicantId, long programId, long applicationId, String programName) {
     String viewLink =
@@ -232,9 +277,9 @@ public class ApplicantServiceImpl implements ApplicantService {
   }
 
   @Override
-  public CompletionStage<String> getName(long applicantId) {
+  public CompletionStage<String> getName(long applicantId, IdentityMap identityMap) {
     return userRepository
-        .lookupApplicant(applicantId)
+        .lookupApplicant(applicantId, identityMap)
         .thenApplyAsync(
             applicant -> {
               if (applicant.isEmpty()) {
@@ -302,10 +347,12 @@ public class ApplicantServiceImpl implements ApplicantService {
 
     // Add and change entity names BEFORE deleting, because if deletes happened first, then changed
     // entity names may not match the intended entities.
+    ApplicantData.Batch batch = applicantData.batch();
     for (Update update : addsAndChanges) {
-      applicantData.putString(update.path().join(Scalar.ENTITY_NAME), update.value());
-      writeMetadataForPath(update.path(), applicantData, updateMetadata);
+      batch.putString(update.path().join(Scalar.ENTITY_NAME), update.value());
+      writeMetadataForPath(update.path(), batch, updateMetadata);
     }
+    batch.apply();
 
     ImmutableList<Integer> deleteIndices =
         deletes.stream()
@@ -356,6 +403,8 @@ public class ApplicantServiceImpl implements ApplicantService {
 
   /**
    * In-place update of {@link ApplicantData}. Adds program id and timestamp metadata with updates.
+   * All values are collected into one {@link ApplicantData.Batch} and written together, so nothing
+   * is written if any update is invalid.
    *
    * @throws PathNotInBlockException if there are updates for questions that aren't in the block.
    * @throws UnsupportedScalarTypeException if there are updates for unsupported scalar types.
@@ -367,15 +416,12 @@ public class ApplicantServiceImpl implements ApplicantService {
       ImmutableSet<Update> updates)
       throws UnsupportedScalarTypeException, PathNotInBlockException {
     ImmutableSet.Builder<Path> questionPaths = ImmutableSet.builder();
-    ArrayList<Path> visitedPaths = new ArrayList<>();
+    ImmutableSet.Builder<Path> arrayElementPaths = ImmutableSet.builder();
+    ApplicantData.Batch batch = applicantData.batch();
     for (Update update : updates) {
       Path currentPath = update.path();
-
-      // If we're updating an array we need to clear it first.
-      if (currentPath.isArrayElement()
-          && !visitedPaths.contains(currentPath.withoutArrayReference())) {
-        visitedPaths.add(currentPath.withoutArrayReference());
-        applicantData.maybeClearArray(currentPath);
+      if (currentPath.isArrayElement()) {
+        arrayElementPaths.add(currentPath);
       }
 
       ScalarType type =
@@ -385,27 +431,35 @@ public class ApplicantServiceImpl implements ApplicantService {
       questionPaths.add(currentPath.parentPath());
       switch (type) {
         case DATE:
-          applicantData.putDate(currentPath, update.value());
+          batch.putDate(currentPath, update.value());
           break;
         case STRING:
-          applicantData.putString(currentPath, update.value());
+          batch.putString(currentPath, update.value());
           break;
         case LONG:
-          applicantData.putLong(currentPath, update.value());
+          batch.putLong(currentPath, update.value());
           break;
         default:
           throw new UnsupportedScalarTypeException(type);
       }
     }
 
-    questionPaths
-        .build()
-        .forEach(path -> writeMetadataForPath(path, applicantData, updateMetadata));
+    // If we're updating an array we need to clear it first.
+    Set<Path> clearedArrays = new HashSet<>();
+    for (Path path : arrayElementPaths.build()) {
+      if (clearedArrays.add(path.withoutArrayReference())) {
+        applicantData.maybeClearArray(path);
+      }
+    }
+
+    questionPaths.build().forEach(path -> writeMetadataForPath(path, batch, updateMetadata));
+    batch.apply();
   }
 
-  private void writeMetadataForPath(Path path, ApplicantData data, UpdateMetadata updateMetadata) {
-    data.putLong(path.join(Scalar.PROGRAM_UPDATED_IN), updateMetadata.programId());
-    data.putLong(path.join(Scalar.UPDATED_AT), updateMetadata.updatedAt());
+  private void writeMetadataForPath(
+      Path path, ApplicantData.Batch batch, UpdateMetadata updateMetadata) {
+    batch.putLong(path.join(Scalar.PROGRAM_UPDATED_IN), updateMetadata.programId());
+    batch.putLong(path.join(Scalar.UPDATED_AT), updateMetadata.updatedAt());
   }
 
   @AutoValue
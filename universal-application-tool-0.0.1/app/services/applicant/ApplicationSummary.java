@@ -0,0 +1,166 @@
+package services.applicant;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.guava.GuavaModule;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.Optional;
+
+/**
+ * The answers of a submitted {@link models.Application}, with the display strings an admin sees,
+ * computed once from the application's {@link ReadOnlyApplicantProgramService} and stored with it.
+ *
+ * <p>A submitted application never changes, so this is the same as its {@link
+ * ReadOnlyApplicantProgramService#getSummaryData()} for as long as the program's questions keep the
+ * same text. Admin views read it instead of rebuilding every block of the program.
+ */
+@AutoValue
+public abstract class ApplicationSummary {
+  private static final ObjectMapper MAPPER =
+      new ObjectMapper().registerModule(new GuavaModule()).registerModule(new Jdk8Module());
+
+  @JsonCreator
+  public static ApplicationSummary create(
+      @JsonProperty("blocks") ImmutableList<BlockSummary> blocks) {
+    return new AutoValue_ApplicationSummary(blocks);
+  }
+
+  /** Every block of the program, including repeated blocks, in the order applicants see them. */
+  @JsonProperty("blocks")
+  public abstract ImmutableList<BlockSummary> blocks();
+
+  /** Parses a summary written by {@link #asJsonString()}. */
+  public static ApplicationSummary fromJsonString(String json) {
+    try {
+      return MAPPER.readValue(json, ApplicationSummary.class);
+    } catch (JsonProcessingException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  public String asJsonString() {
+    try {
+      return MAPPER.writeValueAsString(this);
+    } catch (JsonProcessingException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /** A {@link Block} and the answers to its questions. */
+  @AutoValue
+  public abstract static class BlockSummary {
+    @JsonCreator
+    public static BlockSummary create(
+        @JsonProperty("id") String id,
+        @JsonProperty("name") String name,
+        @JsonProperty("description") String description,
+        @JsonProperty("answers") ImmutableList<AnswerSummary> answers) {
+      return new AutoValue_ApplicationSummary_BlockSummary(id, name, description, answers);
+    }
+
+    /** See {@link Block#getId()}. */
+    @JsonProperty("id")
+    public abstract String id();
+
+    @JsonProperty("name")
+    public abstract String name();
+
+    @JsonProperty("description")
+    public abstract String description();
+
+    /** The answers to the block's questions, in the order of the questions. */
+    @JsonProperty("answers")
+    public abstract ImmutableList<AnswerSummary> answers();
+  }
+
+  /** The parts of an {@link AnswerData} that admins see, without the question definition. */
+  @AutoValue
+  public abstract static class AnswerSummary {
+    public static Builder builder() {
+      return new AutoValue_ApplicationSummary_AnswerSummary.Builder();
+    }
+
+    @JsonCreator
+    static AnswerSummary create(
+        @JsonProperty("questionId") long questionId,
+        @JsonProperty("questionName") String questionName,
+        @JsonProperty("questionText") String questionText,
+        @JsonProperty("answerText") String answerText,
+        @JsonProperty("fileKey") Optional<String> fileKey,
+        @JsonProperty("timestamp") long timestamp,
+        @JsonProperty("isPreviousResponse") boolean isPreviousResponse,
+        @JsonProperty("scalarAnswersInDefaultLocale")
+            ImmutableMap<String, String> scalarAnswersInDefaultLocale) {
+      return builder()
+          .setQuestionId(questionId)
+          .setQuestionName(questionName)
+          .setQuestionText(questionText)
+          .setAnswerText(answerText)
+          .setFileKey(fileKey)
+          .setTimestamp(timestamp)
+          .setIsPreviousResponse(isPreviousResponse)
+          .setScalarAnswersInDefaultLocale(scalarAnswersInDefaultLocale)
+          .build();
+    }
+
+    @JsonProperty("questionId")
+    public abstract long questionId();
+
+    @JsonProperty("questionName")
+    public abstract String questionName();
+
+    /** See {@link AnswerData#questionText()}. */
+    @JsonProperty("questionText")
+    public abstract String questionText();
+
+    /** See {@link AnswerData#answerText()}. */
+    @JsonProperty("answerText")
+    public abstract String answerText();
+
+    /**
+     * The key of an uploaded file, for linking to it. The link itself is not stored, since it
+     * expires.
+     */
+    @JsonProperty("fileKey")
+    public abstract Optional<String> fileKey();
+
+    /** See {@link AnswerData#timestamp()}. */
+    @JsonProperty("timestamp")
+    public abstract long timestamp();
+
+    /** See {@link AnswerData#isPreviousResponse()}. */
+    @JsonProperty("isPreviousResponse")
+    public abstract boolean isPreviousResponse();
+
+    /** See {@link AnswerData#scalarAnswersInDefaultLocale()}, keyed by path string. */
+    @JsonProperty("scalarAnswersInDefaultLocale")
+    public abstract ImmutableMap<String, String> scalarAnswersInDefaultLocale();
+
+    @AutoValue.Builder
+    public abstract static class Builder {
+      public abstract Builder setQuestionId(long questionId);
+
+      public abstract Builder setQuestionName(String questionName);
+
+      public abstract Builder setQuestionText(String questionText);
+
+      public abstract Builder setAnswerText(String answerText);
+
+      public abstract Builder setFileKey(Optional<String> fileKey);
+
+      public abstract Builder setTimestamp(long timestamp);
+
+      public abstract Builder setIsPreviousResponse(boolean isPreviousResponse);
+
+      public abstract Builder setScalarAnswersInDefaultLocale(
+          ImmutableMap<String, String> scalarAnswersInDefaultLocale);
+
+      public abstract AnswerSummary build();
+    }
+  }
+}
@@ -13,7 +13,6 @@ import services.Path;
 import services.applicant.question.ApplicantQuestion;
 import services.applicant.question.PresentsErrors;
 import services.program.BlockDefinition;
-import services.program.ProgramQuestionDefinition;
 import services.question.types.ScalarType;
 
 /** Represents a block in the context of a specific user's application. */
@@ -37,6 +36,7 @@ public final class Block {
   private final String id;
 
   private final BlockDefinition blockDefinition;
+  private final ProgramPlan.BlockPlan blockPlan;
   private final ApplicantData applicantData;
   private final Optional<RepeatedEntity> repeatedEntity;
 
@@ -48,8 +48,17 @@ public final class Block {
       BlockDefinition blockDefinition,
       ApplicantData applicantData,
       Optional<RepeatedEntity> repeatedEntity) {
+    this(id, ProgramPlan.BlockPlan.create(blockDefinition), applicantData, repeatedEntity);
+  }
+
+  Block(
+      String id,
+      ProgramPlan.BlockPlan blockPlan,
+      ApplicantData applicantData,
+      Optional<RepeatedEntity> repeatedEntity) {
     this.id = id;
-    this.blockDefinition = checkNotNull(blockDefinition);
+    this.blockPlan = checkNotNull(blockPlan);
+    this.blockDefinition = blockPlan.blockDefinition();
     this.applicantData = checkNotNull(applicantData);
     this.repeatedEntity = checkNotNull(repeatedEntity);
   }
@@ -100,8 +109,7 @@ public final class Block {
     if (questionsMemo.isEmpty()) {
       this.questionsMemo =
           Optional.of(
-              blockDefinition.programQuestionDefinitions().stream()
-                  .map(ProgramQuestionDefinition::getQuestionDefinition)
+              blockPlan.questionDefinitions().stream()
                   .map(
                       questionDefinition ->
                           new ApplicantQuestion(questionDefinition, applicantData, repeatedEntity))
@@ -132,6 +140,12 @@ public final class Block {
    * all questions in this block.
    */
   private ImmutableMap<Path, ScalarType> getContextualizedScalars() {
+    if (scalarsMemo.isEmpty()) {
+      scalarsMemo =
+          repeatedEntity.isEmpty()
+              ? blockPlan.applicantScalars()
+              : blockPlan.scalarsIn(repeatedEntity.get().contextualizedPath());
+    }
     if (scalarsMemo.isEmpty()) {
       scalarsMemo =
           Optional.of(
@@ -15,8 +15,9 @@ import javax.inject.Singleton;
 @Singleton
 public class JsonPathProvider {
 
+  private static final Configuration JSON_PATH_CONFIGURATION = generateConfiguration();
   private static final ParseContext JSON_PATH_PARSE_CONTEXT =
-      JsonPath.using(generateConfiguration());
+      JsonPath.using(JSON_PATH_CONFIGURATION);
 
   /**
    * Gets a JsonPath {@link ParseContext} that uses Jackson as the JSON provider instead of the
@@ -30,6 +31,14 @@ public class JsonPathProvider {
     return JSON_PATH_PARSE_CONTEXT;
   }
 
+  /**
+   * Gets the {@link Configuration} behind {@link #getJsonPath()}, for code that navigates the
+   * parsed JSON directly but still needs the same Jackson value mapping.
+   */
+  public static Configuration getConfiguration() {
+    return JSON_PATH_CONFIGURATION;
+  }
+
   private static Configuration generateConfiguration() {
     ObjectMapper mapper =
         new ObjectMapper().registerModule(new GuavaModule()).registerModule(new Jdk8Module());
@@ -0,0 +1,570 @@
+package services.applicant;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+import services.Path;
+
+/**
+ * Navigates the in-memory JSON tree that backs {@link ApplicantData} by walking the segments of a
+ * {@link Path} directly.
+ *
+ * <p>The tree is the one produced by the Jackson provider in {@link JsonPathProvider}: JSON objects
+ * are {@link Map}s, JSON arrays are {@link List}s, and everything else is a leaf value. Unlike
+ * evaluating {@code Path#toString()} as a JsonPath query, no path string is re-parsed and a missing
+ * property or out-of-range array index is reported through the return value instead of a {@code
+ * PathNotFoundException}.
+ */
+final class JsonTreeNavigator {
+
+  /** Marks a location that does not exist in the tree, as opposed to one that holds null. */
+  private static final Object MISSING = new Object();
+
+  /** Array indices longer than this cannot be represented as an int. */
+  private static final int MAX_INDEX_DIGITS = 9;
+
+  /**
+   * Orders paths segment by segment, comparing array indices numerically, so that paths sharing a
+   * prefix are adjacent and array elements are visited in index order.
+   */
+  static final Comparator<Path> PATH_ORDER =
+      (left, right) -> {
+        ImmutableList<String> leftSegments = left.segments();
+        ImmutableList<String> rightSegments = right.segments();
+        int shared = Math.min(leftSegments.size(), rightSegments.size());
+        for (int i = 0; i < shared; i++) {
+          int order = compareSegments(leftSegments.get(i), rightSegments.get(i));
+          if (order != 0) {
+            return order;
+          }
+        }
+        return Integer.compare(leftSegments.size(), rightSegments.size());
+      };
+
+  private JsonTreeNavigator() {}
+
+  /** Returns true if the path exists in the tree, even if the value there is null. */
+  static boolean contains(Object root, Path path) {
+    return resolve(root, path) != MISSING;
+  }
+
+  /** Returns the value at the path, or null if the path is missing or holds null. */
+  @Nullable
+  static Object get(Object root, Path path) {
+    Object value = resolve(root, path);
+    return value == MISSING ? null : value;
+  }
+
+  /**
+   * Applies {@link #get} for every path in a single pass over the tree. The paths must already be
+   * sorted with {@link #PATH_ORDER}; the nodes reached along the previous path are reused for the
+   * next one, so paths sharing a prefix only walk that prefix once.
+   *
+   * @return the value at each path, in the order given, with null for missing paths
+   */
+  static Object[] getAll(Object root, List<Path> sortedPaths) {
+    Object[] values = new Object[sortedPaths.size()];
+    // nodes.get(i) is the node reached by walking segments 0 through i.
+    List<String> segments = new ArrayList<>();
+    List<Object> nodes = new ArrayList<>();
+    for (int p = 0; p < sortedPaths.size(); p++) {
+      ImmutableList<String> pathSegments = sortedPaths.get(p).segments();
+      int shared = 0;
+      while (shared < segments.size()
+          && shared < pathSegments.size()
+          && segments.get(shared).equals(pathSegments.get(shared))) {
+        shared++;
+      }
+      segments.subList(shared, segments.size()).clear();
+      nodes.subList(shared, nodes.size()).clear();
+
+      Object node = shared == 0 ? root : nodes.get(shared - 1);
+      for (int i = shared; i < pathSegments.size(); i++) {
+        node = step(node, pathSegments.get(i));
+        segments.add(pathSegments.get(i));
+        nodes.add(node);
+      }
+      values[p] = node == MISSING ? null : node;
+    }
+    return values;
+  }
+
+  /**
+   * Puts the value at the path, first creating any JSON objects and arrays missing along the way.
+   * An intermediate {@code key[n]} segment pads the array with empty objects until index n exists.
+   * If the path itself ends in an array element, the value is appended to that array, creating the
+   * array if needed.
+   *
+   * @throws IllegalStateException if a value along the path is not the expected JSON container
+   */
+  static void put(Object root, Path path, @Nullable Object value) {
+    Object parent = root;
+    for (String segment : path.parentPath().segments()) {
+      parent = createStep(parent, segment, path, null);
+    }
+    putChild(parent, path, value, null);
+  }
+
+  /**
+   * Applies {@link #put} for every entry in a single pass over the tree. Updates are sorted with
+   * {@link #PATH_ORDER}, and the chain of containers leading to the previous update's parent is
+   * reused for the next one, so updates sharing a prefix only walk and create that prefix once.
+   *
+   * <p>The same pass records, in {@code changedSubtrees}, the keys of the subtree each update
+   * changes, as {@link #changedSubtree} would. If {@code owned} is not null the tree is shared with
+   * another reader, and every container the pass writes to is first copied as {@link #copyPath}
+   * would. Containers the pass copies or creates are added to {@code owned}.
+   *
+   * @return the root to write to, which is a copy of {@code root} unless it was already owned
+   */
+  static Object putAll(
+      Object root,
+      Map<Path, ?> updates,
+      @Nullable Set<Object> owned,
+      Set<ImmutableList<String>> changedSubtrees) {
+    List<Path> paths = new ArrayList<>(updates.keySet());
+    paths.sort(PATH_ORDER);
+    Object writableRoot = own(root, owned);
+
+    // For the chain of parent segments walked so far, containers.get(i) is the container reached
+    // by walking segments 0 through i, and keyCounts.get(i) the number of changed-subtree keys
+    // found by then, or -1 once the changed subtree ended above it.
+    List<String> segments = new ArrayList<>();
+    List<Object> containers = new ArrayList<>();
+    List<Integer> keyCounts = new ArrayList<>();
+    List<String> keys = new ArrayList<>();
+    for (Path path : paths) {
+      ImmutableList<String> parentSegments = path.parentPath().segments();
+      int shared = 0;
+      while (shared < segments.size()
+          && shared < parentSegments.size()
+          && segments.get(shared).equals(parentSegments.get(shared))) {
+        shared++;
+      }
+      segments.subList(shared, segments.size()).clear();
+      containers.subList(shared, containers.size()).clear();
+      keyCounts.subList(shared, keyCounts.size()).clear();
+
+      Object parent = shared == 0 ? writableRoot : containers.get(shared - 1);
+      int keyCount = shared == 0 ? 0 : keyCounts.get(shared - 1);
+      for (int i = shared; i < parentSegments.size(); i++) {
+        String segment = parentSegments.get(i);
+        if (keyCount >= 0) {
+          keyCount = nextChangedKeys(parent, segment, false, keys, keyCount);
+        }
+        parent = createStep(parent, segment, path, owned);
+        segments.add(segment);
+        containers.add(parent);
+        keyCounts.add(keyCount);
+      }
+      if (keyCount >= 0) {
+        keyCount = nextChangedKeys(parent, path.keyName(), true, keys, keyCount);
+      }
+      // The last step always ends the changed subtree, so keyCount is negative here.
+      changedSubtrees.add(ImmutableList.copyOf(keys.subList(0, -1 - keyCount)));
+      putChild(parent, path, updates.get(path), owned);
+    }
+    return writableRoot;
+  }
+
+  /**
+   * Takes one step of {@link #changedSubtree} from the node, which has not been written to yet.
+   * {@code keys} holds the changed-subtree keys found so far in its first {@code keyCount} entries.
+   *
+   * @return the number of keys after the step, or, if the changed subtree ends with this step,
+   *     minus one minus that number
+   */
+  private static int nextChangedKeys(
+      @Nullable Object node, String segment, boolean last, List<String> keys, int keyCount) {
+    keys.subList(keyCount, keys.size()).clear();
+    int bracket = segment.indexOf('[');
+    if (bracket == 0 || !(node instanceof Map)) {
+      return -1 - keyCount;
+    }
+    String key = bracket < 0 ? segment : segment.substring(0, bracket);
+    keys.add(key);
+    if (!asMap(node).containsKey(key)) {
+      return -1 - keys.size();
+    }
+    if (bracket < 0) {
+      return last ? -1 - keys.size() : keys.size();
+    }
+    Object array = asMap(node).get(key);
+    int index = parseIndex(segment, bracket);
+    if (last || index < 0 || !(array instanceof List) || index >= asList(array).size()) {
+      return -1 - keys.size();
+    }
+    keys.add(String.valueOf(index));
+    return keys.size();
+  }
+
+  /**
+   * Sets the property named by the last segment of the path on the JSON object at the parent path.
+   *
+   * @throws IllegalStateException if the parent path does not exist or is not a JSON object
+   */
+  static void putProperty(Object root, Path path, @Nullable Object value) {
+    Object parent = resolve(root, path.parentPath());
+    if (!(parent instanceof Map)) {
+      throw new IllegalStateException(
+          String.format("Cannot put %s because its parent is not a JSON object.", path));
+    }
+    asMap(parent).put(path.keyName(), value);
+  }
+
+  /**
+   * Appends the value to the end of the JSON array at the path.
+   *
+   * @throws IllegalStateException if the path does not exist or is not a JSON array
+   */
+  static void append(Object root, Path arrayPath, @Nullable Object value) {
+    Object array = resolve(root, arrayPath);
+    if (!(array instanceof List)) {
+      throw new IllegalStateException(
+          String.format("Cannot add to %s because it is not a JSON array.", arrayPath));
+    }
+    asList(array).add(value);
+  }
+
+  /**
+   * Removes the value at the path, which is either an object property or an array element. Array
+   * elements after a removed element shift down by one.
+   *
+   * @return true if something was removed
+   */
+  static boolean remove(Object root, Path path) {
+    if (path.isEmpty()) {
+      return false;
+    }
+    Object parent = resolve(root, path.parentPath());
+    String segment = path.keyName();
+    int bracket = segment.indexOf('[');
+    if (bracket < 0) {
+      if (!(parent instanceof Map) || !asMap(parent).containsKey(segment)) {
+        return false;
+      }
+      asMap(parent).remove(segment);
+      return true;
+    }
+
+    Object array = bracket == 0 ? parent : property(parent, segment.substring(0, bracket));
+    int index = parseIndex(segment, bracket);
+    if (index < 0 || !(array instanceof List) || index >= asList(array).size()) {
+      return false;
+    }
+    asList(array).remove(index);
+    return true;
+  }
+
+  /**
+   * Returns the keys of the smallest subtree that holds every change made by writing at the path,
+   * given the tree as it is before the write. Each key is an object property or, after an array, an
+   * element index, like a Postgres jsonb path. An empty list means the whole tree.
+   *
+   * <p>The subtree is the first object property or array element along the path that does not exist
+   * yet, since the write creates it. A path ending in an array element names the array itself,
+   * because {@link #put} appends to it.
+   */
+  static ImmutableList<String> changedSubtree(Object root, Path path) {
+    ImmutableList.Builder<String> keys = ImmutableList.builder();
+    ImmutableList<String> segments = path.segments();
+    Object node = root;
+    for (int i = 0; i < segments.size(); i++) {
+      String segment = segments.get(i);
+      int bracket = segment.indexOf('[');
+      if (bracket == 0 || !(node instanceof Map)) {
+        break;
+      }
+      String key = bracket < 0 ? segment : segment.substring(0, bracket);
+      keys.add(key);
+      if (!asMap(node).containsKey(key)) {
+        break;
+      }
+      node = asMap(node).get(key);
+      if (bracket < 0) {
+        continue;
+      }
+
+      int index = parseIndex(segment, bracket);
+      if (i == segments.size() - 1
+          || index < 0
+          || !(node instanceof List)
+          || index >= asList(node).size()) {
+        break;
+      }
+      keys.add(String.valueOf(index));
+      node = asList(node).get(index);
+    }
+    return keys.build();
+  }
+
+  /** Returns the value at keys from {@link #changedSubtree}, or null if it is missing. */
+  @Nullable
+  static Object getAtKeys(Object root, List<String> keys) {
+    Object node = root;
+    for (String key : keys) {
+      if (node instanceof Map) {
+        node = asMap(node).get(key);
+      } else if (node instanceof List) {
+        int index = Integer.parseInt(key);
+        node = index < asList(node).size() ? asList(node).get(index) : null;
+      } else {
+        return null;
+      }
+    }
+    return node;
+  }
+
+  /**
+   * Prepares a tree that is shared with another reader for a write at the path, by copying every
+   * JSON object and array along the path that is not already in {@code owned}. Each copy replaces
+   * the original in its (already copied) parent and is added to {@code owned}, so the rest of the
+   * tree stays shared and later writes under the same containers do not copy them again. The
+   * container at the path itself is copied too, since a write may append to or remove from it.
+   *
+   * @return the root to write to, which is a copy of {@code root} unless it was already owned
+   */
+  static Object copyPath(Object root, Path path, Set<Object> owned) {
+    Object copiedRoot = own(root, owned);
+    Object node = copiedRoot;
+    for (String segment : path.segments()) {
+      int bracket = segment.indexOf('[');
+      if (bracket < 0) {
+        node = ownProperty(node, segment, owned);
+        continue;
+      }
+      Object array = bracket == 0 ? node : ownProperty(node, segment.substring(0, bracket), owned);
+      int index = parseIndex(segment, bracket);
+      if (index < 0 || !(array instanceof List) || index >= asList(array).size()) {
+        break;
+      }
+      List<Object> list = asList(array);
+      node = own(list.get(index), owned);
+      list.set(index, node);
+    }
+    return copiedRoot;
+  }
+
+  /**
+   * Moves one segment down from the node like {@link #step}, creating the child if it is missing.
+   * Arrays are padded with empty JSON objects up to the index named by the segment. If {@code
+   * owned} is not null, the child is copied unless it is owned, and created children are owned.
+   */
+  private static Object createStep(
+      Object node, String segment, Path path, @Nullable Set<Object> owned) {
+    Map<String, Object> map = requireMap(node, path);
+    int bracket = segment.indexOf('[');
+    if (bracket < 0) {
+      Object child = map.get(segment);
+      if (child == null) {
+        child = created(new HashMap<>(), owned);
+        map.put(segment, child);
+      } else {
+        child = ownChild(map, segment, child, owned);
+      }
+      return child;
+    }
+
+    int index = parseIndex(segment, bracket);
+    if (bracket == 0 || index < 0) {
+      throw new IllegalStateException(
+          String.format("Cannot create %s because %s is not an array element.", path, segment));
+    }
+    String key = segment.substring(0, bracket);
+    Object array = map.get(key);
+    if (!(array instanceof List)) {
+      array = created(new ArrayList<>(), owned);
+      map.put(key, array);
+    } else {
+      array = ownChild(map, key, array, owned);
+    }
+    List<Object> list = asList(array);
+    while (list.size() <= index) {
+      list.add(created(new HashMap<>(), owned));
+    }
+    Object element = list.get(index);
+    Object ownedElement = own(element, owned);
+    if (ownedElement != element) {
+      list.set(index, ownedElement);
+    }
+    return ownedElement;
+  }
+
+  /** Sets, or for array elements appends, the last segment of the path on its parent object. */
+  private static void putChild(
+      Object parent, Path path, @Nullable Object value, @Nullable Set<Object> owned) {
+    Map<String, Object> map = requireMap(parent, path);
+    String segment = path.keyName();
+    int bracket = segment.indexOf('[');
+    if (bracket < 0) {
+      map.put(segment, value);
+      return;
+    }
+
+    String key = segment.substring(0, bracket);
+    Object array = map.get(key);
+    if (array == null) {
+      array = created(new ArrayList<>(), owned);
+      map.put(key, array);
+    }
+    if (!(array instanceof List)) {
+      throw new IllegalStateException(
+          String.format("Cannot add to %s because it is not a JSON array.", path));
+    }
+    asList(ownChild(map, key, array, owned)).add(value);
+  }
+
+  /** Returns the owned copy of the child of a map, replacing the child with it. */
+  private static Object ownChild(
+      Map<String, Object> map, String key, Object child, @Nullable Set<Object> owned) {
+    Object copy = own(child, owned);
+    if (copy != child) {
+      map.put(key, copy);
+    }
+    return copy;
+  }
+
+  /** Adds a container the write just created to {@code owned}, if the tree is shared. */
+  private static Object created(Object container, @Nullable Set<Object> owned) {
+    if (owned != null) {
+      owned.add(container);
+    }
+    return container;
+  }
+
+  /** Returns the owned copy of a map property, or {@link #MISSING} if there is none. */
+  private static Object ownProperty(@Nullable Object node, String key, Set<Object> owned) {
+    Object child = property(node, key);
+    if (child == MISSING) {
+      return MISSING;
+    }
+    Object copy = own(child, owned);
+    if (copy != child) {
+      asMap(node).put(key, copy);
+    }
+    return copy;
+  }
+
+  /**
+   * Returns a shallow copy of a JSON object or array unless it is already owned, or the node itself
+   * if {@code owned} is null because the tree is not shared.
+   */
+  @Nullable
+  private static Object own(@Nullable Object node, @Nullable Set<Object> owned) {
+    if (owned == null || owned.contains(node)) {
+      return node;
+    }
+    Object copy;
+    if (node instanceof LinkedHashMap) {
+      copy = new LinkedHashMap<>(asMap(node));
+    } else if (node instanceof Map) {
+      copy = new HashMap<>(asMap(node));
+    } else if (node instanceof List) {
+      copy = new ArrayList<>(asList(node));
+    } else {
+      return node;
+    }
+    owned.add(copy);
+    return copy;
+  }
+
+  private static Map<String, Object> requireMap(@Nullable Object node, Path path) {
+    if (!(node instanceof Map)) {
+      throw new IllegalStateException(
+          String.format("Cannot put %s because its parent is not a JSON object.", path));
+    }
+    return asMap(node);
+  }
+
+  /** Walks every segment of the path from the root, returning {@link #MISSING} if any is absent. */
+  private static Object resolve(Object root, Path path) {
+    Object node = root;
+    for (String segment : path.segments()) {
+      node = step(node, segment);
+      if (node == MISSING) {
+        return MISSING;
+      }
+    }
+    return node;
+  }
+
+  /** Moves one segment, e.g. {@code children[2]} or {@code name}, down from the given node. */
+  private static Object step(Object node, String segment) {
+    int bracket = segment.indexOf('[');
+    if (bracket < 0) {
+      return property(node, segment);
+    }
+
+    Object array = bracket == 0 ? node : property(node, segment.substring(0, bracket));
+    int index = parseIndex(segment, bracket);
+    if (index < 0 || !(array instanceof List)) {
+      return MISSING;
+    }
+    List<Object> list = asList(array);
+    return index < list.size() ? list.get(index) : MISSING;
+  }
+
+  private static Object property(@Nullable Object node, String key) {
+    if (!(node instanceof Map)) {
+      return MISSING;
+    }
+    Map<String, Object> map = asMap(node);
+    Object value = map.get(key);
+    if (value == null && !map.containsKey(key)) {
+      return MISSING;
+    }
+    return value;
+  }
+
+  /**
+   * Returns the index in a trailing {@code [n]} of a segment, or -1 if the brackets are empty (the
+   * {@link Path#ARRAY_SUFFIX} form) or do not contain a non-negative integer.
+   */
+  private static int parseIndex(String segment, int bracket) {
+    int close = segment.length() - 1;
+    int digits = close - bracket - 1;
+    if (segment.charAt(close) != ']' || digits < 1 || digits > MAX_INDEX_DIGITS) {
+      return -1;
+    }
+    int index = 0;
+    for (int i = bracket + 1; i < close; i++) {
+      char c = segment.charAt(i);
+      if (c < '0' || c > '9') {
+        return -1;
+      }
+      index = index * 10 + (c - '0');
+    }
+    return index;
+  }
+
+  /** Compares segment keys as strings, then array indices as numbers, with no index first. */
+  private static int compareSegments(String left, String right) {
+    int leftBracket = left.indexOf('[');
+    int rightBracket = right.indexOf('[');
+    String leftKey = leftBracket < 0 ? left : left.substring(0, leftBracket);
+    String rightKey = rightBracket < 0 ? right : right.substring(0, rightBracket);
+    int order = leftKey.compareTo(rightKey);
+    if (order != 0) {
+      return order;
+    }
+    int leftIndex = leftBracket < 0 ? -1 : parseIndex(left, leftBracket);
+    int rightIndex = rightBracket < 0 ? -1 : parseIndex(right, rightBracket);
+    return Integer.compare(leftIndex, rightIndex);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> asMap(Object node) {
+    return (Map<String, Object>) node;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<Object> asList(Object node) {
+    return (List<Object>) node;
+  }
+}
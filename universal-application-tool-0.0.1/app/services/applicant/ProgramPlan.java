@@ -0,0 +1,154 @@
+package services.applicant;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.auto.value.AutoValue;
+import com.google.auto.value.extension.memoized.Memoized;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import java.util.Map;
+import java.util.Optional;
+import services.Path;
+import services.applicant.question.ApplicantQuestion;
+import services.program.BlockDefinition;
+import services.program.ProgramDefinition;
+import services.program.ProgramQuestionDefinition;
+import services.question.exceptions.InvalidQuestionTypeException;
+import services.question.exceptions.UnsupportedQuestionTypeException;
+import services.question.types.QuestionDefinition;
+import services.question.types.ScalarType;
+
+/**
+ * The parts of building an applicant's {@link Block}s that only depend on the {@link
+ * ProgramDefinition}: block order, which blocks repeat for each entity of an enumerator, the
+ * questions in each block, and the scalar and metadata paths of each block relative to its context.
+ *
+ * <p>A plan is built once per {@link ProgramDefinition} instance and shared by every applicant, so
+ * building an applicant's blocks only has to fill in their repeated entities.
+ */
+@AutoValue
+public abstract class ProgramPlan {
+
+  /** Keyed by identity, so a plan lives exactly as long as its program definition is in use. */
+  private static final LoadingCache<ProgramDefinition, ProgramPlan> PLANS =
+      CacheBuilder.newBuilder().weakKeys().build(CacheLoader.from(ProgramPlan::create));
+
+  /** Returns the plan for the program definition, building it the first time. */
+  public static ProgramPlan forProgram(ProgramDefinition programDefinition) {
+    return PLANS.getUnchecked(checkNotNull(programDefinition));
+  }
+
+  private static ProgramPlan create(ProgramDefinition programDefinition) {
+    ImmutableListMultimap<Long, BlockDefinition> repeatedBlockDefinitions =
+        programDefinition.blockDefinitions().stream()
+            .filter(blockDefinition -> blockDefinition.enumeratorId().isPresent())
+            .collect(
+                ImmutableListMultimap.toImmutableListMultimap(
+                    blockDefinition -> blockDefinition.enumeratorId().get(),
+                    blockDefinition -> blockDefinition));
+    return new AutoValue_ProgramPlan(
+        planBlocks(programDefinition.getNonRepeatedBlockDefinitions(), repeatedBlockDefinitions));
+  }
+
+  private static ImmutableList<BlockPlan> planBlocks(
+      ImmutableList<BlockDefinition> blockDefinitions,
+      ImmutableListMultimap<Long, BlockDefinition> repeatedBlockDefinitions) {
+    return blockDefinitions.stream()
+        .map(
+            blockDefinition ->
+                BlockPlan.create(
+                    blockDefinition,
+                    blockDefinition.isEnumerator()
+                        ? planBlocks(
+                            repeatedBlockDefinitions.get(blockDefinition.id()),
+                            repeatedBlockDefinitions)
+                        : ImmutableList.of()))
+        .collect(ImmutableList.toImmutableList());
+  }
+
+  /** The blocks that are not repeated, in program order. */
+  public abstract ImmutableList<BlockPlan> blocks();
+
+  /** The applicant-independent parts of a {@link Block}. */
+  @AutoValue
+  public abstract static class BlockPlan {
+
+    /** Plans a single block, without any repeated blocks. */
+    static BlockPlan create(BlockDefinition blockDefinition) {
+      return create(blockDefinition, ImmutableList.of());
+    }
+
+    private static BlockPlan create(
+        BlockDefinition blockDefinition, ImmutableList<BlockPlan> repeatedBlocks) {
+      return new AutoValue_ProgramPlan_BlockPlan(blockDefinition, repeatedBlocks);
+    }
+
+    public abstract BlockDefinition blockDefinition();
+
+    /** The questions in the block, in order. */
+    @Memoized
+    public ImmutableList<QuestionDefinition> questionDefinitions() {
+      return blockDefinition().programQuestionDefinitions().stream()
+          .map(ProgramQuestionDefinition::getQuestionDefinition)
+          .collect(ImmutableList.toImmutableList());
+    }
+
+    /**
+     * The scalars, including metadata scalars, of every question in the block, keyed by their path
+     * relative to the block's context: the applicant, or for a repeated block, the repeated entity.
+     * This is empty if any question has no scalars, like an enumerator question.
+     */
+    @Memoized
+    Optional<ImmutableMap<String, ScalarType>> scalarTemplates() {
+      ImmutableMap.Builder<String, ScalarType> templates = ImmutableMap.builder();
+      try {
+        for (QuestionDefinition questionDefinition : questionDefinitions()) {
+          for (Map.Entry<Path, ScalarType> scalar :
+              ApplicantQuestion.contextualizeScalars(
+                      Path.create(questionDefinition.getQuestionPathSegment()),
+                      questionDefinition.getQuestionType())
+                  .entrySet()) {
+            templates.put(scalar.getKey().toString(), scalar.getValue());
+          }
+        }
+      } catch (InvalidQuestionTypeException | UnsupportedQuestionTypeException e) {
+        return Optional.empty();
+      }
+      return Optional.of(templates.build());
+    }
+
+    /**
+     * The contextualized scalars, including metadata scalars, of every question in the block when
+     * the block is not repeated. This is empty if any question has no scalars, like an enumerator
+     * question.
+     */
+    @Memoized
+    Optional<ImmutableMap<Path, ScalarType>> applicantScalars() {
+      return scalarsIn(ApplicantData.APPLICANT_PATH);
+    }
+
+    /**
+     * The {@link #scalarTemplates()} joined onto the context, such as a repeated entity's {@link
+     * RepeatedEntity#contextualizedPath()}, which fills in the entity's indices.
+     */
+    Optional<ImmutableMap<Path, ScalarType>> scalarsIn(Path context) {
+      return scalarTemplates()
+          .map(
+              templates ->
+                  templates.entrySet().stream()
+                      .collect(
+                          ImmutableMap.toImmutableMap(
+                              template -> context.join(template.getKey()), Map.Entry::getValue)));
+    }
+
+    /**
+     * For an enumerator block, the blocks that repeat for each of its entities, in program order.
+     * Empty for other blocks.
+     */
+    public abstract ImmutableList<BlockPlan> repeatedBlocks();
+  }
+}
@@ -45,6 +45,12 @@ public interface ReadOnlyApplicantProgramService {
   /** Returns summary data for each question in this application. */
   ImmutableList<AnswerData> getSummaryData();
 
+  /**
+   * Returns what admins see of each block and answer, to store with a submitted application. Like
+   * {@link #getSummaryData()}, but links to uploaded files are left to be made when shown.
+   */
+  ApplicationSummary getApplicationSummary();
+
   /**
    * Returns true if this program fully supports this applicant's preferred language, and false
    * otherwise.
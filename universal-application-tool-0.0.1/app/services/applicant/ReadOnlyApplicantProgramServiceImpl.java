@@ -6,11 +6,14 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import java.net.URL;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import services.LocalizedStrings;
 import services.Path;
+import services.applicant.ApplicationSummary.AnswerSummary;
+import services.applicant.ApplicationSummary.BlockSummary;
 import services.applicant.question.ApplicantQuestion;
 import services.applicant.question.FileUploadQuestion;
 import services.applicant.question.Scalar;
@@ -33,9 +36,7 @@ public class ReadOnlyApplicantProgramServiceImpl implements ReadOnlyApplicantPro
       ApplicantData applicantData,
       ProgramDefinition programDefinition) {
     this.amazonS3Client = checkNotNull(amazonS3Client);
-    this.applicantData = new ApplicantData(checkNotNull(applicantData).asJsonString());
-    this.applicantData.setPreferredLocale(applicantData.preferredLocale());
-    this.applicantData.lock();
+    this.applicantData = checkNotNull(applicantData).snapshot();
     this.programDefinition = checkNotNull(programDefinition);
   }
 
@@ -112,7 +113,7 @@ public class ReadOnlyApplicantProgramServiceImpl implements ReadOnlyApplicantPro
   private ImmutableList<Block> getBlocks(Predicate<Block> includeBlockIfTrue) {
     String emptyBlockIdSuffix = "";
     return getBlocks(
-        programDefinition.getNonRepeatedBlockDefinitions(),
+        ProgramPlan.forProgram(programDefinition).blocks(),
         emptyBlockIdSuffix,
         Optional.empty(),
         includeBlockIfTrue);
@@ -122,20 +123,18 @@ public class ReadOnlyApplicantProgramServiceImpl implements ReadOnlyApplicantPro
    * Recursive helper method for {@link ReadOnlyApplicantProgramServiceImpl#getBlocks(Predicate)}.
    */
   private ImmutableList<Block> getBlocks(
-      ImmutableList<BlockDefinition> blockDefinitions,
+      ImmutableList<ProgramPlan.BlockPlan> blockPlans,
       String blockIdSuffix,
       Optional<RepeatedEntity> maybeRepeatedEntity,
       Predicate<Block> includeBlockIfTrue) {
     ImmutableList.Builder<Block> blockListBuilder = ImmutableList.builder();
 
-    for (BlockDefinition blockDefinition : blockDefinitions) {
+    for (ProgramPlan.BlockPlan blockPlan : blockPlans) {
+      BlockDefinition blockDefinition = blockPlan.blockDefinition();
       // Create and maybe include the block for this block definition.
       Block block =
           new Block(
-              blockDefinition.id() + blockIdSuffix,
-              blockDefinition,
-              applicantData,
-              maybeRepeatedEntity);
+              blockDefinition.id() + blockIdSuffix, blockPlan, applicantData, maybeRepeatedEntity);
       if (includeBlockIfTrue.test(block)) {
         blockListBuilder.add(block);
       }
@@ -156,13 +155,11 @@ public class ReadOnlyApplicantProgramServiceImpl implements ReadOnlyApplicantPro
 
         // For each repeated entity, recursively build blocks for all of the repeated blocks of this
         // enumerator block.
-        ImmutableList<BlockDefinition> repeatedBlockDefinitions =
-            programDefinition.getBlockDefinitionsForEnumerator(blockDefinition.id());
         for (int i = 0; i < repeatedEntities.size(); i++) {
           String nextBlockIdSuffix = String.format("%s-%d", blockIdSuffix, i);
           blockListBuilder.addAll(
               getBlocks(
-                  repeatedBlockDefinitions,
+                  blockPlan.repeatedBlocks(),
                   nextBlockIdSuffix,
                   Optional.of(repeatedEntities.get(i)),
                   includeBlockIfTrue));
@@ -185,9 +182,6 @@ public class ReadOnlyApplicantProgramServiceImpl implements ReadOnlyApplicantPro
         String questionText = question.getQuestionText();
         String answerText = question.errorsPresenter().getAnswerString();
         Optional<Long> timestamp = question.getLastUpdatedTimeMetadata();
-        Optional<Long> updatedProgram = question.getUpdatedInProgramMetadata();
-        boolean isPreviousResponse =
-            updatedProgram.isPresent() && updatedProgram.get() != programDefinition.id();
         AnswerData data =
             AnswerData.builder()
                 .setProgramId(programDefinition.id())
@@ -199,7 +193,7 @@ public class ReadOnlyApplicantProgramServiceImpl implements ReadOnlyApplicantPro
                 .setAnswerText(answerText)
                 .setAnswerLink(getAnswerLink(question))
                 .setTimestamp(timestamp.orElse(AnswerData.TIMESTAMP_NOT_SET))
-                .setIsPreviousResponse(isPreviousResponse)
+                .setIsPreviousResponse(isPreviousResponse(question))
                 .setScalarAnswersInDefaultLocale(
                     getScalarAnswers(question, LocalizedStrings.DEFAULT_LOCALE))
                 .build();
@@ -209,16 +203,58 @@ public class ReadOnlyApplicantProgramServiceImpl implements ReadOnlyApplicantPro
     return builder.build();
   }
 
+  @Override
+  public ApplicationSummary getApplicationSummary() {
+    ImmutableList.Builder<BlockSummary> blockSummaries = ImmutableList.builder();
+    for (Block block : getAllBlocks()) {
+      ImmutableList.Builder<AnswerSummary> answers = ImmutableList.builder();
+      for (ApplicantQuestion question : block.getQuestions()) {
+        answers.add(
+            AnswerSummary.builder()
+                .setQuestionId(question.getQuestionDefinition().getId())
+                .setQuestionName(question.getQuestionDefinition().getName())
+                .setQuestionText(question.getQuestionText())
+                .setAnswerText(question.errorsPresenter().getAnswerString())
+                .setFileKey(getFileKey(question))
+                .setTimestamp(
+                    question.getLastUpdatedTimeMetadata().orElse(AnswerData.TIMESTAMP_NOT_SET))
+                .setIsPreviousResponse(isPreviousResponse(question))
+                .setScalarAnswersInDefaultLocale(
+                    getScalarAnswers(question, LocalizedStrings.DEFAULT_LOCALE).entrySet().stream()
+                        .collect(
+                            ImmutableMap.toImmutableMap(
+                                entry -> entry.getKey().toString(), Map.Entry::getValue)))
+                .build());
+      }
+      blockSummaries.add(
+          BlockSummary.create(
+              block.getId(), block.getName(), block.getDescription(), answers.build()));
+    }
+    return ApplicationSummary.create(blockSummaries.build());
+  }
+
+  /** Whether the question was last answered in another program. */
+  private boolean isPreviousResponse(ApplicantQuestion question) {
+    Optional<Long> updatedProgram = question.getUpdatedInProgramMetadata();
+    return updatedProgram.isPresent() && updatedProgram.get() != programDefinition.id();
+  }
+
   /** Returns a link to answer content if applicable, e.g. an uploaded file. */
   private Optional<URL> getAnswerLink(ApplicantQuestion question) {
+    return getFileKey(question).map(amazonS3Client::getPresignedUrl);
+  }
+
+  /**
+   * Returns the key of the file the applicant uploaded for the question, if it is a file upload.
+   */
+  private static Optional<String> getFileKey(ApplicantQuestion question) {
     switch (question.getType()) {
       case FILEUPLOAD:
         FileUploadQuestion fileUploadQuestion = question.createFileUploadQuestion();
-        if (!fileUploadQuestion.isAnswered() || fileUploadQuestion.getFileKeyValue().isEmpty()) {
+        if (!fileUploadQuestion.isAnswered()) {
           return Optional.empty();
         }
-        return Optional.of(
-            amazonS3Client.getPresignedUrl(fileUploadQuestion.getFileKeyValue().get()));
+        return fileUploadQuestion.getFileKeyValue();
       default:
         return Optional.empty();
     }
@@ -99,20 +99,27 @@ public class ApplicantQuestion {
    */
   public ImmutableMap<Path, ScalarType> getContextualizedScalars() {
     try {
-      return ImmutableMap.<Scalar, ScalarType>builder()
-          .putAll(Scalar.getScalars(getType()))
-          .putAll(Scalar.getMetadataScalars())
-          .build()
-          .entrySet()
-          .stream()
-          .collect(
-              ImmutableMap.toImmutableMap(
-                  entry -> getContextualizedPath().join(entry.getKey()), Map.Entry::getValue));
+      return contextualizeScalars(getContextualizedPath(), getType());
     } catch (InvalidQuestionTypeException | UnsupportedQuestionTypeException e) {
       throw new RuntimeException(e);
     }
   }
 
+  /**
+   * Returns the scalars, including metadata scalars, of a question of the given type joined onto
+   * its contextualized path.
+   */
+  public static ImmutableMap<Path, ScalarType> contextualizeScalars(
+      Path contextualizedPath, QuestionType questionType)
+      throws InvalidQuestionTypeException, UnsupportedQuestionTypeException {
+    ImmutableMap.Builder<Path, ScalarType> scalars = ImmutableMap.builder();
+    for (Map.Entry<Scalar, ScalarType> entry :
+        Scalar.getScalarsWithMetadata(questionType).entrySet()) {
+      scalars.put(contextualizedPath.join(entry.getKey()), entry.getValue());
+    }
+    return scalars.build();
+  }
+
   public ImmutableSet<ValidationErrorMessage> getQuestionErrors() {
     return errorsPresenter().getQuestionErrors();
   }
@@ -2,6 +2,8 @@ package services.applicant.question;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import services.question.exceptions.InvalidQuestionTypeException;
 import services.question.exceptions.UnsupportedQuestionTypeException;
 import services.question.types.QuestionType;
@@ -79,6 +81,9 @@ public enum Scalar {
 
   private static ImmutableSet<String> metadataScalarKeys;
 
+  private static final ConcurrentMap<QuestionType, ImmutableMap<Scalar, ScalarType>>
+      SCALARS_WITH_METADATA = new ConcurrentHashMap<>();
+
   /**
    * Returns the scalars for a specific {@link QuestionType}.
    *
@@ -117,6 +122,24 @@ public enum Scalar {
     }
   }
 
+  /**
+   * Returns the scalars for a specific {@link QuestionType} followed by the metadata scalars. The
+   * map is built once per question type.
+   */
+  public static ImmutableMap<Scalar, ScalarType> getScalarsWithMetadata(QuestionType questionType)
+      throws InvalidQuestionTypeException, UnsupportedQuestionTypeException {
+    ImmutableMap<Scalar, ScalarType> scalars = SCALARS_WITH_METADATA.get(questionType);
+    if (scalars == null) {
+      scalars =
+          ImmutableMap.<Scalar, ScalarType>builder()
+              .putAll(getScalars(questionType))
+              .putAll(METADATA_SCALARS)
+              .build();
+      SCALARS_WITH_METADATA.put(questionType, scalars);
+    }
+    return scalars;
+  }
+
   public static ImmutableMap<Scalar, ScalarType> getMetadataScalars() {
     return METADATA_SCALARS;
   }
@@ -17,8 +17,12 @@ import play.Environment;
 import play.inject.ApplicationLifecycle;
 import software.amazon.awssdk.auth.credentials.AwsCredentials;
 import software.amazon.awssdk.auth.credentials.AwsSessionCredentials;
+import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
 import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
@@ -73,6 +77,17 @@ public class SimpleStorage {
     return presignedGetObjectRequest.url();
   }
 
+  /** Uploads the file to the bucket under the key, replacing anything already there. */
+  public void putFile(String key, java.nio.file.Path file) {
+    PutObjectRequest putObjectRequest = PutObjectRequest.builder().key(key).bucket(bucket).build();
+    client.putObject(putObjectRequest, RequestBody.fromFile(file));
+  }
+
+  /** Deletes the object under the key, if there is one. */
+  public void deleteObject(String key) {
+    client.deleteObject(DeleteObjectRequest.builder().key(key).bucket(bucket).build());
+  }
+
   public SignedS3UploadRequest getSignedUploadRequest(String key, String successActionRedirect) {
     AwsCredentials awsCredentials = credentials.getCredentials();
     SignedS3UploadRequest.Builder builder =
@@ -97,14 +112,20 @@ public class SimpleStorage {
 
     String bucketAddress();
 
+    void putObject(PutObjectRequest putObjectRequest, RequestBody requestBody);
+
+    void deleteObject(DeleteObjectRequest deleteObjectRequest);
+
     void close();
   }
 
   class AwsClient implements Client {
     private final S3Presigner presigner;
+    private final S3Client s3Client;
 
     AwsClient() {
       presigner = S3Presigner.builder().region(region).build();
+      s3Client = S3Client.builder().region(region).build();
     }
 
     @Override
@@ -117,9 +138,20 @@ public class SimpleStorage {
       return String.format("https://s3-%s.amazonaws.com/%s", region.id(), bucket);
     }
 
+    @Override
+    public void putObject(PutObjectRequest putObjectRequest, RequestBody requestBody) {
+      s3Client.putObject(putObjectRequest, requestBody);
+    }
+
+    @Override
+    public void deleteObject(DeleteObjectRequest deleteObjectRequest) {
+      s3Client.deleteObject(deleteObjectRequest);
+    }
+
     @Override
     public void close() {
       presigner.close();
+      s3Client.close();
     }
   }
 
@@ -128,6 +160,7 @@ public class SimpleStorage {
 
     private final String localEndpoint;
     private final S3Presigner presigner;
+    private final S3Client s3Client;
 
     LocalStackClient(Config config) {
       localEndpoint = checkNotNull(config).getString(AWS_LOCAL_ENDPOINT_CONF_PATH);
@@ -138,6 +171,7 @@ public class SimpleStorage {
         throw new RuntimeException(e);
       }
       presigner = S3Presigner.builder().endpointOverride(localUri).region(region).build();
+      s3Client = S3Client.builder().endpointOverride(localUri).region(region).build();
     }
 
     @Override
@@ -150,9 +184,20 @@ public class SimpleStorage {
       return String.join("/", localEndpoint, bucket);
     }
 
+    @Override
+    public void putObject(PutObjectRequest putObjectRequest, RequestBody requestBody) {
+      s3Client.putObject(putObjectRequest, requestBody);
+    }
+
+    @Override
+    public void deleteObject(DeleteObjectRequest deleteObjectRequest) {
+      s3Client.deleteObject(deleteObjectRequest);
+    }
+
     @Override
     public void close() {
       presigner.close();
+      s3Client.close();
     }
   }
 
@@ -184,6 +229,12 @@ public class SimpleStorage {
       return "fake-bucket-address";
     }
 
+    @Override
+    public void putObject(PutObjectRequest putObjectRequest, RequestBody requestBody) {}
+
+    @Override
+    public void deleteObject(DeleteObjectRequest deleteObjectRequest) {}
+
     @Override
     public void close() {}
   }
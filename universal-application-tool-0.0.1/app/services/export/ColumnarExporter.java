@@ -0,0 +1,290 @@
+package services.export;
+
+import akka.util.ByteString;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Multiset;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+import models.Application;
+import services.Path;
+import services.applicant.ApplicantData;
+import services.applicant.ApplicantDataProjection;
+import services.applicant.question.Scalar;
+import services.question.types.ScalarType;
+
+/**
+ * Exports applications in a columnar format, for loading into analytics tools without re-parsing
+ * text and guessing the type of each column.
+ *
+ * <p>The file is gzipped JSON, one value per line. The first line is the schema, {@code
+ * {"columns":[{"name":"id","type":"long"},...]}}. Every other line is a row group, {@code
+ * {"rows":2,"columns":[[1,2],...]}}, with a list of values for each column of the schema in the
+ * same order. A missing value is null. The types are:
+ *
+ * <ul>
+ *   <li>{@code long}: a number.
+ *   <li>{@code string}: a string.
+ *   <li>{@code date}: an ISO-8601 date string, like {@code 2021-05-10}.
+ *   <li>{@code timestamp}: an ISO-8601 instant string, like {@code 2021-05-10T18:00:00Z}.
+ *   <li>{@code long_list}: a list of numbers, the IDs of the options selected for a question with
+ *       options.
+ * </ul>
+ *
+ * <p>The schema and each row group are separate gzip members, which concatenated are one gzip file,
+ * so that row groups can be formatted in parallel and streamed as they are ready. Readers that
+ * expect Parquet or another standard columnar format cannot load it directly; each line is plain
+ * JSON once decompressed.
+ *
+ * <p>A program can be downloaded in this format only if it has an export definition with the {@link
+ * services.program.ExportEngine#COLUMNAR} engine.
+ */
+public final class ColumnarExporter {
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+  /** The columns every file starts with, before the answers. */
+  private static final ImmutableList<String> APPLICATION_COLUMNS =
+      ImmutableList.of("id", "program_id", "submit_time");
+
+  /** The type of a column, written in lower case in the schema. */
+  public enum Type {
+    LONG,
+    STRING,
+    DATE,
+    TIMESTAMP,
+    LONG_LIST;
+
+    String schemaName() {
+      return name().toLowerCase(Locale.ROOT);
+    }
+  }
+
+  private final ImmutableList<String> answerNames;
+  private final ImmutableList<Type> answerTypes;
+  /** Reads the answers, in column order, with one walk per application. */
+  private final ApplicantDataProjection projection;
+
+  /**
+   * An exporter with the ID, program ID, and submit time of each application, and then a column for
+   * each answer path, in the order given.
+   */
+  public ColumnarExporter(ImmutableMap<Path, ScalarType> answers) {
+    this.answerNames = columnNames(answers.keySet().asList());
+    this.answerTypes =
+        answers.entrySet().stream()
+            .map(answer -> columnType(answer.getKey(), answer.getValue()))
+            .collect(ImmutableList.toImmutableList());
+    this.projection = ApplicantDataProjection.compile(answers.keySet().asList());
+  }
+
+  /**
+   * The name of each answer's column: its path under the applicant, in snake case. Joining with
+   * underscores can give two paths, or a path and one of the application's own columns, the same
+   * name, since keys contain underscores too. Each answer whose name is taken more than once is
+   * named by its path under the applicant as written instead, which is unique.
+   */
+  static ImmutableList<String> columnNames(ImmutableList<Path> paths) {
+    ImmutableList<String> snakeCaseNames =
+        paths.stream()
+            .map(ColumnarExporter::snakeCaseName)
+            .collect(ImmutableList.toImmutableList());
+    Multiset<String> nameCounts = HashMultiset.create(snakeCaseNames);
+    nameCounts.addAll(APPLICATION_COLUMNS);
+    ImmutableList.Builder<String> names = ImmutableList.builder();
+    for (int i = 0; i < paths.size(); i++) {
+      names.add(
+          nameCounts.count(snakeCaseNames.get(i)) > 1
+              ? String.join(".", segmentsUnderApplicant(paths.get(i)))
+              : snakeCaseNames.get(i));
+    }
+    return names.build();
+  }
+
+  private static String snakeCaseName(Path path) {
+    return String.join("_", segmentsUnderApplicant(path)).replace("[", "_").replace("]", "");
+  }
+
+  private static List<String> segmentsUnderApplicant(Path path) {
+    List<String> segments = path.segments();
+    if (path.startsWith(ApplicantData.APPLICANT_PATH)) {
+      segments = segments.subList(ApplicantData.APPLICANT_PATH.segments().size(), segments.size());
+    }
+    return segments;
+  }
+
+  /** Selections are stored as option IDs, although the scalar's type is a string. */
+  private static Type columnType(Path path, ScalarType scalarType) {
+    if (path.keyName().equals(Scalar.SELECTION.name().toLowerCase(Locale.ROOT))) {
+      return Type.LONG_LIST;
+    }
+    switch (scalarType) {
+      case DATE:
+        return Type.DATE;
+      case LONG:
+        return Type.LONG;
+      default:
+        return Type.STRING;
+    }
+  }
+
+  /** The first gzip member of the file, with the schema. */
+  public ByteString exportSchema() {
+    return gzipJson(
+        json -> {
+          json.writeStartObject();
+          json.writeArrayFieldStart("columns");
+          writeSchemaColumn(json, APPLICATION_COLUMNS.get(0), Type.LONG);
+          writeSchemaColumn(json, APPLICATION_COLUMNS.get(1), Type.LONG);
+          writeSchemaColumn(json, APPLICATION_COLUMNS.get(2), Type.TIMESTAMP);
+          for (int i = 0; i < answerNames.size(); i++) {
+            writeSchemaColumn(json, answerNames.get(i), answerTypes.get(i));
+          }
+          json.writeEndArray();
+          json.writeEndObject();
+        });
+  }
+
+  /**
+   * A gzip member with one row group of the applications. This does not change the exporter, so it
+   * may be called from several threads at once.
+   */
+  public ByteString exportRowGroup(List<Application> applications) {
+    // Read each application once, then write the values column by column.
+    ImmutableList.Builder<ImmutableList<Optional<Object>>> answersBuilder = ImmutableList.builder();
+    for (Application application : applications) {
+      answersBuilder.add(
+          projection.size() == 0
+              ? ImmutableList.of()
+              : projection.read(application.getApplicantData()));
+    }
+    ImmutableList<ImmutableList<Optional<Object>>> answers = answersBuilder.build();
+
+    return gzipJson(
+        json -> {
+          json.writeStartObject();
+          json.writeNumberField("rows", applications.size());
+          json.writeArrayFieldStart("columns");
+
+          json.writeStartArray();
+          for (Application application : applications) {
+            writeValue(json, Type.LONG, application.id);
+          }
+          json.writeEndArray();
+
+          json.writeStartArray();
+          for (Application application : applications) {
+            writeValue(json, Type.LONG, application.getProgram().id);
+          }
+          json.writeEndArray();
+
+          json.writeStartArray();
+          for (Application application : applications) {
+            Instant submitTime = application.getSubmitTime();
+            if (submitTime == null) {
+              json.writeNull();
+            } else {
+              json.writeString(submitTime.toString());
+            }
+          }
+          json.writeEndArray();
+
+          for (int column = 0; column < answerTypes.size(); column++) {
+            json.writeStartArray();
+            for (ImmutableList<Optional<Object>> row : answers) {
+              writeValue(json, answerTypes.get(column), row.get(column).orElse(null));
+            }
+            json.writeEndArray();
+          }
+
+          json.writeEndArray();
+          json.writeEndObject();
+        });
+  }
+
+  private static void writeSchemaColumn(JsonGenerator json, String name, Type type)
+      throws IOException {
+    json.writeStartObject();
+    json.writeStringField("name", name);
+    json.writeStringField("type", type.schemaName());
+    json.writeEndObject();
+  }
+
+  /** Writes the value as the column's type, or null if it is missing or not of that type. */
+  private static void writeValue(JsonGenerator json, Type type, Object value) throws IOException {
+    switch (type) {
+      case LONG:
+        if (value instanceof Number) {
+          json.writeNumber(((Number) value).longValue());
+          return;
+        }
+        break;
+      case DATE:
+        // Dates are stored as the epoch milliseconds of the start of the day in UTC.
+        if (value instanceof Number) {
+          json.writeString(
+              Instant.ofEpochMilli(((Number) value).longValue())
+                  .atZone(ZoneOffset.UTC)
+                  .toLocalDate()
+                  .toString());
+          return;
+        }
+        break;
+      case LONG_LIST:
+        if (value instanceof Number) {
+          json.writeStartArray();
+          json.writeNumber(((Number) value).longValue());
+          json.writeEndArray();
+          return;
+        }
+        if (value instanceof List) {
+          json.writeStartArray();
+          for (Object element : (List<?>) value) {
+            if (element instanceof Number) {
+              json.writeNumber(((Number) element).longValue());
+            }
+          }
+          json.writeEndArray();
+          return;
+        }
+        break;
+      default:
+        if (value != null && !(value instanceof List) && !(value instanceof Map)) {
+          json.writeString(value.toString());
+          return;
+        }
+        break;
+    }
+    json.writeNull();
+  }
+
+  private interface JsonWriter {
+    void write(JsonGenerator json) throws IOException;
+  }
+
+  /** A gzip member with the JSON value and then a newline. */
+  private static ByteString gzipJson(JsonWriter writer) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (OutputStream gzip = new GZIPOutputStream(bytes)) {
+      JsonGenerator json = JSON_FACTORY.createGenerator(gzip, JsonEncoding.UTF8);
+      json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      writer.write(json);
+      json.writeRaw('\n');
+      json.close();
+    } catch (IOException e) {
+      // Since it's an in-memory stream, this shouldn't happen.
+      throw new RuntimeException(e);
+    }
+    return ByteString.fromArray(bytes.toByteArray());
+  }
+}
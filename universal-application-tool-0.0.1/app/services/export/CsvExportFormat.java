@@ -0,0 +1,34 @@
+package services.export;
+
+import java.util.Optional;
+
+/** How the rows of a CSV export are laid out. */
+public enum CsvExportFormat {
+  /** A header row, then one row per application. */
+  STANDARD("standard"),
+  /**
+   * One row per application with no header row, so that the exports of consecutive incremental
+   * downloads can be appended to each other, or to a standard export, to give every application.
+   */
+  APPEND("append");
+
+  private final String value;
+
+  CsvExportFormat(String value) {
+    this.value = value;
+  }
+
+  public String getValue() {
+    return value;
+  }
+
+  /** The format with the given value, if there is one. */
+  public static Optional<CsvExportFormat> forValue(String value) {
+    for (CsvExportFormat format : values()) {
+      if (format.value.equalsIgnoreCase(value)) {
+        return Optional.of(format);
+      }
+    }
+    return Optional.empty();
+  }
+}
@@ -2,23 +2,37 @@ package services.export;
 
 import com.google.common.collect.ImmutableList;
 import java.io.IOException;
+import java.io.StringWriter;
 import java.io.Writer;
 import java.util.List;
 import java.util.Optional;
 import models.Application;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVPrinter;
+import services.Path;
+import services.applicant.ApplicantDataProjection;
 import services.program.Column;
+import services.program.ColumnType;
 
 public class CsvExporter {
   private final String EMPTY_VALUE = "";
 
   private boolean wroteHeaders;
   private ImmutableList<Column> columns;
+  /** Reads the values of every APPLICANT column, in column order, with one walk per application. */
+  private final ApplicantDataProjection projection;
+  /** The printer for the writer of the last call, which is reused while the writer is the same. */
+  private CSVPrinter printer;
 
   public CsvExporter(List<Column> columns) {
     this.wroteHeaders = false;
     this.columns = ImmutableList.copyOf(columns);
+    ImmutableList<Path> applicantPaths =
+        this.columns.stream()
+            .filter(column -> column.columnType() == ColumnType.APPLICANT)
+            .map(column -> column.jsonPath().orElseThrow())
+            .collect(ImmutableList.toImmutableList());
+    this.projection = ApplicantDataProjection.compile(applicantPaths);
   }
 
   private void writeHeadersOnFirstExport(CSVPrinter printer) throws IOException {
@@ -36,21 +50,61 @@ public class CsvExporter {
   }
 
   /**
-   * The CSV exporter will write the headers on first call to services.export(). It does not store
-   * the writer between calls. Since it is intended for many applications, this function is intended
-   * to be called several times.
+   * The CSV exporter will write the headers on first call to services.export(). Since it is
+   * intended for many applications, this function is intended to be called several times, and calls
+   * with the same writer share one printer. The application's JSON is parsed once per call.
    */
   public void export(Application application, Writer writer) throws IOException {
-    CSVPrinter printer = new CSVPrinter(writer, CSVFormat.DEFAULT.withFirstRecordAsHeader());
+    CSVPrinter printer = getPrinter(writer);
 
     this.writeHeadersOnFirstExport(printer);
+    printRow(printer, application);
+  }
+
+  /** The header row on its own, for exports that write the rows with {@link #exportRows}. */
+  public String exportHeaders() {
+    StringWriter writer = new StringWriter();
+    try {
+      CSVPrinter printer = new CSVPrinter(writer, CSVFormat.DEFAULT);
+      for (Column column : columns) {
+        printer.print(column.header());
+      }
+      printer.println();
+    } catch (IOException e) {
+      // Since it's an in-memory writer, this shouldn't happen.
+      throw new RuntimeException(e);
+    }
+    return writer.toString();
+  }
+
+  /**
+   * Formats the applications as CSV rows, without headers. Unlike {@link #export}, this does not
+   * change the exporter, so it may be called from several threads at once.
+   */
+  public String exportRows(List<Application> applications) {
+    StringWriter writer = new StringWriter();
+    try {
+      CSVPrinter printer = new CSVPrinter(writer, CSVFormat.DEFAULT);
+      for (Application application : applications) {
+        printRow(printer, application);
+      }
+    } catch (IOException e) {
+      // Since it's an in-memory writer, this shouldn't happen.
+      throw new RuntimeException(e);
+    }
+    return writer.toString();
+  }
 
+  private void printRow(CSVPrinter printer, Application application) throws IOException {
+    ImmutableList<Optional<String>> applicantValues =
+        projection.size() == 0
+            ? ImmutableList.of()
+            : projection.readAsStrings(application.getApplicantData());
+    int applicantColumn = 0;
     for (Column column : getColumns()) {
       switch (column.columnType()) {
         case APPLICANT:
-          Optional<String> value =
-              application.getApplicantData().readAsString(column.jsonPath().orElseThrow());
-          printer.print(value.orElse(EMPTY_VALUE));
+          printer.print(applicantValues.get(applicantColumn++).orElse(EMPTY_VALUE));
           break;
         case ID:
           printer.print(application.id);
@@ -58,9 +112,19 @@ public class CsvExporter {
         case SUBMIT_TIME:
           printer.print(application.getSubmitTime().toString());
           break;
+        case PROGRAM_ID:
+          printer.print(application.getProgram().id);
+          break;
       }
     }
 
     printer.println();
   }
+
+  private CSVPrinter getPrinter(Writer writer) throws IOException {
+    if (printer == null || printer.getOut() != writer) {
+      printer = new CSVPrinter(writer, CSVFormat.DEFAULT.withFirstRecordAsHeader());
+    }
+    return printer;
+  }
 }
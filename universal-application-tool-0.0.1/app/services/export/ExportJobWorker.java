@@ -0,0 +1,225 @@
+package services.export;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import akka.japi.Pair;
+import akka.stream.IOResult;
+import akka.stream.KillSwitches;
+import akka.stream.Materializer;
+import akka.stream.UniqueKillSwitch;
+import akka.stream.javadsl.FileIO;
+import akka.stream.javadsl.Keep;
+import com.typesafe.config.Config;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import models.ExportJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import play.inject.ApplicationLifecycle;
+import repository.ApplicationRepository;
+import repository.ExportJobRepository;
+import services.aws.SimpleStorage;
+import services.program.ProgramNotFoundException;
+
+/**
+ * Runs queued {@link ExportJob}s on this server, one at a time.
+ *
+ * <p>Each job streams the program's CSV through the {@link ExportPipeline} into a temporary file,
+ * then uploads it to S3. While it writes and uploads, its progress is saved and its lease renewed
+ * every {@code export.jobs.progress_interval}, so a job whose server stops is picked up by another
+ * once its {@code export.jobs.lease} runs out.
+ *
+ * <p>If this server stalls past its lease and another server claims the job, the renewal is
+ * rejected. The job is then given up: the write or upload is stopped, and anything uploaded is
+ * deleted, leaving the job to the server now holding it.
+ */
+@Singleton
+public final class ExportJobWorker {
+  private static final Logger LOG = LoggerFactory.getLogger(ExportJobWorker.class);
+  private static final String POLL_INTERVAL_CONF_PATH = "export.jobs.poll_interval";
+  private static final String PROGRESS_INTERVAL_CONF_PATH = "export.jobs.progress_interval";
+  private static final String LEASE_CONF_PATH = "export.jobs.lease";
+
+  private final ExportJobRepository exportJobRepository;
+  private final ApplicationRepository applicationRepository;
+  private final ExporterService exporterService;
+  private final SimpleStorage simpleStorage;
+  private final Materializer materializer;
+  private final Duration progressInterval;
+  private final Duration lease;
+  private final ScheduledExecutorService executor;
+
+  @Inject
+  public ExportJobWorker(
+      ExportJobRepository exportJobRepository,
+      ApplicationRepository applicationRepository,
+      ExporterService exporterService,
+      SimpleStorage simpleStorage,
+      Materializer materializer,
+      Config config,
+      ApplicationLifecycle appLifecycle) {
+    this.exportJobRepository = checkNotNull(exportJobRepository);
+    this.applicationRepository = checkNotNull(applicationRepository);
+    this.exporterService = checkNotNull(exporterService);
+    this.simpleStorage = checkNotNull(simpleStorage);
+    this.materializer = checkNotNull(materializer);
+    this.progressInterval = config.getDuration(PROGRESS_INTERVAL_CONF_PATH);
+    this.lease = config.getDuration(LEASE_CONF_PATH);
+    this.executor =
+        // One thread runs jobs, the other uploads the finished CSV while its lease is renewed.
+        Executors.newScheduledThreadPool(
+            2,
+            runnable -> {
+              Thread thread = new Thread(runnable, "export-job-worker");
+              thread.setDaemon(true);
+              return thread;
+            });
+    long pollIntervalMillis = config.getDuration(POLL_INTERVAL_CONF_PATH).toMillis();
+    executor.scheduleWithFixedDelay(
+        this::runQueuedJobs, pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+
+    appLifecycle.addStopHook(
+        () -> {
+          // A job cut off here is run again by another server once its lease runs out.
+          executor.shutdownNow();
+          return CompletableFuture.completedFuture(null);
+        });
+  }
+
+  /**
+   * The key in S3 of the CSV for the job's current claim. Each claim uploads under its own key, so
+   * a server giving the job up deletes only its own upload.
+   */
+  public static String objectKey(ExportJob job) {
+    return String.format(
+        "exports/program-%d-export-%d-%s.csv",
+        job.getProgramId(), job.id, job.getLeaseToken().get());
+  }
+
+  /** Runs jobs until there are none left to claim. */
+  private void runQueuedJobs() {
+    try {
+      Optional<ExportJob> job = exportJobRepository.claimNextJobSync(lease);
+      while (job.isPresent() && !Thread.currentThread().isInterrupted()) {
+        run(job.get());
+        job = exportJobRepository.claimNextJobSync(lease);
+      }
+    } catch (RuntimeException e) {
+      // Stop until the next poll, rather than cancelling every later one.
+      LOG.error("Could not claim an export job", e);
+    }
+  }
+
+  private void run(ExportJob job) {
+    UUID leaseToken = job.getLeaseToken().get();
+    String objectKey = objectKey(job);
+    Path file = null;
+    boolean uploading = false;
+    try {
+      long totalRows = applicationRepository.countProgramApplications(job.getProgramId());
+      AtomicLong rowsExported = new AtomicLong();
+      file = Files.createTempFile("export-" + job.id, ".csv");
+      Pair<UniqueKillSwitch, CompletionStage<IOResult>> written =
+          exporterService
+              .getProgramCsvSource(job.getProgramId(), rowsExported::addAndGet)
+              .viaMat(KillSwitches.single(), Keep.right())
+              .toMat(FileIO.toPath(file), Keep.both())
+              .run(materializer);
+      awaitHoldingLease(
+          job.id,
+          leaseToken,
+          written.second().toCompletableFuture(),
+          written.first()::shutdown,
+          rowsExported,
+          totalRows);
+
+      Path csv = file;
+      uploading = true;
+      Future<?> uploaded = executor.submit(() -> simpleStorage.putFile(objectKey, csv));
+      awaitHoldingLease(
+          job.id, leaseToken, uploaded, () -> uploaded.cancel(true), rowsExported, totalRows);
+      if (!exportJobRepository.markSucceededSync(
+          job.id, leaseToken, rowsExported.get(), objectKey)) {
+        throw new LeaseLostException();
+      }
+    } catch (LeaseLostException e) {
+      LOG.warn("Export job {} was claimed by another server after its lease ran out", job.id);
+      if (uploading) {
+        deleteUpload(job, objectKey);
+      }
+    } catch (InterruptedException e) {
+      // The server is stopping. Leave the job for its lease to run out.
+      Thread.currentThread().interrupt();
+    } catch (ProgramNotFoundException | ExecutionException | IOException | RuntimeException e) {
+      LOG.error("Export job {} failed", job.id, e);
+      if (!exportJobRepository.markFailedSync(job.id, leaseToken, e.toString())) {
+        LOG.warn("Export job {} was claimed by another server after its lease ran out", job.id);
+      }
+      if (uploading) {
+        deleteUpload(job, objectKey);
+      }
+    } finally {
+      if (file != null) {
+        try {
+          Files.deleteIfExists(file);
+        } catch (IOException e) {
+          LOG.warn("Could not delete the file for export job {}", job.id, e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Waits for a step of the job to finish, saving its progress and renewing its lease every
+   * progress interval. If the lease has been claimed by another server, stops the step and throws.
+   */
+  private void awaitHoldingLease(
+      long id,
+      UUID leaseToken,
+      Future<?> step,
+      Runnable stop,
+      AtomicLong rowsExported,
+      long totalRows)
+      throws InterruptedException, ExecutionException, LeaseLostException {
+    while (true) {
+      try {
+        step.get(progressInterval.toMillis(), TimeUnit.MILLISECONDS);
+        return;
+      } catch (TimeoutException e) {
+        if (!exportJobRepository.updateProgressSync(
+            id, leaseToken, rowsExported.get(), totalRows, lease)) {
+          stop.run();
+          throw new LeaseLostException();
+        }
+      }
+    }
+  }
+
+  private void deleteUpload(ExportJob job, String objectKey) {
+    try {
+      simpleStorage.deleteObject(objectKey);
+    } catch (RuntimeException e) {
+      LOG.warn("Could not delete the upload for export job {}", job.id, e);
+    }
+  }
+
+  /** This server's lease on a job was claimed by another server. */
+  private static final class LeaseLostException extends Exception {
+    private static final long serialVersionUID = 1L;
+  }
+}
@@ -0,0 +1,55 @@
+package services.export;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import akka.NotUsed;
+import akka.stream.javadsl.Source;
+import akka.util.ByteString;
+import com.typesafe.config.Config;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Formats the items of an export in parallel on the {@link ExportExecutionContext}, while keeping
+ * them in order.
+ *
+ * <p>Items are grouped into chunks, and at most {@code export.parallelism} chunks are formatted at
+ * once. A chunk is only sent once every chunk before it has been, and no more items are pulled from
+ * the source than there is room for, so a slow client slows down reading from the database instead
+ * of filling memory.
+ */
+@Singleton
+public final class ExportPipeline {
+  private static final String PARALLELISM_CONF_PATH = "export.parallelism";
+
+  private final ExportExecutionContext exportExecutionContext;
+  private final int parallelism;
+
+  @Inject
+  public ExportPipeline(ExportExecutionContext exportExecutionContext, Config config) {
+    this.exportExecutionContext = checkNotNull(exportExecutionContext);
+    this.parallelism = config.getInt(PARALLELISM_CONF_PATH);
+  }
+
+  /**
+   * Formats each chunk of up to {@code chunkSize} items with {@code formatChunk}, which is called
+   * from several threads at once and so must not share state between calls.
+   */
+  public <T> Source<ByteString, NotUsed> formatInOrder(
+      Source<T, NotUsed> items, int chunkSize, Function<List<T>, ByteString> formatChunk) {
+    return mapInOrder(items.grouped(chunkSize), formatChunk);
+  }
+
+  /**
+   * Applies {@code function} to each item, for items that are each worth a worker on their own,
+   * such as PDFs. Like {@link #formatInOrder}, it is called from several threads at once.
+   */
+  public <T, R> Source<R, NotUsed> mapInOrder(Source<T, NotUsed> items, Function<T, R> function) {
+    return items.mapAsync(
+        parallelism,
+        item -> CompletableFuture.supplyAsync(() -> function.apply(item), exportExecutionContext));
+  }
+}
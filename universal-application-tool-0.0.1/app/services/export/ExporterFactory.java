@@ -1,23 +1,43 @@
 package services.export;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableMap;
 import java.io.IOException;
 import java.util.Optional;
+import javax.inject.Inject;
 import models.Program;
+import services.Path;
 import services.program.CsvExportConfig;
+import services.program.ExportEngine;
 import services.program.PdfExportConfig;
+import services.program.ProgramDefinition;
+import services.question.types.ScalarType;
 
 public class ExporterFactory {
+  private final PdfTemplateCache pdfTemplateCache;
+
+  @Inject
+  public ExporterFactory(PdfTemplateCache pdfTemplateCache) {
+    this.pdfTemplateCache = checkNotNull(pdfTemplateCache);
+  }
 
   public PdfExporter pdfExporter(Program program) throws NotConfiguredException, IOException {
+    return pdfExporter(program.getProgramDefinition());
+  }
+
+  public PdfExporter pdfExporter(ProgramDefinition program)
+      throws NotConfiguredException, IOException {
     Optional<PdfExportConfig> exportConfig =
-        program.getProgramDefinition().exportDefinitions().stream()
+        program.exportDefinitions().stream()
             .filter(exportDefinition -> exportDefinition.pdfConfig().isPresent())
             .map(exportDefinition -> exportDefinition.pdfConfig().get())
             .findAny();
     if (exportConfig.isEmpty()) {
       throw new NotConfiguredException();
     }
-    return new PdfExporter(exportConfig.get().baseDocument(), exportConfig.get().mappings());
+    return new PdfExporter(
+        pdfTemplateCache.get(exportConfig.get().baseDocument()), exportConfig.get().mappings());
   }
 
   public CsvExporter csvExporter(Program program) throws NotConfiguredException {
@@ -35,4 +55,18 @@ public class ExporterFactory {
   public CsvExporter csvExporter(CsvExportConfig exportConfig) {
     return new CsvExporter(exportConfig.columns());
   }
+
+  /**
+   * Return a columnar exporter with a column for each of {@code answers}, if the program has an
+   * export definition with the {@link ExportEngine#COLUMNAR} engine.
+   */
+  public ColumnarExporter columnarExporter(
+      ProgramDefinition program, ImmutableMap<Path, ScalarType> answers)
+      throws NotConfiguredException {
+    if (program.exportDefinitions().stream()
+        .noneMatch(exportDefinition -> exportDefinition.engine() == ExportEngine.COLUMNAR)) {
+      throw new NotConfiguredException();
+    }
+    return new ColumnarExporter(answers);
+  }
 }
@@ -2,80 +2,266 @@ package services.export;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import akka.NotUsed;
+import akka.japi.function.Creator;
+import akka.stream.javadsl.Source;
+import akka.util.ByteString;
 import com.google.common.collect.ImmutableList;
-import java.io.ByteArrayOutputStream;
+import com.google.common.collect.ImmutableMap;
+import com.typesafe.config.Config;
+import io.ebean.QueryIterator;
 import java.io.IOException;
-import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 import javax.inject.Inject;
 import models.Application;
+import repository.ApplicationRepository;
+import repository.ProgramRepository;
 import services.Path;
-import services.applicant.AnswerData;
 import services.applicant.ApplicantData;
-import services.applicant.ApplicantService;
+import services.applicant.ProgramPlan;
+import services.applicant.ProgramPlan.BlockPlan;
 import services.applicant.ReadOnlyApplicantProgramService;
+import services.applicant.question.ApplicantQuestion;
+import services.applicant.question.Scalar;
 import services.program.Column;
 import services.program.ColumnType;
 import services.program.CsvExportConfig;
 import services.program.ProgramDefinition;
 import services.program.ProgramNotFoundException;
 import services.program.ProgramService;
+import services.question.exceptions.InvalidQuestionTypeException;
+import services.question.exceptions.UnsupportedQuestionTypeException;
+import services.question.types.QuestionDefinition;
+import services.question.types.ScalarType;
 
 public class ExporterService {
   private final ExporterFactory exporterFactory;
   private final ProgramService programService;
-  private final ApplicantService applicantService;
+  private final ApplicationRepository applicationRepository;
+  private final ProgramRepository programRepository;
+  private final ExportPipeline exportPipeline;
+  private final Duration settleTime;
 
+  private static final String SETTLE_TIME_CONF_PATH = "export.settle_time";
   private static final String HEADER_SPACER_ENUM = " - ";
   private static final String HEADER_SPACER_SCALAR = " ";
+  /** How many CSV rows are formatted and sent to the client together. */
+  private static final int ROWS_PER_CHUNK = 100;
+  /** How many applications are in each row group of a {@link ColumnarExporter} file. */
+  private static final int ROWS_PER_ROW_GROUP = 1000;
 
   @Inject
   public ExporterService(
       ExporterFactory exporterFactory,
       ProgramService programService,
-      ApplicantService applicantService) {
+      ApplicationRepository applicationRepository,
+      ProgramRepository programRepository,
+      ExportPipeline exportPipeline,
+      Config config) {
     this.exporterFactory = checkNotNull(exporterFactory);
     this.programService = checkNotNull(programService);
-    this.applicantService = checkNotNull(applicantService);
+    this.applicationRepository = checkNotNull(applicationRepository);
+    this.programRepository = checkNotNull(programRepository);
+    this.exportPipeline = checkNotNull(exportPipeline);
+    this.settleTime = checkNotNull(config).getDuration(SETTLE_TIME_CONF_PATH);
   }
 
   /**
-   * Return a string containing the CSV of all the applicantions for a particular program.
+   * Return a source of the CSV of all the applications for a particular program. The applications
+   * are read from a database cursor as the CSV is sent, so only a few chunks of them are held in
+   * memory at once, and the chunks are formatted in parallel by the {@link ExportPipeline}. The
+   * source should only be run once.
    *
    * @throws ProgramNotFoundException If the program ID refers to a program that does not exist.
    */
-  public String getProgramCsv(long programId) throws ProgramNotFoundException {
-    ImmutableList<Application> applications = programService.getProgramApplications(programId);
-    ProgramDefinition program = programService.getProgramDefinition(programId);
-    CsvExporter csvExporter;
-    if (program.exportDefinitions().stream()
-        .anyMatch(exportDefinition -> exportDefinition.csvConfig().isPresent())) {
-      csvExporter = exporterFactory.csvExporter(program.toProgram());
-    } else {
-      csvExporter = exporterFactory.csvExporter(generateDefaultCsvConfig(programId));
+  public Source<ByteString, NotUsed> getProgramCsvSource(long programId)
+      throws ProgramNotFoundException {
+    return getProgramCsvSource(programId, rows -> {});
+  }
+
+  /**
+   * Like {@link #getProgramCsvSource(long)}, but calls {@code onRowsExported} with the number of
+   * rows in each chunk once it is formatted. It may be called from several threads at once.
+   */
+  public Source<ByteString, NotUsed> getProgramCsvSource(long programId, IntConsumer onRowsExported)
+      throws ProgramNotFoundException {
+    CsvExporter csvExporter = getCsvExporter(programService.getProgramDefinition(programId));
+    return csvSource(
+        csvExporter,
+        readApplications(() -> applicationRepository.iterateProgramApplications(programId)),
+        CsvExportFormat.STANDARD,
+        onRowsExported);
+  }
+
+  /**
+   * Return the CSV of the active applications to a program submitted after {@code after}, in
+   * submission order, so that an admin who has already exported the earlier ones only downloads
+   * what is new. Without {@code after}, every active application is exported.
+   *
+   * <p>The export stops at the latest application submitted at least {@code export.settle_time}
+   * before it starts, which is its {@link IncrementalExport#watermark()}. Applications submitted
+   * after that, whose submissions may not have committed yet, are left for the next export.
+   *
+   * @throws ProgramNotFoundException If the program ID refers to a program that does not exist.
+   */
+  public IncrementalExport getProgramCsvSince(
+      long programId, Optional<Instant> after, CsvExportFormat format)
+      throws ProgramNotFoundException {
+    CsvExporter csvExporter = getCsvExporter(programService.getProgramDefinition(programId));
+    Optional<Instant> until =
+        applicationRepository.getLatestSettledCreateTime(programId, after, settleTime);
+    if (until.isEmpty()) {
+      return IncrementalExport.create(
+          after, csvSource(csvExporter, Source.empty(), format, rows -> {}));
     }
+    Source<Application, NotUsed> applications =
+        readApplications(
+            () ->
+                applicationRepository.iterateProgramApplicationsSubmittedBetween(
+                    programId, after, until.get()));
+    return IncrementalExport.create(
+        until, csvSource(csvExporter, applications, format, rows -> {}));
+  }
 
-    try {
-      OutputStream inMemoryBytes = new ByteArrayOutputStream();
-      Writer writer = new OutputStreamWriter(inMemoryBytes, StandardCharsets.UTF_8);
-      for (Application application : applications) {
-        csvExporter.export(application, writer);
-      }
-      writer.close();
-      return inMemoryBytes.toString();
-    } catch (IOException e) {
-      // Since it's an in-memory writer, this shouldn't happen.  Catch so that callers don't
-      // have to deal with it.
-      throw new RuntimeException(e);
+  /**
+   * Return a source of the CSV of the applications to every version of a program, read from one
+   * database cursor in id order, which is roughly the order they were started in.
+   *
+   * <p>The columns are those of every version's CSV export, with the newest version's first and
+   * then any that only older versions have, after a column with the ID of the program version each
+   * application was submitted to. An application's value is empty for a column its version does not
+   * have.
+   *
+   * @throws ProgramNotFoundException If there is no program with the admin name.
+   */
+  public Source<ByteString, NotUsed> getAllVersionsCsvSource(String adminName)
+      throws ProgramNotFoundException {
+    ImmutableList<Long> programIds = programRepository.getProgramIdsWithAdminName(adminName);
+    if (programIds.isEmpty()) {
+      throw new ProgramNotFoundException(adminName);
+    }
+    Set<Column> columns = new LinkedHashSet<>();
+    columns.add(
+        Column.builder().setHeader("Program ID").setColumnType(ColumnType.PROGRAM_ID).build());
+    for (long programId : programIds.reverse()) {
+      columns.addAll(getCsvExportConfig(programService.getProgramDefinition(programId)).columns());
     }
+    return csvSource(
+        new CsvExporter(ImmutableList.copyOf(columns)),
+        readApplications(() -> applicationRepository.iterateApplicationsToPrograms(programIds)),
+        CsvExportFormat.STANDARD,
+        rows -> {});
+  }
+
+  /**
+   * Return a source of a ZIP file with a filled-in PDF for each of the program's applications. The
+   * applications are read from a database cursor, and the PDFs are filled in in parallel by the
+   * {@link ExportPipeline}. The source should only be run once.
+   *
+   * @throws ProgramNotFoundException If the program ID refers to a program that does not exist.
+   * @throws NotConfiguredException If the program has no PDF export.
+   * @throws IOException If the program's base PDF cannot be read.
+   */
+  public Source<ByteString, NotUsed> getProgramPdfZipSource(long programId)
+      throws ProgramNotFoundException, IOException {
+    PdfExporter pdfExporter =
+        exporterFactory.pdfExporter(programService.getProgramDefinition(programId));
+    Source<Optional<ApplicationPdf>, NotUsed> pdfs =
+        exportPipeline
+            .mapInOrder(
+                readApplications(() -> applicationRepository.iterateProgramApplications(programId)),
+                application -> Optional.of(ApplicationPdf.create(application, pdfExporter)))
+            // Empty marks the end of the file.
+            .concat(Source.single(Optional.empty()));
+    return pdfs.statefulMapConcat(
+        () -> {
+          ZipChunker zip = new ZipChunker();
+          return pdf ->
+              ImmutableList.of(
+                  pdf.isPresent() ? zip.add(pdf.get().fileName, pdf.get().bytes) : zip.finish());
+        });
+  }
+
+  /**
+   * Return a source of the program's applications in the {@link ColumnarExporter} format, with a
+   * typed column for every answer of the program's default CSV export. The applications are read
+   * from a database cursor, and the row groups are formatted in parallel by the {@link
+   * ExportPipeline}. The source should only be run once.
+   *
+   * @throws ProgramNotFoundException If the program ID refers to a program that does not exist.
+   * @throws NotConfiguredException If the program has no {@link
+   *     services.program.ExportEngine#COLUMNAR} export.
+   */
+  public Source<ByteString, NotUsed> getProgramColumnarSource(long programId)
+      throws ProgramNotFoundException {
+    ProgramDefinition program = programService.getProgramDefinition(programId);
+    ColumnarExporter columnarExporter =
+        exporterFactory.columnarExporter(program, getAnswerScalars(program));
+    return Source.single(columnarExporter.exportSchema())
+        .concat(
+            exportPipeline.formatInOrder(
+                readApplications(() -> applicationRepository.iterateProgramApplications(programId)),
+                ROWS_PER_ROW_GROUP,
+                columnarExporter::exportRowGroup));
+  }
+
+  /** Reads applications from a database cursor, opened when the source is run. */
+  private static Source<Application, NotUsed> readApplications(
+      Creator<QueryIterator<Application>> openCursor) {
+    return Source.unfoldResource(
+        openCursor,
+        iterator -> iterator.hasNext() ? Optional.of(iterator.next()) : Optional.empty(),
+        QueryIterator::close);
+  }
+
+  /** Formats the applications through the {@link ExportPipeline}. */
+  private Source<ByteString, NotUsed> csvSource(
+      CsvExporter csvExporter,
+      Source<Application, NotUsed> applications,
+      CsvExportFormat format,
+      IntConsumer onRowsExported) {
+    Source<ByteString, NotUsed> rows =
+        exportPipeline.formatInOrder(
+            applications,
+            ROWS_PER_CHUNK,
+            chunk -> {
+              ByteString chunkRows =
+                  ByteString.fromString(csvExporter.exportRows(chunk), StandardCharsets.UTF_8);
+              onRowsExported.accept(chunk.size());
+              return chunkRows;
+            });
+    if (format == CsvExportFormat.APPEND) {
+      return rows;
+    }
+    return Source.single(ByteString.fromString(csvExporter.exportHeaders(), StandardCharsets.UTF_8))
+        .concat(rows);
+  }
+
+  /** The exporter for the program's CSV config, or for the default config if it has none. */
+  private CsvExporter getCsvExporter(ProgramDefinition program) {
+    return exporterFactory.csvExporter(getCsvExportConfig(program));
+  }
+
+  /** The program's CSV config, or the default config if it has none. */
+  private CsvExportConfig getCsvExportConfig(ProgramDefinition program) {
+    return program.exportDefinitions().stream()
+        .flatMap(exportDefinition -> exportDefinition.csvConfig().stream())
+        .findAny()
+        .orElseGet(() -> generateDefaultCsvConfig(program.id()));
   }
 
   /**
@@ -83,49 +269,157 @@ public class ExporterService {
    * id, the application submission time, and all possible scalar values from all of its
    * applications. This means if one application had a question repeated for N repeated entities,
    * then there would be N columns for each of that question's scalars.
+   *
+   * <p>The columns come from the program definition. The applications are only used to find the
+   * most repeated entities any of them has for each enumerator question, which takes one query per
+   * level of enumerator nesting.
    */
   CsvExportConfig generateDefaultCsvConfig(long programId) {
-    ImmutableList<Application> applications;
+    ProgramDefinition program;
     try {
-      applications = programService.getProgramApplications(programId);
+      program = programService.getProgramDefinition(programId);
     } catch (ProgramNotFoundException e) {
       throw new RuntimeException("Cannot find a program we are trying to generate CSVs for.", e);
     }
+    return generateDefaultCsvConfig(getAnswerScalars(program).keySet().asList());
+  }
+
+  /**
+   * The path and type of every answer the program's applications can have, in the order of the
+   * answers to an application, with a path for each repeated entity that some application has.
+   */
+  private ImmutableMap<Path, ScalarType> getAnswerScalars(ProgramDefinition program) {
+    ImmutableList<BlockPlan> blocks = ProgramPlan.forProgram(program).blocks();
+    Map<Path, Integer> entityCounts = countRepeatedEntities(program.id(), blocks);
+
+    List<QuestionColumns> questionColumns = new ArrayList<>();
+    addQuestionColumns(
+        blocks, "", ApplicantData.APPLICANT_PATH, entityCounts, questionColumns::add);
+
+    // Sorted by block ID and question index, the order of the answers to an application.
+    Map<Path, ScalarType> scalars = new LinkedHashMap<>();
+    questionColumns.stream()
+        .sorted(
+            Comparator.comparing((QuestionColumns columns) -> columns.blockId)
+                .thenComparing(columns -> columns.questionIndex))
+        .forEach(columns -> scalars.putAll(columns.scalars));
+    return ImmutableMap.copyOf(scalars);
+  }
+
+  /**
+   * The most repeated entities any of the program's applications has for each contextualized
+   * enumerator path. Enumerators nested in a repeated entity are only counted for entities that
+   * some application has.
+   */
+  private Map<Path, Integer> countRepeatedEntities(
+      long programId, ImmutableList<BlockPlan> blocks) {
+    Map<Path, Integer> entityCounts = new HashMap<>();
+    Map<Path, BlockPlan> enumerators = new LinkedHashMap<>();
+    putEnumerators(blocks, ApplicantData.APPLICANT_PATH, enumerators);
+    while (!enumerators.isEmpty()) {
+      ImmutableMap<Path, Integer> counts =
+          applicationRepository.getMaxArrayLengths(
+              programId, ImmutableList.copyOf(enumerators.keySet()));
+      entityCounts.putAll(counts);
+
+      Map<Path, BlockPlan> nestedEnumerators = new LinkedHashMap<>();
+      enumerators.forEach(
+          (enumeratorPath, enumeratorBlock) -> {
+            for (int i = 0; i < counts.get(enumeratorPath); i++) {
+              putEnumerators(
+                  enumeratorBlock.repeatedBlocks(), enumeratorPath.atIndex(i), nestedEnumerators);
+            }
+          });
+      enumerators = nestedEnumerators;
+    }
+    return entityCounts;
+  }
+
+  private static void putEnumerators(
+      ImmutableList<BlockPlan> blocks, Path context, Map<Path, BlockPlan> enumerators) {
+    for (BlockPlan block : blocks) {
+      if (block.blockDefinition().isEnumerator()) {
+        enumerators.put(
+            enumeratorPath(context, block.blockDefinition().getEnumerationQuestionDefinition()),
+            block);
+      }
+    }
+  }
+
+  /**
+   * Adds the answer paths of every question in the blocks, following the block IDs and paths {@link
+   * ReadOnlyApplicantProgramService} gives the blocks of repeated entities.
+   */
+  private static void addQuestionColumns(
+      ImmutableList<BlockPlan> blocks,
+      String blockIdSuffix,
+      Path context,
+      Map<Path, Integer> entityCounts,
+      Consumer<QuestionColumns> questionColumns) {
+    for (BlockPlan block : blocks) {
+      String blockId = block.blockDefinition().id() + blockIdSuffix;
+      ImmutableList<QuestionDefinition> questions = block.questionDefinitions();
+      for (int questionIndex = 0; questionIndex < questions.size(); questionIndex++) {
+        QuestionDefinition question = questions.get(questionIndex);
+        if (question.isEnumerator()) {
+          continue; // Do not include Enumerator answers in CSVs.
+        }
+        questionColumns.accept(
+            new QuestionColumns(
+                blockId,
+                questionIndex,
+                answerScalars(context.join(question.getQuestionPathSegment()), question)));
+      }
 
-    // Create a map from a key <block id, question index> to an answer with every application. It
-    // doesn't matter which answer ends up in the map, as long as every <block id, question index>
-    // is
-    // accounted for.
-    Map<String, AnswerData> answerMap = new HashMap<>();
-    for (Application application : applications) {
-      ReadOnlyApplicantProgramService roApplicantService =
-          applicantService
-              .getReadOnlyApplicantProgramService(application)
-              .toCompletableFuture()
-              .join();
-      for (AnswerData answerData : roApplicantService.getSummaryData()) {
-        String key = answerDataKey(answerData);
-        if (!answerMap.containsKey(key)) {
-          answerMap.put(key, answerData);
+      if (block.blockDefinition().isEnumerator()) {
+        Path enumeratorPath =
+            enumeratorPath(context, block.blockDefinition().getEnumerationQuestionDefinition());
+        for (int i = 0; i < entityCounts.getOrDefault(enumeratorPath, 0); i++) {
+          addQuestionColumns(
+              block.repeatedBlocks(),
+              String.format("%s-%d", blockIdSuffix, i),
+              enumeratorPath.atIndex(i),
+              entityCounts,
+              questionColumns);
         }
       }
     }
+  }
 
-    // Get the list of all answers, sorted by block ID and question index, and generate the default
-    // csv config.
-    ImmutableList<AnswerData> answers =
-        answerMap.values().stream()
-            .sorted(
-                Comparator.comparing(AnswerData::blockId).thenComparing(AnswerData::questionIndex))
-            .collect(ImmutableList.toImmutableList());
-    return generateDefaultCsvConfig(answers);
+  private static Path enumeratorPath(Path context, QuestionDefinition enumeratorQuestion) {
+    return context.join(enumeratorQuestion.getQuestionPathSegment());
   }
 
   /**
-   * Produce the default {@link CsvExportConfig} for a list of {@link AnswerData}s. The default
-   * config includes all the questions, the application id, and the application submission time.
+   * The paths and types of a question's answers in an application, which are its scalars, without
+   * metadata, or its selection for questions with options.
    */
-  private CsvExportConfig generateDefaultCsvConfig(ImmutableList<AnswerData> answerDataList) {
+  private static ImmutableMap<Path, ScalarType> answerScalars(
+      Path contextualizedPath, QuestionDefinition question) {
+    switch (question.getQuestionType()) {
+      case DROPDOWN:
+      case RADIO_BUTTON:
+      case CHECKBOX:
+        return ImmutableMap.of(contextualizedPath.join(Scalar.SELECTION), ScalarType.STRING);
+      default:
+        try {
+          return ApplicantQuestion.contextualizeScalars(
+                  contextualizedPath, question.getQuestionType())
+              .entrySet()
+              .stream()
+              .filter(entry -> !Scalar.getMetadataScalarKeys().contains(entry.getKey().keyName()))
+              .collect(ImmutableMap.toImmutableMap(Map.Entry::getKey, Map.Entry::getValue));
+        } catch (InvalidQuestionTypeException | UnsupportedQuestionTypeException e) {
+          throw new RuntimeException(e);
+        }
+    }
+  }
+
+  /**
+   * Produce the default {@link CsvExportConfig} for a list of answer paths. The default config
+   * includes all the answers, the application id, and the application submission time.
+   */
+  private CsvExportConfig generateDefaultCsvConfig(ImmutableList<Path> answerPaths) {
     ImmutableList.Builder<Column> columnsBuilder = new ImmutableList.Builder<>();
     // First add the ID and submit time columns.
     columnsBuilder.add(Column.builder().setHeader("ID").setColumnType(ColumnType.ID).build());
@@ -133,18 +427,13 @@ public class ExporterService {
         Column.builder().setHeader("Submit time").setColumnType(ColumnType.SUBMIT_TIME).build());
 
     // Add columns for each path to an answer.
-    for (AnswerData answerData : answerDataList) {
-      if (answerData.questionDefinition().isEnumerator()) {
-        continue; // Do not include Enumerator answers in CSVs.
-      }
-      for (Path path : answerData.scalarAnswersInDefaultLocale().keySet()) {
-        columnsBuilder.add(
-            Column.builder()
-                .setHeader(pathToHeader(path))
-                .setJsonPath(path)
-                .setColumnType(ColumnType.APPLICANT)
-                .build());
-      }
+    for (Path path : answerPaths) {
+      columnsBuilder.add(
+          Column.builder()
+              .setHeader(pathToHeader(path))
+              .setJsonPath(path)
+              .setColumnType(ColumnType.APPLICANT)
+              .build());
     }
     return new CsvExportConfig() {
       @Override
@@ -190,11 +479,39 @@ public class ExporterService {
     return builder.toString();
   }
 
-  /**
-   * A useful string that uniquely identifies an answer within an applicant program and is shared
-   * across applicant programs.
-   */
-  private static String answerDataKey(AnswerData answerData) {
-    return String.format("%s-%d", answerData.blockId(), answerData.questionIndex());
+  /** The filled-in PDF for one application, ready to add to a ZIP file. */
+  private static final class ApplicationPdf {
+    private final String fileName;
+    private final byte[] bytes;
+
+    private ApplicationPdf(String fileName, byte[] bytes) {
+      this.fileName = fileName;
+      this.bytes = bytes;
+    }
+
+    static ApplicationPdf create(Application application, PdfExporter pdfExporter) {
+      try {
+        return new ApplicationPdf(
+            String.format("application-%d.pdf", application.id),
+            pdfExporter.export(application.getApplicantData()));
+      } catch (IOException e) {
+        // The PDF is written to memory, so this is a problem with the base document.
+        throw new RuntimeException(e);
+      }
+    }
+  }
+
+  /** The answer paths of one question in one block of an application. */
+  private static final class QuestionColumns {
+    private final String blockId;
+    private final int questionIndex;
+    private final ImmutableMap<Path, ScalarType> scalars;
+
+    private QuestionColumns(
+        String blockId, int questionIndex, ImmutableMap<Path, ScalarType> scalars) {
+      this.blockId = blockId;
+      this.questionIndex = questionIndex;
+      this.scalars = scalars;
+    }
   }
 }
@@ -0,0 +1,26 @@
+package services.export;
+
+import akka.NotUsed;
+import akka.stream.javadsl.Source;
+import akka.util.ByteString;
+import com.google.auto.value.AutoValue;
+import java.time.Instant;
+import java.util.Optional;
+
+/** The CSV of the applications submitted after one watermark, up to and including the next. */
+@AutoValue
+public abstract class IncrementalExport {
+
+  static IncrementalExport create(Optional<Instant> watermark, Source<ByteString, NotUsed> csv) {
+    return new AutoValue_IncrementalExport(watermark, csv);
+  }
+
+  /**
+   * The submission time of the latest application exported, which the next export should start
+   * after. Empty only if no application to the program has been exported yet.
+   */
+  public abstract Optional<Instant> watermark();
+
+  /** The CSV, which should only be run once. */
+  public abstract Source<ByteString, NotUsed> csv();
+}
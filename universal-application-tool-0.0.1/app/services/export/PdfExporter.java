@@ -1,45 +1,73 @@
 package services.export;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.Writer;
-import java.net.URI;
-import java.nio.charset.StandardCharsets;
+import java.io.OutputStream;
 import java.util.Map;
 import java.util.Optional;
 import models.Applicant;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.interactive.form.PDAcroForm;
+import org.apache.pdfbox.pdmodel.interactive.form.PDField;
 import services.Path;
+import services.applicant.ApplicantData;
+import services.applicant.ApplicantDataProjection;
 
+/**
+ * Fills in the form of a base PDF with an applicant's answers. It holds no state between exports,
+ * so one exporter may export many applicants at once.
+ */
 public class PdfExporter {
-  private PDDocument baseDocument;
-  private ImmutableMap<String, String> fieldToValue;
+  private final byte[] baseDocument;
+  private final ImmutableList<String> fields;
+  /** Reads the value of each field, in the order of {@link #fields}. */
+  private final ApplicantDataProjection projection;
 
-  public PdfExporter(URI documentUrl, Map<String, String> fieldToValue) throws IOException {
-    baseDocument = PDDocument.load(documentUrl.toURL().openStream());
-    this.fieldToValue = ImmutableMap.copyOf(fieldToValue);
+  /**
+   * @param baseDocument the bytes of the base PDF, such as from {@link PdfTemplateCache}, which are
+   *     not modified
+   * @param fieldToValue the path of the answer to fill into each form field
+   */
+  public PdfExporter(byte[] baseDocument, Map<String, String> fieldToValue) {
+    this.baseDocument = baseDocument;
+    ImmutableMap<String, String> mappings = ImmutableMap.copyOf(fieldToValue);
+    this.fields = mappings.keySet().asList();
+    this.projection =
+        ApplicantDataProjection.compile(
+            mappings.values().stream().map(Path::create).collect(ImmutableList.toImmutableList()));
   }
 
   /**
-   * Write a PDF containing the filled-in base form to the provided writer. For the PDF to be valid,
-   * the writer should contain no previous writes and should be closed immediately after this call.
-   * This function marshals the output document in memory due to restrictions of the PDDocument
-   * class.
+   * Write a PDF containing the filled-in base form to the provided stream. For the PDF to be valid,
+   * the stream should contain no previous writes. The stream is not closed.
    */
-  public void export(Applicant applicant, Writer writer) throws IOException {
-    PDAcroForm form = baseDocument.getDocumentCatalog().getAcroForm();
-    for (Map.Entry<String, String> fToV : fieldToValue.entrySet()) {
-      Optional<String> applicantValue =
-          applicant.getApplicantData().readAsString(Path.create(fToV.getValue()));
-      if (applicantValue.isPresent()) {
-        form.getField(fToV.getKey()).setValue(applicantValue.get());
+  public void export(Applicant applicant, OutputStream outputStream) throws IOException {
+    export(applicant.getApplicantData(), outputStream);
+  }
+
+  /** Like {@link #export(Applicant, OutputStream)}, for the answers in an application. */
+  public void export(ApplicantData applicantData, OutputStream outputStream) throws IOException {
+    // A full parse of the template for each application, since a filled-in document can't be
+    // reused.
+    try (PDDocument document = PDDocument.load(baseDocument)) {
+      PDAcroForm form = document.getDocumentCatalog().getAcroForm();
+      ImmutableList<Optional<String>> values = projection.readAsStrings(applicantData);
+      for (int i = 0; i < fields.size(); i++) {
+        PDField field = form.getField(fields.get(i));
+        if (field != null && values.get(i).isPresent()) {
+          field.setValue(values.get(i).get());
+        }
       }
+      document.save(outputStream);
     }
-    ByteArrayOutputStream inMemoryFile = new ByteArrayOutputStream();
-    baseDocument.save(inMemoryFile);
-    inMemoryFile.close();
-    writer.write(inMemoryFile.toString(StandardCharsets.UTF_8));
+  }
+
+  /** Returns the filled-in PDF for the answers. */
+  public byte[] export(ApplicantData applicantData) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(baseDocument.length);
+    export(applicantData, bytes);
+    return bytes.toByteArray();
   }
 }
@@ -0,0 +1,64 @@
+package services.export;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import javax.inject.Singleton;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+/**
+ * Holds the base documents of PDF exports, keyed by {@link
+ * services.program.PdfExportConfig#baseDocument()}, so that they are fetched once rather than for
+ * every export.
+ *
+ * <p>A {@link PDDocument} cannot be shared between threads or reused once a form in it is filled,
+ * so each export still parses the whole template again from the cached bytes. Only the fetch is
+ * saved, not the parse. Templates are checked to be PDFs with a form when they are fetched, and
+ * fetched again after {@link #EXPIRE_AFTER_WRITE} in case the document has changed.
+ */
+@Singleton
+public final class PdfTemplateCache {
+  private static final int MAX_TEMPLATES = 100;
+  private static final Duration EXPIRE_AFTER_WRITE = Duration.ofMinutes(10);
+
+  private final LoadingCache<URI, byte[]> templates =
+      CacheBuilder.newBuilder()
+          .maximumSize(MAX_TEMPLATES)
+          .expireAfterWrite(EXPIRE_AFTER_WRITE)
+          .build(CacheLoader.from(PdfTemplateCache::fetch));
+
+  /** The bytes of the base document at the URI. They must not be modified. */
+  public byte[] get(URI documentUrl) throws IOException {
+    try {
+      return templates.get(documentUrl);
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      Throwable cause =
+          e.getCause() instanceof UncheckedIOException ? e.getCause().getCause() : e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      throw new IOException(cause);
+    }
+  }
+
+  private static byte[] fetch(URI documentUrl) {
+    try (InputStream stream = documentUrl.toURL().openStream()) {
+      byte[] template = stream.readAllBytes();
+      try (PDDocument document = PDDocument.load(template)) {
+        if (document.getDocumentCatalog().getAcroForm() == null) {
+          throw new IOException(String.format("%s has no form to fill in.", documentUrl));
+        }
+      }
+      return template;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
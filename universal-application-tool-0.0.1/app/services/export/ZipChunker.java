@@ -0,0 +1,36 @@
+package services.export;
+
+import akka.util.ByteString;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes a ZIP file one entry at a time, handing back the bytes of each entry as it is added so
+ * that the file can be streamed without holding more than one entry in memory.
+ */
+final class ZipChunker {
+  private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+  private final ZipOutputStream zip = new ZipOutputStream(buffer);
+
+  /** Adds an entry, returning the bytes of the file written since the last call. */
+  ByteString add(String name, byte[] contents) throws IOException {
+    zip.putNextEntry(new ZipEntry(name));
+    zip.write(contents);
+    zip.closeEntry();
+    return drain();
+  }
+
+  /** Ends the file, returning its remaining bytes, which include the central directory. */
+  ByteString finish() throws IOException {
+    zip.finish();
+    return drain();
+  }
+
+  private ByteString drain() {
+    ByteString bytes = ByteString.fromArray(buffer.toByteArray());
+    buffer.reset();
+    return bytes;
+  }
+}
@@ -3,5 +3,7 @@ package services.program;
 public enum ColumnType {
   ID,
   SUBMIT_TIME,
-  APPLICANT
+  APPLICANT,
+  /** The ID of the program version the application was submitted to. */
+  PROGRAM_ID
 }
@@ -2,5 +2,11 @@ package services.program;
 
 public enum ExportEngine {
   PDF,
-  CSV;
+  CSV,
+  /**
+   * Gzipped JSON with a typed schema and then the answers column by column, in row groups, for
+   * loading into analytics tools. It has no configuration: the columns are every answer to the
+   * program's questions. See {@link services.export.ColumnarExporter}.
+   */
+  COLUMNAR;
 }
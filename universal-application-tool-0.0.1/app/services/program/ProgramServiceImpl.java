@@ -19,6 +19,7 @@ import play.db.ebean.Transactional;
 import play.libs.concurrent.HttpExecutionContext;
 import repository.ProgramRepository;
 import repository.UserRepository;
+import repository.VersionCache;
 import repository.VersionRepository;
 import services.CiviFormError;
 import services.ErrorAnd;
@@ -34,6 +35,7 @@ public class ProgramServiceImpl implements ProgramService {
   private final HttpExecutionContext httpExecutionContext;
   private final UserRepository userRepository;
   private final VersionRepository versionRepository;
+  private final VersionCache versionCache;
 
   @Inject
   public ProgramServiceImpl(
@@ -41,12 +43,14 @@ public class ProgramServiceImpl implements ProgramService {
       QuestionService questionService,
       UserRepository userRepository,
       VersionRepository versionRepository,
+      VersionCache versionCache,
       HttpExecutionContext ec) {
     this.programRepository = checkNotNull(programRepository);
     this.questionService = checkNotNull(questionService);
     this.httpExecutionContext = checkNotNull(ec);
     this.userRepository = checkNotNull(userRepository);
     this.versionRepository = checkNotNull(versionRepository);
+    this.versionCache = checkNotNull(versionCache);
   }
 
   @Override
@@ -69,6 +73,11 @@ public class ProgramServiceImpl implements ProgramService {
 
   @Override
   public CompletionStage<ProgramDefinition> getProgramDefinitionAsync(long id) {
+    VersionCache.Generation generation = versionCache.current();
+    Optional<ProgramDefinition> cached = generation.getProgramDefinition(id);
+    if (cached.isPresent()) {
+      return CompletableFuture.completedFuture(cached.get());
+    }
     return programRepository
         .lookupProgram(id)
         .thenComposeAsync(
@@ -79,7 +88,8 @@ public class ProgramServiceImpl implements ProgramService {
                         .map(Program::getProgramDefinition)
                         .map(this::syncProgramDefinitionQuestions)
                         .get(),
-            httpExecutionContext.current());
+            httpExecutionContext.current())
+        .thenApply(generation::putProgramDefinition);
   }
 
   @Override
@@ -2,14 +2,16 @@ package services.question;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import models.Question;
+import repository.AdminDatabaseExecutionContext;
 import repository.QuestionRepository;
+import repository.VersionCache;
 import repository.VersionRepository;
 import services.CiviFormError;
 import services.ErrorAnd;
@@ -20,13 +22,19 @@ public final class QuestionServiceImpl implements QuestionService {
 
   private final QuestionRepository questionRepository;
   private final Provider<VersionRepository> versionRepositoryProvider;
+  private final VersionCache versionCache;
+  private final AdminDatabaseExecutionContext adminExecutionContext;
 
   @Inject
   public QuestionServiceImpl(
       QuestionRepository questionRepository,
-      Provider<VersionRepository> versionRepositoryProvider) {
+      Provider<VersionRepository> versionRepositoryProvider,
+      VersionCache versionCache,
+      AdminDatabaseExecutionContext adminExecutionContext) {
     this.questionRepository = checkNotNull(questionRepository);
     this.versionRepositoryProvider = checkNotNull(versionRepositoryProvider);
+    this.versionCache = checkNotNull(versionCache);
+    this.adminExecutionContext = checkNotNull(adminExecutionContext);
   }
 
   @Override
@@ -49,12 +57,18 @@ public final class QuestionServiceImpl implements QuestionService {
 
   @Override
   public CompletionStage<ReadOnlyQuestionService> getReadOnlyQuestionService() {
-    return listQuestionDefinitionsAsync()
-        .thenApply(
-            questionDefinitions ->
+    VersionCache.Generation generation = versionCache.current();
+    Optional<ReadOnlyQuestionService> cached = generation.getReadOnlyQuestionService();
+    if (cached.isPresent()) {
+      return CompletableFuture.completedFuture(cached.get());
+    }
+    return CompletableFuture.supplyAsync(
+        () ->
+            generation.putReadOnlyQuestionService(
                 new ReadOnlyQuestionServiceImpl(
                     versionRepositoryProvider.get().getActiveVersion(),
-                    versionRepositoryProvider.get().getDraftVersion()));
+                    versionRepositoryProvider.get().getDraftVersion())),
+        adminExecutionContext);
   }
 
   @Override
@@ -88,16 +102,6 @@ public final class QuestionServiceImpl implements QuestionService {
     return ErrorAnd.of(question.getQuestionDefinition());
   }
 
-  private CompletionStage<ImmutableList<QuestionDefinition>> listQuestionDefinitionsAsync() {
-    return questionRepository
-        .listQuestions()
-        .thenApply(
-            questions ->
-                questions.stream()
-                    .map(question -> question.getQuestionDefinition())
-                    .collect(ImmutableList.toImmutableList()));
-  }
-
   /**
    * Check for conflicts with other questions. This is to be only used with new questions because
    * questions being updated will likely conflict with themselves, and new versions of previous
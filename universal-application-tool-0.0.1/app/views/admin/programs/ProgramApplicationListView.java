@@ -3,43 +3,65 @@ package views.admin.programs;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static j2html.TagCreator.div;
 import static j2html.TagCreator.each;
+import static j2html.TagCreator.form;
 import static j2html.TagCreator.h1;
+import static j2html.TagCreator.input;
 import static j2html.TagCreator.p;
 
 import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
 import j2html.tags.Tag;
-import models.Application;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import java.util.Optional;
+import play.mvc.Http;
 import play.twirl.api.Content;
+import repository.ApplicationListItem;
+import repository.ApplicationListOrder;
+import repository.ApplicationListPage;
 import views.BaseHtmlView;
 import views.HtmlBundle;
 import views.admin.AdminLayout;
+import views.components.FieldWithLabel;
 import views.components.LinkElement;
 import views.style.ReferenceClasses;
 import views.style.Styles;
 
 public final class ProgramApplicationListView extends BaseHtmlView {
   private final AdminLayout layout;
-  private final Logger log = LoggerFactory.getLogger(ProgramApplicationListView.class);
 
   @Inject
   public ProgramApplicationListView(AdminLayout layout) {
     this.layout = checkNotNull(layout);
   }
 
-  public Content render(long programId, ImmutableList<Application> applications) {
+  /**
+   * Renders a page of the program's applications, with links to sort them and to the next page.
+   *
+   * @param search the search the admin asked for, to keep on the links
+   * @param pageSize the page size the admin asked for, to keep on the links
+   */
+  public Content render(
+      Http.Request request,
+      long programId,
+      ApplicationListOrder order,
+      Optional<String> search,
+      Optional<Integer> pageSize,
+      ApplicationListPage page) {
     String title = "All Applications";
     Tag contentDiv =
         div()
             .withClasses(Styles.PX_20)
             .with(
                 h1(title).withClasses(Styles.MY_4),
-                each(
-                    applications,
-                    application -> this.renderApplicationListItem(programId, application)),
-                renderDownloadButton(programId));
+                renderSearchForm(programId, order, search),
+                renderOrderLinks(programId, order, search, pageSize),
+                each(page.items(), item -> this.renderApplicationListItem(programId, item)),
+                renderNextPageLink(programId, order, search, pageSize, page),
+                renderDownloadButton(programId),
+                renderDownloadAllVersionsButton(programId),
+                renderDownloadAllPdfsButton(programId),
+                renderDownloadColumnarButton(programId),
+                renderDownloadNewButton(programId),
+                renderExportButton(request, programId));
 
     HtmlBundle htmlBundle = layout.getBundle().setTitle(title).addMainContent(contentDiv);
     return layout.renderCentered(htmlBundle);
@@ -55,21 +77,163 @@ public final class ProgramApplicationListView extends BaseHtmlView {
         .asButton();
   }
 
-  private Tag renderApplicationListItem(long programId, Application application) {
+  private Tag renderDownloadAllPdfsButton(long programId) {
+    String link =
+        controllers.admin.routes.AdminApplicationController.downloadAllPdfs(programId).url();
+    return new LinkElement()
+        .setId("download-all-pdfs-button")
+        .setHref(link)
+        .setText("Download all (PDFs in a ZIP)")
+        .asButton();
+  }
+
+  private Tag renderDownloadColumnarButton(long programId) {
+    String link =
+        controllers.admin.routes.AdminApplicationController.downloadColumnar(programId).url();
+    return new LinkElement()
+        .setId("download-columnar-button")
+        .setHref(link)
+        .setText("Download all (gzipped JSON columns for analytics)")
+        .asButton();
+  }
+
+  private Tag renderDownloadAllVersionsButton(long programId) {
+    String link =
+        controllers.admin.routes.AdminApplicationController.downloadAllVersions(programId).url();
+    return new LinkElement()
+        .setId("download-all-versions-button")
+        .setHref(link)
+        .setText("Download all versions (CSV)")
+        .asButton();
+  }
+
+  private Tag renderDownloadNewButton(long programId) {
+    String link =
+        controllers.admin.routes.AdminApplicationController.downloadNew(
+                programId, Optional.empty(), Optional.empty())
+            .url();
+    return new LinkElement()
+        .setId("download-new-button")
+        .setHref(link)
+        .setText("Download new since my last download (CSV)")
+        .asButton();
+  }
+
+  private Tag renderExportButton(Http.Request request, long programId) {
+    String link = controllers.admin.routes.AdminApplicationController.startExport(programId).url();
+    return new LinkElement()
+        .setId("export-all-button")
+        .setHref(link)
+        .setText("Export all in the background (CSV)")
+        .asHiddenForm(request)
+        .withClasses(Styles.MT_2);
+  }
+
+  private Tag renderSearchForm(
+      long programId, ApplicationListOrder order, Optional<String> search) {
+    return form()
+        .withMethod("GET")
+        .withAction(
+            controllers.admin.routes.AdminApplicationController.index(
+                    programId,
+                    Optional.empty(),
+                    Optional.empty(),
+                    Optional.empty(),
+                    Optional.empty())
+                .url())
+        .withClasses(Styles.FLEX, Styles.MB_4)
+        .with(
+            input().withType("hidden").withName("order").withValue(order.getValue()),
+            FieldWithLabel.input()
+                .setId("application-search")
+                .setFieldName("search")
+                .setPlaceholderText("Search by name or email")
+                .setValue(search)
+                .getContainer()
+                .withClasses(Styles.MR_2),
+            submitButton("application-search-button", "Search"));
+  }
+
+  private Tag renderOrderLinks(
+      long programId,
+      ApplicationListOrder order,
+      Optional<String> search,
+      Optional<Integer> pageSize) {
+    return div()
+        .withClasses(Styles.FLEX, Styles.TEXT_SM, Styles.MB_4)
+        .with(
+            each(
+                ImmutableList.copyOf(ApplicationListOrder.values()),
+                linkOrder -> {
+                  String text = orderLinkText(linkOrder);
+                  if (linkOrder == order) {
+                    return p(text).withClasses(Styles.MR_2, Styles.FONT_BOLD);
+                  }
+                  return new LinkElement()
+                      .setId("application-list-order-" + linkOrder.getValue())
+                      .setHref(listLink(programId, linkOrder, search, Optional.empty(), pageSize))
+                      .setText(text)
+                      .setStyles(Styles.MR_2)
+                      .asAnchorText();
+                }));
+  }
+
+  private static String orderLinkText(ApplicationListOrder order) {
+    switch (order) {
+      case NEWEST_FIRST:
+        return "Newest first";
+      case OLDEST_FIRST:
+        return "Oldest first";
+      default:
+        return "By name";
+    }
+  }
+
+  private Tag renderNextPageLink(
+      long programId,
+      ApplicationListOrder order,
+      Optional<String> search,
+      Optional<Integer> pageSize,
+      ApplicationListPage page) {
+    if (page.next().isEmpty()) {
+      return div();
+    }
+    return div()
+        .withClasses(Styles.MB_4)
+        .with(
+            new LinkElement()
+                .setId("application-list-next-page")
+                .setHref(
+                    listLink(
+                        programId,
+                        order,
+                        search,
+                        Optional.of(page.next().get().toToken()),
+                        pageSize))
+                .setText("Next page →")
+                .asAnchorText());
+  }
+
+  private static String listLink(
+      long programId,
+      ApplicationListOrder order,
+      Optional<String> search,
+      Optional<String> after,
+      Optional<Integer> pageSize) {
+    return controllers.admin.routes.AdminApplicationController.index(
+            programId, Optional.of(order.getValue()), search, after, pageSize)
+        .url();
+  }
+
+  private Tag renderApplicationListItem(long programId, ApplicationListItem item) {
     String downloadLinkText = "Download (PDF)";
-    long applicationId = application.id;
+    long applicationId = item.applicationId();
     String applicantNameWithId =
-        String.format(
-            "%s (%d)",
-            application.getApplicantData().getApplicantName(), application.getApplicant().id);
-    String lastEditText;
-    try {
-      lastEditText = application.getSubmitTime().toString();
-    } catch (NullPointerException e) {
-      log.error("Application {} submitted without submission time marked.", applicationId);
-      lastEditText = "<ERROR>";
-    }
-    lastEditText = "Last edited " + lastEditText;
+        item.emailAddress().isPresent()
+            ? String.format(
+                "%s (%d, %s)", item.applicantName(), item.applicantId(), item.emailAddress().get())
+            : String.format("%s (%d)", item.applicantName(), item.applicantId());
+    String lastEditText = "Last edited " + item.submitTime().toString();
     String viewLinkText = "View →";
 
     Tag topContent =
@@ -8,18 +8,18 @@ import static j2html.TagCreator.h1;
 import static j2html.TagCreator.h2;
 import static j2html.TagCreator.p;
 
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ListMultimap;
+import com.google.common.collect.ImmutableMap;
 import com.google.inject.Inject;
 import j2html.tags.Tag;
+import java.net.URL;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
-import java.util.Collection;
+import java.util.Optional;
 import play.twirl.api.Content;
-import services.applicant.AnswerData;
-import services.applicant.Block;
+import services.applicant.ApplicationSummary;
+import services.applicant.ApplicationSummary.AnswerSummary;
+import services.applicant.ApplicationSummary.BlockSummary;
 import views.BaseHtmlView;
 import views.HtmlBundle;
 import views.admin.AdminLayout;
@@ -40,18 +40,9 @@ public final class ProgramApplicationView extends BaseHtmlView {
       String programName,
       long applicationId,
       String applicantNameWithId,
-      ImmutableList<Block> blocks,
-      ImmutableList<AnswerData> answers) {
+      ApplicationSummary summary,
+      ImmutableMap<String, URL> fileLinks) {
     String title = "Program Application View";
-    ListMultimap<Block, AnswerData> blockToAnswers = ArrayListMultimap.create();
-    for (AnswerData answer : answers) {
-      Block answerBlock =
-          blocks.stream()
-              .filter(block -> block.getId().equals(answer.blockId()))
-              .findFirst()
-              .orElseThrow();
-      blockToAnswers.put(answerBlock, answer);
-    }
 
     Tag contentDiv =
         div()
@@ -59,7 +50,7 @@ public final class ProgramApplicationView extends BaseHtmlView {
             .with(
                 h2("Program: " + programName).withClasses(Styles.MY_4),
                 h1(applicantNameWithId).withClasses(Styles.MY_4),
-                each(blocks, block -> renderApplicationBlock(block, blockToAnswers.get(block))),
+                each(summary.blocks(), block -> renderApplicationBlock(block, fileLinks)),
                 renderDownloadButton(programId, applicationId));
 
     HtmlBundle htmlBundle = layout.getBundle().setTitle(title).addMainContent(contentDiv);
@@ -77,20 +68,22 @@ public final class ProgramApplicationView extends BaseHtmlView {
         .asButton();
   }
 
-  private Tag renderApplicationBlock(Block block, Collection<AnswerData> answers) {
+  private Tag renderApplicationBlock(BlockSummary block, ImmutableMap<String, URL> fileLinks) {
     Tag topContent =
         div()
             .withClasses(Styles.FLEX)
             .with(
                 div(
-                    div(block.getName())
+                    div(block.name())
                         .withClasses(
                             Styles.TEXT_BLACK, Styles.FONT_BOLD, Styles.TEXT_XL, Styles.MB_2)))
             .with(p().withClasses(Styles.FLEX_GROW))
-            .with(p(block.getDescription()).withClasses(Styles.TEXT_GRAY_700, Styles.ITALIC));
+            .with(p(block.description()).withClasses(Styles.TEXT_GRAY_700, Styles.ITALIC));
 
     Tag mainContent =
-        div().withClasses(Styles.W_FULL).with(each(answers, answer -> renderAnswer(answer)));
+        div()
+            .withClasses(Styles.W_FULL)
+            .with(each(block.answers(), answer -> renderAnswer(answer, fileLinks)));
 
     Tag innerDiv =
         div(topContent, mainContent)
@@ -105,14 +98,14 @@ public final class ProgramApplicationView extends BaseHtmlView {
             Styles.MB_4);
   }
 
-  private Tag renderAnswer(AnswerData answerData) {
+  private Tag renderAnswer(AnswerSummary answerData, ImmutableMap<String, URL> fileLinks) {
     LocalDate date =
         Instant.ofEpochMilli(answerData.timestamp()).atZone(ZoneId.systemDefault()).toLocalDate();
-    String questionIdentifier =
-        String.format("Question ID: %d", answerData.questionDefinition().getId());
+    String questionIdentifier = String.format("Question ID: %d", answerData.questionId());
+    Optional<URL> answerLink = answerData.fileKey().map(fileLinks::get);
     Tag answerContent;
-    if (answerData.answerLink().isPresent()) {
-      answerContent = a(answerData.answerText()).withHref(answerData.answerLink().get().toString());
+    if (answerLink.isPresent()) {
+      answerContent = a(answerData.answerText()).withHref(answerLink.get().toString());
     } else {
       answerContent = div(answerData.answerText());
     }
@@ -126,7 +119,7 @@ public final class ProgramApplicationView extends BaseHtmlView {
                         .withClasses(
                             Styles.TEXT_GRAY_400, Styles.TEXT_XL, Styles.MB_2, Styles.LINE_CLAMP_3))
                 .with(
-                    div(answerData.questionDefinition().getName())
+                    div(answerData.questionName())
                         .withClasses(Styles.TEXT_GRAY_400, Styles.TEXT_BASE, Styles.LINE_CLAMP_3)))
         .with(p().withClasses(Styles.W_8))
         .with(
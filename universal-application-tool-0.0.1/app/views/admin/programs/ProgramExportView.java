@@ -0,0 +1,81 @@
+package views.admin.programs;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static j2html.TagCreator.div;
+import static j2html.TagCreator.h1;
+import static j2html.TagCreator.meta;
+import static j2html.TagCreator.p;
+
+import com.google.inject.Inject;
+import j2html.tags.Tag;
+import models.ExportJob;
+import play.twirl.api.Content;
+import views.BaseHtmlView;
+import views.HtmlBundle;
+import views.admin.AdminLayout;
+import views.components.LinkElement;
+import views.style.Styles;
+
+/** Shows the progress of a background export, and links to its CSV once it is done. */
+public final class ProgramExportView extends BaseHtmlView {
+  /** How often, in seconds, the page reloads while the export runs. */
+  private static final int REFRESH_SECONDS = 2;
+
+  private final AdminLayout layout;
+
+  @Inject
+  public ProgramExportView(AdminLayout layout) {
+    this.layout = checkNotNull(layout);
+  }
+
+  public Content render(String programName, ExportJob job) {
+    String title = "Export applications";
+    Tag contentDiv =
+        div()
+            .withClasses(Styles.PX_20)
+            .with(
+                h1(title).withClasses(Styles.MY_4),
+                p("Program: " + programName).withClasses(Styles.MB_2),
+                renderStatus(job));
+
+    HtmlBundle htmlBundle = layout.getBundle().setTitle(title).addMainContent(contentDiv);
+    if (!job.getStatus().isFinished()) {
+      htmlBundle.addMetadata(
+          meta().attr("http-equiv", "refresh").withContent(String.valueOf(REFRESH_SECONDS)));
+    }
+    return layout.renderCentered(htmlBundle);
+  }
+
+  private Tag renderStatus(ExportJob job) {
+    switch (job.getStatus()) {
+      case QUEUED:
+        return p("Waiting to start...").withId("export-status");
+      case RUNNING:
+        String progress =
+            job.getTotalRows()
+                .map(
+                    total ->
+                        String.format(
+                            "Exported %d of %d applications...", job.getRowsExported(), total))
+                .orElse("Starting...");
+        return p(progress).withId("export-status");
+      case SUCCEEDED:
+        String link =
+            controllers.admin.routes.AdminApplicationController.downloadExport(
+                    job.getProgramId(), job.id)
+                .url();
+        return div(
+            p(String.format("Exported %d applications.", job.getRowsExported()))
+                .withId("export-status")
+                .withClasses(Styles.MB_2),
+            new LinkElement()
+                .setId("download-export-button")
+                .setHref(link)
+                .setText("Download (CSV)")
+                .asButton());
+      case FAILED:
+      default:
+        return p("The export failed. Please try again.").withId("export-status");
+    }
+  }
+}
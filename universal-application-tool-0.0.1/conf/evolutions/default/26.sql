@@ -0,0 +1,8 @@
+# --- Counts changes to versions, programs and questions, so servers can tell when their caches are stale.
+# --- A sequence, which concurrent changes advance without waiting on each other.
+
+# --- !Ups
+create sequence if not exists version_cache_generation;
+
+# --- !Downs
+drop sequence if exists version_cache_generation;
@@ -0,0 +1,20 @@
+# --- Export jobs, which write a program's applications to a CSV file in S3 in the background.
+
+# --- !Ups
+create table if not exists export_jobs (
+  id bigserial primary key,
+  program_id bigint not null,
+  status varchar not null,
+  rows_exported bigint not null default 0,
+  total_rows bigint,
+  object_key varchar,
+  error_message varchar,
+  create_time timestamp not null default now(),
+  lease_expiration_time timestamp,
+  -- Set by each claim, so a server whose lease ran out cannot overwrite the job.
+  lease_token uuid
+);
+create index if not exists ix_export_jobs_status on export_jobs (status, id);
+
+# --- !Downs
+drop table if exists export_jobs cascade;
@@ -0,0 +1,20 @@
+# --- Supports exporting only the applications created since an admin's last export.
+# --- An active application is created when it is submitted, so unlike submit_time its create_time never changes after submission, and exports of new applications can key on it.
+
+# --- !Ups
+alter table applications add column if not exists create_time timestamp;
+-- Existing applications only have submit_time, which is when they were last saved.
+update applications set create_time = submit_time where create_time is null;
+alter table applications alter column create_time set default now();
+create index if not exists ix_applications_program_active_create_time on applications (program_id, create_time, id) where lifecycle_stage = 'active';
+create table if not exists export_watermarks (
+  account_id bigint not null references accounts (id) on delete cascade,
+  program_id bigint not null,
+  watermark timestamp not null,
+  primary key (account_id, program_id)
+);
+
+# --- !Downs
+drop table if exists export_watermarks cascade;
+drop index if exists ix_applications_program_active_create_time;
+alter table applications drop column if exists create_time;
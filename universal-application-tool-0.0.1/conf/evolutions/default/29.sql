@@ -0,0 +1,7 @@
+# --- Stores what admins see of a submitted application, so it is computed once.
+
+# --- !Ups
+alter table applications add column if not exists summary jsonb;
+
+# --- !Downs
+alter table applications drop column if exists summary;
@@ -0,0 +1,7 @@
+# --- Lets the program admin's application list seek to a page by submit time and id.
+
+# --- !Ups
+create index if not exists ix_applications_program_submit_time_id on applications (program_id, submit_time, id);
+
+# --- !Downs
+drop index if exists ix_applications_program_submit_time_id;
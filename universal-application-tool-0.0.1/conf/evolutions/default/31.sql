@@ -0,0 +1,29 @@
+# --- Applicant names as plain, indexed columns, so lists can sort and search them in SQL, and a search index on account emails.
+# --- Adding a stored generated column rewrites the whole table under an ACCESS EXCLUSIVE lock, and this
+# --- adds two to applicants and two to applications, so both tables are locked against reads and writes
+# --- for as long as the rewrites take. On a large deployment, run it in a maintenance window.
+
+# --- !Ups
+create extension if not exists pg_trgm;
+
+-- The TI dashboard reads applicants' name columns, but sorts each group in memory and never searches them.
+alter table applicants add column if not exists first_name varchar generated always as (object #>> '{applicant,name,first}') stored;
+alter table applicants add column if not exists last_name varchar generated always as (object #>> '{applicant,name,last}') stored;
+create index if not exists ix_accounts_email_address_trgm on accounts using gin (email_address gin_trgm_ops);
+
+alter table applications add column if not exists first_name varchar generated always as (object #>> '{applicant,name,first}') stored;
+alter table applications add column if not exists last_name varchar generated always as (object #>> '{applicant,name,last}') stored;
+create index if not exists ix_applications_program_name_id on applications (program_id, coalesce(lower(last_name), ''), coalesce(lower(first_name), ''), id);
+create index if not exists ix_applications_first_name_trgm on applications using gin (first_name gin_trgm_ops);
+create index if not exists ix_applications_last_name_trgm on applications using gin (last_name gin_trgm_ops);
+
+# --- !Downs
+drop index if exists ix_applications_last_name_trgm;
+drop index if exists ix_applications_first_name_trgm;
+drop index if exists ix_applications_program_name_id;
+alter table applications drop column if exists last_name;
+alter table applications drop column if exists first_name;
+
+drop index if exists ix_accounts_email_address_trgm;
+alter table applicants drop column if exists last_name;
+alter table applicants drop column if exists first_name;
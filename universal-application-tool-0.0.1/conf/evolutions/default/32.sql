@@ -0,0 +1,7 @@
+# --- Counts the times applicants were moved out of an account, so a session profile that lists the account's applicants can tell when its list is out of date.
+
+# --- !Ups
+alter table accounts add column if not exists applicants_version bigint not null default 0;
+
+# --- !Downs
+alter table accounts drop column if exists applicants_version;
@@ -22,6 +22,7 @@ import play.Application;
 import play.api.mvc.Call;
 import play.db.ebean.EbeanConfig;
 import play.test.WithBrowser;
+import repository.VersionCache;
 import services.question.types.QuestionType;
 import support.TestConstants;
 import views.style.ReferenceClasses;
@@ -44,6 +45,7 @@ public class BaseBrowserTest extends WithBrowser {
     Models.truncate(server);
     Version newActiveVersion = new Version(LifecycleStage.ACTIVE);
     newActiveVersion.save();
+    app.injector().instanceOf(VersionCache.class).invalidate();
   }
 
   /**
@@ -0,0 +1,99 @@
+package auth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.base.Ticker;
+import java.time.Duration;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AccountExistenceCacheTest {
+
+  private static final Duration TTL = Duration.ofSeconds(30);
+
+  private FakeTicker ticker;
+  private AccountExistenceCache cache;
+
+  @Before
+  public void setUp() {
+    ticker = new FakeTicker();
+    cache = new AccountExistenceCache(TTL, ticker);
+  }
+
+  @Test
+  public void isKnownToExist_onlyAfterMarked() {
+    assertThat(cache.isKnownToExist(1L)).isFalse();
+
+    cache.markExists(1L, 0L);
+
+    assertThat(cache.isKnownToExist(1L)).isTrue();
+    assertThat(cache.isKnownToExist(2L)).isFalse();
+  }
+
+  @Test
+  public void isKnownToExist_expiresAfterTtl() {
+    cache.markExists(1L, 0L);
+
+    ticker.advance(TTL.minusSeconds(1));
+    assertThat(cache.isKnownToExist(1L)).isTrue();
+
+    ticker.advance(Duration.ofSeconds(1));
+    assertThat(cache.isKnownToExist(1L)).isFalse();
+  }
+
+  @Test
+  public void markExists_startsTtlAgain() {
+    cache.markExists(1L, 0L);
+    ticker.advance(TTL.minusSeconds(1));
+
+    cache.markExists(1L, 0L);
+    ticker.advance(TTL.minusSeconds(1));
+
+    assertThat(cache.isKnownToExist(1L)).isTrue();
+  }
+
+  @Test
+  public void knownApplicantsVersion_isTheLastOneMarked() {
+    assertThat(cache.knownApplicantsVersion(1L)).isEmpty();
+
+    cache.markExists(1L, 0L);
+    cache.markExists(1L, 2L);
+
+    assertThat(cache.knownApplicantsVersion(1L)).contains(2L);
+  }
+
+  @Test
+  public void invalidate_forgetsOnlyThatAccount() {
+    cache.markExists(1L, 0L);
+    cache.markExists(2L, 0L);
+
+    cache.invalidate(1L);
+
+    assertThat(cache.isKnownToExist(1L)).isFalse();
+    assertThat(cache.isKnownToExist(2L)).isTrue();
+  }
+
+  @Test
+  public void invalidateAll_forgetsEveryAccount() {
+    cache.markExists(1L, 0L);
+    cache.markExists(2L, 0L);
+
+    cache.invalidateAll();
+
+    assertThat(cache.isKnownToExist(1L)).isFalse();
+    assertThat(cache.isKnownToExist(2L)).isFalse();
+  }
+
+  private static final class FakeTicker extends Ticker {
+    private long nanos;
+
+    void advance(Duration duration) {
+      nanos += duration.toNanos();
+    }
+
+    @Override
+    public long read() {
+      return nanos;
+    }
+  }
+}
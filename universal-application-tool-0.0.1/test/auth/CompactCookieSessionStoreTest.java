@@ -0,0 +1,107 @@
+package auth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.pac4j.core.util.Pac4jConstants;
+import org.pac4j.play.PlayWebContext;
+import org.pac4j.play.store.PlayCookieSessionStore;
+import org.pac4j.play.store.ShiroAesDataEncrypter;
+import play.mvc.Http;
+
+public class CompactCookieSessionStoreTest {
+
+  private static final byte[] KEY = new byte[32];
+
+  private CompactCookieSessionStore store;
+
+  @BeforeClass
+  public static void trustProfiles() {
+    PlayCookieSessionStore.JAVA_SERIALIZER.addTrustedClass(UatProfileData.class);
+  }
+
+  @Before
+  public void setUp() {
+    store = new CompactCookieSessionStore(new ShiroAesDataEncrypter(KEY));
+  }
+
+  @Test
+  public void set_writesProfilesThatCanBeReadBack() {
+    PlayWebContext written = new PlayWebContext(new Http.RequestBuilder().build());
+    store.set(written, Pac4jConstants.USER_PROFILES, profiles(applicantProfile()));
+
+    PlayWebContext read = new PlayWebContext(requestWithCookieFrom(written));
+
+    assertThat(profileIn(store.get(read, Pac4jConstants.USER_PROFILES)).getId()).isEqualTo("12");
+  }
+
+  @Test
+  public void get_readsCookiesWrittenWithJavaSerialization() {
+    PlayCookieSessionStore oldStore = new PlayCookieSessionStore(new ShiroAesDataEncrypter(KEY));
+    PlayWebContext written = new PlayWebContext(new Http.RequestBuilder().build());
+    oldStore.set(written, Pac4jConstants.USER_PROFILES, profiles(applicantProfile()));
+
+    PlayWebContext read = new PlayWebContext(requestWithCookieFrom(written));
+
+    UatProfileData profile = profileIn(store.get(read, Pac4jConstants.USER_PROFILES));
+    assertThat(profile.getId()).isEqualTo("12");
+    assertThat(profile.getRoles()).containsExactly(Roles.ROLE_APPLICANT.toString());
+  }
+
+  @Test
+  public void set_writesSmallerCookiesThanJavaSerialization() {
+    PlayCookieSessionStore oldStore = new PlayCookieSessionStore(new ShiroAesDataEncrypter(KEY));
+    PlayWebContext oldContext = new PlayWebContext(new Http.RequestBuilder().build());
+    oldStore.set(oldContext, Pac4jConstants.USER_PROFILES, profiles(applicantProfile()));
+    PlayWebContext newContext = new PlayWebContext(new Http.RequestBuilder().build());
+    store.set(newContext, Pac4jConstants.USER_PROFILES, profiles(applicantProfile()));
+
+    assertThat(cookie(newContext).length()).isLessThan(cookie(oldContext).length());
+  }
+
+  @Test
+  public void get_withinARequest_changesToTheReadValuesAreNotShared() {
+    PlayWebContext written = new PlayWebContext(new Http.RequestBuilder().build());
+    store.set(written, Pac4jConstants.USER_PROFILES, profiles(applicantProfile()));
+    Http.RequestHeader request = requestWithCookieFrom(written);
+
+    @SuppressWarnings("unchecked")
+    Map<String, Object> first =
+        (Map<String, Object>)
+            store.get(new PlayWebContext(request), Pac4jConstants.USER_PROFILES).get();
+    first.clear();
+
+    assertThat(profileIn(store.get(new PlayWebContext(request), Pac4jConstants.USER_PROFILES)))
+        .isNotNull();
+  }
+
+  private static UatProfileData applicantProfile() {
+    UatProfileData profile = new UatProfileData(12L);
+    profile.setClientName(GuestClient.CLIENT_NAME);
+    profile.addRole(Roles.ROLE_APPLICANT.toString());
+    return profile;
+  }
+
+  private static LinkedHashMap<String, UatProfileData> profiles(UatProfileData profile) {
+    LinkedHashMap<String, UatProfileData> profiles = new LinkedHashMap<>();
+    profiles.put(profile.getClientName(), profile);
+    return profiles;
+  }
+
+  private static UatProfileData profileIn(Optional<Object> profiles) {
+    return (UatProfileData) ((Map<?, ?>) profiles.get()).get(GuestClient.CLIENT_NAME);
+  }
+
+  private String cookie(PlayWebContext context) {
+    return context.getNativeSession().get(store.getSessionName()).get();
+  }
+
+  private Http.RequestHeader requestWithCookieFrom(PlayWebContext context) {
+    return new Http.RequestBuilder().session(store.getSessionName(), cookie(context)).build();
+  }
+}
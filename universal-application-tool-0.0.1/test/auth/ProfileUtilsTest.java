@@ -0,0 +1,48 @@
+package auth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static play.test.Helpers.fakeRequest;
+
+import models.Account;
+import org.junit.Before;
+import org.junit.Test;
+import org.pac4j.core.context.session.SessionStore;
+import org.pac4j.core.profile.ProfileManager;
+import org.pac4j.play.PlayWebContext;
+import play.mvc.Http;
+import repository.WithPostgresContainer;
+
+public class ProfileUtilsTest extends WithPostgresContainer {
+  private ProfileUtils profileUtils;
+  private SessionStore sessionStore;
+
+  @Before
+  public void setUp() {
+    profileUtils = instanceOf(ProfileUtils.class);
+    sessionStore = instanceOf(SessionStore.class);
+  }
+
+  @Test
+  public void currentUserProfile_attachedProfile_isShared() {
+    Http.RequestHeader request = profileUtils.withCurrentUserProfile(fakeRequest().build());
+
+    assertThat(profileUtils.currentUserProfile(request)).isEmpty();
+    assertThat(profileUtils.withCurrentUserProfile(request)).isSameAs(request);
+  }
+
+  @Test
+  public void currentUserProfile_profileSavedLaterInTheRequest_isReadAgain() {
+    Account account = resourceCreator.insertAccount();
+    Http.RequestHeader request = profileUtils.withCurrentUserProfile(fakeRequest().build());
+    assertThat(profileUtils.currentUserProfile(request)).isEmpty();
+
+    // This is what pac4j does when it signs someone in during the request.
+    PlayWebContext webContext = new PlayWebContext(request);
+    new ProfileManager(webContext, sessionStore).save(true, new UatProfileData(account.id), false);
+    Http.RequestHeader signedIn = webContext.supplementRequest(request);
+
+    assertThat(profileUtils.currentUserProfile(signedIn)).isPresent();
+    assertThat(profileUtils.currentUserProfile(signedIn).get().getId())
+        .isEqualTo(account.id.toString());
+  }
+}
@@ -0,0 +1,229 @@
+package auth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.pac4j.core.profile.definition.CommonProfileDefinition;
+import org.pac4j.core.util.Pac4jConstants;
+import org.pac4j.play.store.PlayCookieSessionStore;
+
+public class SessionCodecTest {
+
+  @BeforeClass
+  public static void trustProfiles() {
+    // As the SecurityModule does, for profiles written with Java serialization.
+    PlayCookieSessionStore.JAVA_SERIALIZER.addTrustedClass(UatProfileData.class);
+  }
+
+  @Test
+  public void encode_roundTripsProfiles() throws Exception {
+    UatProfileData applicant = profile(12L, GuestClient.CLIENT_NAME, Roles.ROLE_APPLICANT);
+    UatProfileData admin =
+        profile(300000L, "AdClient", Roles.ROLE_UAT_ADMIN, Roles.ROLE_PROGRAM_ADMIN);
+    admin.addAttribute(CommonProfileDefinition.EMAIL, "admin@example.com");
+    Map<String, Object> values = sessionWithProfiles(applicant, admin);
+
+    Map<String, Object> decoded = roundTrip(values);
+
+    @SuppressWarnings("unchecked")
+    LinkedHashMap<String, Object> profiles =
+        (LinkedHashMap<String, Object>) decoded.get(Pac4jConstants.USER_PROFILES);
+    assertThat(profiles.keySet()).containsExactly(GuestClient.CLIENT_NAME, "AdClient");
+    UatProfileData decodedApplicant = (UatProfileData) profiles.get(GuestClient.CLIENT_NAME);
+    assertThat(decodedApplicant.getId()).isEqualTo("12");
+    assertThat(decodedApplicant.getClientName()).isEqualTo(GuestClient.CLIENT_NAME);
+    assertThat(decodedApplicant.getRoles()).containsExactly(Roles.ROLE_APPLICANT.toString());
+    assertThat(decodedApplicant.getAttributes()).isEmpty();
+    UatProfileData decodedAdmin = (UatProfileData) profiles.get("AdClient");
+    assertThat(decodedAdmin.getId()).isEqualTo("300000");
+    assertThat(decodedAdmin.getRoles())
+        .containsExactlyInAnyOrder(
+            Roles.ROLE_UAT_ADMIN.toString(), Roles.ROLE_PROGRAM_ADMIN.toString());
+    assertThat(decodedAdmin.getEmail()).isEqualTo("admin@example.com");
+  }
+
+  @Test
+  public void encode_roundTripsOwnedApplicantsAndTrustedIntermediaryGroup() throws Exception {
+    UatProfileData profile = profile(12L, "IdcsClient", Roles.ROLE_TI);
+    profile.setOwnedApplicantIds(ImmutableList.of(7L, 200000L), 4L);
+    profile.setTrustedIntermediaryGroupId(Optional.of(3L));
+
+    UatProfileData decoded = decodedProfile(roundTrip(sessionWithProfiles(profile)), "IdcsClient");
+
+    assertThat(decoded.getOwnedApplicantIds()).contains(ImmutableSet.of(7L, 200000L));
+    assertThat(decoded.getOwnedApplicantsVersion()).contains(4L);
+    assertThat(decoded.getTrustedIntermediaryGroupId()).contains(3L);
+  }
+
+  @Test
+  public void encode_noOwnedApplicants_isNotReadAsEmpty() throws Exception {
+    UatProfileData decoded =
+        decodedProfile(
+            roundTrip(
+                sessionWithProfiles(profile(12L, GuestClient.CLIENT_NAME, Roles.ROLE_APPLICANT))),
+            GuestClient.CLIENT_NAME);
+
+    assertThat(decoded.getOwnedApplicantIds()).isEmpty();
+    assertThat(decoded.getTrustedIntermediaryGroupId()).isEmpty();
+  }
+
+  @Test
+  public void decode_readsVersionOneProfiles() throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeByte(SessionCodec.FORMAT);
+    out.writeByte(1); // One value.
+    writeString(out, Pac4jConstants.USER_PROFILES);
+    out.writeByte(1); // Profiles.
+    out.writeByte(1); // One profile.
+    writeString(out, GuestClient.CLIENT_NAME);
+    out.writeByte(1); // Version 1.
+    out.writeByte(12); // Account ID.
+    writeString(out, GuestClient.CLIENT_NAME);
+    out.writeByte(1); // Applicant.
+    out.writeByte(0); // No email.
+
+    UatProfileData decoded =
+        decodedProfile(
+            SessionCodec.decode(bytes.toByteArray(), PlayCookieSessionStore.JAVA_SERIALIZER),
+            GuestClient.CLIENT_NAME);
+
+    assertThat(decoded.getId()).isEqualTo("12");
+    assertThat(decoded.getRoles()).containsExactly(Roles.ROLE_APPLICANT.toString());
+    assertThat(decoded.getOwnedApplicantIds()).isEmpty();
+  }
+
+  @Test
+  public void decode_versionTwoProfiles_dropOwnedApplicantsWithoutAVersion() throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeByte(SessionCodec.FORMAT);
+    out.writeByte(1); // One value.
+    writeString(out, Pac4jConstants.USER_PROFILES);
+    out.writeByte(1); // Profiles.
+    out.writeByte(1); // One profile.
+    writeString(out, "IdcsClient");
+    out.writeByte(2); // Version 2.
+    out.writeByte(12); // Account ID.
+    writeString(out, "IdcsClient");
+    out.writeByte(2); // TI.
+    out.writeByte(2 | 4); // Owned applicants and TI group.
+    out.writeByte(1); // One owned applicant.
+    out.writeByte(7);
+    out.writeByte(3); // TI group ID.
+
+    UatProfileData decoded =
+        decodedProfile(
+            SessionCodec.decode(bytes.toByteArray(), PlayCookieSessionStore.JAVA_SERIALIZER),
+            "IdcsClient");
+
+    assertThat(decoded.getOwnedApplicantIds()).isEmpty();
+    assertThat(decoded.getOwnedApplicantsVersion()).isEmpty();
+    assertThat(decoded.getTrustedIntermediaryGroupId()).contains(3L);
+  }
+
+  @Test
+  public void encode_roundTripsStringsAndOtherValues() throws Exception {
+    Map<String, Object> values = new HashMap<>();
+    values.put("state", "some state");
+    values.put("count", 3);
+
+    assertThat(roundTrip(values)).isEqualTo(values);
+  }
+
+  @Test
+  public void encode_profileWithOtherFields_isSerialized() throws Exception {
+    UatProfileData profile = profile(12L, GuestClient.CLIENT_NAME, Roles.ROLE_APPLICANT);
+    profile.addAttribute("nickname", "Al");
+    profile.addPermission("everything");
+
+    Map<String, Object> decoded = roundTrip(sessionWithProfiles(profile));
+
+    UatProfileData decodedProfile =
+        (UatProfileData)
+            ((Map<?, ?>) decoded.get(Pac4jConstants.USER_PROFILES)).get(GuestClient.CLIENT_NAME);
+    assertThat(decodedProfile.getAttribute("nickname")).isEqualTo("Al");
+    assertThat(decodedProfile.getPermissions()).containsExactly("everything");
+  }
+
+  @Test
+  public void encode_isSmallerThanJavaSerialization() {
+    UatProfileData profile = profile(12345L, "AdClient", Roles.ROLE_PROGRAM_ADMIN);
+    profile.addAttribute(CommonProfileDefinition.EMAIL, "admin@example.com");
+    Map<String, Object> values = sessionWithProfiles(profile);
+
+    byte[] encoded = SessionCodec.encode(values, PlayCookieSessionStore.JAVA_SERIALIZER);
+    byte[] javaSerialized =
+        PlayCookieSessionStore.compressBytes(
+            PlayCookieSessionStore.JAVA_SERIALIZER.serializeToBytes(values));
+
+    assertThat(encoded.length).isLessThan(javaSerialized.length / 4);
+  }
+
+  @Test
+  public void decode_unknownFormat_throws() {
+    assertThatThrownBy(
+            () -> SessionCodec.decode(new byte[] {0x1f, 0}, PlayCookieSessionStore.JAVA_SERIALIZER))
+        .isInstanceOf(IOException.class);
+  }
+
+  @Test
+  public void decode_truncated_throws() {
+    byte[] encoded =
+        SessionCodec.encode(
+            sessionWithProfiles(profile(12L, GuestClient.CLIENT_NAME, Roles.ROLE_APPLICANT)),
+            PlayCookieSessionStore.JAVA_SERIALIZER);
+    byte[] truncated = Arrays.copyOf(encoded, encoded.length - 3);
+
+    assertThatThrownBy(() -> SessionCodec.decode(truncated, PlayCookieSessionStore.JAVA_SERIALIZER))
+        .isInstanceOf(IOException.class);
+  }
+
+  private static UatProfileData profile(long accountId, String clientName, Roles... roles) {
+    UatProfileData profile = new UatProfileData(accountId);
+    profile.setClientName(clientName);
+    for (Roles role : roles) {
+      profile.addRole(role.toString());
+    }
+    return profile;
+  }
+
+  private static Map<String, Object> sessionWithProfiles(UatProfileData... profiles) {
+    LinkedHashMap<String, UatProfileData> byClient = new LinkedHashMap<>();
+    for (UatProfileData profile : profiles) {
+      byClient.put(profile.getClientName(), profile);
+    }
+    Map<String, Object> values = new HashMap<>();
+    values.put(Pac4jConstants.USER_PROFILES, byClient);
+    return values;
+  }
+
+  private static UatProfileData decodedProfile(Map<String, Object> values, String clientName) {
+    return (UatProfileData) ((Map<?, ?>) values.get(Pac4jConstants.USER_PROFILES)).get(clientName);
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeByte(bytes.length);
+    out.write(bytes);
+  }
+
+  private static Map<String, Object> roundTrip(Map<String, Object> values) throws IOException {
+    return SessionCodec.decode(
+        SessionCodec.encode(values, PlayCookieSessionStore.JAVA_SERIALIZER),
+        PlayCookieSessionStore.JAVA_SERIALIZER);
+  }
+}
@@ -1,14 +1,19 @@
 package auth;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.api.Assertions.fail;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.util.Optional;
 import java.util.concurrent.CompletionException;
 import models.Account;
 import models.Applicant;
+import models.TrustedIntermediaryGroup;
 import org.junit.Before;
 import org.junit.Test;
+import repository.UserRepository;
 import repository.WithPostgresContainer;
 
 public class UatProfileTest extends WithPostgresContainer {
@@ -20,6 +25,30 @@ public class UatProfileTest extends WithPostgresContainer {
     profileFactory = instanceOf(ProfileFactory.class);
   }
 
+  @Test
+  public void getAccount_isLoadedOnceAndMarkedAsExisting() {
+    Account account = resourceCreator.insertAccount();
+    AccountExistenceCache accountExistenceCache = instanceOf(AccountExistenceCache.class);
+    accountExistenceCache.invalidate(account.id);
+    UatProfile profile = profileFactory.wrap(account);
+
+    assertThat(profile.isAccountKnownToExist()).isFalse();
+    Account loaded = profile.getAccount().join();
+
+    assertThat(profile.getAccount().join()).isSameAs(loaded);
+    assertThat(profile.isAccountKnownToExist()).isTrue();
+    assertThat(accountExistenceCache.isKnownToExist(account.id)).isTrue();
+  }
+
+  @Test
+  public void getAccount_missingAccount_isNotMarkedAsExisting() {
+    UatProfile profile = profileFactory.wrapProfileData(new UatProfileData(1234L));
+
+    assertThatThrownBy(() -> profile.getAccount().join())
+        .hasCauseInstanceOf(AccountNonexistentException.class);
+    assertThat(profile.isAccountKnownToExist()).isFalse();
+  }
+
   @Test
   public void checkAuthorization_admin_failsForApplicantId() {
     UatProfileData data = profileFactory.createNewAdmin();
@@ -72,4 +101,95 @@ public class UatProfileTest extends WithPostgresContainer {
     assertThatThrownBy(() -> profile.checkAuthorization(1234L).join())
         .hasCauseInstanceOf(SecurityException.class);
   }
+
+  @Test
+  public void createNewApplicant_listsTheNewApplicantAsOwned() throws Exception {
+    UatProfileData data = profileFactory.createNewApplicant();
+    UatProfile profile = profileFactory.wrapProfileData(data);
+
+    assertThat(data.getOwnedApplicantIds())
+        .contains(ImmutableSet.of(profile.getApplicant().get().id));
+  }
+
+  @Test
+  public void checkAuthorization_ownedApplicantInProfile_passesWithoutLookup() {
+    // No applicant 1234 exists, so only the IDs in the profile can authorize it.
+    UatProfileData data = new UatProfileData(resourceCreator.insertAccount().id);
+    data.setOwnedApplicantIds(ImmutableList.of(1234L), 0L);
+    UatProfile profile = profileFactory.wrapProfileData(data);
+    // As ValidAccountFilter does, which records the account's applicants version.
+    profile.getAccount().join();
+
+    profile.checkAuthorization(1234L).join();
+  }
+
+  @Test
+  public void checkAuthorization_applicantMovedOutOfAccountWithEmail_fails() {
+    Account previousAccount = resourceCreator.insertAccount();
+    previousAccount.setEmailAddress("bob@example.com");
+    previousAccount.save();
+    Applicant moved = resourceCreator.insertApplicant();
+    moved.setAccount(previousAccount);
+    moved.save();
+    Account account = resourceCreator.insertAccount();
+    Applicant existing = resourceCreator.insertApplicant();
+    existing.setAccount(account);
+    existing.save();
+    UatProfile profile = profileFactory.wrap(previousAccount);
+    profile.getProfileData().refreshFrom(profile.getAccount().join());
+    profile.checkAuthorization(moved.id).join();
+
+    instanceOf(UserRepository.class)
+        .mergeApplicants(moved, existing, account)
+        .toCompletableFuture()
+        .join();
+
+    // The same profile, as a copy of the previous account's cookie still has it.
+    UatProfile stale = profileFactory.wrapProfileData(profile.getProfileData());
+    stale.getAccount().join();
+    assertThat(stale.getProfileData().getOwnedApplicantIds()).contains(ImmutableSet.of(moved.id));
+    assertThatThrownBy(() -> stale.checkAuthorization(moved.id).join())
+        .hasCauseInstanceOf(SecurityException.class);
+  }
+
+  @Test
+  public void checkAuthorization_applicantManagedByTrustedIntermediaryGroup_passes() {
+    UserRepository userRepository = instanceOf(UserRepository.class);
+    TrustedIntermediaryGroup group =
+        userRepository.createNewTrustedIntermediaryGroup("group", "description");
+    Account ti = resourceCreator.insertAccount();
+    ti.setMemberOfGroup(group);
+    ti.save();
+    Account managed = resourceCreator.insertAccount();
+    managed.setManagedByGroup(group);
+    managed.save();
+    Applicant applicant = resourceCreator.insertApplicant();
+    applicant.setAccount(managed);
+    applicant.save();
+    UatProfileData data = new UatProfileData(ti.id);
+    data.refreshFrom(ti);
+
+    assertThat(data.getTrustedIntermediaryGroupId()).contains(group.id);
+    profileFactory.wrapProfileData(data).checkAuthorization(applicant.id).join();
+  }
+
+  @Test
+  public void checkAuthorization_removedFromTrustedIntermediaryGroup_fails() {
+    UserRepository userRepository = instanceOf(UserRepository.class);
+    TrustedIntermediaryGroup group =
+        userRepository.createNewTrustedIntermediaryGroup("group", "description");
+    Account managed = resourceCreator.insertAccount();
+    managed.setManagedByGroup(group);
+    managed.save();
+    Applicant applicant = resourceCreator.insertApplicant();
+    applicant.setAccount(managed);
+    applicant.save();
+    // The profile still names the group, but the account is no longer a member.
+    UatProfileData data = new UatProfileData(resourceCreator.insertAccount().id);
+    data.setTrustedIntermediaryGroupId(Optional.of(group.id));
+
+    assertThatThrownBy(
+            () -> profileFactory.wrapProfileData(data).checkAuthorization(applicant.id).join())
+        .hasCauseInstanceOf(SecurityException.class);
+  }
 }
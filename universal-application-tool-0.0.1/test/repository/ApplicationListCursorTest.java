@@ -0,0 +1,26 @@
+package repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Instant;
+import org.junit.Test;
+
+public class ApplicationListCursorTest {
+
+  @Test
+  public void toToken_roundTrips() {
+    ApplicationListCursor cursor =
+        ApplicationListCursor.create(Instant.parse("2021-05-10T18:00:00.123456Z"), 42L);
+
+    assertThat(ApplicationListCursor.fromToken(cursor.toToken())).isEqualTo(cursor);
+  }
+
+  @Test
+  public void fromToken_rejectsOtherStrings() {
+    assertThatThrownBy(() -> ApplicationListCursor.fromToken("not-a-cursor"))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> ApplicationListCursor.fromToken("a.b.c"))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -2,7 +2,10 @@ package repository;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import com.google.common.collect.ImmutableList;
 import java.time.Instant;
+import java.util.Optional;
+import models.Account;
 import models.Applicant;
 import models.Application;
 import models.LifecycleStage;
@@ -10,6 +13,7 @@ import models.Program;
 import org.junit.Before;
 import org.junit.Test;
 import services.Path;
+import services.WellKnownPaths;
 
 public class ApplicationRepositoryTest extends WithPostgresContainer {
   private ApplicationRepository repo;
@@ -65,6 +69,175 @@ public class ApplicationRepositoryTest extends WithPostgresContainer {
     assertThat(applicationTwo.getSubmitTime()).isAfter(initialSubmitTime);
   }
 
+  @Test
+  public void listProgramApplications_pagesInOrder() {
+    Program program = saveProgram("Program");
+    Applicant alice = new Applicant();
+    alice.getApplicantData().putString(WellKnownPaths.APPLICANT_FIRST_NAME, "Alice");
+    alice.getApplicantData().putString(WellKnownPaths.APPLICANT_LAST_NAME, "Appleton");
+    alice.save();
+    Application first = repo.submitApplication(alice, program).toCompletableFuture().join();
+    Application second =
+        repo.submitApplication(saveApplicant("Bob"), program).toCompletableFuture().join();
+    Application third =
+        repo.submitApplication(saveApplicant("Carol"), program).toCompletableFuture().join();
+    repo.submitApplication(saveApplicant("Dave"), saveProgram("OtherProgram"))
+        .toCompletableFuture()
+        .join();
+
+    ApplicationListPage firstPage =
+        repo.listProgramApplications(
+                program.id,
+                ApplicationListOrder.NEWEST_FIRST,
+                Optional.empty(),
+                Optional.empty(),
+                2)
+            .toCompletableFuture()
+            .join();
+    ApplicationListPage secondPage =
+        repo.listProgramApplications(
+                program.id,
+                ApplicationListOrder.NEWEST_FIRST,
+                Optional.empty(),
+                firstPage.next(),
+                2)
+            .toCompletableFuture()
+            .join();
+
+    assertThat(firstPage.items().stream().map(ApplicationListItem::applicationId))
+        .containsExactly(third.id, second.id);
+    assertThat(firstPage.next()).isPresent();
+    assertThat(secondPage.items().stream().map(ApplicationListItem::applicationId))
+        .containsExactly(first.id);
+    assertThat(secondPage.next()).isEmpty();
+    assertThat(secondPage.items().get(0).applicantId()).isEqualTo(alice.id);
+    assertThat(secondPage.items().get(0).applicantName()).isEqualTo("Appleton, Alice");
+    assertThat(firstPage.items().get(0).applicantName()).isEqualTo("<Anonymous Applicant>");
+  }
+
+  @Test
+  public void listProgramApplications_oldestFirst_capsPageSize() {
+    Program program = saveProgram("Program");
+    Application first =
+        repo.submitApplication(saveApplicant("Alice"), program).toCompletableFuture().join();
+    repo.submitApplication(saveApplicant("Bob"), program).toCompletableFuture().join();
+
+    ApplicationListPage page =
+        repo.listProgramApplications(
+                program.id,
+                ApplicationListOrder.OLDEST_FIRST,
+                Optional.empty(),
+                Optional.empty(),
+                1)
+            .toCompletableFuture()
+            .join();
+    ApplicationListPage all =
+        repo.listProgramApplications(
+                program.id,
+                ApplicationListOrder.OLDEST_FIRST,
+                Optional.empty(),
+                Optional.empty(),
+                100_000)
+            .toCompletableFuture()
+            .join();
+
+    assertThat(page.items()).hasSize(1);
+    assertThat(page.items().get(0).applicationId()).isEqualTo(first.id);
+    assertThat(all.items()).hasSize(2);
+    assertThat(all.next()).isEmpty();
+  }
+
+  @Test
+  public void listProgramApplications_byName_pagesAlphabetically() {
+    Program program = saveProgram("Program");
+    Application carol =
+        repo.submitApplication(saveNamedApplicant("Carol", "Cole"), program)
+            .toCompletableFuture()
+            .join();
+    Application anonymous =
+        repo.submitApplication(saveApplicant("Nobody"), program).toCompletableFuture().join();
+    Application alice =
+        repo.submitApplication(saveNamedApplicant("Alice", "appleton"), program)
+            .toCompletableFuture()
+            .join();
+    Application bob =
+        repo.submitApplication(saveNamedApplicant("Bob", "Baker"), program)
+            .toCompletableFuture()
+            .join();
+
+    ApplicationListPage firstPage =
+        repo.listProgramApplications(
+                program.id, ApplicationListOrder.NAME, Optional.empty(), Optional.empty(), 2)
+            .toCompletableFuture()
+            .join();
+    ApplicationListPage secondPage =
+        repo.listProgramApplications(
+                program.id, ApplicationListOrder.NAME, Optional.empty(), firstPage.next(), 2)
+            .toCompletableFuture()
+            .join();
+
+    assertThat(firstPage.items().stream().map(ApplicationListItem::applicationId))
+        .containsExactly(anonymous.id, alice.id);
+    assertThat(secondPage.items().stream().map(ApplicationListItem::applicationId))
+        .containsExactly(bob.id, carol.id);
+    assertThat(secondPage.next()).isEmpty();
+  }
+
+  @Test
+  public void listProgramApplications_searchesNamesAndEmail() {
+    Program program = saveProgram("Program");
+    Account account = new Account();
+    account.setEmailAddress("alice@example.com");
+    account.save();
+    Applicant alice = new Applicant();
+    alice.setAccount(account);
+    alice.getApplicantData().putString(WellKnownPaths.APPLICANT_FIRST_NAME, "Alice");
+    alice.getApplicantData().putString(WellKnownPaths.APPLICANT_LAST_NAME, "Appleton");
+    alice.save();
+    Application aliceApplication =
+        repo.submitApplication(alice, program).toCompletableFuture().join();
+    Applicant bob = new Applicant();
+    bob.getApplicantData().putString(WellKnownPaths.APPLICANT_FIRST_NAME, "Bob");
+    bob.getApplicantData().putString(WellKnownPaths.APPLICANT_LAST_NAME, "Baker");
+    bob.save();
+    repo.submitApplication(bob, program).toCompletableFuture().join();
+
+    assertThat(search(program, "apple")).containsExactly(aliceApplication.id);
+    assertThat(search(program, "EXAMPLE.com")).containsExactly(aliceApplication.id);
+    assertThat(search(program, "b")).hasSize(1);
+    assertThat(search(program, "%")).isEmpty();
+    assertThat(search(program, " ")).hasSize(2);
+    assertThat(
+            repo.listProgramApplications(
+                    program.id,
+                    ApplicationListOrder.NEWEST_FIRST,
+                    Optional.of("alice"),
+                    Optional.empty(),
+                    10)
+                .toCompletableFuture()
+                .join()
+                .items()
+                .get(0)
+                .emailAddress())
+        .contains("alice@example.com");
+  }
+
+  private ImmutableList<Long> search(Program program, String search) {
+    return repo
+        .listProgramApplications(
+            program.id,
+            ApplicationListOrder.NEWEST_FIRST,
+            Optional.of(search),
+            Optional.empty(),
+            10)
+        .toCompletableFuture()
+        .join()
+        .items()
+        .stream()
+        .map(ApplicationListItem::applicationId)
+        .collect(ImmutableList.toImmutableList());
+  }
+
   private Applicant saveApplicant(String name) {
     Applicant applicant = new Applicant();
     applicant.getApplicantData().putString(Path.create("$.applicant.name"), name);
@@ -72,6 +245,14 @@ public class ApplicationRepositoryTest extends WithPostgresContainer {
     return applicant;
   }
 
+  private Applicant saveNamedApplicant(String firstName, String lastName) {
+    Applicant applicant = new Applicant();
+    applicant.getApplicantData().putString(WellKnownPaths.APPLICANT_FIRST_NAME, firstName);
+    applicant.getApplicantData().putString(WellKnownPaths.APPLICANT_LAST_NAME, lastName);
+    applicant.save();
+    return applicant;
+  }
+
   private Program saveProgram(String name) {
     Program program = new Program(name, "desc", name, "desc");
     program.save();
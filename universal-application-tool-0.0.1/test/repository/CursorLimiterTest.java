@@ -0,0 +1,62 @@
+package repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.typesafe.config.ConfigFactory;
+import io.ebean.QueryIterator;
+import org.junit.Test;
+
+public class CursorLimiterTest {
+
+  private final CursorLimiter limiter =
+      new CursorLimiter(
+          ConfigFactory.parseString(
+              "database.cursor_streams = 1\ndatabase.cursor_wait = 10 milliseconds"));
+
+  @Test
+  public void open_waitsForAnOpenCursorToClose() {
+    QueryIterator<String> first = limiter.open(() -> cursor());
+
+    assertThatThrownBy(() -> limiter.open(() -> cursor()))
+        .isInstanceOf(IllegalStateException.class);
+
+    first.close();
+    assertThat(limiter.open(() -> cursor())).isNotNull();
+  }
+
+  @Test
+  public void close_closesTheCursorAndFreesItsPlaceOnce() {
+    QueryIterator<String> underlying = cursor();
+    QueryIterator<String> first = limiter.open(() -> underlying);
+
+    first.close();
+    first.close();
+
+    verify(underlying, times(1)).close();
+    limiter.open(() -> cursor());
+    assertThatThrownBy(() -> limiter.open(() -> cursor()))
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  public void open_failingToOpen_freesItsPlace() {
+    assertThatThrownBy(
+            () ->
+                limiter.open(
+                    () -> {
+                      throw new RuntimeException("no cursor");
+                    }))
+        .hasMessage("no cursor");
+
+    assertThat(limiter.open(() -> cursor())).isNotNull();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static QueryIterator<String> cursor() {
+    return mock(QueryIterator.class);
+  }
+}
@@ -0,0 +1,65 @@
+package repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+
+public class ExecutorMetricsTest {
+
+  private final AtomicLong nanoTime = new AtomicLong();
+  private final ExecutorMetrics metrics = new ExecutorMetrics(nanoTime::get);
+
+  @Test
+  public void snapshot_countsWaitingTasks() {
+    metrics.submitted(() -> {});
+    metrics.submitted(() -> {});
+
+    ExecutorMetrics.Snapshot snapshot = metrics.snapshotAndReset();
+
+    assertThat(snapshot.queueDepth()).isEqualTo(2);
+    assertThat(snapshot.started()).isEqualTo(0);
+    assertThat(snapshot.isIdle()).isFalse();
+  }
+
+  @Test
+  public void snapshot_recordsHowLongStartedTasksWaited() {
+    AtomicReference<String> ran = new AtomicReference<>();
+    Runnable first = metrics.submitted(() -> ran.set("first"));
+    nanoTime.addAndGet(Duration.ofMillis(10).toNanos());
+    Runnable second = metrics.submitted(() -> ran.set("second"));
+    nanoTime.addAndGet(Duration.ofMillis(20).toNanos());
+
+    first.run();
+    second.run();
+    ExecutorMetrics.Snapshot snapshot = metrics.snapshotAndReset();
+
+    assertThat(ran.get()).isEqualTo("second");
+    assertThat(snapshot.queueDepth()).isEqualTo(0);
+    assertThat(snapshot.started()).isEqualTo(2);
+    assertThat(snapshot.meanWait()).isEqualTo(Duration.ofMillis(25));
+    assertThat(snapshot.maxWait()).isEqualTo(Duration.ofMillis(30));
+  }
+
+  @Test
+  public void snapshot_startsCountingAgain() {
+    metrics.submitted(() -> {}).run();
+    metrics.snapshotAndReset();
+
+    ExecutorMetrics.Snapshot snapshot = metrics.snapshotAndReset();
+
+    assertThat(snapshot.started()).isEqualTo(0);
+    assertThat(snapshot.maxWait()).isEqualTo(Duration.ZERO);
+    assertThat(snapshot.isIdle()).isTrue();
+  }
+
+  @Test
+  public void rejected_isNoLongerWaiting() {
+    metrics.submitted(() -> {});
+    metrics.rejected();
+
+    assertThat(metrics.snapshotAndReset().queueDepth()).isEqualTo(0);
+  }
+}
@@ -0,0 +1,78 @@
+package repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.UUID;
+import models.ExportJob;
+import models.ExportJobStatus;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ExportJobRepositoryTest extends WithPostgresContainer {
+
+  private static final Duration LEASE = Duration.ofMinutes(1);
+
+  private ExportJobRepository repo;
+
+  @Before
+  public void setUp() {
+    repo = instanceOf(ExportJobRepository.class);
+  }
+
+  @Test
+  public void claimNextJob_claimsEachQueuedJobOnce_inOrder() {
+    ExportJob first = repo.insertJob(1L).toCompletableFuture().join();
+    ExportJob second = repo.insertJob(2L).toCompletableFuture().join();
+
+    ExportJob claimed = repo.claimNextJobSync(LEASE).get();
+    assertThat(claimed.id).isEqualTo(first.id);
+    assertThat(claimed.getStatus()).isEqualTo(ExportJobStatus.RUNNING);
+    assertThat(claimed.getLeaseExpirationTime()).isPresent();
+
+    assertThat(repo.claimNextJobSync(LEASE).get().id).isEqualTo(second.id);
+    assertThat(repo.claimNextJobSync(LEASE)).isEmpty();
+  }
+
+  @Test
+  public void claimNextJob_reclaimsRunningJobWhoseLeaseExpired() {
+    ExportJob job = repo.insertJob(1L).toCompletableFuture().join();
+    repo.claimNextJobSync(Duration.ofMillis(-1));
+
+    assertThat(repo.claimNextJobSync(LEASE).get().id).isEqualTo(job.id);
+  }
+
+  @Test
+  public void updateProgressAndMarkSucceeded() {
+    ExportJob job = repo.insertJob(1L).toCompletableFuture().join();
+    UUID leaseToken = repo.claimNextJobSync(LEASE).get().getLeaseToken().get();
+
+    assertThat(repo.updateProgressSync(job.id, leaseToken, 100, 250, LEASE)).isTrue();
+    ExportJob running = repo.lookupJob(job.id).toCompletableFuture().join().get();
+    assertThat(running.getRowsExported()).isEqualTo(100);
+    assertThat(running.getTotalRows()).hasValue(250L);
+
+    assertThat(repo.markSucceededSync(job.id, leaseToken, 250, "key")).isTrue();
+    ExportJob succeeded = repo.lookupJob(job.id).toCompletableFuture().join().get();
+    assertThat(succeeded.getStatus()).isEqualTo(ExportJobStatus.SUCCEEDED);
+    assertThat(succeeded.getObjectKey()).hasValue("key");
+    assertThat(repo.claimNextJobSync(LEASE)).isEmpty();
+  }
+
+  @Test
+  public void writesWithAnExpiredClaim_areRejectedOnceReclaimed() {
+    ExportJob job = repo.insertJob(1L).toCompletableFuture().join();
+    UUID staleToken = repo.claimNextJobSync(Duration.ofMillis(-1)).get().getLeaseToken().get();
+    UUID leaseToken = repo.claimNextJobSync(LEASE).get().getLeaseToken().get();
+    assertThat(leaseToken).isNotEqualTo(staleToken);
+
+    assertThat(repo.updateProgressSync(job.id, staleToken, 100, 250, LEASE)).isFalse();
+    assertThat(repo.markSucceededSync(job.id, staleToken, 250, "stale")).isFalse();
+    assertThat(repo.markFailedSync(job.id, staleToken, "stale")).isFalse();
+
+    ExportJob running = repo.lookupJob(job.id).toCompletableFuture().join().get();
+    assertThat(running.getStatus()).isEqualTo(ExportJobStatus.RUNNING);
+    assertThat(running.getObjectKey()).isEmpty();
+    assertThat(repo.markFailedSync(job.id, leaseToken, "error")).isTrue();
+  }
+}
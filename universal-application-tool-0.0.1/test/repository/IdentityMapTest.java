@@ -0,0 +1,98 @@
+package repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import models.Account;
+import models.Applicant;
+import models.BaseModel;
+import org.junit.Test;
+import play.mvc.Http;
+
+public class IdentityMapTest {
+
+  @Test
+  public void get_loadsEachRowOnce() {
+    IdentityMap identityMap = new IdentityMap();
+    Applicant applicant = new Applicant();
+    AtomicInteger loads = new AtomicInteger();
+    Supplier<CompletionStage<Optional<Applicant>>> load =
+        () -> {
+          loads.incrementAndGet();
+          return CompletableFuture.completedFuture(Optional.of(applicant));
+        };
+
+    Optional<Applicant> first =
+        identityMap.get(Applicant.class, 1L, load).toCompletableFuture().join();
+    Optional<Applicant> second =
+        identityMap.get(Applicant.class, 1L, load).toCompletableFuture().join();
+
+    assertThat(first).containsSame(applicant);
+    assertThat(second).containsSame(applicant);
+    assertThat(loads.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void get_keysByTypeAndId() {
+    IdentityMap identityMap = new IdentityMap();
+    Applicant one = new Applicant();
+    Applicant two = new Applicant();
+    Account account = new Account();
+
+    identityMap.get(Applicant.class, 1L, () -> CompletableFuture.completedFuture(Optional.of(one)));
+    identityMap.get(Applicant.class, 2L, () -> CompletableFuture.completedFuture(Optional.of(two)));
+    identityMap.get(
+        Account.class, 1L, () -> CompletableFuture.completedFuture(Optional.of(account)));
+
+    assertThat(getLoaded(identityMap, Applicant.class, 1L)).containsSame(one);
+    assertThat(getLoaded(identityMap, Applicant.class, 2L)).containsSame(two);
+    assertThat(getLoaded(identityMap, Account.class, 1L)).containsSame(account);
+  }
+
+  @Test
+  public void get_remembersMissingRowsAndFailures() {
+    IdentityMap identityMap = new IdentityMap();
+    identityMap.get(Applicant.class, 1L, () -> CompletableFuture.completedFuture(Optional.empty()));
+    identityMap.get(
+        Applicant.class,
+        2L,
+        () -> CompletableFuture.failedFuture(new IllegalStateException("failed")));
+
+    assertThat(getLoaded(identityMap, Applicant.class, 1L)).isEmpty();
+    assertThatThrownBy(() -> getLoaded(identityMap, Applicant.class, 2L))
+        .hasCauseInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  public void forRequest_returnsTheAttachedMap() {
+    Http.RequestHeader request = IdentityMap.attachTo(new Http.RequestBuilder().build());
+
+    assertThat(IdentityMap.forRequest(request)).isSameAs(IdentityMap.forRequest(request));
+  }
+
+  @Test
+  public void forRequest_withoutAttachedMap_returnsNewMaps() {
+    Http.RequestHeader request = new Http.RequestBuilder().build();
+
+    assertThat(IdentityMap.forRequest(request)).isNotSameAs(IdentityMap.forRequest(request));
+  }
+
+  /** The row the map already holds, which fails the test if it would be loaded. */
+  private static <T extends BaseModel> Optional<T> getLoaded(
+      IdentityMap identityMap, Class<T> type, long id) {
+    return identityMap
+        .get(
+            type,
+            id,
+            () -> {
+              throw new AssertionError("Loaded again");
+            })
+        .toCompletableFuture()
+        .join();
+  }
+}
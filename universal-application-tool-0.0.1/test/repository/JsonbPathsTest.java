@@ -0,0 +1,28 @@
+package repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import services.Path;
+
+public class JsonbPathsTest {
+
+  @Test
+  public void keys_splitsArrayIndices() {
+    assertThat(JsonbPaths.keys(Path.create("applicant.children[2].jobs[0].name")))
+        .containsExactly("applicant", "children", "2", "jobs", "0", "name");
+  }
+
+  @Test
+  public void keys_trailingArrayReference_isTheArray() {
+    assertThat(JsonbPaths.keys(Path.create("applicant.children[1].jobs[]")))
+        .containsExactly("applicant", "children", "1", "jobs");
+  }
+
+  @Test
+  public void toTextArray_quotesAndEscapesKeys() {
+    assertThat(JsonbPaths.toTextArray(ImmutableList.of("applicant", "a \"b\"", "c\\d")))
+        .isEqualTo("{\"applicant\",\"a \\\"b\\\"\",\"c\\\\d\"}");
+  }
+}
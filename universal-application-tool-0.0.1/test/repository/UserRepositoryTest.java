@@ -2,6 +2,9 @@ package repository;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import com.google.common.collect.ImmutableList;
+import io.ebean.Ebean;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.Set;
 import models.Account;
@@ -9,6 +12,7 @@ import models.Applicant;
 import org.junit.Before;
 import org.junit.Test;
 import services.Path;
+import services.applicant.ApplicantData;
 import services.program.ProgramDefinition;
 import support.ProgramBuilder;
 
@@ -55,6 +59,40 @@ public class UserRepositoryTest extends WithPostgresContainer {
     assertThat(found).hasValue(two);
   }
 
+  @Test
+  public void lookupApplicant_withIdentityMap_returnsTheSameApplicant() {
+    Applicant applicant = saveApplicant("Alice");
+    IdentityMap identityMap = new IdentityMap();
+
+    Applicant first =
+        repo.lookupApplicant(applicant.id, identityMap).toCompletableFuture().join().get();
+    Applicant second =
+        repo.lookupApplicant(applicant.id, identityMap).toCompletableFuture().join().get();
+    Applicant withoutMap = repo.lookupApplicant(applicant.id).toCompletableFuture().join().get();
+
+    assertThat(second).isSameAs(first);
+    assertThat(withoutMap).isNotSameAs(first);
+  }
+
+  @Test
+  public void mergeApplicants_advancesThePreviousAccountsApplicantsVersion() {
+    Account guestAccount = resourceCreator.insertAccount();
+    Applicant guest = resourceCreator.insertApplicant();
+    guest.setAccount(guestAccount);
+    guest.save();
+    Account account = resourceCreator.insertAccount();
+    account.setEmailAddress("alice@example.com");
+    account.save();
+    Applicant existing = resourceCreator.insertApplicant();
+    existing.setAccount(account);
+    existing.save();
+
+    repo.mergeApplicants(guest, existing, account).toCompletableFuture().join();
+
+    assertThat(applicantsVersion(guestAccount.id)).isEqualTo(1L);
+    assertThat(applicantsVersion(account.id)).isEqualTo(0L);
+  }
+
   @Test
   public void insertApplicant() {
     Applicant applicant = new Applicant();
@@ -84,6 +122,68 @@ public class UserRepositoryTest extends WithPostgresContainer {
     assertThat(a.getApplicantData().readString(Path.create(path))).hasValue("1/1/2021");
   }
 
+  @Test
+  public void updateApplicant_writesOnlyChangedSubtrees() {
+    Applicant applicant = new Applicant();
+    applicant.getApplicantData().putString(Path.create("applicant.name.first"), "Alice");
+    applicant
+        .getApplicantData()
+        .putRepeatedEntities(Path.create("applicant.children[]"), ImmutableList.of("Bob", "Carol"));
+    repo.insertApplicant(applicant).toCompletableFuture().join();
+
+    Applicant found = repo.lookupApplicant(applicant.id).toCompletableFuture().join().get();
+    ApplicantData data = found.getApplicantData();
+    data.putString(Path.create("applicant.name.last"), "Smith");
+    data.putString(Path.create("applicant.children[1].age.number"), "4");
+    data.putString(Path.create("applicant.children[2].entity_name"), "Dan");
+    data.setPreferredLocale(Locale.FRENCH);
+    assertThat(data.changedSubtrees()).isPresent();
+
+    repo.updateApplicant(found).toCompletableFuture().join();
+
+    ApplicantData saved =
+        repo.lookupApplicant(applicant.id).toCompletableFuture().join().get().getApplicantData();
+    assertThat(saved).isEqualTo(data);
+    assertThat(saved.preferredLocale()).isEqualTo(Locale.FRENCH);
+    assertThat(data.changedSubtrees()).hasValue(ImmutableList.of());
+  }
+
+  @Test
+  public void getApplicantName_readsNameColumnsKeptUpByPartialUpdates() {
+    Applicant applicant = new Applicant();
+    applicant.getApplicantData().putString(Path.create("applicant.name.first"), "Alice");
+    repo.insertApplicant(applicant).toCompletableFuture().join();
+
+    Applicant found = repo.lookupApplicant(applicant.id).toCompletableFuture().join().get();
+    found.getApplicantData().putString(Path.create("applicant.name.last"), "Smith");
+    assertThat(found.getApplicantData().changedSubtrees()).isPresent();
+    repo.updateApplicant(found).toCompletableFuture().join();
+
+    Applicant reloaded = repo.lookupApplicant(applicant.id).toCompletableFuture().join().get();
+    assertThat(reloaded.getApplicantName()).isEqualTo("Smith, Alice");
+  }
+
+  @Test
+  public void updateApplicant_afterDeletingEntities_writesWholeArray() {
+    Applicant applicant = new Applicant();
+    applicant
+        .getApplicantData()
+        .putRepeatedEntities(
+            Path.create("applicant.children[]"), ImmutableList.of("Bob", "Carol", "Dan"));
+    repo.insertApplicant(applicant).toCompletableFuture().join();
+
+    Applicant found = repo.lookupApplicant(applicant.id).toCompletableFuture().join().get();
+    found
+        .getApplicantData()
+        .deleteRepeatedEntities(Path.create("applicant.children[]"), ImmutableList.of(0, 2));
+    repo.updateApplicant(found).toCompletableFuture().join();
+
+    ApplicantData saved =
+        repo.lookupApplicant(applicant.id).toCompletableFuture().join().get().getApplicantData();
+    assertThat(saved.readRepeatedEntities(Path.create("applicant.children[]")))
+        .containsExactly("Carol");
+  }
+
   @Test
   public void lookupApplicantSync_returnsEmptyOptionalWhenApplicantNotFound() {
     Optional<Applicant> found = repo.lookupApplicantSync(1L);
@@ -181,4 +281,8 @@ public class UserRepositoryTest extends WithPostgresContainer {
     applicant.save();
     return applicant;
   }
+
+  private static long applicantsVersion(long accountId) {
+    return Ebean.find(Account.class).setId(accountId).findOne().getApplicantsVersion();
+  }
 }
@@ -0,0 +1,75 @@
+package repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.ebean.Ebean;
+import io.ebean.EbeanServer;
+import java.util.function.BooleanSupplier;
+import org.junit.Before;
+import org.junit.Test;
+import play.db.ebean.EbeanConfig;
+
+public class VersionCacheListenerTest extends WithPostgresContainer {
+
+  private static final long TIMEOUT_MILLIS = 5000;
+
+  private VersionCacheListener listener;
+  private VersionCache versionCache;
+  private EbeanServer ebeanServer;
+
+  @Before
+  public void setUp() {
+    // The listener is an eager singleton, so it is already listening.
+    listener = instanceOf(VersionCacheListener.class);
+    versionCache = instanceOf(VersionCache.class);
+    ebeanServer = Ebean.getServer(instanceOf(EbeanConfig.class).defaultServer());
+  }
+
+  @Test
+  public void notificationFromAnotherServer_clearsCache() throws Exception {
+    VersionCache.Generation generation = versionCache.current();
+
+    ebeanServer
+        .createSqlQuery("SELECT nextval('version_cache_generation'), pg_notify(?, ?)")
+        .setParameter(1, VersionCache.CHANNEL)
+        .setParameter(2, "another server")
+        .findOne();
+
+    assertThat(awaitNewGeneration(generation)).isTrue();
+  }
+
+  @Test
+  public void invalidate_onThisServer_clearsCacheOnce() throws Exception {
+    long published = currentGeneration();
+    versionCache.invalidate();
+    VersionCache.Generation generation = versionCache.current();
+
+    // Wait for the notification to be published, and for the listener to receive it and ignore it.
+    assertThat(await(() -> currentGeneration() > published)).isTrue();
+    assertThat(await(() -> listener.lastGeneration() > published)).isTrue();
+    assertThat(versionCache.current()).isSameAs(generation);
+  }
+
+  private long currentGeneration() {
+    return ebeanServer
+        .createSqlQuery("SELECT last_value FROM version_cache_generation")
+        .findOne()
+        .getLong("last_value");
+  }
+
+  private boolean await(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+    while (System.currentTimeMillis() < deadline) {
+      if (condition.getAsBoolean()) {
+        return true;
+      }
+      Thread.sleep(10);
+    }
+    return false;
+  }
+
+  private boolean awaitNewGeneration(VersionCache.Generation generation)
+      throws InterruptedException {
+    return await(() -> versionCache.current() != generation);
+  }
+}
@@ -0,0 +1,65 @@
+package repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.ebean.Ebean;
+import io.ebean.EbeanServer;
+import io.ebean.Transaction;
+import models.Program;
+import org.junit.Before;
+import org.junit.Test;
+import play.db.ebean.EbeanConfig;
+import services.program.ProgramDefinition;
+import services.program.ProgramService;
+
+public class VersionCacheTest extends WithPostgresContainer {
+
+  private VersionCache versionCache;
+  private ProgramService programService;
+  private ProgramRepository programRepository;
+
+  @Before
+  public void setUp() {
+    versionCache = instanceOf(VersionCache.class);
+    programService = instanceOf(ProgramService.class);
+    programRepository = instanceOf(ProgramRepository.class);
+  }
+
+  @Test
+  public void getProgramDefinition_isCachedUntilTheProgramChanges() throws Exception {
+    Program program = resourceCreator.insertDraftProgram("program");
+
+    ProgramDefinition first = programService.getProgramDefinition(program.id);
+    assertThat(programService.getProgramDefinition(program.id)).isSameAs(first);
+
+    programRepository.updateProgramSync(
+        first.toBuilder().setAdminDescription("new description").build().toProgram());
+
+    ProgramDefinition updated = programService.getProgramDefinition(program.id);
+    assertThat(updated).isNotSameAs(first);
+    assertThat(updated.adminDescription()).isEqualTo("new description");
+  }
+
+  @Test
+  public void invalidate_insideTransaction_dropsValuesLoadedBeforeItEnds() {
+    EbeanServer ebeanServer = Ebean.getServer(instanceOf(EbeanConfig.class).defaultServer());
+    VersionCache.Generation generation;
+    try (Transaction transaction = ebeanServer.beginTransaction()) {
+      versionCache.invalidate();
+      generation = versionCache.current();
+      transaction.commit();
+    }
+
+    assertThat(versionCache.current()).isNotSameAs(generation);
+  }
+
+  @Test
+  public void publishNewSynchronizedVersion_invalidates() {
+    resourceCreator.insertDraftProgram("program");
+    VersionCache.Generation generation = versionCache.current();
+
+    instanceOf(VersionRepository.class).publishNewSynchronizedVersion();
+
+    assertThat(versionCache.current()).isNotSameAs(generation);
+  }
+}
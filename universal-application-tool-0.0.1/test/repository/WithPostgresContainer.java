@@ -61,6 +61,7 @@ public class WithPostgresContainer {
     Models.truncate(server);
     Version newActiveVersion = new Version(LifecycleStage.ACTIVE);
     newActiveVersion.save();
+    app.injector().instanceOf(VersionCache.class).invalidate();
   }
 
   @Before
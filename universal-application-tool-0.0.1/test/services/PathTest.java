@@ -207,4 +207,31 @@ public class PathTest {
 
     assertThat(path.startsWith(other)).isFalse();
   }
+
+  @Test
+  public void equalPaths_areTheSameInstance() {
+    Path created = Path.create("applicant.children[2].name");
+    Path joined = Path.create("applicant").join("children[]").atIndex(2).join("NAME");
+
+    assertThat(joined).isSameAs(created);
+    assertThat(Path.create("applicant.children[2]").atIndex(2).join("name")).isSameAs(created);
+  }
+
+  @Test
+  public void join_repeatedJoin_hitsCache() {
+    Path base = Path.create("applicant.join_cache_test");
+    base.join("first");
+    long hitsBefore = Path.joinCacheStats().hitCount();
+
+    base.join("first");
+
+    assertThat(Path.joinCacheStats().hitCount()).isGreaterThan(hitsBefore);
+  }
+
+  @Test
+  public void join_emptyPath_returnsSamePath() {
+    Path path = Path.create("applicant.name");
+
+    assertThat(path.join("")).isSameAs(path);
+  }
 }
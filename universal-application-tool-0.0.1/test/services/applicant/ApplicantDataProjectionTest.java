@@ -0,0 +1,58 @@
+package services.applicant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.util.Optional;
+import org.junit.Test;
+import services.Path;
+
+public class ApplicantDataProjectionTest {
+
+  private static final ApplicantData DATA =
+      new ApplicantData(
+          "{\"applicant\":{"
+              + "\"name\":{\"first_name\":\"Alice\",\"last_name\":\"Smith\"},"
+              + "\"age\":{\"number\":42},"
+              + "\"colors\":{\"selection\":[1,2]},"
+              + "\"pets\":{\"names\":[\"cat\",\"dog\"]},"
+              + "\"household\":[{\"job\":{\"text\":\"baker\"}},{\"job\":{\"text\":\"chef\"}}],"
+              + "\"nothing\":null}}");
+
+  @Test
+  public void readAsStrings_matchesReadAsString_inCompiledOrder() {
+    ImmutableList<Path> paths =
+        ImmutableList.of(
+            Path.create("applicant.name.last_name"),
+            Path.create("$.applicant.age.number"),
+            Path.create("applicant.household[1].job.text"),
+            Path.create("applicant.colors.selection"),
+            Path.create("applicant.name.first_name"),
+            Path.create("applicant.household[0].job.text"),
+            Path.create("applicant.pets.names"),
+            Path.create("applicant.name"),
+            Path.create("applicant.nothing"),
+            Path.create("applicant.missing.text"),
+            Path.create("applicant.household[2].job.text"),
+            Path.create("applicant.name.last_name"));
+
+    ImmutableList<Optional<String>> values =
+        ApplicantDataProjection.compile(paths).readAsStrings(DATA);
+
+    assertThat(values).hasSize(paths.size());
+    for (int i = 0; i < paths.size(); i++) {
+      assertThat(values.get(i)).isEqualTo(DATA.readAsString(paths.get(i)));
+    }
+    assertThat(values.get(0)).hasValue("Smith");
+    assertThat(values.get(1)).hasValue("42");
+    assertThat(values.get(2)).hasValue("chef");
+    assertThat(values.get(3)).hasValue("[1, 2]");
+    assertThat(values.get(7)).isEmpty();
+    assertThat(values.get(10)).isEmpty();
+  }
+
+  @Test
+  public void readAsStrings_noPaths_isEmpty() {
+    assertThat(ApplicantDataProjection.compile(ImmutableList.of()).readAsStrings(DATA)).isEmpty();
+  }
+}
@@ -4,12 +4,18 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.testing.EqualsTester;
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.PathNotFoundException;
+import java.util.LinkedHashMap;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import org.junit.Test;
 import services.Path;
 import services.applicant.predicate.JsonPathPredicate;
+import services.applicant.question.Scalar;
 
 public class ApplicantDataTest {
 
@@ -201,7 +207,6 @@ public class ApplicantDataTest {
     assertThat(data.asJsonString()).isEqualTo(expected);
   }
 
-  // TODO(#624): get rid of this recursion
   @Test
   public void putString_withNthRepeatedEntity_withoutFirstRepeatedEntity_isOK() {
     ApplicantData data = new ApplicantData();
@@ -277,6 +282,75 @@ public class ApplicantDataTest {
             "{\"applicant\":{\"children\":[{\"entity_name\":\"alice\"},{\"entity_name\":\"bob\",\"pets\":[{\"entity_name\":\"bubbles\"},{\"entity_name\":\"luna\"},{\"entity_name\":\"taco\"}]}]}}");
   }
 
+  @Test
+  public void batch_writesAllValues() {
+    ApplicantData data = new ApplicantData();
+
+    data.batch()
+        .putString(Path.create("applicant.name.first"), "Alice")
+        .putString(Path.create("applicant.name.middle"), "")
+        .putLong(Path.create("applicant.age.number"), "42")
+        .putLong(Path.create("applicant.age.updated_at"), 123L)
+        .putDate(Path.create("applicant.birthday.date"), "2021-01-02")
+        .apply();
+
+    assertThat(data.readString(Path.create("applicant.name.first"))).hasValue("Alice");
+    assertThat(data.hasPath(Path.create("applicant.name.middle"))).isTrue();
+    assertThat(data.hasValueAtPath(Path.create("applicant.name.middle"))).isFalse();
+    assertThat(data.readLong(Path.create("applicant.age.number"))).hasValue(42L);
+    assertThat(data.readLong(Path.create("applicant.age.updated_at"))).hasValue(123L);
+    assertThat(data.readLong(Path.create("applicant.birthday.date"))).hasValue(1609545600000L);
+  }
+
+  @Test
+  public void applyAll_addsArrayElementsInIndexOrder() {
+    ApplicantData data = new ApplicantData();
+    Map<Path, Object> updates = new LinkedHashMap<>();
+    for (int i = 11; i >= 0; i--) {
+      updates.put(Path.create("applicant.allergies[" + i + "]"), "allergy " + i);
+    }
+    updates.put(Path.create("applicant.allergies[12]"), null);
+
+    data.applyAll(updates);
+
+    for (int i = 0; i < 12; i++) {
+      assertThat(data.readString(Path.create("applicant.allergies[" + i + "]")))
+          .hasValue("allergy " + i);
+    }
+    assertThat(data.hasPath(Path.create("applicant.allergies[12]"))).isFalse();
+  }
+
+  @Test
+  public void applyAll_withNthRepeatedEntity_padsParentList() {
+    ApplicantData data = new ApplicantData();
+
+    data.applyAll(
+        ImmutableMap.of(
+            Path.create("applicant.children[2].favorite_color.text"), "Orange",
+            Path.create("applicant.children[0].entity_name"), "Ann"));
+
+    assertThat(data.asJsonString())
+        .isEqualTo(
+            "{\"applicant\":{\"children\":[{\"entity_name\":\"Ann\"},{},{\"favorite_color\":{\"text\":\"Orange\"}}]}}");
+  }
+
+  @Test
+  public void applyAll_keepsExistingData() {
+    ApplicantData data =
+        new ApplicantData("{\"applicant\":{\"children\":[{\"entity_name\":\"Ann\"}]}}");
+
+    data.applyAll(
+        ImmutableMap.of(
+            Path.create("applicant.children[0].age.number"),
+            4L,
+            Path.create("applicant.children[1].entity_name"),
+            "Bob"));
+
+    assertThat(data.asJsonString())
+        .isEqualTo(
+            "{\"applicant\":{\"children\":[{\"entity_name\":\"Ann\",\"age\":{\"number\":4}},{\"entity_name\":\"Bob\"}]}}");
+  }
+
   @Test
   public void readString_findsCorrectValue() throws Exception {
     String testData = "{ \"applicant\": { \"favorites\": { \"color\": \"orange\"} } }";
@@ -474,6 +548,132 @@ public class ApplicantDataTest {
                     Path.create("applicant.planets[]"), ImmutableList.of("earth", "mars")))
         .isInstanceOf(RuntimeException.class)
         .hasMessage("Cannot change ApplicantData after it has been locked.");
+    assertThatThrownBy(() -> data.batch().putString(Path.create("applicant.moon"), "Luna").apply())
+        .isInstanceOf(RuntimeException.class)
+        .hasMessage("Cannot change ApplicantData after it has been locked.");
+  }
+
+  @Test
+  public void snapshot_isLockedCopy() {
+    ApplicantData data = new ApplicantData(Optional.of(Locale.FRENCH), "{\"applicant\":{}}");
+    data.putString(Path.create("applicant.planet"), "Earth");
+
+    ApplicantData snapshot = data.snapshot();
+
+    assertThat(snapshot).isEqualTo(data);
+    assertThat(snapshot.preferredLocale()).isEqualTo(Locale.FRENCH);
+    assertThatThrownBy(() -> snapshot.putString(Path.create("applicant.planet"), "Mars"))
+        .isInstanceOf(RuntimeException.class)
+        .hasMessage("Cannot change ApplicantData after it has been locked.");
+  }
+
+  @Test
+  public void snapshot_doesNotSeeLaterWrites() {
+    ApplicantData data =
+        new ApplicantData(
+            "{\"applicant\":{\"name\":{\"first\":\"Alice\"},\"children\":["
+                + "{\"entity_name\":\"Bob\"},{\"entity_name\":\"Carol\"}],"
+                + "\"allergies\":[\"peanut\"]}}");
+    String before = data.asJsonString();
+    ApplicantData snapshot = data.snapshot();
+
+    data.putString(Path.create("applicant.name.first"), "Ann");
+    data.putString(Path.create("applicant.children[1].age"), "4");
+    data.putString(Path.create("applicant.allergies[1]"), "shellfish");
+    data.batch().putString(Path.create("applicant.children[2].entity_name"), "Dan").apply();
+    data.deleteRepeatedEntities(Path.create("applicant.children[]"), ImmutableList.of(0));
+    data.maybeClearArray(Path.create("applicant.allergies[0]"));
+
+    assertThat(snapshot.asJsonString()).isEqualTo(before);
+    assertThat(data.asJsonString())
+        .isEqualTo(
+            "{\"applicant\":{\"name\":{\"first\":\"Ann\"},\"children\":["
+                + "{\"entity_name\":\"Carol\",\"age\":\"4\"},{\"entity_name\":\"Dan\"}],"
+                + "\"allergies\":[]}}");
+  }
+
+  @Test
+  public void snapshot_ofSnapshot_sharesData() {
+    ApplicantData data = new ApplicantData();
+    data.putString(Path.create("applicant.planet"), "Earth");
+    ApplicantData first = data.snapshot();
+    data.putString(Path.create("applicant.planet"), "Mars");
+    ApplicantData second = data.snapshot();
+    data.putString(Path.create("applicant.planet"), "Venus");
+
+    assertThat(first.snapshot().readString(Path.create("applicant.planet"))).hasValue("Earth");
+    assertThat(second.readString(Path.create("applicant.planet"))).hasValue("Mars");
+    assertThat(data.readString(Path.create("applicant.planet"))).hasValue("Venus");
+  }
+
+  @Test
+  public void changedSubtrees_newData_isEmpty() {
+    ApplicantData data = new ApplicantData("{\"applicant\":{\"name\":{\"first\":\"Alice\"}}}");
+
+    assertThat(data.changedSubtrees()).hasValue(ImmutableList.of());
+  }
+
+  @Test
+  public void changedSubtrees_listsOutermostChanges() {
+    ApplicantData data =
+        new ApplicantData(
+            "{\"applicant\":{\"name\":{\"first\":\"Alice\"},"
+                + "\"children\":[{\"entity_name\":\"Bob\"}],\"allergies\":[\"peanut\"]}}");
+
+    data.putString(Path.create("applicant.name.first"), "Ann");
+    data.putString(Path.create("applicant.address.city"), "Seattle");
+    data.putLong(Path.create("applicant.children[0].age.number"), 4L);
+    data.putString(Path.create("applicant.children[0].age.updated_at"), "5");
+    data.putString(Path.create("applicant.allergies[1]"), "shellfish");
+
+    assertThat(data.changedSubtrees().get())
+        .containsExactlyInAnyOrder(
+            ApplicantData.ChangedSubtree.create(
+                ImmutableList.of("applicant", "name", "first"), "\"Ann\""),
+            ApplicantData.ChangedSubtree.create(
+                ImmutableList.of("applicant", "address"), "{\"city\":\"Seattle\"}"),
+            ApplicantData.ChangedSubtree.create(
+                ImmutableList.of("applicant", "children", "0", "age"),
+                "{\"number\":4,\"updated_at\":\"5\"}"),
+            ApplicantData.ChangedSubtree.create(
+                ImmutableList.of("applicant", "allergies"), "[\"peanut\",\"shellfish\"]"));
+  }
+
+  @Test
+  public void changedSubtrees_deletedEntities_listsWholeArray() {
+    ApplicantData data =
+        new ApplicantData(
+            "{\"applicant\":{\"children\":[{\"entity_name\":\"Bob\"},{\"entity_name\":\"Carol\"}]}}");
+
+    data.putString(Path.create("applicant.children[1].entity_name"), "Dan");
+    data.deleteRepeatedEntities(Path.create("applicant.children[]"), ImmutableList.of(0));
+
+    assertThat(data.changedSubtrees().get())
+        .containsExactly(
+            ApplicantData.ChangedSubtree.create(
+                ImmutableList.of("applicant", "children"), "[{\"entity_name\":\"Dan\"}]"));
+  }
+
+  @Test
+  public void changedSubtrees_newRoot_requiresWholeDocument() {
+    ApplicantData data = new ApplicantData("{}");
+
+    data.putString(Path.create("applicant.name.first"), "Alice");
+
+    assertThat(data.changedSubtrees().get())
+        .containsExactly(
+            ApplicantData.ChangedSubtree.create(
+                ImmutableList.of("applicant"), "{\"name\":{\"first\":\"Alice\"}}"));
+  }
+
+  @Test
+  public void markPersisted_clearsChangedSubtrees() {
+    ApplicantData data = new ApplicantData();
+    data.putString(Path.create("applicant.name.first"), "Alice");
+
+    data.markPersisted();
+
+    assertThat(data.changedSubtrees()).hasValue(ImmutableList.of());
   }
 
   @Test
@@ -578,4 +778,45 @@ public class ApplicantDataTest {
     assertThat(data.evalPredicate(JsonPathPredicate.create("$.applicant[?(@.one in [\"other\"])]")))
         .isFalse();
   }
+
+  @Test
+  public void readString_largeEnumeratorDocument_matchesJsonPathReads() {
+    Path members = Path.create("applicant.household_members[]");
+    ApplicantData written = new ApplicantData();
+    for (int i = 0; i < 200; i++) {
+      Path member = members.atIndex(i);
+      written.putString(member.join(Scalar.ENTITY_NAME), "member " + i);
+      written.putString(member.join("name.first"), "First" + i);
+      written.putString(member.join("name.last"), "Last" + i);
+      written.putLong(member.join("income.number"), 1000L * i);
+    }
+    String json = written.asJsonString();
+    DocumentContext document = JsonPathProvider.getJsonPath().parse(json);
+    ApplicantData data = new ApplicantData(json);
+
+    int answered = 0;
+    for (int i = 0; i < 200; i++) {
+      Path member = members.atIndex(i);
+      for (Path path :
+          ImmutableList.of(
+              member.join(Scalar.ENTITY_NAME),
+              member.join("name.first"),
+              member.join("name.last"),
+              member.join("income.number"),
+              member.join("employer.text"),
+              member.join("name.middle"),
+              member.join("income").join(Scalar.UPDATED_AT))) {
+        Optional<String> expected;
+        try {
+          expected = Optional.ofNullable(document.read(path.toString(), String.class));
+        } catch (PathNotFoundException e) {
+          expected = Optional.empty();
+        }
+        assertThat(data.hasPath(path)).as(path.toString()).isEqualTo(expected.isPresent());
+        assertThat(data.readString(path)).as(path.toString()).isEqualTo(expected);
+        answered += expected.isPresent() ? 1 : 0;
+      }
+    }
+    assertThat(answered).isEqualTo(200 * 4);
+  }
 }
@@ -15,6 +15,7 @@ import models.Application;
 import models.LifecycleStage;
 import org.junit.Before;
 import org.junit.Test;
+import repository.ApplicationRepository;
 import repository.UserRepository;
 import repository.WithPostgresContainer;
 import services.LocalizedStrings;
@@ -406,6 +407,62 @@ public class ApplicantServiceImplTest extends WithPostgresContainer {
     assertThat(application.getApplicantData().asJsonString()).contains("Alice", "Doe");
   }
 
+  @Test
+  public void submitApplication_storesSummary() {
+    Applicant applicant = subject.createApplicant(1L).toCompletableFuture().join();
+    ImmutableMap<String, String> updates =
+        ImmutableMap.<String, String>builder()
+            .put(Path.create("applicant.name").join(Scalar.FIRST_NAME).toString(), "Alice")
+            .put(Path.create("applicant.name").join(Scalar.LAST_NAME).toString(), "Doe")
+            .build();
+    subject
+        .stageAndUpdateIfValid(applicant.id, programDefinition.id(), "1", updates)
+        .toCompletableFuture()
+        .join();
+
+    Application application =
+        subject
+            .submitApplication(applicant.id, programDefinition.id())
+            .toCompletableFuture()
+            .join();
+    application.refresh();
+
+    assertThat(application.getSummary()).isPresent();
+    assertThat(application.getSummary().get().blocks().get(0).answers().get(0).answerText())
+        .isEqualTo("Alice Doe");
+  }
+
+  @Test
+  public void getApplicationSummary_backfillsOlderApplications() {
+    Applicant applicant = subject.createApplicant(1L).toCompletableFuture().join();
+    ImmutableMap<String, String> updates =
+        ImmutableMap.<String, String>builder()
+            .put(Path.create("applicant.name").join(Scalar.FIRST_NAME).toString(), "Alice")
+            .put(Path.create("applicant.name").join(Scalar.LAST_NAME).toString(), "Doe")
+            .build();
+    subject
+        .stageAndUpdateIfValid(applicant.id, programDefinition.id(), "1", updates)
+        .toCompletableFuture()
+        .join();
+    // Submitted without a summary, like applications submitted before summaries were kept.
+    Application application =
+        instanceOf(ApplicationRepository.class)
+            .submitApplication(applicant.id, programDefinition.id())
+            .toCompletableFuture()
+            .join()
+            .get();
+    assertThat(application.getSummary()).isEmpty();
+    Instant submitTime = application.getSubmitTime();
+
+    ApplicationSummary summary =
+        subject.getApplicationSummary(application).toCompletableFuture().join();
+
+    assertThat(summary.blocks().get(0).answers().get(0).answerText()).isEqualTo("Alice Doe");
+    application.refresh();
+    assertThat(application.getSummary()).contains(summary);
+    assertThat(application.getSubmitTime()).isEqualTo(submitTime);
+  }
+
   @Test
   public void submitApplication_obsoletesOldApplication() {
     Applicant applicant = subject.createApplicant(1L).toCompletableFuture().join();
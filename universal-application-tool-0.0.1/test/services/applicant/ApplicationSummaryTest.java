@@ -0,0 +1,51 @@
+package services.applicant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.Optional;
+import org.junit.Test;
+import services.applicant.ApplicationSummary.AnswerSummary;
+import services.applicant.ApplicationSummary.BlockSummary;
+
+public class ApplicationSummaryTest {
+
+  @Test
+  public void asJsonString_roundTrips() {
+    ApplicationSummary summary =
+        ApplicationSummary.create(
+            ImmutableList.of(
+                BlockSummary.create(
+                    "1",
+                    "Block one",
+                    "The first block",
+                    ImmutableList.of(
+                        AnswerSummary.builder()
+                            .setQuestionId(7L)
+                            .setQuestionName("name")
+                            .setQuestionText("What is your name?")
+                            .setAnswerText("Alice Doe")
+                            .setFileKey(Optional.empty())
+                            .setTimestamp(12345L)
+                            .setIsPreviousResponse(false)
+                            .setScalarAnswersInDefaultLocale(
+                                ImmutableMap.of(
+                                    "applicant.name.first_name", "Alice",
+                                    "applicant.name.last_name", "Doe"))
+                            .build(),
+                        AnswerSummary.builder()
+                            .setQuestionId(8L)
+                            .setQuestionName("file")
+                            .setQuestionText("Upload a file")
+                            .setAnswerText("file-key")
+                            .setFileKey(Optional.of("file-key"))
+                            .setTimestamp(AnswerData.TIMESTAMP_NOT_SET)
+                            .setIsPreviousResponse(true)
+                            .setScalarAnswersInDefaultLocale(ImmutableMap.of())
+                            .build())),
+                BlockSummary.create("2-0", "Repeated", "", ImmutableList.of())));
+
+    assertThat(ApplicationSummary.fromJsonString(summary.asJsonString())).isEqualTo(summary);
+  }
+}
@@ -0,0 +1,301 @@
+package services.applicant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.jayway.jsonpath.DocumentContext;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+import services.Path;
+
+public class JsonTreeNavigatorTest {
+
+  private DocumentContext document;
+
+  @Before
+  public void setUp() {
+    document =
+        JsonPathProvider.getJsonPath()
+            .parse(
+                "{\"applicant\":{\"name\":\"Alice\",\"nothing\":null,\"children\":["
+                    + "{\"entity_name\":\"Bob\",\"age\":4},"
+                    + "{\"entity_name\":\"Carol\",\"pets\":[{\"entity_name\":\"Rex\"}]}]}}");
+  }
+
+  @Test
+  public void contains_existingPaths() {
+    assertThat(JsonTreeNavigator.contains(document.json(), Path.empty())).isTrue();
+    assertThat(JsonTreeNavigator.contains(document.json(), Path.create("applicant.name"))).isTrue();
+    assertThat(JsonTreeNavigator.contains(document.json(), Path.create("applicant.children[1]")))
+        .isTrue();
+    assertThat(
+            JsonTreeNavigator.contains(
+                document.json(), Path.create("applicant.children[1].pets[0].entity_name")))
+        .isTrue();
+  }
+
+  @Test
+  public void contains_nullValue_isTrue() {
+    assertThat(JsonTreeNavigator.contains(document.json(), Path.create("applicant.nothing")))
+        .isTrue();
+  }
+
+  @Test
+  public void contains_missingPaths() {
+    assertThat(JsonTreeNavigator.contains(document.json(), Path.create("applicant.missing")))
+        .isFalse();
+    assertThat(JsonTreeNavigator.contains(document.json(), Path.create("applicant.children[2]")))
+        .isFalse();
+    assertThat(JsonTreeNavigator.contains(document.json(), Path.create("applicant.name.first")))
+        .isFalse();
+    assertThat(JsonTreeNavigator.contains(document.json(), Path.create("applicant.nothing.first")))
+        .isFalse();
+    assertThat(JsonTreeNavigator.contains(document.json(), Path.create("applicant.name[0]")))
+        .isFalse();
+    assertThat(JsonTreeNavigator.contains(document.json(), Path.create("applicant.children[]")))
+        .isFalse();
+  }
+
+  @Test
+  public void get_returnsValueOrNull() {
+    assertThat(JsonTreeNavigator.get(document.json(), Path.create("applicant.children[0].age")))
+        .isEqualTo(4);
+    assertThat(JsonTreeNavigator.get(document.json(), Path.create("applicant.nothing"))).isNull();
+    assertThat(JsonTreeNavigator.get(document.json(), Path.create("applicant.children[7].age")))
+        .isNull();
+  }
+
+  @Test
+  public void putProperty_setsValueOnParentObject() {
+    JsonTreeNavigator.putProperty(document.json(), Path.create("applicant.children[0].age"), 5L);
+
+    assertThat(JsonTreeNavigator.get(document.json(), Path.create("applicant.children[0].age")))
+        .isEqualTo(5L);
+  }
+
+  @Test
+  public void putProperty_missingParent_throws() {
+    assertThatThrownBy(
+            () ->
+                JsonTreeNavigator.putProperty(
+                    document.json(), Path.create("applicant.missing.key"), "value"))
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  public void append_addsToEndOfArray() {
+    JsonTreeNavigator.append(document.json(), Path.create("applicant.children[1].pets"), "Fido");
+
+    assertThat(JsonTreeNavigator.get(document.json(), Path.create("applicant.children[1].pets[1]")))
+        .isEqualTo("Fido");
+  }
+
+  @Test
+  public void append_notAnArray_throws() {
+    assertThatThrownBy(
+            () -> JsonTreeNavigator.append(document.json(), Path.create("applicant.name"), "x"))
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  public void put_createsMissingParents() {
+    JsonTreeNavigator.put(document.json(), Path.create("applicant.children[3].name.first"), "Dan");
+
+    assertThat(JsonTreeNavigator.get(document.json(), Path.create("applicant.children[2]")))
+        .isEqualTo(ImmutableMap.of());
+    assertThat(
+            JsonTreeNavigator.get(document.json(), Path.create("applicant.children[3].name.first")))
+        .isEqualTo("Dan");
+  }
+
+  @Test
+  public void put_arrayElement_appends() {
+    JsonTreeNavigator.put(document.json(), Path.create("applicant.children[1].pets[5]"), "Fido");
+
+    assertThat(JsonTreeNavigator.get(document.json(), Path.create("applicant.children[1].pets[1]")))
+        .isEqualTo("Fido");
+  }
+
+  @Test
+  public void put_parentNotAnObject_throws() {
+    assertThatThrownBy(
+            () -> JsonTreeNavigator.put(document.json(), Path.create("applicant.name.first"), "x"))
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  public void putAll_sharedPrefixes() {
+    Set<ImmutableList<String>> changedSubtrees = new HashSet<>();
+    JsonTreeNavigator.putAll(
+        document.json(),
+        ImmutableMap.of(
+            Path.create("applicant.children[1].pets[0].age"),
+            7L,
+            Path.create("applicant.children[0].age"),
+            5L,
+            Path.create("applicant.children[10].entity_name"),
+            "Kim",
+            Path.create("applicant.children[2].entity_name"),
+            "Dan"),
+        null,
+        changedSubtrees);
+
+    assertThat(JsonTreeNavigator.get(document.json(), Path.create("applicant.children[0].age")))
+        .isEqualTo(5L);
+    assertThat(
+            JsonTreeNavigator.get(
+                document.json(), Path.create("applicant.children[1].pets[0].entity_name")))
+        .isEqualTo("Rex");
+    assertThat(
+            JsonTreeNavigator.get(
+                document.json(), Path.create("applicant.children[1].pets[0].age")))
+        .isEqualTo(7L);
+    assertThat(
+            JsonTreeNavigator.get(
+                document.json(), Path.create("applicant.children[2].entity_name")))
+        .isEqualTo("Dan");
+    assertThat(
+            JsonTreeNavigator.get(
+                document.json(), Path.create("applicant.children[10].entity_name")))
+        .isEqualTo("Kim");
+    assertThat(changedSubtrees)
+        .containsExactlyInAnyOrder(
+            ImmutableList.of("applicant", "children", "0", "age"),
+            ImmutableList.of("applicant", "children", "1", "pets", "0", "age"),
+            ImmutableList.of("applicant", "children"));
+  }
+
+  @Test
+  public void putAll_sharedTree_copiesOnlyContainersWrittenTo() {
+    Object root = document.json();
+    Object bob = JsonTreeNavigator.get(root, Path.create("applicant.children[0]"));
+    Object carol = JsonTreeNavigator.get(root, Path.create("applicant.children[1]"));
+    Set<Object> owned = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    Object copy =
+        JsonTreeNavigator.putAll(
+            root,
+            ImmutableMap.of(
+                Path.create("applicant.children[1].pets[1]"),
+                "Fido",
+                Path.create("applicant.address.city"),
+                "Seattle"),
+            owned,
+            new HashSet<>());
+
+    assertThat(copy).isNotSameAs(root);
+    assertThat(JsonTreeNavigator.get(copy, Path.create("applicant.children[0]"))).isSameAs(bob);
+    assertThat(JsonTreeNavigator.get(copy, Path.create("applicant.children[1]")))
+        .isNotSameAs(carol);
+    assertThat(JsonTreeNavigator.get(copy, Path.create("applicant.children[1].pets[1]")))
+        .isEqualTo("Fido");
+    assertThat(JsonTreeNavigator.contains(root, Path.create("applicant.children[1].pets[1]")))
+        .isFalse();
+    assertThat(JsonTreeNavigator.contains(root, Path.create("applicant.address"))).isFalse();
+    // The new address object was created by the write, so it is owned and is not copied again.
+    assertThat(owned).contains(JsonTreeNavigator.get(copy, Path.create("applicant.address")));
+    Object address = JsonTreeNavigator.get(copy, Path.create("applicant.address"));
+    assertThat(
+            JsonTreeNavigator.putAll(
+                copy,
+                ImmutableMap.of(Path.create("applicant.address.zip"), "98101"),
+                owned,
+                new HashSet<>()))
+        .isSameAs(copy);
+    assertThat(JsonTreeNavigator.get(copy, Path.create("applicant.address"))).isSameAs(address);
+  }
+
+  @Test
+  public void changedSubtree_existingPath_isThePath() {
+    assertThat(
+            JsonTreeNavigator.changedSubtree(
+                document.json(), Path.create("applicant.children[1].pets[0].entity_name")))
+        .containsExactly("applicant", "children", "1", "pets", "0", "entity_name");
+  }
+
+  @Test
+  public void changedSubtree_missingPath_isFirstMissingProperty() {
+    assertThat(
+            JsonTreeNavigator.changedSubtree(
+                document.json(), Path.create("applicant.children[0].name.first")))
+        .containsExactly("applicant", "children", "0", "name");
+    assertThat(
+            JsonTreeNavigator.changedSubtree(
+                document.json(), Path.create("applicant.nothing.first")))
+        .containsExactly("applicant", "nothing");
+  }
+
+  @Test
+  public void changedSubtree_newArrayElement_isTheArray() {
+    assertThat(
+            JsonTreeNavigator.changedSubtree(
+                document.json(), Path.create("applicant.children[2].entity_name")))
+        .containsExactly("applicant", "children");
+    assertThat(
+            JsonTreeNavigator.changedSubtree(
+                document.json(), Path.create("applicant.children[1].pets[0]")))
+        .containsExactly("applicant", "children", "1", "pets");
+  }
+
+  @Test
+  public void getAtKeys() {
+    assertThat(
+            JsonTreeNavigator.getAtKeys(
+                document.json(), ImmutableList.of("applicant", "children", "1", "entity_name")))
+        .isEqualTo("Carol");
+    assertThat(
+            JsonTreeNavigator.getAtKeys(
+                document.json(), ImmutableList.of("applicant", "children", "5", "entity_name")))
+        .isNull();
+  }
+
+  @Test
+  public void copyPath_copiesOnlyContainersOnThePath() {
+    Object root = document.json();
+    Object bob = JsonTreeNavigator.get(root, Path.create("applicant.children[0]"));
+    Object carol = JsonTreeNavigator.get(root, Path.create("applicant.children[1]"));
+    Set<Object> owned = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    Object copy =
+        JsonTreeNavigator.copyPath(root, Path.create("applicant.children[1].pets"), owned);
+    JsonTreeNavigator.append(copy, Path.create("applicant.children[1].pets"), "Fido");
+
+    assertThat(copy).isNotSameAs(root);
+    assertThat(JsonTreeNavigator.get(copy, Path.create("applicant.children[0]"))).isSameAs(bob);
+    assertThat(JsonTreeNavigator.get(copy, Path.create("applicant.children[1]")))
+        .isNotSameAs(carol);
+    assertThat(JsonTreeNavigator.get(copy, Path.create("applicant.children[1].pets[1]")))
+        .isEqualTo("Fido");
+    assertThat(JsonTreeNavigator.contains(root, Path.create("applicant.children[1].pets[1]")))
+        .isFalse();
+    assertThat(JsonTreeNavigator.copyPath(copy, Path.create("applicant.children[1]"), owned))
+        .isSameAs(copy);
+  }
+
+  @Test
+  public void remove_arrayElement_shiftsLaterElements() {
+    assertThat(JsonTreeNavigator.remove(document.json(), Path.create("applicant.children[0]")))
+        .isTrue();
+
+    assertThat(
+            JsonTreeNavigator.get(
+                document.json(), Path.create("applicant.children[0].entity_name")))
+        .isEqualTo("Carol");
+    assertThat(JsonTreeNavigator.contains(document.json(), Path.create("applicant.children[1]")))
+        .isFalse();
+  }
+
+  @Test
+  public void remove_missing_returnsFalse() {
+    assertThat(JsonTreeNavigator.remove(document.json(), Path.create("applicant.children[5]")))
+        .isFalse();
+    assertThat(JsonTreeNavigator.remove(document.json(), Path.create("applicant.missing")))
+        .isFalse();
+  }
+}
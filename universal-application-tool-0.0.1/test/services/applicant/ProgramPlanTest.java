@@ -0,0 +1,125 @@
+package services.applicant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Optional;
+import java.util.OptionalLong;
+import org.junit.Test;
+import services.LocalizedStrings;
+import services.Path;
+import services.applicant.ProgramPlan.BlockPlan;
+import services.program.BlockDefinition;
+import services.program.ProgramDefinition;
+import services.program.ProgramQuestionDefinition;
+import services.question.types.EnumeratorQuestionDefinition;
+import services.question.types.NameQuestionDefinition;
+import services.question.types.QuestionDefinition;
+import services.question.types.ScalarType;
+import services.question.types.TextQuestionDefinition;
+
+public class ProgramPlanTest {
+
+  private static final NameQuestionDefinition NAME_QUESTION =
+      new NameQuestionDefinition(
+          OptionalLong.of(10L),
+          "applicant name",
+          Optional.empty(),
+          "description",
+          LocalizedStrings.withDefaultValue("What is your name?"),
+          LocalizedStrings.empty(),
+          NameQuestionDefinition.NameValidationPredicates.create());
+  private static final EnumeratorQuestionDefinition HOUSEHOLD_QUESTION =
+      new EnumeratorQuestionDefinition(
+          OptionalLong.of(20L),
+          "household members",
+          Optional.empty(),
+          "description",
+          LocalizedStrings.withDefaultValue("Who lives with you?"),
+          LocalizedStrings.empty(),
+          LocalizedStrings.withDefaultValue("member"));
+  private static final TextQuestionDefinition JOB_QUESTION =
+      new TextQuestionDefinition(
+          OptionalLong.of(30L),
+          "job",
+          Optional.of(2L),
+          "description",
+          LocalizedStrings.withDefaultValue("Where does $this work?"),
+          LocalizedStrings.empty(),
+          TextQuestionDefinition.TextValidationPredicates.create());
+
+  private static final ProgramDefinition PROGRAM =
+      ProgramDefinition.builder()
+          .setId(1L)
+          .setAdminName("program")
+          .setAdminDescription("description")
+          .setLocalizedName(LocalizedStrings.withDefaultValue("program"))
+          .setLocalizedDescription(LocalizedStrings.withDefaultValue("description"))
+          .addBlockDefinition(block(1L, Optional.empty(), NAME_QUESTION))
+          .addBlockDefinition(block(2L, Optional.empty(), HOUSEHOLD_QUESTION))
+          .addBlockDefinition(block(3L, Optional.of(2L), JOB_QUESTION))
+          .addBlockDefinition(block(4L, Optional.empty()))
+          .build();
+
+  @Test
+  public void forProgram_isBuiltOncePerProgramDefinition() {
+    assertThat(ProgramPlan.forProgram(PROGRAM)).isSameAs(ProgramPlan.forProgram(PROGRAM));
+  }
+
+  @Test
+  public void blocks_nestRepeatedBlocksUnderTheirEnumerator() {
+    ProgramPlan plan = ProgramPlan.forProgram(PROGRAM);
+
+    assertThat(plan.blocks())
+        .extracting(blockPlan -> blockPlan.blockDefinition().id())
+        .containsExactly(1L, 2L, 4L);
+    assertThat(plan.blocks().get(0).repeatedBlocks()).isEmpty();
+    assertThat(plan.blocks().get(1).repeatedBlocks())
+        .extracting(blockPlan -> blockPlan.blockDefinition().id())
+        .containsExactly(3L);
+    assertThat(plan.blocks().get(1).repeatedBlocks().get(0).questionDefinitions())
+        .containsExactly(JOB_QUESTION);
+  }
+
+  @Test
+  public void applicantScalars_includeMetadata() {
+    BlockPlan nameBlock = ProgramPlan.forProgram(PROGRAM).blocks().get(0);
+
+    assertThat(nameBlock.applicantScalars().get())
+        .containsEntry(Path.create("applicant.applicant_name.first_name"), ScalarType.STRING)
+        .containsEntry(Path.create("applicant.applicant_name.updated_at"), ScalarType.LONG)
+        .hasSize(5);
+  }
+
+  @Test
+  public void applicantScalars_enumeratorBlock_isEmpty() {
+    BlockPlan householdBlock = ProgramPlan.forProgram(PROGRAM).blocks().get(1);
+
+    assertThat(householdBlock.applicantScalars()).isEmpty();
+  }
+
+  @Test
+  public void scalarsIn_repeatedBlock_fillsInTheEntityPath() {
+    BlockPlan jobBlock = ProgramPlan.forProgram(PROGRAM).blocks().get(1).repeatedBlocks().get(0);
+
+    assertThat(jobBlock.scalarsIn(Path.create("applicant.household_members[1]")).get())
+        .containsEntry(Path.create("applicant.household_members[1].job.text"), ScalarType.STRING)
+        .containsEntry(
+            Path.create("applicant.household_members[1].job.program_updated_in"), ScalarType.LONG)
+        .hasSize(jobBlock.scalarTemplates().get().size());
+    assertThat(jobBlock.scalarTemplates().get()).containsEntry("job.text", ScalarType.STRING);
+  }
+
+  private static BlockDefinition block(
+      long id, Optional<Long> enumeratorId, QuestionDefinition... questions) {
+    BlockDefinition.Builder builder =
+        BlockDefinition.builder()
+            .setId(id)
+            .setName("block " + id)
+            .setDescription("description")
+            .setEnumeratorId(enumeratorId);
+    for (QuestionDefinition question : questions) {
+      builder.addQuestion(ProgramQuestionDefinition.create(question));
+    }
+    return builder.build();
+  }
+}
@@ -556,6 +556,49 @@ public class ReadOnlyApplicantProgramServiceImplTest extends WithPostgresContain
     assertThat(result.get(1).answerLink()).isNotEmpty();
   }
 
+  @Test
+  public void getApplicationSummary_matchesSummaryDataAndKeepsFileKey() {
+    QuestionDefinition fileUploadQuestionDefinition =
+        testQuestionBank.applicantFile().getQuestionDefinition();
+    programDefinition =
+        ProgramBuilder.newDraftProgram("My Program")
+            .withBlock("Block one")
+            .withQuestionDefinition(nameQuestion)
+            .withQuestionDefinition(fileUploadQuestionDefinition)
+            .withBlock("Block two")
+            .withQuestionDefinition(colorQuestion)
+            .buildDefinition();
+    answerNameQuestion(programDefinition.id());
+    answerColorQuestion(programDefinition.id());
+    QuestionAnswerer.answerFileQuestion(
+        applicantData,
+        ApplicantData.APPLICANT_PATH.join(fileUploadQuestionDefinition.getQuestionPathSegment()),
+        "test-file-key");
+
+    ReadOnlyApplicantProgramService subject =
+        new ReadOnlyApplicantProgramServiceImpl(amazonS3Client, applicantData, programDefinition);
+    ApplicationSummary summary = subject.getApplicationSummary();
+
+    assertThat(summary.blocks()).hasSize(2);
+    assertThat(summary.blocks().get(0).name()).isEqualTo("Block one");
+    assertThat(summary.blocks().get(0).answers()).hasSize(2);
+    assertThat(summary.blocks().get(1).answers()).hasSize(1);
+    ImmutableList<AnswerData> summaryData = subject.getSummaryData();
+    ImmutableList<ApplicationSummary.AnswerSummary> answers =
+        summary.blocks().stream()
+            .flatMap(block -> block.answers().stream())
+            .collect(ImmutableList.toImmutableList());
+    for (int i = 0; i < summaryData.size(); i++) {
+      assertThat(answers.get(i).questionId())
+          .isEqualTo(summaryData.get(i).questionDefinition().getId());
+      assertThat(answers.get(i).answerText()).isEqualTo(summaryData.get(i).answerText());
+      assertThat(answers.get(i).timestamp()).isEqualTo(summaryData.get(i).timestamp());
+    }
+    assertThat(answers.get(0).fileKey()).isEmpty();
+    assertThat(answers.get(1).fileKey()).contains("test-file-key");
+    assertThat(answers.get(2).answerText()).isEqualTo("mauve");
+  }
+
   @Test
   public void getSummaryData_returnsWithEmptyData() {
     ReadOnlyApplicantProgramService subject =
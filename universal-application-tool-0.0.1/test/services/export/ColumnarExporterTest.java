@@ -0,0 +1,169 @@
+package services.export;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import akka.util.ByteString;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import models.Applicant;
+import models.Application;
+import models.LifecycleStage;
+import models.Program;
+import org.junit.Test;
+import repository.WithPostgresContainer;
+import services.Path;
+import services.program.ExportDefinition;
+import services.program.ExportEngine;
+import services.question.types.ScalarType;
+import support.ProgramBuilder;
+
+public class ColumnarExporterTest extends WithPostgresContainer {
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private static final ImmutableMap<Path, ScalarType> ANSWERS =
+      ImmutableMap.of(
+          Path.create("applicant.name.first"), ScalarType.STRING,
+          Path.create("applicant.birthday.date"), ScalarType.DATE,
+          Path.create("applicant.household_members[0].age.number"), ScalarType.LONG,
+          Path.create("applicant.colors.selection"), ScalarType.STRING);
+
+  @Test
+  public void exportSchema_typesColumnsFromScalarTypes() throws Exception {
+    ColumnarExporter exporter = new ColumnarExporter(ANSWERS);
+
+    JsonNode schema = readLines(exporter.exportSchema()).get(0);
+
+    assertThat(schema.get("columns").toString())
+        .isEqualTo(
+            "[{\"name\":\"id\",\"type\":\"long\"},"
+                + "{\"name\":\"program_id\",\"type\":\"long\"},"
+                + "{\"name\":\"submit_time\",\"type\":\"timestamp\"},"
+                + "{\"name\":\"name_first\",\"type\":\"string\"},"
+                + "{\"name\":\"birthday_date\",\"type\":\"date\"},"
+                + "{\"name\":\"household_members_0_age_number\",\"type\":\"long\"},"
+                + "{\"name\":\"colors_selection\",\"type\":\"long_list\"}]");
+  }
+
+  @Test
+  public void columnNames_namesThatCollide_useThePathAsWritten() {
+    ImmutableList<String> names =
+        ColumnarExporter.columnNames(
+            ImmutableList.of(
+                Path.create("applicant.home_address.street"),
+                Path.create("applicant.home.address_street"),
+                Path.create("applicant.program.id"),
+                Path.create("applicant.name.first")));
+
+    assertThat(names)
+        .containsExactly("home_address.street", "home.address_street", "program.id", "name_first");
+  }
+
+  @Test
+  public void exportRowGroup_writesTypedValuesColumnByColumn() throws Exception {
+    Program program = ProgramBuilder.newActiveProgram().build();
+    Applicant alice = new Applicant();
+    alice.getApplicantData().putString(Path.create("applicant.name.first"), "Alice");
+    alice.getApplicantData().putDate(Path.create("applicant.birthday.date"), "1990-01-31");
+    alice.getApplicantData().putLong(Path.create("applicant.household_members[0].age.number"), 7L);
+    alice.getApplicantData().putLong(Path.create("applicant.colors.selection[0]"), 1L);
+    alice.getApplicantData().putLong(Path.create("applicant.colors.selection[1]"), 3L);
+    alice.save();
+    Applicant bob = new Applicant();
+    bob.getApplicantData().putString(Path.create("applicant.name.first"), "Bob");
+    bob.getApplicantData().putLong(Path.create("applicant.colors.selection"), 2L);
+    bob.save();
+    Application aliceApplication = new Application(alice, program, LifecycleStage.ACTIVE);
+    aliceApplication.save();
+    Application bobApplication = new Application(bob, program, LifecycleStage.ACTIVE);
+    bobApplication.save();
+
+    ColumnarExporter exporter = new ColumnarExporter(ANSWERS);
+    JsonNode rowGroup =
+        readLines(exporter.exportRowGroup(ImmutableList.of(aliceApplication, bobApplication)))
+            .get(0);
+
+    assertThat(rowGroup.get("rows").asInt()).isEqualTo(2);
+    JsonNode columns = rowGroup.get("columns");
+    assertThat(columns).hasSize(7);
+    assertThat(columns.get(0).toString())
+        .isEqualTo(String.format("[%d,%d]", aliceApplication.id, bobApplication.id));
+    assertThat(columns.get(1).toString())
+        .isEqualTo(String.format("[%d,%d]", program.id, program.id));
+    assertThat(columns.get(3).toString()).isEqualTo("[\"Alice\",\"Bob\"]");
+    assertThat(columns.get(4).toString()).isEqualTo("[\"1990-01-31\",null]");
+    assertThat(columns.get(5).toString()).isEqualTo("[7,null]");
+    assertThat(columns.get(6).toString()).isEqualTo("[[1,3],[2]]");
+  }
+
+  @Test
+  public void concatenatedMembers_areOneGzipFile() throws Exception {
+    ColumnarExporter exporter = new ColumnarExporter(ANSWERS);
+
+    ImmutableList<JsonNode> lines =
+        readLines(
+            exporter
+                .exportSchema()
+                .concat(exporter.exportRowGroup(ImmutableList.of()))
+                .concat(exporter.exportRowGroup(ImmutableList.of())));
+
+    assertThat(lines).hasSize(3);
+    assertThat(lines.get(0).has("columns")).isTrue();
+    assertThat(lines.get(1).get("rows").asInt()).isEqualTo(0);
+    assertThat(lines.get(2).get("rows").asInt()).isEqualTo(0);
+  }
+
+  @Test
+  public void getProgramColumnarSource_withColumnarExportDefinition_streamsSchemaAndRows()
+      throws Exception {
+    Program program =
+        ProgramBuilder.newActiveProgram()
+            .withExportDefinition(
+                ExportDefinition.builder().setEngine(ExportEngine.COLUMNAR).build())
+            .build();
+    new Application(new Applicant(), program, LifecycleStage.ACTIVE).save();
+
+    ByteString file =
+        instanceOf(ExporterService.class)
+            .getProgramColumnarSource(program.id)
+            .runFold(ByteString.emptyByteString(), ByteString::concat, mat)
+            .toCompletableFuture()
+            .join();
+
+    ImmutableList<JsonNode> lines = readLines(file);
+    assertThat(lines).hasSize(2);
+    assertThat(lines.get(0).has("columns")).isTrue();
+    assertThat(lines.get(1).get("rows").asInt()).isEqualTo(1);
+  }
+
+  @Test
+  public void getProgramColumnarSource_withoutColumnarExportDefinition_isNotConfigured() {
+    Program program =
+        ProgramBuilder.newActiveProgram()
+            .withExportDefinition(ExportDefinition.builder().setEngine(ExportEngine.CSV).build())
+            .build();
+
+    assertThatThrownBy(() -> instanceOf(ExporterService.class).getProgramColumnarSource(program.id))
+        .isInstanceOf(NotConfiguredException.class);
+  }
+
+  private static ImmutableList<JsonNode> readLines(ByteString gzipped) throws IOException {
+    String text =
+        new String(
+            ByteStreams.toByteArray(
+                new GZIPInputStream(new ByteArrayInputStream(gzipped.toArray()))),
+            StandardCharsets.UTF_8);
+    ImmutableList.Builder<JsonNode> lines = ImmutableList.builder();
+    for (String line : text.split("\n")) {
+      lines.add(MAPPER.readTree(line));
+    }
+    return lines.build();
+  }
+}
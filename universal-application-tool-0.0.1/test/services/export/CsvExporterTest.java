@@ -2,6 +2,9 @@ package services.export;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import akka.NotUsed;
+import akka.stream.javadsl.Source;
+import akka.util.ByteString;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import java.io.ByteArrayOutputStream;
@@ -155,6 +158,137 @@ public class CsvExporterTest extends WithPostgresContainer {
     assertThat(records.get(0).get("multiselect")).isEqualTo("[1, 2]");
   }
 
+  @Test
+  public void getProgramCsvSource_matchesCsvExporter() throws Exception {
+    Program program =
+        ProgramBuilder.newActiveProgram()
+            .withExportDefinition(
+                ExportDefinition.builder()
+                    .setEngine(ExportEngine.CSV)
+                    .setCsvConfig(Optional.of(createFakeCsvConfig()))
+                    .build())
+            .build();
+    CsvExporter exporter = instanceOf(ExporterFactory.class).csvExporter(program);
+    for (Applicant applicant : fakeApplicants) {
+      Application application = new Application(applicant, program, LifecycleStage.ACTIVE);
+      application.save();
+      exporter.export(application, writer);
+    }
+    writer.close();
+
+    String streamed =
+        runToString(instanceOf(ExporterService.class).getProgramCsvSource(program.id));
+
+    assertThat(streamed).isEqualTo(inMemoryBytes.toString(StandardCharsets.UTF_8));
+    assertThat(CSVParser.parse(streamed, CSVFormat.DEFAULT.withFirstRecordAsHeader()).getRecords())
+        .hasSize(2);
+  }
+
+  @Test
+  public void getProgramCsvSince_onlyExportsApplicationsAfterTheWatermark() throws Exception {
+    Program program =
+        ProgramBuilder.newActiveProgram()
+            .withExportDefinition(
+                ExportDefinition.builder()
+                    .setEngine(ExportEngine.CSV)
+                    .setCsvConfig(Optional.of(createFakeCsvConfig()))
+                    .build())
+            .build();
+    Application first = new Application(fakeApplicants.get(0), program, LifecycleStage.ACTIVE);
+    first.save();
+    new Application(fakeApplicants.get(1), program, LifecycleStage.OBSOLETE).save();
+    ExporterService exporterService = instanceOf(ExporterService.class);
+
+    IncrementalExport everything =
+        exporterService.getProgramCsvSince(program.id, Optional.empty(), CsvExportFormat.APPEND);
+    assertThat(everything.watermark()).isPresent();
+    assertThat(CSVParser.parse(runToString(everything), CSVFormat.DEFAULT).getRecords()).hasSize(1);
+
+    Thread.sleep(10);
+    new Application(fakeApplicants.get(1), program, LifecycleStage.ACTIVE).save();
+    IncrementalExport delta =
+        exporterService.getProgramCsvSince(
+            program.id, everything.watermark(), CsvExportFormat.STANDARD);
+    List<CSVRecord> records =
+        CSVParser.parse(runToString(delta), CSVFormat.DEFAULT.withFirstRecordAsHeader())
+            .getRecords();
+    assertThat(records).hasSize(1);
+    assertThat(records.get(0).get("first name")).isEqualTo("Bob");
+
+    // Saving an exported application again moves its submit time, but does not export it again.
+    first.markAsDirty();
+    first.save();
+    IncrementalExport nothing =
+        exporterService.getProgramCsvSince(program.id, delta.watermark(), CsvExportFormat.APPEND);
+    assertThat(nothing.watermark()).isEqualTo(delta.watermark());
+    assertThat(runToString(nothing)).isEmpty();
+  }
+
+  @Test
+  public void getAllVersionsCsvSource_unionsColumnsAndNamesEachRowsVersion() throws Exception {
+    CsvExportConfig oldConfig =
+        CsvExportConfig.builder()
+            .addColumn(
+                Column.builder()
+                    .setHeader("first name")
+                    .setJsonPath(Path.create("$.applicant.applicant_name.first_name"))
+                    .setColumnType(ColumnType.APPLICANT)
+                    .build())
+            .build();
+    CsvExportConfig newConfig =
+        CsvExportConfig.builder()
+            .addColumn(
+                Column.builder()
+                    .setHeader("last name")
+                    .setJsonPath(Path.create("$.applicant.applicant_name.last_name"))
+                    .setColumnType(ColumnType.APPLICANT)
+                    .build())
+            .build();
+    Program oldVersion = programWithCsvConfig("versioned program", oldConfig);
+    Program newVersion = programWithCsvConfig("versioned program", newConfig);
+    new Application(fakeApplicants.get(0), oldVersion, LifecycleStage.OBSOLETE).save();
+    new Application(fakeApplicants.get(1), newVersion, LifecycleStage.ACTIVE).save();
+
+    String csv =
+        instanceOf(ExporterService.class)
+            .getAllVersionsCsvSource("versioned program")
+            .runFold(ByteString.emptyByteString(), ByteString::concat, mat)
+            .toCompletableFuture()
+            .join()
+            .utf8String();
+
+    CSVParser parser = CSVParser.parse(csv, CSVFormat.DEFAULT.withFirstRecordAsHeader());
+    assertThat(parser.getHeaderMap().keySet())
+        .containsExactly("Program ID", "last name", "first name");
+    List<CSVRecord> records = parser.getRecords();
+    assertThat(records).hasSize(2);
+    assertThat(records.get(0).get("Program ID")).isEqualTo(oldVersion.id.toString());
+    assertThat(records.get(0).get("first name")).isEqualTo("Alice");
+    assertThat(records.get(1).get("Program ID")).isEqualTo(newVersion.id.toString());
+    assertThat(records.get(1).get("first name")).isEmpty();
+  }
+
+  private static Program programWithCsvConfig(String name, CsvExportConfig config) {
+    return ProgramBuilder.newActiveProgram(name)
+        .withExportDefinition(
+            ExportDefinition.builder()
+                .setEngine(ExportEngine.CSV)
+                .setCsvConfig(Optional.of(config))
+                .build())
+        .build();
+  }
+
+  private String runToString(IncrementalExport export) {
+    return runToString(export.csv());
+  }
+
+  private String runToString(Source<ByteString, NotUsed> csv) {
+    return csv.runFold(ByteString.emptyByteString(), ByteString::concat, mat)
+        .toCompletableFuture()
+        .join()
+        .utf8String();
+  }
+
   @Test
   public void useExporterService() throws Exception {
     // Define the program
@@ -292,7 +426,8 @@ public class CsvExporterTest extends WithPostgresContainer {
 
     CSVParser parser =
         CSVParser.parse(
-            exporterService.getProgramCsv(program.id), CSVFormat.DEFAULT.withFirstRecordAsHeader());
+            runToString(exporterService.getProgramCsvSource(program.id)),
+            CSVFormat.DEFAULT.withFirstRecordAsHeader());
 
     assertThat(parser.getHeaderMap())
         .containsExactlyEntriesOf(
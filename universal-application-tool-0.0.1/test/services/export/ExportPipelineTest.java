@@ -0,0 +1,76 @@
+package services.export;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import akka.actor.ActorSystem;
+import akka.stream.Materializer;
+import akka.stream.javadsl.Source;
+import akka.util.ByteString;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ExportPipelineTest {
+
+  private static final Config CONFIG =
+      ConfigFactory.parseString(
+              "export { parallelism = 4, dispatcher { executor = \"fork-join-executor\","
+                  + " fork-join-executor { parallelism-min = 4, parallelism-max = 4 } } }")
+          .withFallback(ConfigFactory.load());
+
+  private static ActorSystem actorSystem;
+  private static Materializer mat;
+  private static ExportPipeline exportPipeline;
+
+  @BeforeClass
+  public static void startActorSystem() {
+    actorSystem = ActorSystem.create("ExportPipelineTest", CONFIG);
+    mat = Materializer.matFromSystem(actorSystem);
+    exportPipeline = new ExportPipeline(new ExportExecutionContext(actorSystem), CONFIG);
+  }
+
+  @AfterClass
+  public static void stopActorSystem() {
+    actorSystem.terminate();
+  }
+
+  @Test
+  public void formatInOrder_keepsOrder_whenLaterChunksFinishFirst() {
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+    List<Integer> items = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+
+    String formatted =
+        exportPipeline
+            .formatInOrder(
+                Source.from(items),
+                10,
+                chunk -> {
+                  threads.add(Thread.currentThread().getName());
+                  sleep(chunk.get(0) % 20 == 0 ? 50 : 0);
+                  return ByteString.fromString(
+                      chunk.stream().map(i -> i + ",").collect(Collectors.joining()));
+                })
+            .runFold(ByteString.emptyByteString(), ByteString::concat, mat)
+            .toCompletableFuture()
+            .join()
+            .utf8String();
+
+    assertThat(formatted).isEqualTo(items.stream().map(i -> i + ",").collect(Collectors.joining()));
+    assertThat(threads).allMatch(thread -> thread.contains("export.dispatcher"));
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
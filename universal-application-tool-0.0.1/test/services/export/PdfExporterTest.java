@@ -6,9 +6,7 @@ import com.google.common.collect.ImmutableMap;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
-import java.nio.charset.StandardCharsets;
+import java.net.URI;
 import java.util.Locale;
 import java.util.Optional;
 import models.Applicant;
@@ -29,7 +27,6 @@ import services.program.ProgramDefinition;
 public class PdfExporterTest extends WithPostgresContainer {
   private static Program fakeProgramWithPdfExport;
   private Applicant fakeApplicant;
-  private Writer writer;
   private ByteArrayOutputStream inMemoryBytes;
   private static final String APPLICANT_VALUE = "this will get filled into the form.";
 
@@ -66,9 +63,8 @@ public class PdfExporterTest extends WithPostgresContainer {
   }
 
   @Before
-  public void createInMemoryWriter() {
+  public void createInMemoryStream() {
     this.inMemoryBytes = new ByteArrayOutputStream();
-    this.writer = new OutputStreamWriter(inMemoryBytes, StandardCharsets.UTF_8);
   }
 
   @Test
@@ -84,8 +80,7 @@ public class PdfExporterTest extends WithPostgresContainer {
     // Create exporter and perform services.export.
     ExporterFactory exporterFactory = instanceOf(ExporterFactory.class);
     PdfExporter exporters = exporterFactory.pdfExporter(this.fakeProgramWithPdfExport);
-    exporters.export(fakeApplicant, writer);
-    writer.close();
+    exporters.export(fakeApplicant, inMemoryBytes);
 
     // Load output document and check value.
     PDDocument outputDocument = PDDocument.load(inMemoryBytes.toByteArray());
@@ -93,4 +88,12 @@ public class PdfExporterTest extends WithPostgresContainer {
     assertThat(outputField).isNotNull();
     assertThat(outputField.getValueAsString()).isEqualTo(APPLICANT_VALUE);
   }
+
+  @Test
+  public void exporterFactory_cachesTheBaseDocument() throws IOException {
+    PdfTemplateCache cache = instanceOf(PdfTemplateCache.class);
+    URI basePdf = new File("test/services/export/base.pdf").toURI();
+
+    assertThat(cache.get(basePdf)).isSameAs(cache.get(basePdf));
+  }
 }
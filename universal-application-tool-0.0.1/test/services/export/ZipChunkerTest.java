@@ -0,0 +1,32 @@
+package services.export;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import akka.util.ByteString;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import org.junit.Test;
+
+public class ZipChunkerTest {
+
+  @Test
+  public void chunksConcatenateToAZipFile() throws Exception {
+    ZipChunker zip = new ZipChunker();
+    ByteString file =
+        zip.add("one.txt", "first".getBytes(StandardCharsets.UTF_8))
+            .concat(zip.add("two.txt", "second".getBytes(StandardCharsets.UTF_8)))
+            .concat(zip.finish());
+
+    try (ZipInputStream entries = new ZipInputStream(new ByteArrayInputStream(file.toArray()))) {
+      ZipEntry entry = entries.getNextEntry();
+      assertThat(entry.getName()).isEqualTo("one.txt");
+      assertThat(new String(entries.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("first");
+      entry = entries.getNextEntry();
+      assertThat(entry.getName()).isEqualTo("two.txt");
+      assertThat(new String(entries.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("second");
+      assertThat(entries.getNextEntry()).isNull();
+    }
+  }
+}
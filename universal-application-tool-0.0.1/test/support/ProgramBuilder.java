@@ -7,6 +7,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import models.Program;
 import models.Question;
 import play.inject.Injector;
+import repository.VersionCache;
 import repository.VersionRepository;
 import services.program.BlockDefinition;
 import services.program.ExportDefinition;
@@ -60,6 +61,7 @@ public class ProgramBuilder {
     Program program = new Program(name, description, name, description);
     program.addVersion(versionRepository.getDraftVersion());
     program.save();
+    injector.instanceOf(VersionCache.class).invalidate();
     ProgramDefinition.Builder builder =
         program.getProgramDefinition().toBuilder()
             .setBlockDefinitions(ImmutableList.of())
@@ -89,6 +91,7 @@ public class ProgramBuilder {
     Program program = new Program(name, description, name, description);
     program.addVersion(versionRepository.getActiveVersion());
     program.save();
+    injector.instanceOf(VersionCache.class).invalidate();
     ProgramDefinition.Builder builder =
         program.getProgramDefinition().toBuilder()
             .setBlockDefinitions(ImmutableList.of())
@@ -152,6 +155,7 @@ public class ProgramBuilder {
 
     Program program = programDefinition.toProgram();
     program.update();
+    injector.instanceOf(VersionCache.class).invalidate();
     return program;
   }
 
@@ -12,6 +12,7 @@ import models.Program;
 import models.Question;
 import play.db.ebean.EbeanConfig;
 import play.inject.Injector;
+import repository.VersionCache;
 import services.LocalizedStrings;
 import services.question.types.QuestionDefinition;
 import services.question.types.TextQuestionDefinition;
@@ -19,14 +20,17 @@ import services.question.types.TextQuestionDefinition;
 public class ResourceCreator {
 
   private final EbeanServer ebeanServer;
+  private final VersionCache versionCache;
 
   public ResourceCreator(Injector injector) {
     this.ebeanServer = Ebean.getServer(injector.instanceOf(EbeanConfig.class).defaultServer());
+    this.versionCache = injector.instanceOf(VersionCache.class);
     ProgramBuilder.setInjector(injector);
   }
 
   public void truncateTables() {
     Models.truncate(ebeanServer);
+    versionCache.invalidate();
   }
 
   public Question insertQuestion() {